@@ -25,9 +25,12 @@
 
 package java.lang;
 
-import sun.misc.FloatingDecimal;
 import java.util.Arrays;
 
+import static java.lang.String.COMPACT_STRINGS;
+import static java.lang.String.UTF16;
+import static java.lang.String.LATIN1;
+
 /**
  * A mutable sequence of characters.
  * <p>
@@ -42,9 +45,18 @@ import java.util.Arrays;
  */
 abstract class AbstractStringBuilder implements Appendable, CharSequence {
     /**
-     * The value is used for character storage.
+     * The value is used for character storage: one byte per char if
+     * {@code coder} is {@code LATIN1}, else two.
+     */
+    byte[] value;
+
+    /**
+     * The id of the encoding used to encode the bytes in {@code value}.
+     * Starts as {@code LATIN1} and changes to {@code UTF16} when the
+     * first char above {@code '\u00FF'} is stored, for good unless the
+     * builder is emptied by {@link #recycle}.
      */
-    char[] value;
+    byte coder;
 
     /**
      * The count is the number of characters used.
@@ -61,7 +73,13 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * Creates an AbstractStringBuilder of the specified capacity.
      */
     AbstractStringBuilder(int capacity) {
-        value = new char[capacity];
+        if (COMPACT_STRINGS) {
+            value = new byte[capacity];
+            coder = LATIN1;
+        } else {
+            value = StringUTF16.newBytesFor(capacity);
+            coder = UTF16;
+        }
     }
 
     /**
@@ -82,7 +100,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  the current capacity
      */
     public int capacity() {
-        return value.length;
+        return value.length >> coder;
     }
 
     /**
@@ -110,7 +128,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      */
     private void ensureCapacityInternal(int minimumCapacity) {
         // overflow-conscious code
-        if (minimumCapacity - value.length > 0)
+        if (minimumCapacity - (value.length >> coder) > 0)
             expandCapacity(minimumCapacity);
     }
 
@@ -119,7 +137,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * size check or synchronization.
      */
     void expandCapacity(int minimumCapacity) {
-        int newCapacity = value.length * 2 + 2;
+        int newCapacity = (value.length >> coder) * 2 + 2;
         if (newCapacity - minimumCapacity < 0)
             newCapacity = minimumCapacity;
         if (newCapacity < 0) {
@@ -127,7 +145,26 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
                 throw new OutOfMemoryError();
             newCapacity = Integer.MAX_VALUE;
         }
-        value = Arrays.copyOf(value, newCapacity);
+        if (coder == UTF16 && newCapacity > StringUTF16.MAX_LENGTH) {
+            if (minimumCapacity > StringUTF16.MAX_LENGTH)
+                throw new OutOfMemoryError();
+            newCapacity = StringUTF16.MAX_LENGTH;
+        }
+        value = Arrays.copyOf(value, newCapacity << coder);
+    }
+
+    /**
+     * If the coder is LATIN1, converts the value to UTF16, keeping the
+     * capacity and the first {@code count} chars.
+     */
+    private void inflate() {
+        if (!isLatin1()) {
+            return;
+        }
+        byte[] buf = StringUTF16.newBytesFor(value.length);
+        StringLatin1.inflate(value, 0, buf, 0, count);
+        this.value = buf;
+        this.coder = UTF16;
     }
 
     /**
@@ -138,11 +175,28 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * returned by a subsequent call to the {@link #capacity()} method.
      */
     public void trimToSize() {
-        if (count < value.length) {
-            value = Arrays.copyOf(value, count);
+        int length = count << coder;
+        if (length < value.length) {
+            value = Arrays.copyOf(value, length);
         }
     }
 
+    /**
+     * Empties this sequence for reuse by {@link StringBuilderPool}.
+     * Unlike {@code setLength(0)}, this returns the value to the
+     * {@code LATIN1} coder, keeping the array, and replaces a value that
+     * has grown beyond maximumCapacity chars by one of initialCapacity
+     * chars, so that a single long message does not pin a large array
+     * for the life of a pooled builder.
+     */
+    void recycle(int initialCapacity, int maximumCapacity) {
+        count = 0;
+        if (COMPACT_STRINGS)
+            coder = LATIN1;
+        if ((value.length >> coder) > maximumCapacity)
+            value = new byte[initialCapacity << coder];
+    }
+
     /**
      * Sets the length of the character sequence.
      * The sequence is changed to a new character sequence
@@ -174,11 +228,9 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         ensureCapacityInternal(newLength);
 
         if (count < newLength) {
-            for (; count < newLength; count++)
-                value[count] = '\0';
-        } else {
-            count = newLength;
+            Arrays.fill(value, count << coder, newLength << coder, (byte)0);
         }
+        count = newLength;
     }
 
     /**
@@ -201,7 +253,10 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     public char charAt(int index) {
         if ((index < 0) || (index >= count))
             throw new StringIndexOutOfBoundsException(index);
-        return value[index];
+        if (isLatin1()) {
+            return (char)(value[index] & 0xff);
+        }
+        return StringUTF16.getChar(value, index);
     }
 
     /**
@@ -229,7 +284,10 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         if ((index < 0) || (index >= count)) {
             throw new StringIndexOutOfBoundsException(index);
         }
-        return Character.codePointAt(value, index);
+        if (isLatin1()) {
+            return value[index] & 0xff;
+        }
+        return StringUTF16.codePointAt(value, index, count);
     }
 
     /**
@@ -258,7 +316,10 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         if ((i < 0) || (i >= count)) {
             throw new StringIndexOutOfBoundsException(index);
         }
-        return Character.codePointBefore(value, index);
+        if (isLatin1()) {
+            return value[i] & 0xff;
+        }
+        return StringUTF16.codePointBefore(value, index);
     }
 
     /**
@@ -285,7 +346,10 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         if (beginIndex < 0 || endIndex > count || beginIndex > endIndex) {
             throw new IndexOutOfBoundsException();
         }
-        return Character.codePointCountImpl(value, beginIndex, endIndex-beginIndex);
+        if (isLatin1()) {
+            return endIndex - beginIndex;
+        }
+        return StringUTF16.codePointCount(value, beginIndex, endIndex);
     }
 
     /**
@@ -311,8 +375,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         if (index < 0 || index > count) {
             throw new IndexOutOfBoundsException();
         }
-        return Character.offsetByCodePointsImpl(value, 0, count,
-                                                index, codePointOffset);
+        return Character.offsetByCodePoints(this, index, codePointOffset);
     }
 
     /**
@@ -353,7 +416,12 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
             throw new StringIndexOutOfBoundsException(srcEnd);
         if (srcBegin > srcEnd)
             throw new StringIndexOutOfBoundsException("srcBegin > srcEnd");
-        System.arraycopy(value, srcBegin, dst, dstBegin, srcEnd - srcBegin);
+        if (isLatin1()) {
+            StringLatin1.inflate(value, srcBegin, dst, dstBegin,
+                                 srcEnd - srcBegin);
+        } else {
+            StringUTF16.getChars(value, srcBegin, srcEnd, dst, dstBegin);
+        }
     }
 
     /**
@@ -373,7 +441,12 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     public void setCharAt(int index, char ch) {
         if ((index < 0) || (index >= count))
             throw new StringIndexOutOfBoundsException(index);
-        value[index] = ch;
+        if (isLatin1() && StringLatin1.canEncode(ch)) {
+            value[index] = (byte)ch;
+        } else {
+            inflate();
+            StringUTF16.putChar(value, index, ch);
+        }
     }
 
     /**
@@ -413,18 +486,26 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         if (str == null) str = "null";
         int len = str.length();
         ensureCapacityInternal(count + len);
-        str.getChars(0, len, value, count);
+        putStringAt(count, str);
         count += len;
         return this;
     }
 
     // Documentation in subclasses because of synchro difference
     public AbstractStringBuilder append(StringBuffer sb) {
-        if (sb == null)
+        return this.append((AbstractStringBuilder)sb);
+    }
+
+    // Shared by append(StringBuffer) and StringBuilder.append(StringBuilder)
+    AbstractStringBuilder append(AbstractStringBuilder asb) {
+        if (asb == null)
             return append("null");
-        int len = sb.length();
+        int len = asb.length();
         ensureCapacityInternal(count + len);
-        sb.getChars(0, len, value, count);
+        if (getCoder() != asb.getCoder()) {
+            inflate();
+        }
+        asb.getBytes(value, count, coder);
         count += len;
         return this;
     }
@@ -435,8 +516,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
             s = "null";
         if (s instanceof String)
             return this.append((String)s);
-        if (s instanceof StringBuffer)
-            return this.append((StringBuffer)s);
+        if (s instanceof AbstractStringBuilder)
+            return this.append((AbstractStringBuilder)s);
         return this.append(s, 0, s.length());
     }
 
@@ -478,9 +559,9 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
                 + s.length());
         int len = end - start;
         ensureCapacityInternal(count + len);
-        for (int i = start, j = count; i < end; i++, j++)
-            value[j] = s.charAt(i);
+        int index = count;
         count += len;
+        putCharsAt(index, s, start, end);
         return this;
     }
 
@@ -503,8 +584,9 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     public AbstractStringBuilder append(char[] str) {
         int len = str.length;
         ensureCapacityInternal(count + len);
-        System.arraycopy(str, 0, value, count, len);
+        int index = count;
         count += len;
+        putCharsAt(index, str, 0, len);
         return this;
     }
 
@@ -531,10 +613,14 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      *         or {@code offset+len > str.length}
      */
     public AbstractStringBuilder append(char str[], int offset, int len) {
-        if (len > 0)                // let arraycopy report AIOOBE for len < 0
-            ensureCapacityInternal(count + len);
-        System.arraycopy(str, offset, value, count, len);
+        if ((offset < 0) || (len < 0) || (offset > str.length - len))
+            throw new IndexOutOfBoundsException(
+                "offset " + offset + ", len " + len + ", str.length "
+                + str.length);
+        ensureCapacityInternal(count + len);
+        int index = count;
         count += len;
+        putCharsAt(index, str, offset, offset + len);
         return this;
     }
 
@@ -551,20 +637,11 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  a reference to this object.
      */
     public AbstractStringBuilder append(boolean b) {
-        if (b) {
-            ensureCapacityInternal(count + 4);
-            value[count++] = 't';
-            value[count++] = 'r';
-            value[count++] = 'u';
-            value[count++] = 'e';
-        } else {
-            ensureCapacityInternal(count + 5);
-            value[count++] = 'f';
-            value[count++] = 'a';
-            value[count++] = 'l';
-            value[count++] = 's';
-            value[count++] = 'e';
-        }
+        String s = b ? "true" : "false";
+        int len = s.length();
+        ensureCapacityInternal(count + len);
+        putStringAt(count, s);
+        count += len;
         return this;
     }
 
@@ -585,7 +662,12 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      */
     public AbstractStringBuilder append(char c) {
         ensureCapacityInternal(count + 1);
-        value[count++] = c;
+        if (isLatin1() && StringLatin1.canEncode(c)) {
+            value[count++] = (byte)c;
+        } else {
+            inflate();
+            StringUTF16.putChar(value, count++, c);
+        }
         return this;
     }
 
@@ -602,15 +684,14 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  a reference to this object.
      */
     public AbstractStringBuilder append(int i) {
-        if (i == Integer.MIN_VALUE) {
-            append("-2147483648");
-            return this;
-        }
-        int appendedLength = (i < 0) ? Integer.stringSize(-i) + 1
-                                     : Integer.stringSize(i);
-        int spaceNeeded = count + appendedLength;
+        int spaceNeeded = count + ((i < 0) ? digitCount(i) + 1
+                                           : Integer.stringSize(i));
         ensureCapacityInternal(spaceNeeded);
-        Integer.getChars(i, spaceNeeded, value);
+        if (isLatin1()) {
+            StringLatin1.getChars(i, spaceNeeded, value);
+        } else {
+            StringUTF16.getChars(i, spaceNeeded, value);
+        }
         count = spaceNeeded;
         return this;
     }
@@ -628,19 +709,359 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  a reference to this object.
      */
     public AbstractStringBuilder append(long l) {
-        if (l == Long.MIN_VALUE) {
-            append("-9223372036854775808");
-            return this;
+        int spaceNeeded = count + ((l < 0) ? digitCount(l) + 1
+                                           : Long.stringSize(l));
+        ensureCapacityInternal(spaceNeeded);
+        if (isLatin1()) {
+            StringLatin1.getChars(l, spaceNeeded, value);
+        } else {
+            StringUTF16.getChars(l, spaceNeeded, value);
         }
-        int appendedLength = (l < 0) ? Long.stringSize(-l) + 1
-                                     : Long.stringSize(l);
-        int spaceNeeded = count + appendedLength;
+        count = spaceNeeded;
+        return this;
+    }
+
+    /**
+     * Appends the string representation of the {@code int} argument,
+     * padded on the left with zeros to at least {@code width} chars.
+     * A minus sign, if any, precedes the zeros and counts toward the
+     * width.
+     * <p>
+     * For a positive width the overall effect is exactly as if the
+     * argument were converted to a string by
+     * {@code String.format("%0" + width + "d", i)}, and the characters
+     * of that string were then {@link #append(String) appended} to this
+     * character sequence.
+     *
+     * @param   i       an {@code int}.
+     * @param   width   the minimum number of chars to append.
+     * @return  a reference to this object.
+     * @throws  IllegalArgumentException if {@code width} is negative.
+     * @since 1.7
+     */
+    public AbstractStringBuilder appendZeroPadded(int i, int width) {
+        return appendZeroPadded((long)i, width);
+    }
+
+    /**
+     * Appends the string representation of the {@code long} argument,
+     * padded on the left with zeros to at least {@code width} chars.
+     * A minus sign, if any, precedes the zeros and counts toward the
+     * width.
+     * <p>
+     * For a positive width the overall effect is exactly as if the
+     * argument were converted to a string by
+     * {@code String.format("%0" + width + "d", l)}, and the characters
+     * of that string were then {@link #append(String) appended} to this
+     * character sequence.
+     *
+     * @param   l       a {@code long}.
+     * @param   width   the minimum number of chars to append.
+     * @return  a reference to this object.
+     * @throws  IllegalArgumentException if {@code width} is negative.
+     * @since 1.7
+     */
+    public AbstractStringBuilder appendZeroPadded(long l, int width) {
+        if (width < 0)
+            throw new IllegalArgumentException("Negative width: " + width);
+        int sign = (l < 0) ? 1 : 0;
+        int digits = digitCount(l);
+        int start = count;
+        int end = start + Math.max(sign + digits, width);
+        ensureCapacityInternal(end);
+        if (isLatin1()) {
+            StringLatin1.getChars(l, end, value);
+        } else {
+            StringUTF16.getChars(l, end, value);
+        }
+        // the zeros go between the sign and the digits, over the sign
+        // that getChars placed before the digits
+        putZeros(start + sign, end - digits);
+        if (sign != 0) {
+            if (isLatin1()) {
+                value[start] = '-';
+            } else {
+                StringUTF16.putChar(value, start, '-');
+            }
+        }
+        count = end;
+        return this;
+    }
+
+    /**
+     * Appends the string representation of the {@code int} argument
+     * as an unsigned integer in base&nbsp;16.
+     * <p>
+     * The overall effect is exactly as if the argument were converted
+     * to a string by the method {@link Integer#toHexString(int)},
+     * and the characters of that string were then
+     * {@link #append(String) appended} to this character sequence.
+     *
+     * @param   i   an {@code int}.
+     * @return  a reference to this object.
+     * @since 1.7
+     */
+    public AbstractStringBuilder appendHex(int i) {
+        return appendUnsigned(i & 0xffffffffL, 4, 1);
+    }
+
+    /**
+     * Appends the string representation of the {@code int} argument
+     * as an unsigned integer in base&nbsp;16, padded on the left with
+     * zeros to at least {@code width} digits.
+     * <p>
+     * For a positive width the overall effect is exactly as if the
+     * argument were converted to a string by
+     * {@code String.format("%0" + width + "x", i)}, and the characters
+     * of that string were then {@link #append(String) appended} to this
+     * character sequence.
+     *
+     * @param   i       an {@code int}.
+     * @param   width   the minimum number of digits to append.
+     * @return  a reference to this object.
+     * @throws  IllegalArgumentException if {@code width} is negative.
+     * @since 1.7
+     */
+    public AbstractStringBuilder appendHex(int i, int width) {
+        return appendUnsigned(i & 0xffffffffL, 4, width);
+    }
+
+    /**
+     * Appends the string representation of the {@code long} argument
+     * as an unsigned integer in base&nbsp;16.
+     * <p>
+     * The overall effect is exactly as if the argument were converted
+     * to a string by the method {@link Long#toHexString(long)},
+     * and the characters of that string were then
+     * {@link #append(String) appended} to this character sequence.
+     *
+     * @param   l   a {@code long}.
+     * @return  a reference to this object.
+     * @since 1.7
+     */
+    public AbstractStringBuilder appendHex(long l) {
+        return appendUnsigned(l, 4, 1);
+    }
+
+    /**
+     * Appends the string representation of the {@code long} argument
+     * as an unsigned integer in base&nbsp;16, padded on the left with
+     * zeros to at least {@code width} digits.
+     * <p>
+     * For a positive width the overall effect is exactly as if the
+     * argument were converted to a string by
+     * {@code String.format("%0" + width + "x", l)}, and the characters
+     * of that string were then {@link #append(String) appended} to this
+     * character sequence.
+     *
+     * @param   l       a {@code long}.
+     * @param   width   the minimum number of digits to append.
+     * @return  a reference to this object.
+     * @throws  IllegalArgumentException if {@code width} is negative.
+     * @since 1.7
+     */
+    public AbstractStringBuilder appendHex(long l, int width) {
+        return appendUnsigned(l, 4, width);
+    }
+
+    /**
+     * Appends the string representation of the {@code int} argument
+     * as an unsigned integer in base&nbsp;8.
+     * <p>
+     * The overall effect is exactly as if the argument were converted
+     * to a string by the method {@link Integer#toOctalString(int)},
+     * and the characters of that string were then
+     * {@link #append(String) appended} to this character sequence.
+     *
+     * @param   i   an {@code int}.
+     * @return  a reference to this object.
+     * @since 1.7
+     */
+    public AbstractStringBuilder appendOctal(int i) {
+        return appendUnsigned(i & 0xffffffffL, 3, 1);
+    }
+
+    /**
+     * Appends the string representation of the {@code int} argument
+     * as an unsigned integer in base&nbsp;8, padded on the left with
+     * zeros to at least {@code width} digits.
+     * <p>
+     * For a positive width the overall effect is exactly as if the
+     * argument were converted to a string by
+     * {@code String.format("%0" + width + "o", i)}, and the characters
+     * of that string were then {@link #append(String) appended} to this
+     * character sequence.
+     *
+     * @param   i       an {@code int}.
+     * @param   width   the minimum number of digits to append.
+     * @return  a reference to this object.
+     * @throws  IllegalArgumentException if {@code width} is negative.
+     * @since 1.7
+     */
+    public AbstractStringBuilder appendOctal(int i, int width) {
+        return appendUnsigned(i & 0xffffffffL, 3, width);
+    }
+
+    /**
+     * Appends the string representation of the {@code long} argument
+     * as an unsigned integer in base&nbsp;8.
+     * <p>
+     * The overall effect is exactly as if the argument were converted
+     * to a string by the method {@link Long#toOctalString(long)},
+     * and the characters of that string were then
+     * {@link #append(String) appended} to this character sequence.
+     *
+     * @param   l   a {@code long}.
+     * @return  a reference to this object.
+     * @since 1.7
+     */
+    public AbstractStringBuilder appendOctal(long l) {
+        return appendUnsigned(l, 3, 1);
+    }
+
+    /**
+     * Appends the string representation of the {@code long} argument
+     * as an unsigned integer in base&nbsp;8, padded on the left with
+     * zeros to at least {@code width} digits.
+     * <p>
+     * For a positive width the overall effect is exactly as if the
+     * argument were converted to a string by
+     * {@code String.format("%0" + width + "o", l)}, and the characters
+     * of that string were then {@link #append(String) appended} to this
+     * character sequence.
+     *
+     * @param   l       a {@code long}.
+     * @param   width   the minimum number of digits to append.
+     * @return  a reference to this object.
+     * @throws  IllegalArgumentException if {@code width} is negative.
+     * @since 1.7
+     */
+    public AbstractStringBuilder appendOctal(long l, int width) {
+        return appendUnsigned(l, 3, width);
+    }
+
+    /**
+     * Appends the string representation of the {@code int} argument
+     * as an unsigned integer in base&nbsp;2.
+     * <p>
+     * The overall effect is exactly as if the argument were converted
+     * to a string by the method {@link Integer#toBinaryString(int)},
+     * and the characters of that string were then
+     * {@link #append(String) appended} to this character sequence.
+     *
+     * @param   i   an {@code int}.
+     * @return  a reference to this object.
+     * @since 1.7
+     */
+    public AbstractStringBuilder appendBinary(int i) {
+        return appendUnsigned(i & 0xffffffffL, 1, 1);
+    }
+
+    /**
+     * Appends the string representation of the {@code int} argument
+     * as an unsigned integer in base&nbsp;2, padded on the left with
+     * zeros to at least {@code width} digits.
+     * <p>
+     * The overall effect is exactly as if the argument were converted
+     * to a string by the method {@link Integer#toBinaryString(int)},
+     * the string were padded on the left with zeros to {@code width}
+     * chars, and the characters of that string were then
+     * {@link #append(String) appended} to this character sequence.
+     *
+     * @param   i       an {@code int}.
+     * @param   width   the minimum number of digits to append.
+     * @return  a reference to this object.
+     * @throws  IllegalArgumentException if {@code width} is negative.
+     * @since 1.7
+     */
+    public AbstractStringBuilder appendBinary(int i, int width) {
+        return appendUnsigned(i & 0xffffffffL, 1, width);
+    }
+
+    /**
+     * Appends the string representation of the {@code long} argument
+     * as an unsigned integer in base&nbsp;2.
+     * <p>
+     * The overall effect is exactly as if the argument were converted
+     * to a string by the method {@link Long#toBinaryString(long)},
+     * and the characters of that string were then
+     * {@link #append(String) appended} to this character sequence.
+     *
+     * @param   l   a {@code long}.
+     * @return  a reference to this object.
+     * @since 1.7
+     */
+    public AbstractStringBuilder appendBinary(long l) {
+        return appendUnsigned(l, 1, 1);
+    }
+
+    /**
+     * Appends the string representation of the {@code long} argument
+     * as an unsigned integer in base&nbsp;2, padded on the left with
+     * zeros to at least {@code width} digits.
+     * <p>
+     * The overall effect is exactly as if the argument were converted
+     * to a string by the method {@link Long#toBinaryString(long)},
+     * the string were padded on the left with zeros to {@code width}
+     * chars, and the characters of that string were then
+     * {@link #append(String) appended} to this character sequence.
+     *
+     * @param   l       a {@code long}.
+     * @param   width   the minimum number of digits to append.
+     * @return  a reference to this object.
+     * @throws  IllegalArgumentException if {@code width} is negative.
+     * @since 1.7
+     */
+    public AbstractStringBuilder appendBinary(long l, int width) {
+        return appendUnsigned(l, 1, width);
+    }
+
+    /**
+     * Appends val, read as unsigned, in radix {@code 1 << shift}, with
+     * at least width digits and in any case at least one.
+     */
+    private AbstractStringBuilder appendUnsigned(long val, int shift,
+                                                 int width) {
+        if (width < 0)
+            throw new IllegalArgumentException("Negative width: " + width);
+        int mag = Long.SIZE - Long.numberOfLeadingZeros(val);
+        int len = Math.max((mag + shift - 1) / shift, Math.max(width, 1));
+        int spaceNeeded = count + len;
         ensureCapacityInternal(spaceNeeded);
-        Long.getChars(l, spaceNeeded, value);
+        if (isLatin1()) {
+            StringLatin1.formatUnsigned(val, shift, value, spaceNeeded, len);
+        } else {
+            StringUTF16.formatUnsigned(val, shift, value, spaceNeeded, len);
+        }
         count = spaceNeeded;
         return this;
     }
 
+    // The number of decimal digits of |i|, Integer.MIN_VALUE included
+    private static int digitCount(int i) {
+        if (i >= 0)
+            return Integer.stringSize(i);
+        return (i == Integer.MIN_VALUE) ? 10 : Integer.stringSize(-i);
+    }
+
+    // The number of decimal digits of |l|, Long.MIN_VALUE included
+    private static int digitCount(long l) {
+        if (l >= 0)
+            return Long.stringSize(l);
+        return (l == Long.MIN_VALUE) ? 19 : Long.stringSize(-l);
+    }
+
+    // Stores '0' at each char index in [from, to)
+    private void putZeros(int from, int to) {
+        if (isLatin1()) {
+            Arrays.fill(value, from, to, (byte)'0');
+        } else {
+            for (int i = from; i < to; i++) {
+                StringUTF16.putChar(value, i, '0');
+            }
+        }
+    }
+
     /**
      * Appends the string representation of the {@code float}
      * argument to this sequence.
@@ -654,7 +1075,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  a reference to this object.
      */
     public AbstractStringBuilder append(float f) {
-        new FloatingDecimal(f).appendTo(this);
+        ensureCapacityInternal(count + FloatToDecimal.MAX_CHARS);
+        count = FloatToDecimal.toChars(f, value, count, coder);
         return this;
     }
 
@@ -671,7 +1093,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  a reference to this object.
      */
     public AbstractStringBuilder append(double d) {
-        new FloatingDecimal(d).appendTo(this);
+        ensureCapacityInternal(count + DoubleToDecimal.MAX_CHARS);
+        count = DoubleToDecimal.toChars(d, value, count, coder);
         return this;
     }
 
@@ -698,7 +1121,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
             throw new StringIndexOutOfBoundsException();
         int len = end - start;
         if (len > 0) {
-            System.arraycopy(value, start+len, value, start, count-end);
+            shift(end, -len);
             count -= len;
         }
         return this;
@@ -727,12 +1150,12 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         final int count = this.count;
 
         if (Character.isBmpCodePoint(codePoint)) {
-            ensureCapacityInternal(count + 1);
-            value[count] = (char) codePoint;
-            this.count = count + 1;
+            return append((char)codePoint);
         } else if (Character.isValidCodePoint(codePoint)) {
             ensureCapacityInternal(count + 2);
-            Character.toSurrogates(codePoint, value, count);
+            inflate();
+            StringUTF16.putChar(value, count, Character.highSurrogate(codePoint));
+            StringUTF16.putChar(value, count + 1, Character.lowSurrogate(codePoint));
             this.count = count + 2;
         } else {
             throw new IllegalArgumentException();
@@ -760,7 +1183,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     public AbstractStringBuilder deleteCharAt(int index) {
         if ((index < 0) || (index >= count))
             throw new StringIndexOutOfBoundsException(index);
-        System.arraycopy(value, index+1, value, index, count-index-1);
+        shift(index + 1, -1);
         count--;
         return this;
     }
@@ -798,9 +1221,9 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         int newCount = count + len - (end - start);
         ensureCapacityInternal(newCount);
 
-        System.arraycopy(value, end, value, start + len, count - end);
-        str.getChars(value, start);
+        shift(end, newCount - count);
         count = newCount;
+        putStringAt(start, str);
         return this;
     }
 
@@ -870,7 +1293,10 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
             throw new StringIndexOutOfBoundsException(end);
         if (start > end)
             throw new StringIndexOutOfBoundsException(end - start);
-        return new String(value, start, end - start);
+        if (isLatin1()) {
+            return StringLatin1.newString(value, start, end - start);
+        }
+        return StringUTF16.newString(value, start, end - start);
     }
 
     /**
@@ -904,9 +1330,9 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
                 "offset " + offset + ", len " + len + ", str.length "
                 + str.length);
         ensureCapacityInternal(count + len);
-        System.arraycopy(value, index, value, index + len, count - index);
-        System.arraycopy(str, offset, value, index, len);
+        shift(index, len);
         count += len;
+        putCharsAt(index, str, offset, offset + len);
         return this;
     }
 
@@ -971,9 +1397,9 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
             str = "null";
         int len = str.length();
         ensureCapacityInternal(count + len);
-        System.arraycopy(value, offset, value, offset + len, count - offset);
-        str.getChars(value, offset);
+        shift(offset, len);
         count += len;
+        putStringAt(offset, str);
         return this;
     }
 
@@ -1006,9 +1432,9 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
             throw new StringIndexOutOfBoundsException(offset);
         int len = str.length;
         ensureCapacityInternal(count + len);
-        System.arraycopy(value, offset, value, offset + len, count - offset);
-        System.arraycopy(str, 0, value, offset, len);
+        shift(offset, len);
         count += len;
+        putCharsAt(offset, str, 0, len);
         return this;
     }
 
@@ -1097,11 +1523,9 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
                 + s.length());
         int len = end - start;
         ensureCapacityInternal(count + len);
-        System.arraycopy(value, dstOffset, value, dstOffset + len,
-                         count - dstOffset);
-        for (int i=start; i<end; i++)
-            value[dstOffset++] = s.charAt(i);
+        shift(dstOffset, len);
         count += len;
+        putCharsAt(dstOffset, s, start, end);
         return this;
     }
 
@@ -1149,9 +1573,14 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      */
     public AbstractStringBuilder insert(int offset, char c) {
         ensureCapacityInternal(count + 1);
-        System.arraycopy(value, offset, value, offset + 1, count - offset);
-        value[offset] = c;
+        shift(offset, 1);
         count += 1;
+        if (isLatin1() && StringLatin1.canEncode(c)) {
+            value[offset] = (byte)c;
+        } else {
+            inflate();
+            StringUTF16.putChar(value, offset, c);
+        }
         return this;
     }
 
@@ -1286,8 +1715,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      *            <code>null</code>.
      */
     public int indexOf(String str, int fromIndex) {
-        return String.indexOf(value, 0, count,
-                              str.toCharArray(), 0, str.length(), fromIndex);
+        return String.indexOf(value, coder, count, str, fromIndex);
     }
 
     /**
@@ -1330,8 +1758,7 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      *          <code>null</code>.
      */
     public int lastIndexOf(String str, int fromIndex) {
-        return String.lastIndexOf(value, 0, count,
-                              str.toCharArray(), 0, str.length(), fromIndex);
+        return String.lastIndexOf(value, coder, count, str, fromIndex);
     }
 
     /**
@@ -1357,30 +1784,18 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  a reference to this object.
      */
     public AbstractStringBuilder reverse() {
-        boolean hasSurrogate = false;
+        byte[] val = this.value;
         int n = count - 1;
-        for (int j = (n-1) >> 1; j >= 0; --j) {
-            char temp = value[j];
-            char temp2 = value[n - j];
-            if (!hasSurrogate) {
-                hasSurrogate = (temp >= Character.MIN_SURROGATE && temp <= Character.MAX_SURROGATE)
-                    || (temp2 >= Character.MIN_SURROGATE && temp2 <= Character.MAX_SURROGATE);
-            }
-            value[j] = temp2;
-            value[n - j] = temp;
-        }
-        if (hasSurrogate) {
-            // Reverse back all valid surrogate pairs
-            for (int i = 0; i < count - 1; i++) {
-                char c2 = value[i];
-                if (Character.isLowSurrogate(c2)) {
-                    char c1 = value[i + 1];
-                    if (Character.isHighSurrogate(c1)) {
-                        value[i++] = c1;
-                        value[i] = c2;
-                    }
-                }
+        if (isLatin1()) {
+            // Latin-1 chars are never surrogates
+            for (int j = (n-1) >> 1; j >= 0; --j) {
+                int k = n - j;
+                byte cj = val[j];
+                val[j] = val[k];
+                val[k] = cj;
             }
+        } else {
+            StringUTF16.reverse(val, count);
         }
         return this;
     }
@@ -1400,8 +1815,109 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     /**
      * Needed by <tt>String</tt> for the contentEquals method.
      */
-    final char[] getValue() {
+    final byte[] getValue() {
         return value;
     }
 
+    /**
+     * Sets the value from the chars of a deserialized {@code char[]},
+     * compressed to Latin-1 if possible.  The capacity is len.
+     */
+    void initBytes(char[] value, int off, int len) {
+        if (COMPACT_STRINGS) {
+            this.value = StringUTF16.compress(value, off, len);
+            if (this.value != null) {
+                this.coder = LATIN1;
+                return;
+            }
+        }
+        this.coder = UTF16;
+        this.value = StringUTF16.toBytes(value, off, len);
+    }
+
+    final byte getCoder() {
+        return COMPACT_STRINGS ? coder : UTF16;
+    }
+
+    final boolean isLatin1() {
+        return COMPACT_STRINGS && coder == LATIN1;
+    }
+
+    /**
+     * Copies the chars of this sequence into dst, which has the
+     * encoding given by coder, starting at char index dstBegin.  The
+     * caller ensures dst is large enough and that coder is UTF16 if
+     * this sequence's is.
+     */
+    void getBytes(byte dst[], int dstBegin, byte coder) {
+        if (this.coder == coder) {
+            System.arraycopy(value, 0, dst, dstBegin << coder, count << coder);
+        } else {        // this.coder == LATIN1 && coder == UTF16
+            StringLatin1.inflate(value, 0, dst, dstBegin, count);
+        }
+    }
+
+    /**
+     * Stores str at char index, which with the following str.length()
+     * chars must already lie within count.
+     */
+    private final void putStringAt(int index, String str) {
+        if (getCoder() != str.coder()) {
+            inflate();
+        }
+        str.getBytes(value, index, coder);
+    }
+
+    /**
+     * Stores s[off, end) at char index, which with the following
+     * chars must already lie within count, inflating the value at
+     * the first char above {@code '\u00FF'}.
+     */
+    private final void putCharsAt(int index, char[] s, int off, int end) {
+        if (isLatin1()) {
+            int n = StringUTF16.compress(s, off, value, index, end - off);
+            off += n;
+            index += n;
+            if (off == end) {
+                return;
+            }
+            inflate();
+        }
+        StringUTF16.putChars(value, index, s, off, end);
+    }
+
+    /**
+     * As {@link #putCharsAt(int, char[], int, int)}, for the chars
+     * of a {@code CharSequence}.
+     */
+    private final void putCharsAt(int index, CharSequence s, int off, int end) {
+        if (isLatin1()) {
+            byte[] val = this.value;
+            for (; off < end; off++, index++) {
+                char c = s.charAt(off);
+                if (!StringLatin1.canEncode(c)) {
+                    break;
+                }
+                val[index] = (byte)c;
+            }
+            if (off == end) {
+                return;
+            }
+            inflate();
+        }
+        byte[] val = this.value;
+        for (; off < end; off++, index++) {
+            StringUTF16.putChar(val, index, s.charAt(off));
+        }
+    }
+
+    /**
+     * Moves the chars from offset to count by n places, within the
+     * current capacity.
+     */
+    private final void shift(int offset, int n) {
+        System.arraycopy(value, offset << coder,
+                         value, (offset + n) << coder, (count - offset) << coder);
+    }
+
 }
@@ -193,7 +193,7 @@ public final class Double extends Number implements Comparable<Double> {
      * @return a string representation of the argument.
      */
     public static String toString(double d) {
-        return new FloatingDecimal(d).toJavaFormatString();
+        return DoubleToDecimal.toString(d);
     }
 
     /**
@@ -501,7 +501,7 @@ public final class Double extends Number implements Comparable<Double> {
      *             parsable number.
      */
     public static Double valueOf(String s) throws NumberFormatException {
-        return new Double(FloatingDecimal.readJavaFormatString(s).doubleValue());
+        return new Double(parseDouble(s));
     }
 
     /**
@@ -537,6 +537,9 @@ public final class Double extends Number implements Comparable<Double> {
      * @since 1.2
      */
     public static double parseDouble(String s) throws NumberFormatException {
+        double d = FastDoubleParser.parseDouble(s);
+        if (d == d)
+            return d;
         return FloatingDecimal.readJavaFormatString(s).doubleValue();
     }
 
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.lang;
+
+import static java.lang.MathUtils.flog10pow2;
+import static java.lang.MathUtils.flog10threeQuartersPow2;
+import static java.lang.MathUtils.flog2pow10;
+import static java.lang.MathUtils.g0;
+import static java.lang.MathUtils.g1;
+import static java.lang.MathUtils.multiplyHigh;
+
+/**
+ * Converts a {@code double} to the shortest decimal that rounds back to
+ * it, formatted as specified by {@link Double#toString(double)}.
+ *
+ * <p>The decimal is computed with the Schubfach algorithm of R. Giulietti,
+ * "The Schubfach way to render doubles": of the decimals in the rounding
+ * interval of the double, it selects one of shortest length, and of those
+ * the closest, using a few 64-bit multiplications against a table of
+ * powers of ten.  Nothing is allocated: the characters are written
+ * directly into a caller's {@code byte[]}, in either coder, so that
+ * {@code AbstractStringBuilder} can append without a temporary.
+ */
+final class DoubleToDecimal {
+
+    private DoubleToDecimal() {}
+
+    /** The maximum number of chars produced, as in "-2.2250738585072014E-308". */
+    static final int MAX_CHARS = 24;
+
+    // The precision in bits, and the width of the biased exponent field
+    private static final int P = 53;
+    private static final int W = 11;
+
+    // The minimum exponent q of a double c 2^q, with c an integer
+    private static final int Q_MIN = (-1 << W - 1) - P + 3;
+
+    // The smallest normal significand, 2^(P-1)
+    private static final long C_MIN = 1L << P - 1;
+
+    private static final int BQ_MASK = (1 << W) - 1;
+    private static final long T_MASK = (1L << P - 1) - 1;
+
+    // Subnormal significands below this have too few digits for the
+    // interval arithmetic and are first scaled by ten
+    private static final long C_TINY = 3;
+
+    /**
+     * Returns the string representation of v, as specified by
+     * {@link Double#toString(double)}.
+     */
+    static String toString(double v) {
+        byte coder = String.COMPACT_STRINGS ? String.LATIN1 : String.UTF16;
+        byte[] buf = new byte[MAX_CHARS << coder];
+        int len = toChars(v, buf, 0, coder);
+        return coder == String.LATIN1 ? StringLatin1.newString(buf, 0, len)
+                                      : StringUTF16.newString(buf, 0, len);
+    }
+
+    /**
+     * Writes the string representation of v into buf, in the given coder,
+     * starting at char index {@code index}.  There must be room for
+     * {@link #MAX_CHARS} chars.
+     *
+     * @return the char index following the last char written
+     */
+    static int toChars(double v, byte[] buf, int index, byte coder) {
+        long bits = Double.doubleToRawLongBits(v);
+        long t = bits & T_MASK;
+        int bq = (int) (bits >>> P - 1) & BQ_MASK;
+        if (bq < BQ_MASK) {
+            if (bits < 0)
+                index = putChar(buf, index, coder, '-');
+            if (bq != 0) {
+                // normal value. Here mq = -q
+                int mq = -Q_MIN + 1 - bq;
+                long c = C_MIN | t;
+                // integers of at most P bits are their own shortest decimal
+                if (0 < mq & mq < P) {
+                    long f = c >> mq;
+                    if (f << mq == c)
+                        return toChars(f, 0, buf, index, coder);
+                }
+                return toDecimal(-mq, c, 0, buf, index, coder);
+            }
+            if (t != 0) {
+                // subnormal value
+                return t < C_TINY
+                    ? toDecimal(Q_MIN, 10 * t, -1, buf, index, coder)
+                    : toDecimal(Q_MIN, t, 0, buf, index, coder);
+            }
+            return putChars(buf, index, coder, "0.0");
+        }
+        if (t != 0)
+            return putChars(buf, index, coder, "NaN");
+        return putChars(buf, index, coder, bits > 0 ? "Infinity" : "-Infinity");
+    }
+
+    /*
+     * Finds the shortest decimal in the rounding interval of c 2^q, the
+     * result to be scaled by 10^dk, and writes it.  See sections 8 and 9
+     * of the paper.
+     */
+    private static int toDecimal(int q, long c, int dk,
+                                 byte[] buf, int index, byte coder) {
+        int out = (int) c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        // the interval is asymmetric only at the bottom of a binade
+        if (c != C_MIN | q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+
+        // g1 2^63 + g0 is 10^-k, scaled to 126 bits and rounded up
+        long g1 = g1(k);
+        long g0 = g0(k);
+
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // try one digit less: sp10 = 10 floor(s / 10), tp10 = sp10 + 10
+            long sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin)
+                return toChars(upin ? sp10 : tp10, k, buf, index, coder);
+        }
+
+        // s and t = s + 1 bracket the value; pick the one in the interval,
+        // or if both are, the closer one, or if tied the even one
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win)
+            return toChars(uin ? s : t, k + dk, buf, index, coder);
+        long cmp = vb - (s + t << 1);
+        return toChars(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t,
+                       k + dk, buf, index, coder);
+    }
+
+    /*
+     * Computes cp g 2^-127, where g = g1 2^63 + g0, rounded to odd: the
+     * result is truncated, with its least significant bit set if any
+     * discarded bit was set.
+     */
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MathUtils.MASK_63) + MathUtils.MASK_63 >>> 63;
+    }
+
+    /**
+     * Writes the decimal f 10^e, f &gt; 0, as specified by
+     * {@link Double#toString(double)} and {@link Float#toString(float)}:
+     * in plain notation when 10^-3 &le; f 10^e &lt; 10^7, otherwise in
+     * computerized scientific notation, with at least one digit after the
+     * point in either case.
+     *
+     * @return the char index following the last char written
+     */
+    static int toChars(long f, int e, byte[] buf, int index, byte coder) {
+        while (f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+        int len = 1;
+        while (len < 18 && f >= MathUtils.pow10(len))
+            len++;
+        // f 10^e = d.ddd 10^exp
+        int exp = e + len - 1;
+        if (0 <= exp && exp < 7) {
+            int intLen = exp + 1;
+            if (len <= intLen) {
+                index = putDigits(buf, index, coder, f, len);
+                for (int i = len; i < intLen; i++)
+                    index = putChar(buf, index, coder, '0');
+                index = putChar(buf, index, coder, '.');
+                return putChar(buf, index, coder, '0');
+            }
+            long p = MathUtils.pow10(len - intLen);
+            index = putDigits(buf, index, coder, f / p, intLen);
+            index = putChar(buf, index, coder, '.');
+            return putDigits(buf, index, coder, f % p, len - intLen);
+        }
+        if (-3 <= exp && exp < 0) {
+            index = putChar(buf, index, coder, '0');
+            index = putChar(buf, index, coder, '.');
+            for (int i = exp + 1; i < 0; i++)
+                index = putChar(buf, index, coder, '0');
+            return putDigits(buf, index, coder, f, len);
+        }
+        long p = MathUtils.pow10(len - 1);
+        index = putChar(buf, index, coder, (char) ('0' + f / p));
+        index = putChar(buf, index, coder, '.');
+        if (len == 1)
+            index = putChar(buf, index, coder, '0');
+        else
+            index = putDigits(buf, index, coder, f % p, len - 1);
+        index = putChar(buf, index, coder, 'E');
+        if (exp < 0) {
+            index = putChar(buf, index, coder, '-');
+            exp = -exp;
+        }
+        return putDigits(buf, index, coder, exp,
+                         exp < 10 ? 1 : exp < 100 ? 2 : 3);
+    }
+
+    // Writes the n least significant decimal digits of x >= 0
+    private static int putDigits(byte[] buf, int index, byte coder,
+                                 long x, int n) {
+        for (int i = index + n - 1; i >= index; i--) {
+            putChar(buf, i, coder, (char) ('0' + x % 10));
+            x /= 10;
+        }
+        return index + n;
+    }
+
+    static int putChars(byte[] buf, int index, byte coder, String s) {
+        for (int i = 0; i < s.length(); i++)
+            index = putChar(buf, index, coder, s.charAt(i));
+        return index;
+    }
+
+    static int putChar(byte[] buf, int index, byte coder, char c) {
+        if (coder == String.LATIN1)
+            buf[index] = (byte) c;
+        else
+            StringUTF16.putChar(buf, index, c);
+        return index + 1;
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.lang;
+
+import static java.lang.MathUtils.pow10High;
+import static java.lang.MathUtils.pow10Low;
+import static java.lang.MathUtils.unsignedMultiplyHigh;
+
+/**
+ * A fast path for {@link Double#parseDouble} and {@link Float#parseFloat}.
+ *
+ * <p>Plain decimal strings with at most 19 significant digits, which are
+ * by far the most common input, are converted here without allocation:
+ * exactly by Clinger's method when the digits and the power of ten are
+ * both exact doubles, and otherwise by the algorithm of Eisel and Lemire
+ * (D. Lemire, "Number Parsing at a Gigabyte per Second", and N. Mushtak
+ * and D. Lemire, "Fast Number Parsing Without Fallback"), which finds the
+ * correctly rounded result from a 128-bit approximation of the power of
+ * ten.  Everything else, hexadecimal strings, {@code "NaN"},
+ * {@code "Infinity"}, longer digit strings and malformed input, is left
+ * to the general parser, which also reports errors.
+ */
+final class FastDoubleParser {
+
+    private FastDoubleParser() {}
+
+    /** Returned when the string must be left to the general parser. */
+    static final long NOT_HANDLED = -1L;
+
+    // Doubles 10^0 through 10^22 are exact
+    private static final double[] SMALL_POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20,
+        1e21, 1e22
+    };
+
+    /**
+     * Parses s as a double, returning {@link #NOT_HANDLED} rather than a
+     * value if s is not handled by the fast path.  Since NaN is never
+     * handled here, the caller recognizes the result by {@code d == d}.
+     *
+     * @throws NullPointerException if s is null
+     */
+    static double parseDouble(String s) {
+        long bits = parse(s, false);
+        return bits == NOT_HANDLED ? Double.NaN : Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * Parses s as a float, as {@link #parseDouble} does.  The result is
+     * rounded directly to float, not through double.
+     *
+     * @throws NullPointerException if s is null
+     */
+    static float parseFloat(String s) {
+        long bits = parse(s, true);
+        return bits == NOT_HANDLED ? Float.NaN : Float.intBitsToFloat((int) bits);
+    }
+
+    /*
+     * Scans s with the syntax of Double.valueOf, restricted to decimal
+     * digits, and returns the bits of the result or NOT_HANDLED.
+     */
+    private static long parse(String s, boolean isFloat) {
+        int len = s.length();
+        int i = 0;
+        // leading and trailing whitespace, as by String.trim
+        while (i < len && s.charAt(i) <= ' ')
+            i++;
+        while (len > i && s.charAt(len - 1) <= ' ')
+            len--;
+        if (i == len)
+            return NOT_HANDLED;
+
+        boolean negative = false;
+        char c = s.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            if (++i == len)
+                return NOT_HANDLED;
+        }
+
+        // significand: up to 19 significant digits accumulated in w
+        long w = 0;
+        int nDigits = 0;        // significant digits, after leading zeros
+        int scale = 0;          // the value is w 10^(exponent - scale)
+        boolean anyDigits = false;
+        boolean point = false;
+        for (; i < len; i++) {
+            c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                anyDigits = true;
+                if (nDigits > 0 || c != '0') {
+                    if (++nDigits > 19)
+                        return NOT_HANDLED;
+                    w = 10 * w + (c - '0');
+                }
+                if (point)
+                    scale++;
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (!anyDigits)
+            return NOT_HANDLED;
+
+        // exponent
+        int exponent = 0;
+        if (i < len && ((c = s.charAt(i)) == 'e' || c == 'E')) {
+            if (++i == len)
+                return NOT_HANDLED;
+            boolean negExp = false;
+            c = s.charAt(i);
+            if (c == '-' || c == '+') {
+                negExp = c == '-';
+                if (++i == len)
+                    return NOT_HANDLED;
+            }
+            int start = i;
+            for (; i < len && (c = s.charAt(i)) >= '0' && c <= '9'; i++) {
+                if (exponent >= 100_000)
+                    return NOT_HANDLED;
+                exponent = 10 * exponent + (c - '0');
+            }
+            if (i == start)
+                return NOT_HANDLED;
+            if (negExp)
+                exponent = -exponent;
+        }
+
+        // optional type suffix, then nothing more
+        if (i < len && ((c = s.charAt(i)) == 'f' || c == 'F'
+                        || c == 'd' || c == 'D'))
+            i++;
+        if (i != len)
+            return NOT_HANDLED;
+
+        int q = exponent - scale;
+        long bits = isFloat ? toFloatBits(w, q) : toDoubleBits(w, q);
+        if (negative)
+            bits |= isFloat ? 1L << 31 : 1L << 63;
+        return bits;
+    }
+
+    /*
+     * Returns the bits of the double nearest w 10^q, w read as unsigned.
+     */
+    private static long toDoubleBits(long w, int q) {
+        if (w == 0)
+            return 0;
+        // Clinger: both w and 10^|q| are exact, so one rounding
+        if (0 <= w && w <= 1L << 53 && -22 <= q && q <= 22) {
+            double d = (double) w;
+            d = q < 0 ? d / SMALL_POW10[-q] : d * SMALL_POW10[q];
+            return Double.doubleToRawLongBits(d);
+        }
+        return eiselLemire(w, q, 52, -1023, 0x7FF, -4, 23, -342, 308);
+    }
+
+    /*
+     * Returns the bits of the float nearest w 10^q, w read as unsigned.
+     */
+    private static long toFloatBits(long w, int q) {
+        if (w == 0)
+            return 0;
+        return eiselLemire(w, q, 23, -127, 0xFF, -17, 10, -65, 38);
+    }
+
+    /*
+     * The Eisel-Lemire algorithm, for a binary format with the given
+     * number of explicit significand bits, minimum exponent and all-ones
+     * exponent field.  Between minRoundToEven and maxRoundToEven, 5^q
+     * fits in 64 bits and w 10^q can lie exactly halfway between two
+     * results; outside [minPow10, maxPow10] the result is zero or
+     * infinity for any 19-digit w.
+     */
+    private static long eiselLemire(long w, int q, int mantissaBits,
+                                    int minExponent, int infinitePower,
+                                    int minRoundToEven, int maxRoundToEven,
+                                    int minPow10, int maxPow10) {
+        if (q < minPow10)
+            return 0;
+        if (q > maxPow10)
+            return (long) infinitePower << mantissaBits;
+
+        int lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+
+        // the product of w and the 128-bit 10^q, as far as needed; for
+        // q in [-27, 0) the table value is rounded up rather than down
+        long t1 = pow10High(q);
+        long t0 = pow10Low(q);
+        if (-27 <= q && q < 0)
+            t0++;                       // never carries for these q
+        long high = unsignedMultiplyHigh(w, t1);
+        long low = w * t1;
+        long precisionMask = -1L >>> (mantissaBits + 3);
+        if ((high & precisionMask) == precisionMask) {
+            long secondHigh = unsignedMultiplyHigh(w, t0);
+            low += secondHigh;
+            if (secondHigh + Long.MIN_VALUE > low + Long.MIN_VALUE)
+                high++;                 // unsigned carry
+        }
+
+        int upperBit = (int) (high >>> 63);
+        int shift = upperBit + 64 - mantissaBits - 3;
+        long mantissa = high >>> shift;
+        int power2 = ((152_170 + 65_536) * q >> 16) + 63
+            + upperBit - lz - minExponent;
+
+        if (power2 <= 0) {
+            // subnormal, or zero if more than 64 bits below the minimum
+            if (-power2 + 1 >= 64)
+                return 0;
+            mantissa >>>= -power2 + 1;
+            mantissa += mantissa & 1;
+            mantissa >>>= 1;
+            // rounding may have carried into the smallest normal
+            power2 = mantissa < 1L << mantissaBits ? 0 : 1;
+            return (long) power2 << mantissaBits
+                | (mantissa & ((1L << mantissaBits) - 1));
+        }
+
+        // exactly halfway: round to even rather than up
+        if ((low == 0 || low == 1)
+            && q >= minRoundToEven && q <= maxRoundToEven
+            && (mantissa & 3) == 1 && mantissa << shift == high)
+            mantissa &= ~1L;
+
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= 2L << mantissaBits) {
+            mantissa = 1L << mantissaBits;
+            power2++;
+        }
+        mantissa &= ~(1L << mantissaBits);
+        if (power2 >= infinitePower)
+            return (long) infinitePower << mantissaBits;
+        return (long) power2 << mantissaBits | mantissa;
+    }
+}
@@ -196,7 +196,7 @@ public final class Float extends Number implements Comparable<Float> {
      * @return a string representation of the argument.
      */
     public static String toString(float f) {
-        return new FloatingDecimal(f).toJavaFormatString();
+        return FloatToDecimal.toString(f);
     }
 
     /**
@@ -414,7 +414,7 @@ public final class Float extends Number implements Comparable<Float> {
      *          parsable number.
      */
     public static Float valueOf(String s) throws NumberFormatException {
-        return new Float(FloatingDecimal.readJavaFormatString(s).floatValue());
+        return new Float(parseFloat(s));
     }
 
     /**
@@ -449,6 +449,9 @@ public final class Float extends Number implements Comparable<Float> {
      * @since 1.2
      */
     public static float parseFloat(String s) throws NumberFormatException {
+        float f = FastDoubleParser.parseFloat(s);
+        if (f == f)
+            return f;
         return FloatingDecimal.readJavaFormatString(s).floatValue();
     }
 
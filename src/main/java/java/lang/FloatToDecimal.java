@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.lang;
+
+import static java.lang.MathUtils.flog10pow2;
+import static java.lang.MathUtils.flog10threeQuartersPow2;
+import static java.lang.MathUtils.flog2pow10;
+import static java.lang.MathUtils.g1;
+import static java.lang.MathUtils.multiplyHigh;
+
+/**
+ * Converts a {@code float} to the shortest decimal that rounds back to
+ * it, formatted as specified by {@link Float#toString(float)}.  This is
+ * the {@code float} counterpart of {@link DoubleToDecimal}, whose
+ * description applies here too; a single 63-bit word of the power of ten
+ * suffices at this precision.
+ */
+final class FloatToDecimal {
+
+    private FloatToDecimal() {}
+
+    /** The maximum number of chars produced, as in "-1.17549435E-38". */
+    static final int MAX_CHARS = 15;
+
+    // The precision in bits, and the width of the biased exponent field
+    private static final int P = 24;
+    private static final int W = 8;
+
+    // The minimum exponent q of a float c 2^q, with c an integer
+    private static final int Q_MIN = (-1 << W - 1) - P + 3;
+
+    // The smallest normal significand, 2^(P-1)
+    private static final int C_MIN = 1 << P - 1;
+
+    private static final int BQ_MASK = (1 << W) - 1;
+    private static final int T_MASK = (1 << P - 1) - 1;
+
+    // Subnormal significands below this have too few digits for the
+    // interval arithmetic and are first scaled by ten
+    private static final int C_TINY = 8;
+
+    private static final long MASK_32 = (1L << 32) - 1;
+
+    /**
+     * Returns the string representation of v, as specified by
+     * {@link Float#toString(float)}.
+     */
+    static String toString(float v) {
+        byte coder = String.COMPACT_STRINGS ? String.LATIN1 : String.UTF16;
+        byte[] buf = new byte[MAX_CHARS << coder];
+        int len = toChars(v, buf, 0, coder);
+        return coder == String.LATIN1 ? StringLatin1.newString(buf, 0, len)
+                                      : StringUTF16.newString(buf, 0, len);
+    }
+
+    /**
+     * Writes the string representation of v into buf, in the given coder,
+     * starting at char index {@code index}.  There must be room for
+     * {@link #MAX_CHARS} chars.
+     *
+     * @return the char index following the last char written
+     */
+    static int toChars(float v, byte[] buf, int index, byte coder) {
+        int bits = Float.floatToRawIntBits(v);
+        int t = bits & T_MASK;
+        int bq = (bits >>> P - 1) & BQ_MASK;
+        if (bq < BQ_MASK) {
+            if (bits < 0)
+                index = DoubleToDecimal.putChar(buf, index, coder, '-');
+            if (bq != 0) {
+                // normal value. Here mq = -q
+                int mq = -Q_MIN + 1 - bq;
+                int c = C_MIN | t;
+                // integers of at most P bits are their own shortest decimal
+                if (0 < mq & mq < P) {
+                    int f = c >> mq;
+                    if (f << mq == c)
+                        return DoubleToDecimal.toChars(f, 0, buf, index, coder);
+                }
+                return toDecimal(-mq, c, 0, buf, index, coder);
+            }
+            if (t != 0) {
+                // subnormal value
+                return t < C_TINY
+                    ? toDecimal(Q_MIN, 10 * t, -1, buf, index, coder)
+                    : toDecimal(Q_MIN, t, 0, buf, index, coder);
+            }
+            return DoubleToDecimal.putChars(buf, index, coder, "0.0");
+        }
+        if (t != 0)
+            return DoubleToDecimal.putChars(buf, index, coder, "NaN");
+        return DoubleToDecimal.putChars(buf, index, coder,
+                                        bits > 0 ? "Infinity" : "-Infinity");
+    }
+
+    /*
+     * Finds the shortest decimal in the rounding interval of c 2^q, the
+     * result to be scaled by 10^dk, and writes it.
+     */
+    private static int toDecimal(int q, int c, int dk,
+                                 byte[] buf, int index, byte coder) {
+        int out = c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        // the interval is asymmetric only at the bottom of a binade
+        if (c != C_MIN | q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 33;
+
+        // 10^-k, scaled to 63 bits and rounded up
+        long g = g1(k) + 1;
+
+        int vb = rop(g, cb << h);
+        int vbl = rop(g, cbl << h);
+        int vbr = rop(g, cbr << h);
+
+        int s = vb >> 2;
+        if (s >= 100) {
+            // try one digit less: sp10 = 10 floor(s / 10), tp10 = sp10 + 10
+            int sp10 = 10 * (int) (s * 1_717_986_919L >>> 34);
+            int tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin)
+                return DoubleToDecimal.toChars(upin ? sp10 : tp10, k,
+                                               buf, index, coder);
+        }
+
+        // s and t = s + 1 bracket the value; pick the one in the interval,
+        // or if both are, the closer one, or if tied the even one
+        int t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win)
+            return DoubleToDecimal.toChars(uin ? s : t, k + dk,
+                                           buf, index, coder);
+        int cmp = vb - (s + t << 1);
+        return DoubleToDecimal.toChars(
+            cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t,
+            k + dk, buf, index, coder);
+    }
+
+    // Computes cp g 2^-95, rounded to odd
+    private static int rop(long g, long cp) {
+        long x1 = multiplyHigh(g, cp);
+        long vbp = x1 >>> 31;
+        return (int) (vbp | (x1 & MASK_32) + MASK_32 >>> 32);
+    }
+}
@@ -94,6 +94,12 @@ import java.util.regex.PatternSyntaxException;
  * Unicode code points (i.e., characters), in addition to those for
  * dealing with Unicode code units (i.e., <code>char</code> values).
  *
+ * <p>A string whose characters are all in the Latin-1 range
+ * ({@code '\u0000'} through {@code '\u00FF'}) is stored compactly,
+ * one byte per character; other strings use two bytes per character.
+ * The choice is made when the string is created and is not visible
+ * through the API.
+ *
  * @author  Lee Boynton
  * @author  Arthur van Hoff
  * @author  Martin Buchholz
@@ -107,8 +113,20 @@ import java.util.regex.PatternSyntaxException;
 
 public final class String
     implements java.io.Serializable, Comparable<String>, CharSequence {
-    /** The value is used for character storage. */
-    private final char value[];
+    /**
+     * The value is used for character storage: one byte per char if
+     * {@code coder} is {@code LATIN1}, else two.
+     */
+    private final byte[] value;
+
+    /**
+     * The identifier of the encoding used to encode the bytes in
+     * {@code value}.  The supported values in this implementation are
+     *
+     * LATIN1
+     * UTF16
+     */
+    private final byte coder;
 
     /** Cache the hash code for the string */
     private int hash; // Default to 0
@@ -137,7 +155,8 @@ public final class String
      * unnecessary since Strings are immutable.
      */
     public String() {
-        this.value = new char[0];
+        this.value = "".value;
+        this.coder = "".coder;
     }
 
     /**
@@ -152,6 +171,7 @@ public final class String
      */
     public String(String original) {
         this.value = original.value;
+        this.coder = original.coder;
         this.hash = original.hash;
     }
 
@@ -165,7 +185,7 @@ public final class String
      *         The initial value of the string
      */
     public String(char value[]) {
-        this.value = Arrays.copyOf(value, value.length);
+        this(value, 0, value.length, null);
     }
 
     /**
@@ -190,6 +210,10 @@ public final class String
      *          characters outside the bounds of the {@code value} array
      */
     public String(char value[], int offset, int count) {
+        this(value, offset, count, rangeCheck(value, offset, count));
+    }
+
+    private static Void rangeCheck(char[] value, int offset, int count) {
         if (offset < 0) {
             throw new StringIndexOutOfBoundsException(offset);
         }
@@ -200,7 +224,31 @@ public final class String
         if (offset > value.length - count) {
             throw new StringIndexOutOfBoundsException(offset + count);
         }
-        this.value = Arrays.copyOfRange(value, offset, offset+count);
+        return null;
+    }
+
+    /*
+     * Package private constructor copying count chars of value from
+     * offset, which must already be range checked, compressed to
+     * Latin-1 if possible.  The Void argument distinguishes it from
+     * the public constructor.
+     */
+    String(char[] value, int offset, int count, Void sig) {
+        if (count == 0) {
+            this.value = "".value;
+            this.coder = "".coder;
+            return;
+        }
+        if (COMPACT_STRINGS) {
+            byte[] val = StringUTF16.compress(value, offset, count);
+            if (val != null) {
+                this.value = val;
+                this.coder = LATIN1;
+                return;
+            }
+        }
+        this.coder = UTF16;
+        this.value = StringUTF16.toBytes(value, offset, count);
     }
 
     /**
@@ -245,10 +293,15 @@ public final class String
 
         final int end = offset + count;
 
-        // Pass 1: Compute precise size of char[]
+        // Pass 1: Compute precise size of char[], noting whether
+        // all code points are Latin-1
         int n = count;
+        boolean latin1 = COMPACT_STRINGS;
         for (int i = offset; i < end; i++) {
             int c = codePoints[i];
+            if (StringLatin1.canEncode(c))
+                continue;
+            latin1 = false;
             if (Character.isBmpCodePoint(c))
                 continue;
             else if (Character.isValidCodePoint(c))
@@ -256,18 +309,30 @@ public final class String
             else throw new IllegalArgumentException(Integer.toString(c));
         }
 
-        // Pass 2: Allocate and fill in char[]
-        final char[] v = new char[n];
+        // Pass 2: Allocate and fill in the value
+        if (latin1) {
+            final byte[] v = new byte[n];
+            for (int i = offset, j = 0; i < end; i++, j++)
+                v[j] = (byte)codePoints[i];
+            this.value = v;
+            this.coder = LATIN1;
+            return;
+        }
+
+        final byte[] v = StringUTF16.newBytesFor(n);
 
         for (int i = offset, j = 0; i < end; i++, j++) {
             int c = codePoints[i];
-            if (Character.isBmpCodePoint(c))
-                v[j] = (char)c;
-            else
-                Character.toSurrogates(c, v, j++);
+            if (Character.isBmpCodePoint(c)) {
+                StringUTF16.putChar(v, j, c);
+            } else {
+                StringUTF16.putChar(v, j++, Character.highSurrogate(c));
+                StringUTF16.putChar(v, j, Character.lowSurrogate(c));
+            }
         }
 
         this.value = v;
+        this.coder = UTF16;
     }
 
     /**
@@ -312,19 +377,18 @@ public final class String
     @Deprecated
     public String(byte ascii[], int hibyte, int offset, int count) {
         checkBounds(ascii, offset, count);
-        char value[] = new char[count];
-
-        if (hibyte == 0) {
-            for (int i = count; i-- > 0;) {
-                value[i] = (char)(ascii[i + offset] & 0xff);
-            }
+        if (COMPACT_STRINGS && (byte)hibyte == 0) {
+            this.value = Arrays.copyOfRange(ascii, offset, offset + count);
+            this.coder = LATIN1;
         } else {
-            hibyte <<= 8;
-            for (int i = count; i-- > 0;) {
-                value[i] = (char)(hibyte | (ascii[i + offset] & 0xff));
+            hibyte = (hibyte & 0xff) << 8;
+            byte[] val = StringUTF16.newBytesFor(count);
+            for (int i = 0; i < count; i++) {
+                StringUTF16.putChar(val, i, hibyte | (ascii[offset++] & 0xff));
             }
+            this.value = val;
+            this.coder = UTF16;
         }
-        this.value = value;
     }
 
     /**
@@ -375,6 +439,31 @@ public final class String
             throw new StringIndexOutOfBoundsException(offset + length);
     }
 
+    /* Bounds check and decode for the String(byte[],..) constructors,
+     * which pass the decoded chars to String(char[], boolean).
+     */
+    private static char[] decode(String charsetName, byte[] bytes,
+                                 int offset, int length)
+            throws UnsupportedEncodingException {
+        if (charsetName == null)
+            throw new NullPointerException("charsetName");
+        checkBounds(bytes, offset, length);
+        return StringCoding.decode(charsetName, bytes, offset, length);
+    }
+
+    private static char[] decode(Charset charset, byte[] bytes,
+                                 int offset, int length) {
+        if (charset == null)
+            throw new NullPointerException("charset");
+        checkBounds(bytes, offset, length);
+        return StringCoding.decode(charset, bytes, offset, length);
+    }
+
+    private static char[] decode(byte[] bytes, int offset, int length) {
+        checkBounds(bytes, offset, length);
+        return StringCoding.decode(bytes, offset, length);
+    }
+
     /**
      * Constructs a new {@code String} by decoding the specified subarray of
      * bytes using the specified charset.  The length of the new {@code String}
@@ -410,10 +499,7 @@ public final class String
      */
     public String(byte bytes[], int offset, int length, String charsetName)
             throws UnsupportedEncodingException {
-        if (charsetName == null)
-            throw new NullPointerException("charsetName");
-        checkBounds(bytes, offset, length);
-        this.value = StringCoding.decode(charsetName, bytes, offset, length);
+        this(decode(charsetName, bytes, offset, length), true);
     }
 
     /**
@@ -447,10 +533,7 @@ public final class String
      * @since  1.6
      */
     public String(byte bytes[], int offset, int length, Charset charset) {
-        if (charset == null)
-            throw new NullPointerException("charset");
-        checkBounds(bytes, offset, length);
-        this.value =  StringCoding.decode(charset, bytes, offset, length);
+        this(decode(charset, bytes, offset, length), true);
     }
 
     /**
@@ -532,8 +615,7 @@ public final class String
      * @since  JDK1.1
      */
     public String(byte bytes[], int offset, int length) {
-        checkBounds(bytes, offset, length);
-        this.value = StringCoding.decode(bytes, offset, length);
+        this(decode(bytes, offset, length), true);
     }
 
     /**
@@ -566,9 +648,7 @@ public final class String
      *         A {@code StringBuffer}
      */
     public String(StringBuffer buffer) {
-        synchronized(buffer) {
-            this.value = Arrays.copyOf(buffer.getValue(), buffer.length());
-        }
+        this(buffer.toString());
     }
 
     /**
@@ -587,18 +667,52 @@ public final class String
      * @since  1.5
      */
     public String(StringBuilder builder) {
-        this.value = Arrays.copyOf(builder.getValue(), builder.length());
+        this(builder, null);
+    }
+
+    /*
+     * Package private constructor copying the contents of a builder,
+     * compressed to Latin-1 if possible.
+     */
+    String(AbstractStringBuilder asb, Void sig) {
+        byte[] val = asb.getValue();
+        int length = asb.length();
+        if (asb.isLatin1()) {
+            this.coder = LATIN1;
+            this.value = Arrays.copyOfRange(val, 0, length);
+        } else {
+            if (COMPACT_STRINGS) {
+                byte[] buf = StringUTF16.compress(val, 0, length);
+                if (buf != null) {
+                    this.coder = LATIN1;
+                    this.value = buf;
+                    return;
+                }
+            }
+            this.coder = UTF16;
+            this.value = Arrays.copyOfRange(val, 0, length << 1);
+        }
     }
 
     /*
-    * Package private constructor which shares value array for speed.
-    * this constructor is always expected to be called with share==true.
-    * a separate constructor is needed because we already have a public
-    * String(char[]) constructor that makes a copy of the given char[].
+    * Package private constructor for a char array the caller no longer
+    * uses.  this constructor is always expected to be called with
+    * share==true.  The chars are compressed to Latin-1 if possible, or
+    * else converted to UTF16, so the array itself is not retained.
     */
     String(char[] value, boolean share) {
         // assert share : "unshared not supported";
+        this(value, 0, value.length, null);
+    }
+
+    /*
+     * Package private constructor which shares value array for speed.
+     * The coder must be LATIN1 only if COMPACT_STRINGS is true, and
+     * must be UTF16 only if some char of value is not Latin-1.
+     */
+    String(byte[] value, byte coder) {
         this.value = value;
+        this.coder = coder;
     }
 
     /**
@@ -620,7 +734,7 @@ public final class String
      *          object.
      */
     public int length() {
-        return value.length;
+        return value.length >> coder();
     }
 
     /**
@@ -654,10 +768,11 @@ public final class String
      *             string.
      */
     public char charAt(int index) {
-        if ((index < 0) || (index >= value.length)) {
+        if ((index < 0) || (index >= length())) {
             throw new StringIndexOutOfBoundsException(index);
         }
-        return value[index];
+        return isLatin1() ? StringLatin1.getChar(value, index)
+                          : StringUTF16.getChar(value, index);
     }
 
     /**
@@ -683,10 +798,14 @@ public final class String
      * @since      1.5
      */
     public int codePointAt(int index) {
-        if ((index < 0) || (index >= value.length)) {
+        int length = length();
+        if ((index < 0) || (index >= length)) {
             throw new StringIndexOutOfBoundsException(index);
         }
-        return Character.codePointAtImpl(value, index, value.length);
+        if (isLatin1()) {
+            return StringLatin1.getChar(value, index);
+        }
+        return StringUTF16.codePointAt(value, index, length);
     }
 
     /**
@@ -713,10 +832,13 @@ public final class String
      */
     public int codePointBefore(int index) {
         int i = index - 1;
-        if ((i < 0) || (i >= value.length)) {
+        if ((i < 0) || (i >= length())) {
             throw new StringIndexOutOfBoundsException(index);
         }
-        return Character.codePointBeforeImpl(value, index, 0);
+        if (isLatin1()) {
+            return StringLatin1.getChar(value, i);
+        }
+        return StringUTF16.codePointBefore(value, index);
     }
 
     /**
@@ -741,10 +863,13 @@ public final class String
      * @since  1.5
      */
     public int codePointCount(int beginIndex, int endIndex) {
-        if (beginIndex < 0 || endIndex > value.length || beginIndex > endIndex) {
+        if (beginIndex < 0 || endIndex > length() || beginIndex > endIndex) {
             throw new IndexOutOfBoundsException();
         }
-        return Character.codePointCountImpl(value, beginIndex, endIndex - beginIndex);
+        if (isLatin1()) {
+            return endIndex - beginIndex;
+        }
+        return StringUTF16.codePointCount(value, beginIndex, endIndex);
     }
 
     /**
@@ -768,11 +893,10 @@ public final class String
      * @since 1.5
      */
     public int offsetByCodePoints(int index, int codePointOffset) {
-        if (index < 0 || index > value.length) {
+        if (index < 0 || index > length()) {
             throw new IndexOutOfBoundsException();
         }
-        return Character.offsetByCodePointsImpl(value, 0, value.length,
-                index, codePointOffset);
+        return Character.offsetByCodePoints(this, index, codePointOffset);
     }
 
     /**
@@ -780,7 +904,25 @@ public final class String
      * This method doesn't perform any range checking.
      */
     void getChars(char dst[], int dstBegin) {
-        System.arraycopy(value, 0, dst, dstBegin, value.length);
+        if (isLatin1()) {
+            StringLatin1.inflate(value, 0, dst, dstBegin, value.length);
+        } else {
+            StringUTF16.getChars(value, 0, value.length >> 1, dst, dstBegin);
+        }
+    }
+
+    /**
+     * Copy this string's value into dst, which has the encoding
+     * given by coder, starting at char index dstBegin.  The caller
+     * ensures dst is large enough and that coder is UTF16 if this
+     * string is.
+     */
+    void getBytes(byte dst[], int dstBegin, byte coder) {
+        if (coder() == coder) {
+            System.arraycopy(value, 0, dst, dstBegin << coder, value.length);
+        } else {    // this.coder == LATIN1 && coder == UTF16
+            StringLatin1.inflate(value, 0, dst, dstBegin, value.length);
+        }
     }
 
     /**
@@ -817,13 +959,18 @@ public final class String
         if (srcBegin < 0) {
             throw new StringIndexOutOfBoundsException(srcBegin);
         }
-        if (srcEnd > value.length) {
+        if (srcEnd > length()) {
             throw new StringIndexOutOfBoundsException(srcEnd);
         }
         if (srcBegin > srcEnd) {
             throw new StringIndexOutOfBoundsException(srcEnd - srcBegin);
         }
-        System.arraycopy(value, srcBegin, dst, dstBegin, srcEnd - srcBegin);
+        if (isLatin1()) {
+            StringLatin1.inflate(value, srcBegin, dst, dstBegin,
+                                 srcEnd - srcBegin);
+        } else {
+            StringUTF16.getChars(value, srcBegin, srcEnd, dst, dstBegin);
+        }
     }
 
     /**
@@ -874,19 +1021,24 @@ public final class String
         if (srcBegin < 0) {
             throw new StringIndexOutOfBoundsException(srcBegin);
         }
-        if (srcEnd > value.length) {
+        if (srcEnd > length()) {
             throw new StringIndexOutOfBoundsException(srcEnd);
         }
         if (srcBegin > srcEnd) {
             throw new StringIndexOutOfBoundsException(srcEnd - srcBegin);
         }
+        if (isLatin1()) {
+            System.arraycopy(value, srcBegin, dst, dstBegin,
+                             srcEnd - srcBegin);
+            return;
+        }
         int j = dstBegin;
         int n = srcEnd;
         int i = srcBegin;
-        char[] val = value;   /* avoid getfield opcode */
+        byte[] val = value;   /* avoid getfield opcode */
 
         while (i < n) {
-            dst[j++] = (byte)val[i++];
+            dst[j++] = (byte)StringUTF16.getChar(val, i++);
         }
     }
 
@@ -913,7 +1065,8 @@ public final class String
     public byte[] getBytes(String charsetName)
             throws UnsupportedEncodingException {
         if (charsetName == null) throw new NullPointerException();
-        return StringCoding.encode(charsetName, value, 0, value.length);
+        char[] val = toCharArray();
+        return StringCoding.encode(charsetName, val, 0, val.length);
     }
 
     /**
@@ -936,7 +1089,8 @@ public final class String
      */
     public byte[] getBytes(Charset charset) {
         if (charset == null) throw new NullPointerException();
-        return StringCoding.encode(charset, value, 0, value.length);
+        char[] val = toCharArray();
+        return StringCoding.encode(charset, val, 0, val.length);
     }
 
     /**
@@ -953,7 +1107,8 @@ public final class String
      * @since      JDK1.1
      */
     public byte[] getBytes() {
-        return StringCoding.encode(value, 0, value.length);
+        char[] val = toCharArray();
+        return StringCoding.encode(val, 0, val.length);
     }
 
     /**
@@ -977,17 +1132,9 @@ public final class String
         }
         if (anObject instanceof String) {
             String anotherString = (String) anObject;
-            int n = value.length;
-            if (n == anotherString.value.length) {
-                char v1[] = value;
-                char v2[] = anotherString.value;
-                int i = 0;
-                while (n-- != 0) {
-                    if (v1[i] != v2[i])
-                            return false;
-                    i++;
-                }
-                return true;
+            // Strings with different coders never have equal contents
+            if (coder() == anotherString.coder()) {
+                return StringLatin1.equals(value, anotherString.value);
             }
         }
         return false;
@@ -1028,18 +1175,29 @@ public final class String
      * @since  1.5
      */
     public boolean contentEquals(CharSequence cs) {
-        if (value.length != cs.length())
+        int n = length();
+        if (n != cs.length())
             return false;
         // Argument is a StringBuffer, StringBuilder
         if (cs instanceof AbstractStringBuilder) {
-            char v1[] = value;
-            char v2[] = ((AbstractStringBuilder) cs).getValue();
-            int i = 0;
-            int n = value.length;
-            while (n-- != 0) {
-                if (v1[i] != v2[i])
-                    return false;
-                i++;
+            AbstractStringBuilder asb = (AbstractStringBuilder) cs;
+            byte v1[] = value;
+            byte v2[] = asb.getValue();
+            if (coder() == asb.getCoder()) {
+                for (int i = 0; i < v1.length; i++) {
+                    if (v1[i] != v2[i])
+                        return false;
+                }
+            } else if (isLatin1()) {
+                for (int i = 0; i < n; i++) {
+                    if (StringLatin1.getChar(v1, i) !=
+                        StringUTF16.getChar(v2, i))
+                        return false;
+                }
+            } else {
+                // A Latin-1 builder cannot hold this string's
+                // non-Latin-1 chars
+                return false;
             }
             return true;
         }
@@ -1047,13 +1205,9 @@ public final class String
         if (cs.equals(this))
             return true;
         // Argument is a generic CharSequence
-        char v1[] = value;
-        int i = 0;
-        int n = value.length;
-        while (n-- != 0) {
-            if (v1[i] != cs.charAt(i))
+        for (int i = 0; i < n; i++) {
+            if (charAt(i) != cs.charAt(i))
                 return false;
-            i++;
         }
         return true;
     }
@@ -1089,8 +1243,8 @@ public final class String
     public boolean equalsIgnoreCase(String anotherString) {
         return (this == anotherString) ? true
                 : (anotherString != null)
-                && (anotherString.value.length == value.length)
-                && regionMatches(true, 0, anotherString, 0, value.length);
+                && (anotherString.length() == length())
+                && regionMatches(true, 0, anotherString, 0, length());
     }
 
     /**
@@ -1135,22 +1289,14 @@ public final class String
      *          lexicographically greater than the string argument.
      */
     public int compareTo(String anotherString) {
-        int len1 = value.length;
-        int len2 = anotherString.value.length;
-        int lim = Math.min(len1, len2);
-        char v1[] = value;
-        char v2[] = anotherString.value;
-
-        int k = 0;
-        while (k < lim) {
-            char c1 = v1[k];
-            char c2 = v2[k];
-            if (c1 != c2) {
-                return c1 - c2;
-            }
-            k++;
+        byte v1[] = value;
+        byte v2[] = anotherString.value;
+        if (coder() == anotherString.coder()) {
+            return isLatin1() ? StringLatin1.compareTo(v1, v2)
+                              : StringUTF16.compareTo(v1, v2);
         }
-        return len1 - len2;
+        return isLatin1() ? StringLatin1.compareToUTF16(v1, v2)
+                          : StringUTF16.compareToLatin1(v1, v2);
     }
 
     /**
@@ -1253,19 +1399,31 @@ public final class String
      */
     public boolean regionMatches(int toffset, String other, int ooffset,
             int len) {
-        char ta[] = value;
-        int to = toffset;
-        char pa[] = other.value;
-        int po = ooffset;
+        byte ta[] = value;
+        byte pa[] = other.value;
         // Note: toffset, ooffset, or len might be near -1>>>1.
         if ((ooffset < 0) || (toffset < 0)
-                || (toffset > (long)value.length - len)
-                || (ooffset > (long)other.value.length - len)) {
+                || (toffset > (long)length() - len)
+                || (ooffset > (long)other.length() - len)) {
             return false;
         }
-        while (len-- > 0) {
-            if (ta[to++] != pa[po++]) {
-                return false;
+        byte tc = coder();
+        if (tc == other.coder()) {
+            int to = toffset << tc;
+            int po = ooffset << tc;
+            len <<= tc;
+            while (len-- > 0) {
+                if (ta[to++] != pa[po++]) {
+                    return false;
+                }
+            }
+        } else {
+            int to = toffset;
+            int po = ooffset;
+            while (len-- > 0) {
+                if (getChar(ta, tc, to++) != getChar(pa, other.coder(), po++)) {
+                    return false;
+                }
             }
         }
         return true;
@@ -1323,19 +1481,21 @@ public final class String
      */
     public boolean regionMatches(boolean ignoreCase, int toffset,
             String other, int ooffset, int len) {
-        char ta[] = value;
+        byte ta[] = value;
+        byte tc = coder();
         int to = toffset;
-        char pa[] = other.value;
+        byte pa[] = other.value;
+        byte pc = other.coder();
         int po = ooffset;
         // Note: toffset, ooffset, or len might be near -1>>>1.
         if ((ooffset < 0) || (toffset < 0)
-                || (toffset > (long)value.length - len)
-                || (ooffset > (long)other.value.length - len)) {
+                || (toffset > (long)length() - len)
+                || (ooffset > (long)other.length() - len)) {
             return false;
         }
         while (len-- > 0) {
-            char c1 = ta[to++];
-            char c2 = pa[po++];
+            char c1 = getChar(ta, tc, to++);
+            char c2 = getChar(pa, pc, po++);
             if (c1 == c2) {
                 continue;
             }
@@ -1380,19 +1540,33 @@ public final class String
      *          </pre>
      */
     public boolean startsWith(String prefix, int toffset) {
-        char ta[] = value;
-        int to = toffset;
-        char pa[] = prefix.value;
+        byte ta[] = value;
+        byte pa[] = prefix.value;
         int po = 0;
-        int pc = prefix.value.length;
+        int pc = prefix.length();
         // Note: toffset might be near -1>>>1.
-        if ((toffset < 0) || (toffset > value.length - pc)) {
+        if ((toffset < 0) || (toffset > length() - pc)) {
             return false;
         }
-        while (--pc >= 0) {
-            if (ta[to++] != pa[po++]) {
+        if (coder() == prefix.coder()) {
+            int to = isLatin1() ? toffset : toffset << 1;
+            pc = pa.length;
+            while (po < pc) {
+                if (ta[to++] != pa[po++]) {
+                    return false;
+                }
+            }
+        } else {
+            if (isLatin1()) {  // && prefix.coder == UTF16
                 return false;
             }
+            // this.coder == UTF16 && prefix.coder == LATIN1
+            int to = toffset;
+            while (po < pc) {
+                if (StringUTF16.getChar(ta, to++) != (pa[po++] & 0xff)) {
+                    return false;
+                }
+            }
         }
         return true;
     }
@@ -1426,7 +1600,7 @@ public final class String
      *          as determined by the {@link #equals(Object)} method.
      */
     public boolean endsWith(String suffix) {
-        return startsWith(suffix, value.length - suffix.value.length);
+        return startsWith(suffix, length() - suffix.length());
     }
 
     /**
@@ -1445,11 +1619,8 @@ public final class String
     public int hashCode() {
         int h = hash;
         if (h == 0 && value.length > 0) {
-            char val[] = value;
-
-            for (int i = 0; i < value.length; i++) {
-                h = 31 * h + val[i];
-            }
+            h = isLatin1() ? StringLatin1.hashCode(value)
+                           : StringUTF16.hashCode(value);
             hash = h;
         }
         return h;
@@ -1523,45 +1694,8 @@ public final class String
      *          if the character does not occur.
      */
     public int indexOf(int ch, int fromIndex) {
-        final int max = value.length;
-        if (fromIndex < 0) {
-            fromIndex = 0;
-        } else if (fromIndex >= max) {
-            // Note: fromIndex might be near -1>>>1.
-            return -1;
-        }
-
-        if (ch < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
-            // handle most cases here (ch is a BMP code point or a
-            // negative value (invalid code point))
-            final char[] value = this.value;
-            for (int i = fromIndex; i < max; i++) {
-                if (value[i] == ch) {
-                    return i;
-                }
-            }
-            return -1;
-        } else {
-            return indexOfSupplementary(ch, fromIndex);
-        }
-    }
-
-    /**
-     * Handles (rare) calls of indexOf with a supplementary character.
-     */
-    private int indexOfSupplementary(int ch, int fromIndex) {
-        if (Character.isValidCodePoint(ch)) {
-            final char[] value = this.value;
-            final char hi = Character.highSurrogate(ch);
-            final char lo = Character.lowSurrogate(ch);
-            final int max = value.length - 1;
-            for (int i = fromIndex; i < max; i++) {
-                if (value[i] == hi && value[i + 1] == lo) {
-                    return i;
-                }
-            }
-        }
-        return -1;
+        return isLatin1() ? StringLatin1.indexOf(value, ch, fromIndex)
+                          : StringUTF16.indexOf(value, ch, fromIndex);
     }
 
     /**
@@ -1588,7 +1722,7 @@ public final class String
      *          <code>-1</code> if the character does not occur.
      */
     public int lastIndexOf(int ch) {
-        return lastIndexOf(ch, value.length - 1);
+        return lastIndexOf(ch, length() - 1);
     }
 
     /**
@@ -1626,38 +1760,8 @@ public final class String
      *          if the character does not occur before that point.
      */
     public int lastIndexOf(int ch, int fromIndex) {
-        if (ch < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
-            // handle most cases here (ch is a BMP code point or a
-            // negative value (invalid code point))
-            final char[] value = this.value;
-            int i = Math.min(fromIndex, value.length - 1);
-            for (; i >= 0; i--) {
-                if (value[i] == ch) {
-                    return i;
-                }
-            }
-            return -1;
-        } else {
-            return lastIndexOfSupplementary(ch, fromIndex);
-        }
-    }
-
-    /**
-     * Handles (rare) calls of lastIndexOf with a supplementary character.
-     */
-    private int lastIndexOfSupplementary(int ch, int fromIndex) {
-        if (Character.isValidCodePoint(ch)) {
-            final char[] value = this.value;
-            char hi = Character.highSurrogate(ch);
-            char lo = Character.lowSurrogate(ch);
-            int i = Math.min(fromIndex, value.length - 2);
-            for (; i >= 0; i--) {
-                if (value[i] == hi && value[i + 1] == lo) {
-                    return i;
-                }
-            }
-        }
-        return -1;
+        return isLatin1() ? StringLatin1.lastIndexOf(value, ch, fromIndex)
+                          : StringUTF16.lastIndexOf(value, ch, fromIndex);
     }
 
     /**
@@ -1695,59 +1799,48 @@ public final class String
      *          or {@code -1} if there is no such occurrence.
      */
     public int indexOf(String str, int fromIndex) {
-        return indexOf(value, 0, value.length,
-                str.value, 0, str.value.length, fromIndex);
+        return indexOf(value, coder(), length(), str, fromIndex);
     }
 
     /**
-     * Code shared by String and StringBuffer to do searches. The
-     * source is the character array being searched, and the target
-     * is the string being searched for.
+     * Code shared by String and AbstractStringBuilder to do searches.
+     * The source is the value being searched, and the target is the
+     * string being searched for.
      *
-     * @param   source       the characters being searched.
-     * @param   sourceOffset offset of the source string.
-     * @param   sourceCount  count of the source string.
-     * @param   target       the characters being searched for.
-     * @param   targetOffset offset of the target string.
-     * @param   targetCount  count of the target string.
-     * @param   fromIndex    the index to begin searching from.
+     * @param   src         the value being searched.
+     * @param   srcCoder    the coder of the source value.
+     * @param   srcCount    count of the source value.
+     * @param   tgtStr      the string being searched for.
+     * @param   fromIndex   the index to begin searching from.
      */
-    static int indexOf(char[] source, int sourceOffset, int sourceCount,
-            char[] target, int targetOffset, int targetCount,
-            int fromIndex) {
-        if (fromIndex >= sourceCount) {
-            return (targetCount == 0 ? sourceCount : -1);
+    static int indexOf(byte[] src, byte srcCoder, int srcCount,
+                       String tgtStr, int fromIndex) {
+        byte[] tgt = tgtStr.value;
+        byte tgtCoder = tgtStr.coder();
+        int tgtCount = tgtStr.length();
+
+        if (fromIndex >= srcCount) {
+            return (tgtCount == 0 ? srcCount : -1);
         }
         if (fromIndex < 0) {
             fromIndex = 0;
         }
-        if (targetCount == 0) {
+        if (tgtCount == 0) {
             return fromIndex;
         }
-
-        char first = target[targetOffset];
-        int max = sourceOffset + (sourceCount - targetCount);
-
-        for (int i = sourceOffset + fromIndex; i <= max; i++) {
-            /* Look for first character. */
-            if (source[i] != first) {
-                while (++i <= max && source[i] != first);
-            }
-
-            /* Found first character, now look at the rest of v2 */
-            if (i <= max) {
-                int j = i + 1;
-                int end = j + targetCount - 1;
-                for (int k = targetOffset + 1; j < end && source[j]
-                        == target[k]; j++, k++);
-
-                if (j == end) {
-                    /* Found whole string. */
-                    return i - sourceOffset;
-                }
-            }
+        if (tgtCount > srcCount) {
+            return -1;
+        }
+        if (srcCoder == tgtCoder) {
+            return srcCoder == LATIN1
+                ? StringLatin1.indexOf(src, srcCount, tgt, tgtCount, fromIndex)
+                : StringUTF16.indexOf(src, srcCount, tgt, tgtCount, fromIndex);
         }
-        return -1;
+        if (srcCoder == LATIN1) {    //  && tgtCoder == UTF16
+            return -1;
+        }
+        // srcCoder == UTF16 && tgtCoder == LATIN1
+        return StringUTF16.indexOfLatin1(src, srcCount, tgt, tgtCount, fromIndex);
     }
 
     /**
@@ -1766,7 +1859,7 @@ public final class String
      *          or {@code -1} if there is no such occurrence.
      */
     public int lastIndexOf(String str) {
-        return lastIndexOf(str, value.length);
+        return lastIndexOf(str, length());
     }
 
     /**
@@ -1786,67 +1879,53 @@ public final class String
      *          or {@code -1} if there is no such occurrence.
      */
     public int lastIndexOf(String str, int fromIndex) {
-        return lastIndexOf(value, 0, value.length,
-                str.value, 0, str.value.length, fromIndex);
+        return lastIndexOf(value, coder(), length(), str, fromIndex);
     }
 
     /**
-     * Code shared by String and StringBuffer to do searches. The
-     * source is the character array being searched, and the target
-     * is the string being searched for.
+     * Code shared by String and AbstractStringBuilder to do searches.
+     * The source is the value being searched, and the target is the
+     * string being searched for.
      *
-     * @param   source       the characters being searched.
-     * @param   sourceOffset offset of the source string.
-     * @param   sourceCount  count of the source string.
-     * @param   target       the characters being searched for.
-     * @param   targetOffset offset of the target string.
-     * @param   targetCount  count of the target string.
-     * @param   fromIndex    the index to begin searching from.
+     * @param   src         the value being searched.
+     * @param   srcCoder    the coder of the source value.
+     * @param   srcCount    count of the source value.
+     * @param   tgtStr      the string being searched for.
+     * @param   fromIndex   the index to begin searching from.
      */
-    static int lastIndexOf(char[] source, int sourceOffset, int sourceCount,
-            char[] target, int targetOffset, int targetCount,
-            int fromIndex) {
+    static int lastIndexOf(byte[] src, byte srcCoder, int srcCount,
+                           String tgtStr, int fromIndex) {
+        byte[] tgt = tgtStr.value;
+        byte tgtCoder = tgtStr.coder();
+        int tgtCount = tgtStr.length();
         /*
          * Check arguments; return immediately where possible. For
          * consistency, don't check for null str.
          */
-        int rightIndex = sourceCount - targetCount;
+        int rightIndex = srcCount - tgtCount;
         if (fromIndex < 0) {
             return -1;
         }
         if (fromIndex > rightIndex) {
             fromIndex = rightIndex;
         }
+        if (fromIndex < 0) {
+            return -1;
+        }
         /* Empty string always matches. */
-        if (targetCount == 0) {
+        if (tgtCount == 0) {
             return fromIndex;
         }
-
-        int strLastIndex = targetOffset + targetCount - 1;
-        char strLastChar = target[strLastIndex];
-        int min = sourceOffset + targetCount - 1;
-        int i = min + fromIndex;
-
-        startSearchForLastChar:
-        while (true) {
-            while (i >= min && source[i] != strLastChar) {
-                i--;
-            }
-            if (i < min) {
-                return -1;
-            }
-            int j = i - 1;
-            int start = j - (targetCount - 1);
-            int k = strLastIndex - 1;
-
-            while (j > start) {
-                if (source[j--] != target[k--]) {
-                    i--;
-                    continue startSearchForLastChar;
-                }
-            }
-            return start - sourceOffset + 1;
+        if (srcCoder == tgtCoder) {
+            return srcCoder == LATIN1
+                ? StringLatin1.lastIndexOf(src, srcCount, tgt, tgtCount, fromIndex)
+                : StringUTF16.lastIndexOf(src, srcCount, tgt, tgtCount, fromIndex);
+        }
+        if (srcCoder == LATIN1) {    // && tgtCoder == UTF16
+            return -1;
         }
+        // srcCoder == UTF16 && tgtCoder == LATIN1
+        return StringUTF16.lastIndexOfLatin1(src, srcCount, tgt, tgtCount, fromIndex);
     }
 
     /**
@@ -1870,11 +1949,15 @@ public final class String
         if (beginIndex < 0) {
             throw new StringIndexOutOfBoundsException(beginIndex);
         }
-        int subLen = value.length - beginIndex;
+        int subLen = length() - beginIndex;
         if (subLen < 0) {
             throw new StringIndexOutOfBoundsException(subLen);
         }
-        return (beginIndex == 0) ? this : new String(value, beginIndex, subLen);
+        if (beginIndex == 0) {
+            return this;
+        }
+        return isLatin1() ? StringLatin1.newString(value, beginIndex, subLen)
+                          : StringUTF16.newString(value, beginIndex, subLen);
     }
 
     /**
@@ -1903,15 +1986,19 @@ public final class String
         if (beginIndex < 0) {
             throw new StringIndexOutOfBoundsException(beginIndex);
         }
-        if (endIndex > value.length) {
+        int length = length();
+        if (endIndex > length) {
             throw new StringIndexOutOfBoundsException(endIndex);
         }
         int subLen = endIndex - beginIndex;
         if (subLen < 0) {
             throw new StringIndexOutOfBoundsException(subLen);
         }
-        return ((beginIndex == 0) && (endIndex == value.length)) ? this
-                : new String(value, beginIndex, subLen);
+        if ((beginIndex == 0) && (endIndex == length)) {
+            return this;
+        }
+        return isLatin1() ? StringLatin1.newString(value, beginIndex, subLen)
+                          : StringUTF16.newString(value, beginIndex, subLen);
     }
 
     /**
@@ -1971,10 +2058,18 @@ public final class String
         if (otherLen == 0) {
             return this;
         }
-        int len = value.length;
-        char buf[] = Arrays.copyOf(value, len + otherLen);
-        str.getChars(buf, len);
-        return new String(buf, true);
+        if (coder() == str.coder()) {
+            byte[] val = this.value;
+            byte[] oval = str.value;
+            byte[] buf = Arrays.copyOf(val, val.length + oval.length);
+            System.arraycopy(oval, 0, buf, val.length, oval.length);
+            return new String(buf, coder);
+        }
+        int len = length();
+        byte[] buf = StringUTF16.newBytesFor(len + otherLen);
+        getBytes(buf, 0, UTF16);
+        str.getBytes(buf, len, UTF16);
+        return new String(buf, UTF16);
     }
 
     /**
@@ -2008,26 +2103,38 @@ public final class String
      */
     public String replace(char oldChar, char newChar) {
         if (oldChar != newChar) {
-            int len = value.length;
-            int i = -1;
-            char[] val = value; /* avoid getfield opcode */
-
-            while (++i < len) {
-                if (val[i] == oldChar) {
-                    break;
-                }
-            }
-            if (i < len) {
-                char buf[] = new char[len];
-                for (int j = 0; j < i; j++) {
-                    buf[j] = val[j];
+            int len = length();
+            int i = indexOf(oldChar);
+            byte[] val = value; /* avoid getfield opcode */
+
+            if (i >= 0) {
+                if (isLatin1() && StringLatin1.canEncode(newChar)) {
+                    byte buf[] = Arrays.copyOf(val, len);
+                    byte oc = (byte)oldChar;
+                    byte nc = (byte)newChar;
+                    while (i < len) {
+                        if (buf[i] == oc) {
+                            buf[i] = nc;
+                        }
+                        i++;
+                    }
+                    return new String(buf, LATIN1);
                 }
+                byte buf[] = StringUTF16.newBytesFor(len);
+                getBytes(buf, 0, UTF16);
                 while (i < len) {
-                    char c = val[i];
-                    buf[i] = (c == oldChar) ? newChar : c;
+                    if (StringUTF16.getChar(buf, i) == oldChar) {
+                        StringUTF16.putChar(buf, i, newChar);
+                    }
                     i++;
                 }
-                return new String(buf, true);
+                // Replacing the only non-Latin-1 chars may leave a
+                // string that can be compressed
+                if (COMPACT_STRINGS && !isLatin1() &&
+                    StringLatin1.canEncode(newChar)) {
+                    return StringUTF16.newString(buf, 0, len);
+                }
+                return new String(buf, UTF16);
             }
         }
         return this;
@@ -2266,31 +2373,38 @@ public final class String
          (1)one-char String and this character is not one of the
             RegEx's meta characters ".$|()[{^?*+\\", or
          (2)two-char String and the first char is the backslash and
-            the second is not the ascii digit or ascii letter.
+            the second is not the ascii digit or ascii letter, or
+         (3)longer String none of whose chars is one of the RegEx's
+            meta characters or a surrogate, matched literally.
          */
         char ch = 0;
-        if (((regex.value.length == 1 &&
-             ".$|()[{^?*+\\".indexOf(ch = regex.charAt(0)) == -1) ||
-             (regex.length() == 2 &&
-              regex.charAt(0) == '\\' &&
-              (((ch = regex.charAt(1))-'0')|('9'-ch)) < 0 &&
-              ((ch-'a')|('z'-ch)) < 0 &&
-              ((ch-'A')|('Z'-ch)) < 0)) &&
-            (ch < Character.MIN_HIGH_SURROGATE ||
-             ch > Character.MAX_LOW_SURROGATE))
+        boolean literal = regex.length() > 1 && isLiteralRegex(regex);
+        if (literal ||
+            (((regex.length() == 1 &&
+               ".$|()[{^?*+\\".indexOf(ch = regex.charAt(0)) == -1) ||
+              (regex.length() == 2 &&
+               regex.charAt(0) == '\\' &&
+               (((ch = regex.charAt(1))-'0')|('9'-ch)) < 0 &&
+               ((ch-'a')|('z'-ch)) < 0 &&
+               ((ch-'A')|('Z'-ch)) < 0)) &&
+             (ch < Character.MIN_HIGH_SURROGATE ||
+              ch > Character.MAX_LOW_SURROGATE)))
         {
+            int dlen = literal ? regex.length() : 1;
             int off = 0;
             int next = 0;
             boolean limited = limit > 0;
             ArrayList<String> list = new ArrayList<>();
-            while ((next = indexOf(ch, off)) != -1) {
+            while ((next = literal ? indexOf(regex, off)
+                                   : indexOf(ch, off)) != -1) {
                 if (!limited || list.size() < limit - 1) {
                     list.add(substring(off, next));
-                    off = next + 1;
+                    off = next + dlen;
                 } else {    // last one
                     //assert (list.size() == limit - 1);
-                    list.add(substring(off, value.length));
-                    off = value.length;
+                    int last = length();
+                    list.add(substring(off, last));
+                    off = last;
                     break;
                 }
             }
@@ -2300,7 +2414,7 @@ public final class String
 
             // Add remaining segment
             if (!limited || list.size() < limit)
-                list.add(substring(off, value.length));
+                list.add(substring(off, length()));
 
             // Construct result
             int resultSize = list.size();
@@ -2313,6 +2427,20 @@ public final class String
         return Pattern.compile(regex).split(this, limit);
     }
 
+    /*
+     * Returns true if regex matches only itself: it has no regex meta
+     * characters, and no surrogates, which Pattern matches by code
+     * point rather than by char.
+     */
+    private static boolean isLiteralRegex(String regex) {
+        for (int i = 0, n = regex.length(); i < n; i++) {
+            char c = regex.charAt(i);
+            if (".$|()[{^?*+\\".indexOf(c) >= 0 || Character.isSurrogate(c))
+                return false;
+        }
+        return true;
+    }
+
     /**
      * Splits this string around matches of the given <a
      * href="../util/regex/Pattern.html#sum">regular expression</a>.
@@ -2355,6 +2483,131 @@ public final class String
         return split(regex, 0);
     }
 
+    /**
+     * Returns a new String composed of copies of the
+     * {@code CharSequence elements} joined together with a copy of
+     * the specified {@code delimiter}.
+     *
+     * <blockquote>For example,
+     * <pre>{@code
+     *     String message = String.join("-", "Java", "is", "cool");
+     *     // message returned is: "Java-is-cool"
+     * }</pre></blockquote>
+     *
+     * Note that if an element is null, then {@code "null"} is added.
+     *
+     * @param  delimiter the delimiter that separates each element
+     * @param  elements the elements to join together.
+     *
+     * @return a new {@code String} that is composed of the {@code elements}
+     *         separated by the {@code delimiter}
+     *
+     * @throws NullPointerException If {@code delimiter} or {@code elements}
+     *         is {@code null}
+     *
+     * @see java.util.StringJoiner
+     * @since 1.7
+     */
+    public static String join(CharSequence delimiter, CharSequence... elements) {
+        String delim = delimiter.toString();
+        String[] elems = new String[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            elems[i] = String.valueOf(elements[i]);
+        }
+        return join("", "", delim, elems, elems.length);
+    }
+
+    /**
+     * Returns a new {@code String} composed of copies of the
+     * {@code CharSequence elements} joined together with a copy of the
+     * specified {@code delimiter}.
+     *
+     * <blockquote>For example,
+     * <pre>{@code
+     *     List<String> strings = new LinkedList<>();
+     *     strings.add("Java");strings.add("is");
+     *     strings.add("cool");
+     *     String message = String.join(" ", strings);
+     *     //message returned is: "Java is cool"
+     *
+     *     Set<String> strings = new LinkedHashSet<>();
+     *     strings.add("Java"); strings.add("is");
+     *     strings.add("very"); strings.add("cool");
+     *     String message = String.join("-", strings);
+     *     //message returned is: "Java-is-very-cool"
+     * }</pre></blockquote>
+     *
+     * Note that if an individual element is {@code null}, then {@code "null"} is added.
+     *
+     * @param  delimiter a sequence of characters that is used to separate each
+     *         of the {@code elements} in the resulting {@code String}
+     * @param  elements an {@code Iterable} that will have its {@code elements}
+     *         joined together.
+     *
+     * @return a new {@code String} that is composed from the {@code elements}
+     *         argument
+     *
+     * @throws NullPointerException If {@code delimiter} or {@code elements}
+     *         is {@code null}
+     *
+     * @see    #join(CharSequence,CharSequence...)
+     * @see    java.util.StringJoiner
+     * @since 1.7
+     */
+    public static String join(CharSequence delimiter,
+            Iterable<? extends CharSequence> elements) {
+        String delim = delimiter.toString();
+        String[] elems = new String[8];
+        int size = 0;
+        for (CharSequence cs : elements) {
+            if (size >= elems.length) {
+                elems = Arrays.copyOf(elems, elems.length << 1);
+            }
+            elems[size++] = String.valueOf(cs);
+        }
+        return join("", "", delim, elems, size);
+    }
+
+    /*
+     * Joins the first size elements, separated by delimiter and
+     * enclosed in prefix and suffix, copying each string once into a
+     * value of the exact length and coder of the result.
+     */
+    static String join(String prefix, String suffix, String delimiter,
+                       String[] elements, int size) {
+        long len = (long)prefix.length() + suffix.length();
+        byte coder = (byte)(prefix.coder() | suffix.coder());
+        if (size > 0) {
+            len += (long)(size - 1) * delimiter.length();
+            coder |= delimiter.coder();
+            for (int i = 0; i < size; i++) {
+                String el = elements[i];
+                len += el.length();
+                coder |= el.coder();
+            }
+        }
+        if (len > Integer.MAX_VALUE) {
+            throw new OutOfMemoryError("Joined string is too long");
+        }
+        int n = (int)len;
+        byte[] value = (coder == LATIN1) ? new byte[n]
+                                         : StringUTF16.newBytesFor(n);
+        int off = 0;
+        prefix.getBytes(value, off, coder);
+        off += prefix.length();
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                delimiter.getBytes(value, off, coder);
+                off += delimiter.length();
+            }
+            String el = elements[i];
+            el.getBytes(value, off, coder);
+            off += el.length();
+        }
+        suffix.getBytes(value, off, coder);
+        return new String(value, coder);
+    }
+
     /**
      * Converts all of the characters in this <code>String</code> to lower
      * case using the rules of the given <code>Locale</code>.  Case mapping is based
@@ -2412,13 +2665,20 @@ public final class String
             throw new NullPointerException();
         }
 
+        String lang = locale.getLanguage();
+        boolean localeDependent =
+                (lang == "tr" || lang == "az" || lang == "lt");
+        if (isLatin1() && !localeDependent) {
+            return toLowerCaseLatin1();
+        }
+
         int firstUpper;
-        final int len = value.length;
+        final int len = length();
 
         /* Now check if there are any characters that need to be changed. */
         scan: {
             for (firstUpper = 0 ; firstUpper < len; ) {
-                char c = value[firstUpper];
+                char c = charAt(firstUpper);
                 if ((c >= Character.MIN_HIGH_SURROGATE)
                         && (c <= Character.MAX_HIGH_SURROGATE)) {
                     int supplChar = codePointAt(firstUpper);
@@ -2441,17 +2701,14 @@ public final class String
                                 * is the write location in result */
 
         /* Just copy the first few lowerCase characters. */
-        System.arraycopy(value, 0, result, 0, firstUpper);
+        getChars(0, firstUpper, result, 0);
 
-        String lang = locale.getLanguage();
-        boolean localeDependent =
-                (lang == "tr" || lang == "az" || lang == "lt");
         char[] lowerCharArray;
         int lowerChar;
         int srcChar;
         int srcCount;
         for (int i = firstUpper; i < len; i += srcCount) {
-            srcChar = (int)value[i];
+            srcChar = (int)charAt(i);
             if ((char)srcChar >= Character.MIN_HIGH_SURROGATE
                     && (char)srcChar <= Character.MAX_HIGH_SURROGATE) {
                 srcChar = codePointAt(i);
@@ -2494,6 +2751,31 @@ public final class String
         return new String(result, 0, len + resultOffset);
     }
 
+    /*
+     * Lower-cases a Latin-1 string outside the Turkish, Azeri and
+     * Lithuanian locales, where the lower case of every Latin-1 char
+     * is itself a Latin-1 char.
+     */
+    private String toLowerCaseLatin1() {
+        final byte[] val = value;
+        final int len = val.length;
+        int first;
+        for (first = 0; first < len; first++) {
+            int c = val[first] & 0xff;
+            if (c != Character.toLowerCase(c)) {
+                break;
+            }
+        }
+        if (first == len) {
+            return this;
+        }
+        byte[] result = Arrays.copyOf(val, len);
+        for (int i = first; i < len; i++) {
+            result[i] = (byte)Character.toLowerCase(val[i] & 0xff);
+        }
+        return new String(result, LATIN1);
+    }
+
     /**
      * Converts all of the characters in this <code>String</code> to lower
      * case using the rules of the default locale. This is equivalent to calling
@@ -2570,13 +2852,23 @@ public final class String
             throw new NullPointerException();
         }
 
+        String lang = locale.getLanguage();
+        boolean localeDependent =
+                (lang == "tr" || lang == "az" || lang == "lt");
+        if (isLatin1() && !localeDependent) {
+            String upper = toUpperCaseLatin1();
+            if (upper != null) {
+                return upper;
+            }
+        }
+
         int firstLower;
-        final int len = value.length;
+        final int len = length();
 
         /* Now check if there are any characters that need to be changed. */
         scan: {
            for (firstLower = 0 ; firstLower < len; ) {
-                int c = (int)value[firstLower];
+                int c = (int)charAt(firstLower);
                 int srcCount;
                 if ((c >= Character.MIN_HIGH_SURROGATE)
                         && (c <= Character.MAX_HIGH_SURROGATE)) {
@@ -2600,17 +2892,14 @@ public final class String
          * is the write location in result */
 
         /* Just copy the first few upperCase characters. */
-        System.arraycopy(value, 0, result, 0, firstLower);
+        getChars(0, firstLower, result, 0);
 
-        String lang = locale.getLanguage();
-        boolean localeDependent =
-                (lang == "tr" || lang == "az" || lang == "lt");
         char[] upperCharArray;
         int upperChar;
         int srcChar;
         int srcCount;
         for (int i = firstLower; i < len; i += srcCount) {
-            srcChar = (int)value[i];
+            srcChar = (int)charAt(i);
             if ((char)srcChar >= Character.MIN_HIGH_SURROGATE &&
                 (char)srcChar <= Character.MAX_HIGH_SURROGATE) {
                 srcChar = codePointAt(i);
@@ -2657,6 +2946,36 @@ public final class String
         return new String(result, 0, len + resultOffset);
     }
 
+    /*
+     * Upper-cases a Latin-1 string outside the Turkish, Azeri and
+     * Lithuanian locales, or returns null if some char (such as
+     * '\u00B5', '\u00DF' or '\u00FF') has an upper case outside
+     * Latin-1.
+     */
+    private String toUpperCaseLatin1() {
+        final byte[] val = value;
+        final int len = val.length;
+        int first;
+        for (first = 0; first < len; first++) {
+            int c = val[first] & 0xff;
+            if (c != Character.toUpperCaseEx(c)) {
+                break;
+            }
+        }
+        if (first == len) {
+            return this;
+        }
+        byte[] result = Arrays.copyOf(val, len);
+        for (int i = first; i < len; i++) {
+            int upper = Character.toUpperCaseEx(val[i] & 0xff);
+            if (!StringLatin1.canEncode(upper)) {
+                return null;
+            }
+            result[i] = (byte)upper;
+        }
+        return new String(result, LATIN1);
+    }
+
     /**
      * Converts all of the characters in this <code>String</code> to upper
      * case using the rules of the default locale. This method is equivalent to
@@ -2712,17 +3031,27 @@ public final class String
      *          trailing white space.
      */
     public String trim() {
-        int len = value.length;
+        int length = length();
+        int len = length;
         int st = 0;
-        char[] val = value;    /* avoid getfield opcode */
+        byte[] val = value;    /* avoid getfield opcode */
 
-        while ((st < len) && (val[st] <= ' ')) {
-            st++;
-        }
-        while ((st < len) && (val[len - 1] <= ' ')) {
-            len--;
+        if (isLatin1()) {
+            while ((st < len) && ((val[st] & 0xff) <= ' ')) {
+                st++;
+            }
+            while ((st < len) && ((val[len - 1] & 0xff) <= ' ')) {
+                len--;
+            }
+        } else {
+            while ((st < len) && (StringUTF16.getChar(val, st) <= ' ')) {
+                st++;
+            }
+            while ((st < len) && (StringUTF16.getChar(val, len - 1) <= ' ')) {
+                len--;
+            }
         }
-        return ((st > 0) || (len < value.length)) ? substring(st, len) : this;
+        return ((st > 0) || (len < length)) ? substring(st, len) : this;
     }
 
     /**
@@ -2742,10 +3071,8 @@ public final class String
      *          the character sequence represented by this string.
      */
     public char[] toCharArray() {
-        // Cannot use Arrays.copyOf because of class initialization order issues
-        char result[] = new char[value.length];
-        System.arraycopy(value, 0, result, 0, value.length);
-        return result;
+        return isLatin1() ? StringLatin1.toChars(value)
+                          : StringUTF16.toChars(value);
     }
 
     /**
@@ -2934,8 +3261,12 @@ public final class String
      *          as its single character the argument <code>c</code>.
      */
     public static String valueOf(char c) {
-        char data[] = {c};
-        return new String(data, true);
+        if (COMPACT_STRINGS && StringLatin1.canEncode(c)) {
+            return new String(new byte[] { (byte)c }, LATIN1);
+        }
+        byte[] val = StringUTF16.newBytesFor(1);
+        StringUTF16.putChar(val, 0, c);
+        return new String(val, UTF16);
     }
 
     /**
@@ -3082,7 +3413,8 @@ public final class String
         int h = hash32;
         if (0 == h) {
            // harmless data race on hash32 here.
-           h = sun.misc.Hashing.murmur3_32(HASHING_SEED, value, 0, value.length);
+           char[] val = toCharArray();
+           h = sun.misc.Hashing.murmur3_32(HASHING_SEED, val, 0, val.length);
 
            // ensure result is not zero to avoid recalcing
            h = (0 != h) ? h : 1;
@@ -3093,4 +3425,43 @@ public final class String
         return h;
     }
 
+    /*
+     * If String compaction is disabled, the bytes in {@code value} are
+     * always encoded in UTF16.
+     *
+     * For methods with several possible implementation paths, when
+     * String compaction is disabled, only one code path is taken.
+     *
+     * The instance field value is generally opaque to optimizing JIT
+     * compilers. Therefore, in performance-sensitive places, an
+     * explicit check of the static boolean {@code COMPACT_STRINGS} is
+     * done first before checking the {@code coder} field since the
+     * static boolean {@code COMPACT_STRINGS} would be constant folded
+     * away by an optimizing JIT compiler.
+     */
+    static final boolean COMPACT_STRINGS;
+
+    static {
+        COMPACT_STRINGS = true;
+    }
+
+    static final byte LATIN1 = 0;
+    static final byte UTF16  = 1;
+
+    byte coder() {
+        return COMPACT_STRINGS ? coder : UTF16;
+    }
+
+    boolean isLatin1() {
+        return COMPACT_STRINGS && coder == LATIN1;
+    }
+
+    byte[] value() {
+        return value;
+    }
+
+    private static char getChar(byte[] val, byte coder, int index) {
+        return coder == LATIN1 ? StringLatin1.getChar(val, index)
+                               : StringUTF16.getChar(val, index);
+    }
 }
@@ -145,14 +145,12 @@ package java.lang;
     }
 
     public synchronized int capacity() {
-        return value.length;
+        return super.capacity();
     }
 
 
     public synchronized void ensureCapacity(int minimumCapacity) {
-        if (minimumCapacity > value.length) {
-            expandCapacity(minimumCapacity);
-        }
+        super.ensureCapacity(minimumCapacity);
     }
 
     /**
@@ -175,9 +173,7 @@ package java.lang;
      * @see        #length()
      */
     public synchronized char charAt(int index) {
-        if ((index < 0) || (index >= count))
-            throw new StringIndexOutOfBoundsException(index);
-        return value[index];
+        return super.charAt(index);
     }
 
     /**
@@ -223,9 +219,7 @@ package java.lang;
      * @see        #length()
      */
     public synchronized void setCharAt(int index, char ch) {
-        if ((index < 0) || (index >= count))
-            throw new StringIndexOutOfBoundsException(index);
-        value[index] = ch;
+        super.setCharAt(index, ch);
     }
 
     public synchronized StringBuffer append(Object obj) {
@@ -361,6 +355,126 @@ package java.lang;
         return this;
     }
 
+    /**
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 1.7
+     */
+    public synchronized StringBuffer appendZeroPadded(int i, int width) {
+        super.appendZeroPadded(i, width);
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 1.7
+     */
+    public synchronized StringBuffer appendZeroPadded(long l, int width) {
+        super.appendZeroPadded(l, width);
+        return this;
+    }
+
+    /**
+     * @since 1.7
+     */
+    public synchronized StringBuffer appendHex(int i) {
+        super.appendHex(i);
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 1.7
+     */
+    public synchronized StringBuffer appendHex(int i, int width) {
+        super.appendHex(i, width);
+        return this;
+    }
+
+    /**
+     * @since 1.7
+     */
+    public synchronized StringBuffer appendHex(long l) {
+        super.appendHex(l);
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 1.7
+     */
+    public synchronized StringBuffer appendHex(long l, int width) {
+        super.appendHex(l, width);
+        return this;
+    }
+
+    /**
+     * @since 1.7
+     */
+    public synchronized StringBuffer appendOctal(int i) {
+        super.appendOctal(i);
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 1.7
+     */
+    public synchronized StringBuffer appendOctal(int i, int width) {
+        super.appendOctal(i, width);
+        return this;
+    }
+
+    /**
+     * @since 1.7
+     */
+    public synchronized StringBuffer appendOctal(long l) {
+        super.appendOctal(l);
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 1.7
+     */
+    public synchronized StringBuffer appendOctal(long l, int width) {
+        super.appendOctal(l, width);
+        return this;
+    }
+
+    /**
+     * @since 1.7
+     */
+    public synchronized StringBuffer appendBinary(int i) {
+        super.appendBinary(i);
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 1.7
+     */
+    public synchronized StringBuffer appendBinary(int i, int width) {
+        super.appendBinary(i, width);
+        return this;
+    }
+
+    /**
+     * @since 1.7
+     */
+    public synchronized StringBuffer appendBinary(long l) {
+        super.appendBinary(l);
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 1.7
+     */
+    public synchronized StringBuffer appendBinary(long l, int width) {
+        super.appendBinary(l, width);
+        return this;
+    }
+
     /**
      * @throws StringIndexOutOfBoundsException {@inheritDoc}
      * @since      1.2
@@ -527,8 +641,7 @@ package java.lang;
      * @since      1.4
      */
     public synchronized int indexOf(String str, int fromIndex) {
-        return String.indexOf(value, 0, count,
-                              str.toCharArray(), 0, str.length(), fromIndex);
+        return super.indexOf(str, fromIndex);
     }
 
     /**
@@ -545,8 +658,7 @@ package java.lang;
      * @since      1.4
      */
     public synchronized int lastIndexOf(String str, int fromIndex) {
-        return String.lastIndexOf(value, 0, count,
-                              str.toCharArray(), 0, str.length(), fromIndex);
+        return super.lastIndexOf(str, fromIndex);
     }
 
     /**
@@ -558,7 +670,8 @@ package java.lang;
     }
 
     public synchronized String toString() {
-        return new String(value, 0, count);
+        return isLatin1() ? StringLatin1.newString(value, 0, count)
+                          : StringUTF16.newString(value, 0, count);
     }
 
     /**
@@ -586,7 +699,9 @@ package java.lang;
     private synchronized void writeObject(java.io.ObjectOutputStream s)
         throws java.io.IOException {
         java.io.ObjectOutputStream.PutField fields = s.putFields();
-        fields.put("value", value);
+        char[] val = new char[capacity()];
+        getChars(0, count, val, 0);
+        fields.put("value", val);
         fields.put("count", count);
         fields.put("shared", false);
         s.writeFields();
@@ -599,7 +714,8 @@ package java.lang;
     private void readObject(java.io.ObjectInputStream s)
         throws java.io.IOException, ClassNotFoundException {
         java.io.ObjectInputStream.GetField fields = s.readFields();
-        value = (char[])fields.get("value", null);
+        char[] val = (char[])fields.get("value", null);
+        initBytes(val, 0, val.length);
         count = fields.get("count", 0);
     }
 }
@@ -135,14 +135,7 @@ public final class StringBuilder
 
     // Appends the specified string builder to this sequence.
     private StringBuilder append(StringBuilder sb) {
-        if (sb == null)
-            return append("null");
-        int len = sb.length();
-        int newcount = count + len;
-        if (newcount > value.length)
-            expandCapacity(newcount);
-        sb.getChars(0, len, value, count);
-        count = newcount;
+        super.append(sb);
         return this;
     }
 
@@ -235,6 +228,126 @@ public final class StringBuilder
         return this;
     }
 
+    /**
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 1.7
+     */
+    public StringBuilder appendZeroPadded(int i, int width) {
+        super.appendZeroPadded(i, width);
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 1.7
+     */
+    public StringBuilder appendZeroPadded(long l, int width) {
+        super.appendZeroPadded(l, width);
+        return this;
+    }
+
+    /**
+     * @since 1.7
+     */
+    public StringBuilder appendHex(int i) {
+        super.appendHex(i);
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 1.7
+     */
+    public StringBuilder appendHex(int i, int width) {
+        super.appendHex(i, width);
+        return this;
+    }
+
+    /**
+     * @since 1.7
+     */
+    public StringBuilder appendHex(long l) {
+        super.appendHex(l);
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 1.7
+     */
+    public StringBuilder appendHex(long l, int width) {
+        super.appendHex(l, width);
+        return this;
+    }
+
+    /**
+     * @since 1.7
+     */
+    public StringBuilder appendOctal(int i) {
+        super.appendOctal(i);
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 1.7
+     */
+    public StringBuilder appendOctal(int i, int width) {
+        super.appendOctal(i, width);
+        return this;
+    }
+
+    /**
+     * @since 1.7
+     */
+    public StringBuilder appendOctal(long l) {
+        super.appendOctal(l);
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 1.7
+     */
+    public StringBuilder appendOctal(long l, int width) {
+        super.appendOctal(l, width);
+        return this;
+    }
+
+    /**
+     * @since 1.7
+     */
+    public StringBuilder appendBinary(int i) {
+        super.appendBinary(i);
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 1.7
+     */
+    public StringBuilder appendBinary(int i, int width) {
+        super.appendBinary(i, width);
+        return this;
+    }
+
+    /**
+     * @since 1.7
+     */
+    public StringBuilder appendBinary(long l) {
+        super.appendBinary(l);
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 1.7
+     */
+    public StringBuilder appendBinary(long l, int width) {
+        super.appendBinary(l, width);
+        return this;
+    }
+
     /**
      * @since 1.5
      */
@@ -376,8 +489,7 @@ public final class StringBuilder
      * @throws NullPointerException {@inheritDoc}
      */
     public int indexOf(String str, int fromIndex) {
-        return String.indexOf(value, 0, count,
-                              str.toCharArray(), 0, str.length(), fromIndex);
+        return super.indexOf(str, fromIndex);
     }
 
     /**
@@ -391,8 +503,7 @@ public final class StringBuilder
      * @throws NullPointerException {@inheritDoc}
      */
     public int lastIndexOf(String str, int fromIndex) {
-        return String.lastIndexOf(value, 0, count,
-                              str.toCharArray(), 0, str.length(), fromIndex);
+        return super.lastIndexOf(str, fromIndex);
     }
 
     public StringBuilder reverse() {
@@ -402,7 +513,8 @@ public final class StringBuilder
 
     public String toString() {
         // Create a copy, don't share the array
-        return new String(value, 0, count);
+        return isLatin1() ? StringLatin1.newString(value, 0, count)
+                          : StringUTF16.newString(value, 0, count);
     }
 
     /**
@@ -420,7 +532,9 @@ public final class StringBuilder
         throws java.io.IOException {
         s.defaultWriteObject();
         s.writeInt(count);
-        s.writeObject(value);
+        char[] val = new char[capacity()];
+        getChars(0, count, val, 0);
+        s.writeObject(val);
     }
 
     /**
@@ -431,7 +545,8 @@ public final class StringBuilder
         throws java.io.IOException, ClassNotFoundException {
         s.defaultReadObject();
         count = s.readInt();
-        value = (char[]) s.readObject();
+        char[] val = (char[]) s.readObject();
+        initBytes(val, 0, val.length);
     }
 
 }
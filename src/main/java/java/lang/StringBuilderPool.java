@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.lang;
+
+/**
+ * A per-thread recycler of {@link StringBuilder} and {@link
+ * StringBuffer} instances, for code that builds many short-lived
+ * strings, such as message encoders, and would otherwise allocate a
+ * new builder, and grow its array, for each one.
+ *
+ * <p>Method {@link #acquire} returns an empty builder, taken from
+ * those the current thread has released to this pool if there are
+ * any, and method {@link #release(StringBuilder)} empties a builder
+ * and keeps it for the releasing thread's next {@code acquire}.  The
+ * common pattern is:
+ *
+ * <pre> {@code
+ * StringBuilder sb = pool.acquire();
+ * sb.append(name).append('=').append(value);
+ * String s = pool.toStringAndRelease(sb);}</pre>
+ *
+ * <p>Since each thread has its own pooled builders, acquiring and
+ * releasing take no locks.  A pool is bounded in two ways: each thread
+ * keeps at most {@linkplain #maximumPooled() a given number} of
+ * builders of each kind, further releases being dropped for the
+ * garbage collector; and a released builder whose capacity has grown
+ * beyond the {@linkplain #maximumCapacity() maximum capacity} has its
+ * array replaced by one of the {@linkplain #initialCapacity() initial
+ * capacity}, so that an occasional long string does not pin a large
+ * array.  Released builders also return to the compact one byte per
+ * char representation, even if they held characters that needed two.
+ *
+ * <p>{@code StringBuilder} has the same methods as {@code
+ * StringBuffer}, without synchronization, and is the unsynchronized
+ * substitute wherever the type of a variable or parameter can be
+ * changed.  Where a {@code StringBuffer} is required, as by legacy
+ * interfaces, pooled buffers may be used through {@link
+ * #acquireBuffer} and {@link #release(StringBuffer)}; a buffer that
+ * never leaves its thread has an uncontended monitor, which is cheap
+ * to acquire.
+ *
+ * <p>A builder must not be used after it is released, and must be
+ * released at most once for each time it is acquired; a repeated
+ * release is detected only if the releasing thread's pool still holds
+ * the builder.  Builders need not be released by the thread that
+ * acquired them, nor released at all; a pooled builder is freed when
+ * its thread terminates.
+ *
+ * @since 1.7
+ */
+public final class StringBuilderPool {
+
+    /**
+     * The default capacity of new builders.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 256;
+
+    /**
+     * The default capacity beyond which released builders are trimmed.
+     */
+    static final int DEFAULT_MAXIMUM_CAPACITY = 16 * 1024;
+
+    /**
+     * The default number of builders of each kind kept per thread.
+     */
+    static final int DEFAULT_MAXIMUM_POOLED = 4;
+
+    private final int initialCapacity;
+    private final int maximumCapacity;
+    private final int maximumPooled;
+
+    /**
+     * The builders released by one thread, as two stacks.
+     */
+    static final class Cache {
+        final StringBuilder[] builders;
+        final StringBuffer[] buffers;
+        int nBuilders;
+        int nBuffers;
+
+        Cache(int maximumPooled) {
+            builders = new StringBuilder[maximumPooled];
+            buffers = new StringBuffer[maximumPooled];
+        }
+    }
+
+    private final ThreadLocal<Cache> caches = new ThreadLocal<Cache>() {
+        protected Cache initialValue() {
+            return new Cache(maximumPooled);
+        }
+    };
+
+    /**
+     * Creates a pool with the default initial capacity (256), maximum
+     * capacity (16384) and number of builders per thread (4).
+     */
+    public StringBuilderPool() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_MAXIMUM_CAPACITY,
+             DEFAULT_MAXIMUM_POOLED);
+    }
+
+    /**
+     * Creates a pool with the given bounds.
+     *
+     * @param initialCapacity the capacity of new builders, and of
+     *        builders trimmed on release
+     * @param maximumCapacity the capacity beyond which a released
+     *        builder is trimmed to the initial capacity
+     * @param maximumPooled the maximum number of builders of each kind
+     *        kept for each thread
+     * @throws IllegalArgumentException if {@code initialCapacity} or
+     *         {@code maximumPooled} is negative, or {@code
+     *         maximumCapacity} is less than {@code initialCapacity}
+     */
+    public StringBuilderPool(int initialCapacity, int maximumCapacity,
+                             int maximumPooled) {
+        if (initialCapacity < 0 || maximumCapacity < initialCapacity ||
+            maximumPooled < 0)
+            throw new IllegalArgumentException();
+        this.initialCapacity = initialCapacity;
+        this.maximumCapacity = maximumCapacity;
+        this.maximumPooled = maximumPooled;
+    }
+
+    /**
+     * Returns an empty builder, one released to this pool by the
+     * current thread if there is one, else a new one with the initial
+     * capacity.
+     *
+     * @return an empty builder
+     */
+    public StringBuilder acquire() {
+        Cache c = caches.get();
+        int n = c.nBuilders;
+        if (n == 0)
+            return new StringBuilder(initialCapacity);
+        StringBuilder sb = c.builders[--n];
+        c.builders[n] = null;
+        c.nBuilders = n;
+        return sb;
+    }
+
+    /**
+     * Empties the given builder and keeps it for the current thread,
+     * unless that thread already keeps the maximum number of builders.
+     * The builder must not be used after this call.
+     *
+     * @param sb the builder
+     * @throws NullPointerException if {@code sb} is null
+     * @throws IllegalStateException if the current thread's pool
+     *         already holds {@code sb}; this detects some repeated
+     *         releases, but not those made by another thread, nor
+     *         those of a builder that the pool did not keep
+     */
+    public void release(StringBuilder sb) {
+        Cache c = caches.get();
+        int n = c.nBuilders;
+        StringBuilder[] builders = c.builders;
+        for (int i = 0; i < n; i++) {
+            if (builders[i] == sb)
+                throw new IllegalStateException("Already released");
+        }
+        sb.recycle(initialCapacity, maximumCapacity);
+        if (n < builders.length) {
+            builders[n] = sb;
+            c.nBuilders = n + 1;
+        }
+    }
+
+    /**
+     * Returns the contents of the given builder as a string, and then
+     * releases it.
+     *
+     * @param sb the builder
+     * @return the contents of {@code sb}
+     * @throws NullPointerException if {@code sb} is null
+     * @throws IllegalStateException if the current thread's pool
+     *         already holds {@code sb}; this detects some repeated
+     *         releases, but not those made by another thread, nor
+     *         those of a builder that the pool did not keep
+     */
+    public String toStringAndRelease(StringBuilder sb) {
+        String s = sb.toString();
+        release(sb);
+        return s;
+    }
+
+    /**
+     * Returns an empty buffer, one released to this pool by the
+     * current thread if there is one, else a new one with the initial
+     * capacity.
+     *
+     * @return an empty buffer
+     */
+    public StringBuffer acquireBuffer() {
+        Cache c = caches.get();
+        int n = c.nBuffers;
+        if (n == 0)
+            return new StringBuffer(initialCapacity);
+        StringBuffer sb = c.buffers[--n];
+        c.buffers[n] = null;
+        c.nBuffers = n;
+        return sb;
+    }
+
+    /**
+     * Empties the given buffer and keeps it for the current thread,
+     * unless that thread already keeps the maximum number of buffers.
+     * The buffer must not be used after this call.
+     *
+     * @param sb the buffer
+     * @throws NullPointerException if {@code sb} is null
+     * @throws IllegalStateException if the current thread's pool
+     *         already holds {@code sb}; this detects some repeated
+     *         releases, but not those made by another thread, nor
+     *         those of a buffer that the pool did not keep
+     */
+    public void release(StringBuffer sb) {
+        Cache c = caches.get();
+        int n = c.nBuffers;
+        StringBuffer[] buffers = c.buffers;
+        for (int i = 0; i < n; i++) {
+            if (buffers[i] == sb)
+                throw new IllegalStateException("Already released");
+        }
+        synchronized (sb) {
+            sb.recycle(initialCapacity, maximumCapacity);
+        }
+        if (n < buffers.length) {
+            buffers[n] = sb;
+            c.nBuffers = n + 1;
+        }
+    }
+
+    /**
+     * Returns the contents of the given buffer as a string, and then
+     * releases it.
+     *
+     * @param sb the buffer
+     * @return the contents of {@code sb}
+     * @throws NullPointerException if {@code sb} is null
+     * @throws IllegalStateException if the current thread's pool
+     *         already holds {@code sb}; this detects some repeated
+     *         releases, but not those made by another thread, nor
+     *         those of a buffer that the pool did not keep
+     */
+    public String toStringAndRelease(StringBuffer sb) {
+        String s = sb.toString();
+        release(sb);
+        return s;
+    }
+
+    /**
+     * Returns the capacity of new builders.
+     *
+     * @return the initial capacity
+     */
+    public int initialCapacity() {
+        return initialCapacity;
+    }
+
+    /**
+     * Returns the capacity beyond which released builders are trimmed.
+     *
+     * @return the maximum capacity
+     */
+    public int maximumCapacity() {
+        return maximumCapacity;
+    }
+
+    /**
+     * Returns the maximum number of builders of each kind kept for
+     * each thread.
+     *
+     * @return the maximum number of pooled builders per thread
+     */
+    public int maximumPooled() {
+        return maximumPooled;
+    }
+}
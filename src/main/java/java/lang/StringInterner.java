@@ -0,0 +1,643 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.lang;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrent table of canonical {@code String} instances, for
+ * collapsing the many equal strings produced when, for example,
+ * parsing repeated field values.  Method {@link #intern(String)}
+ * returns, for any string, the one instance held by this interner
+ * that is equal to it, so that duplicates (and their character
+ * storage) can be discarded by the caller.  Method {@link
+ * #intern(char[], int, int)} finds the canonical instance directly
+ * from a range of characters, creating a string only when the
+ * table does not already hold one.
+ *
+ * <p>Unlike {@link String#intern}, an interner holds its strings
+ * only weakly: a canonical string that is no longer otherwise
+ * referenced may be garbage collected, after which its table entry
+ * is expunged.  An interner may also be given a maximum size; once
+ * it is reached, strings that are not already present are returned
+ * as they are, without being added.
+ *
+ * <p>Lookups do not block, and additions lock only one of a number
+ * of segments of the table, chosen by hash code, so that threads
+ * interning different strings rarely contend.  Counts of hits,
+ * misses and rejected additions, and an estimate of the bytes of
+ * character storage saved, are kept to help measure the benefit of
+ * interning a given source of strings.
+ *
+ * <p>This class does not permit {@code null} strings.
+ *
+ * @since 1.7
+ */
+public final class StringInterner {
+
+    /*
+     * The table is split into segments as in the original
+     * ConcurrentHashMap.  Each segment is a ReentrantLock guarding
+     * additions and removals in a power-of-two table of chains of
+     * Entries, which are weak references to the canonical strings.
+     * Entry links are final, so a reader that has seen a chain sees
+     * all of it; removal clones the entries preceding the removed
+     * one.  Writers finish each update with a volatile write of the
+     * segment count, which readers read before looking at the table.
+     *
+     * Cleared entries are delivered to the segment's ReferenceQueue
+     * and removed the next time the segment is locked, so the table
+     * shrinks back after its strings become unreachable.  Clones of
+     * entries whose strings have been collected are simply dropped
+     * (a WeakReference to null would never be enqueued); the
+     * originals may still be enqueued later, and are then ignored
+     * since they are no longer linked.
+     */
+
+    /**
+     * The default initial capacity, used when not otherwise
+     * specified in a constructor.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The default concurrency level, used when not otherwise
+     * specified in a constructor.
+     */
+    static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /**
+     * The maximum capacity of a segment table, which must be a
+     * power of two.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The maximum number of segments.
+     */
+    static final int MAX_SEGMENTS = 1 << 16;
+
+    /**
+     * The load factor of the segment tables.
+     */
+    static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * Mask value for indexing into segments. The upper bits of a
+     * key's hash code are used to choose the segment.
+     */
+    final int segmentMask;
+
+    /**
+     * Shift value for indexing within segments.
+     */
+    final int segmentShift;
+
+    /**
+     * The segments, each of which is a specialized hash table.
+     */
+    final Segment[] segments;
+
+    /** The maximum number of strings held, as given at construction */
+    final int maximumSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+
+    /**
+     * A weak reference to a canonical string, linked in a segment
+     * chain.
+     */
+    static final class Entry extends WeakReference<String> {
+        final int hash;
+        final Entry next;
+
+        Entry(String s, int hash, Entry next, ReferenceQueue<String> q) {
+            super(s, q);
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+
+    /**
+     * Segments are specialized versions of hash tables.  This
+     * subclasses from ReentrantLock opportunistically, just to
+     * simplify some locking and avoid separate construction.
+     */
+    static final class Segment extends ReentrantLock {
+        private static final long serialVersionUID = -3480627546316542838L;
+
+        /**
+         * The number of entries, including any not yet expunged.
+         * Written last by every update.
+         */
+        volatile int count;
+
+        /** The table is rehashed when its count exceeds this. */
+        int threshold;
+
+        /** The per-segment table. */
+        volatile Entry[] table;
+
+        /** The maximum number of entries. */
+        final int maxCount;
+
+        /** Queue of entries whose strings have been collected. */
+        final ReferenceQueue<String> queue = new ReferenceQueue<>();
+
+        Segment(int initialCapacity, int maxCount) {
+            this.maxCount = maxCount;
+            setTable(new Entry[initialCapacity]);
+        }
+
+        void setTable(Entry[] newTable) {
+            threshold = (int)(newTable.length * LOAD_FACTOR);
+            table = newTable;
+        }
+
+        String get(String s, int hash) {
+            if (count != 0) { // read-volatile
+                Entry[] tab = table;
+                for (Entry e = tab[hash & (tab.length - 1)];
+                     e != null; e = e.next) {
+                    String c;
+                    if (e.hash == hash && (c = e.get()) != null &&
+                        (c == s || c.equals(s)))
+                        return c;
+                }
+            }
+            return null;
+        }
+
+        String get(char[] chars, int offset, int len, int hash) {
+            if (count != 0) { // read-volatile
+                Entry[] tab = table;
+                for (Entry e = tab[hash & (tab.length - 1)];
+                     e != null; e = e.next) {
+                    String c;
+                    if (e.hash == hash && (c = e.get()) != null &&
+                        matches(c, chars, offset, len))
+                        return c;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Adds s unless an equal string is present.
+         *
+         * @return the string present, or s if added, or null if
+         * s could not be added because the segment is full
+         */
+        String put(String s, int hash) {
+            lock();
+            try {
+                expungeStaleEntries();
+                int c = count;
+                Entry[] tab = table;
+                int index = hash & (tab.length - 1);
+                Entry first = tab[index];
+                for (Entry e = first; e != null; e = e.next) {
+                    String k;
+                    if (e.hash == hash && (k = e.get()) != null &&
+                        k.equals(s))
+                        return k;
+                }
+                if (c >= maxCount)
+                    return null;
+                if (c++ > threshold && tab.length < MAXIMUM_CAPACITY) {
+                    c -= rehash();
+                    tab = table;
+                    index = hash & (tab.length - 1);
+                    first = tab[index];
+                }
+                tab[index] = new Entry(s, hash, first, queue);
+                count = c; // write-volatile
+                return s;
+            } finally {
+                unlock();
+            }
+        }
+
+        /**
+         * Doubles the table, dropping entries whose strings have
+         * been collected.
+         *
+         * @return the number of entries dropped
+         */
+        int rehash() {
+            Entry[] oldTable = table;
+            int oldCapacity = oldTable.length;
+            Entry[] newTable = new Entry[oldCapacity << 1];
+            int sizeMask = newTable.length - 1;
+            int dropped = 0;
+            for (int i = 0; i < oldCapacity; i++) {
+                // We need to guarantee that any existing reads of old
+                // table can proceed. So we cannot yet null out each
+                // bin, and must clone nodes that do not stay put.
+                Entry e = oldTable[i];
+                if (e != null) {
+                    // Reuse trailing consecutive sequence at same slot
+                    Entry lastRun = e;
+                    int lastIdx = e.hash & sizeMask;
+                    for (Entry last = e.next; last != null;
+                         last = last.next) {
+                        int k = last.hash & sizeMask;
+                        if (k != lastIdx) {
+                            lastIdx = k;
+                            lastRun = last;
+                        }
+                    }
+                    newTable[lastIdx] = lastRun;
+                    // Clone all remaining nodes
+                    for (Entry p = e; p != lastRun; p = p.next) {
+                        String s = p.get();
+                        if (s == null) {
+                            ++dropped;
+                            continue;
+                        }
+                        int k = p.hash & sizeMask;
+                        newTable[k] = new Entry(s, p.hash, newTable[k], queue);
+                    }
+                }
+            }
+            setTable(newTable);
+            return dropped;
+        }
+
+        /**
+         * Removes entries whose strings have been collected.  Called
+         * only while holding lock.
+         */
+        void expungeStaleEntries() {
+            for (Object x; (x = queue.poll()) != null; )
+                removeEntry((Entry)x);
+        }
+
+        private void removeEntry(Entry x) {
+            Entry[] tab = table;
+            int index = x.hash & (tab.length - 1);
+            Entry first = tab[index];
+            for (Entry e = first; e != null; e = e.next) {
+                if (e == x) {
+                    int c = count - 1;
+                    // All entries following removed node can stay
+                    // in list, but all preceding ones need to be
+                    // cloned.
+                    Entry newFirst = x.next;
+                    for (Entry p = first; p != x; p = p.next) {
+                        String s = p.get();
+                        if (s == null)
+                            --c;
+                        else
+                            newFirst = new Entry(s, p.hash, newFirst, queue);
+                    }
+                    tab[index] = newFirst;
+                    count = c; // write-volatile
+                    return;
+                }
+            }
+        }
+
+        int size() {
+            lock();
+            try {
+                expungeStaleEntries();
+                return count;
+            } finally {
+                unlock();
+            }
+        }
+
+        void clear() {
+            lock();
+            try {
+                while (queue.poll() != null)
+                    ;
+                setTable(new Entry[table.length]);
+                count = 0; // write-volatile
+            } finally {
+                unlock();
+            }
+        }
+    }
+
+    /**
+     * Creates a new, empty interner with a default initial capacity
+     * and concurrency level, and no maximum size.
+     */
+    public StringInterner() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_CONCURRENCY_LEVEL,
+             Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new, empty interner with a default initial capacity
+     * and concurrency level, holding at most about the given number
+     * of strings.
+     *
+     * @param maximumSize the maximum number of strings to hold
+     * @throws IllegalArgumentException if {@code maximumSize} is
+     *         not positive
+     */
+    public StringInterner(int maximumSize) {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_CONCURRENCY_LEVEL,
+             maximumSize);
+    }
+
+    /**
+     * Creates a new, empty interner with the given initial capacity,
+     * concurrency level and maximum size.  The maximum size is
+     * divided evenly among the segments, so that an addition may be
+     * refused by a full segment while the interner as a whole holds
+     * fewer than {@code maximumSize} strings.
+     *
+     * @param initialCapacity the initial capacity. The implementation
+     *        performs internal sizing to accommodate this many strings.
+     * @param concurrencyLevel the estimated number of concurrently
+     *        interning threads. The implementation performs internal
+     *        sizing to try to accommodate this many threads.
+     * @param maximumSize the maximum number of strings to hold
+     * @throws IllegalArgumentException if the initial capacity is
+     *         negative or the concurrency level or maximum size are
+     *         not positive
+     */
+    public StringInterner(int initialCapacity, int concurrencyLevel,
+                          int maximumSize) {
+        if (initialCapacity < 0 || concurrencyLevel <= 0 || maximumSize <= 0)
+            throw new IllegalArgumentException();
+        if (concurrencyLevel > MAX_SEGMENTS)
+            concurrencyLevel = MAX_SEGMENTS;
+        // Find power-of-two sizes best matching arguments
+        int sshift = 0;
+        int ssize = 1;
+        while (ssize < concurrencyLevel) {
+            ++sshift;
+            ssize <<= 1;
+        }
+        this.segmentShift = 32 - sshift;
+        this.segmentMask = ssize - 1;
+        if (initialCapacity > MAXIMUM_CAPACITY)
+            initialCapacity = MAXIMUM_CAPACITY;
+        int c = initialCapacity / ssize;
+        if (c * ssize < initialCapacity)
+            ++c;
+        int cap = 1;
+        while (cap < c)
+            cap <<= 1;
+        int m = maximumSize / ssize;
+        if (m * ssize < maximumSize)
+            ++m;
+        this.maximumSize = maximumSize;
+        this.segments = new Segment[ssize];
+        for (int i = 0; i < ssize; ++i)
+            segments[i] = new Segment(cap, m);
+    }
+
+    /**
+     * Applies a supplemental hash function to a string's hash code,
+     * which defends against poor quality hash functions.  This is
+     * critical because the table uses power-of-two length hash
+     * tables, that otherwise encounter collisions for hashCodes that
+     * do not differ in lower or upper bits.
+     */
+    private static int hash(int h) {
+        // Spread bits to regularize both segment and index locations,
+        // using variant of single-word Wang/Jenkins hash.
+        h += (h <<  15) ^ 0xffffcd7d;
+        h ^= (h >>> 10);
+        h += (h <<   3);
+        h ^= (h >>>  6);
+        h += (h <<   2) + (h << 14);
+        return h ^ (h >>> 16);
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[(hash >>> segmentShift) & segmentMask];
+    }
+
+    /**
+     * Returns true if s holds the len chars of chars from offset.
+     */
+    static boolean matches(String s, char[] chars, int offset, int len) {
+        if (s.length() != len)
+            return false;
+        byte[] val = s.value();
+        if (s.isLatin1()) {
+            for (int i = 0; i < len; i++) {
+                if ((val[i] & 0xff) != chars[offset + i])
+                    return false;
+            }
+        } else {
+            for (int i = 0; i < len; i++) {
+                if (StringUTF16.getChar(val, i) != chars[offset + i])
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the canonical string equal to the given string.  If
+     * this interner holds a string equal to {@code s}, that string is
+     * returned; otherwise {@code s} itself is added, if the interner
+     * is not full, and returned.
+     *
+     * @param s a string
+     * @return a string equal to {@code s}, which is the same instance
+     *         for all equal strings interned while it remains
+     *         reachable and the interner has room for it
+     * @throws NullPointerException if {@code s} is null
+     */
+    public String intern(String s) {
+        int h = hash(s.hashCode());
+        Segment seg = segmentFor(h);
+        String c = seg.get(s, h);
+        if (c == null)
+            c = add(seg, s, h);
+        else
+            hit(c, s);
+        return c;
+    }
+
+    /**
+     * Returns the canonical string holding the given range of
+     * characters.  If this interner holds such a string, it is
+     * returned without creating a new one; otherwise a new string is
+     * created, added if the interner is not full, and returned.
+     *
+     * @param chars the characters
+     * @param offset the index of the first character of the range
+     * @param count the number of characters in the range
+     * @return a string holding the {@code count} characters of
+     *         {@code chars} starting at {@code offset}
+     * @throws NullPointerException if {@code chars} is null
+     * @throws IndexOutOfBoundsException if {@code offset} or
+     *         {@code count} is negative, or {@code offset} is greater
+     *         than {@code chars.length - count}
+     */
+    public String intern(char[] chars, int offset, int count) {
+        if (offset < 0 || count < 0 || offset > chars.length - count)
+            throw new IndexOutOfBoundsException(
+                "offset " + offset + ", count " + count + ", length "
+                + chars.length);
+        int sh = 0;
+        for (int i = offset, end = offset + count; i < end; i++)
+            sh = 31 * sh + chars[i];
+        int h = hash(sh);
+        Segment seg = segmentFor(h);
+        String c = seg.get(chars, offset, count, h);
+        if (c == null)
+            return add(seg, new String(chars, offset, count), h);
+        hit(c, null);
+        return c;
+    }
+
+    /**
+     * Records a lookup that found c, for the given duplicate, or
+     * null if none was created.
+     */
+    private void hit(String c, String s) {
+        hits.increment();
+        if (c != s)
+            savedBytes.add(c.value().length);
+    }
+
+    /**
+     * Adds s after a failed lookup, returning the canonical string.
+     */
+    private String add(Segment seg, String s, int h) {
+        String c = seg.put(s, h);
+        if (c == null) {
+            rejections.increment();
+            return s;
+        }
+        if (c == s)
+            misses.increment();
+        else    // added by another thread since the lookup
+            hit(c, s);
+        return c;
+    }
+
+    /**
+     * Returns the number of strings held by this interner.  Strings
+     * that have been collected are not counted once their entries
+     * are expunged, which this method does for each segment in turn;
+     * the result may therefore be inaccurate if strings are being
+     * added or collected concurrently.
+     *
+     * @return the number of strings held by this interner
+     */
+    public int size() {
+        long sum = 0L;
+        for (Segment seg : segments)
+            sum += seg.size();
+        return (sum > Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int)sum;
+    }
+
+    /**
+     * Returns the maximum number of strings this interner holds, as
+     * given at construction, or {@link Integer#MAX_VALUE} if it was
+     * not bounded.
+     *
+     * @return the maximum number of strings
+     */
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Removes all of the strings from this interner.  The statistics
+     * are not reset.
+     */
+    public void clear() {
+        for (Segment seg : segments)
+            seg.clear();
+    }
+
+    /**
+     * Returns the number of calls to {@code intern} that returned a
+     * string already held by this interner.
+     *
+     * @return the number of hits
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of calls to {@code intern} that added a new
+     * string to this interner.
+     *
+     * @return the number of misses
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of calls to {@code intern} that returned a
+     * string that was not held and could not be added because the
+     * interner was full.
+     *
+     * @return the number of rejected additions
+     */
+    public long rejectedCount() {
+        return rejections.sum();
+    }
+
+    /**
+     * Returns an estimate of the bytes of character storage saved by
+     * hits: the size of the storage of each duplicate string that the
+     * caller may discard in favor of the canonical one, or that was
+     * never created.  Object headers and the duplicates' own fields
+     * are not counted.
+     *
+     * @return an estimate of the bytes of character storage saved
+     */
+    public long savedBytes() {
+        return savedBytes.sum();
+    }
+
+    /**
+     * Returns a string identifying this interner and its statistics.
+     *
+     * @return a string identifying this interner and its statistics
+     */
+    public String toString() {
+        return super.toString() +
+            "[size = " + size() +
+            ", hits = " + hitCount() +
+            ", misses = " + missCount() +
+            ", rejected = " + rejectedCount() +
+            ", saved bytes = " + savedBytes() + "]";
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.lang;
+
+import java.util.Arrays;
+
+/**
+ * Operations on the {@code byte[]} value of a {@code String} or
+ * {@code AbstractStringBuilder} whose coder is {@code LATIN1}: one
+ * byte per char, each char being at most {@code '\u00FF'}.
+ *
+ * <p>Methods here do not check their arguments; callers in
+ * {@code String} and {@code AbstractStringBuilder} validate indices
+ * and dispatch on the coder first.
+ */
+final class StringLatin1 {
+
+    private StringLatin1() {}
+
+    static char getChar(byte[] val, int index) {
+        return (char)(val[index] & 0xff);
+    }
+
+    static boolean canEncode(int cp) {
+        return cp >>> 8 == 0;
+    }
+
+    static char[] toChars(byte[] value) {
+        char[] dst = new char[value.length];
+        inflate(value, 0, dst, 0, value.length);
+        return dst;
+    }
+
+    static boolean equals(byte[] value, byte[] other) {
+        int n = value.length;
+        if (n != other.length)
+            return false;
+        for (int i = 0; i < n; i++) {
+            if (value[i] != other[i])
+                return false;
+        }
+        return true;
+    }
+
+    static int compareTo(byte[] value, byte[] other) {
+        int len1 = value.length;
+        int len2 = other.length;
+        int lim = Math.min(len1, len2);
+        for (int k = 0; k < lim; k++) {
+            if (value[k] != other[k])
+                return getChar(value, k) - getChar(other, k);
+        }
+        return len1 - len2;
+    }
+
+    static int compareToUTF16(byte[] value, byte[] other) {
+        int len1 = value.length;
+        int len2 = StringUTF16.length(other);
+        int lim = Math.min(len1, len2);
+        for (int k = 0; k < lim; k++) {
+            char c1 = getChar(value, k);
+            char c2 = StringUTF16.getChar(other, k);
+            if (c1 != c2)
+                return c1 - c2;
+        }
+        return len1 - len2;
+    }
+
+    static int hashCode(byte[] value) {
+        int h = 0;
+        for (byte v : value)
+            h = 31 * h + (v & 0xff);
+        return h;
+    }
+
+    static int indexOf(byte[] value, int ch, int fromIndex) {
+        if (!canEncode(ch))
+            return -1;
+        int max = value.length;
+        if (fromIndex < 0) {
+            fromIndex = 0;
+        } else if (fromIndex >= max) {
+            // Note: fromIndex might be near -1>>>1.
+            return -1;
+        }
+        byte c = (byte)ch;
+        for (int i = fromIndex; i < max; i++) {
+            if (value[i] == c)
+                return i;
+        }
+        return -1;
+    }
+
+    static int lastIndexOf(byte[] value, int ch, int fromIndex) {
+        if (!canEncode(ch))
+            return -1;
+        byte c = (byte)ch;
+        for (int i = Math.min(fromIndex, value.length - 1); i >= 0; i--) {
+            if (value[i] == c)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first occurrence of the non-empty
+     * target at or after fromIndex, where
+     * {@code 0 <= fromIndex < valueCount}.
+     */
+    static int indexOf(byte[] value, int valueCount,
+                       byte[] str, int strCount, int fromIndex) {
+        byte first = str[0];
+        int max = valueCount - strCount;
+        for (int i = fromIndex; i <= max; i++) {
+            // Look for first character.
+            if (value[i] != first) {
+                while (++i <= max && value[i] != first);
+            }
+            // Found first character, now look at the rest of str
+            if (i <= max) {
+                int j = i + 1;
+                int end = j + strCount - 1;
+                for (int k = 1; j < end && value[j] == str[k]; j++, k++);
+                if (j == end) {
+                    // Found whole string.
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last occurrence of the non-empty
+     * target at or before fromIndex, where
+     * {@code 0 <= fromIndex <= srcCount - tgtCount}.
+     */
+    static int lastIndexOf(byte[] src, int srcCount,
+                           byte[] tgt, int tgtCount, int fromIndex) {
+        int min = tgtCount - 1;
+        int i = min + fromIndex;
+        int strLastIndex = tgtCount - 1;
+        byte strLastChar = tgt[strLastIndex];
+
+    startSearchForLastChar:
+        while (true) {
+            while (i >= min && src[i] != strLastChar) {
+                i--;
+            }
+            if (i < min) {
+                return -1;
+            }
+            int j = i - 1;
+            int start = j - strLastIndex;
+            int k = strLastIndex - 1;
+            while (j > start) {
+                if (src[j--] != tgt[k--]) {
+                    i--;
+                    continue startSearchForLastChar;
+                }
+            }
+            return start + 1;
+        }
+    }
+
+    static String newString(byte[] val, int index, int len) {
+        return new String(Arrays.copyOfRange(val, index, index + len),
+                          String.LATIN1);
+    }
+
+    /** Copies len Latin-1 chars of src to the char array dst. */
+    static void inflate(byte[] src, int srcOff, char[] dst, int dstOff,
+                        int len) {
+        for (int i = 0; i < len; i++) {
+            dst[dstOff++] = (char)(src[srcOff++] & 0xff);
+        }
+    }
+
+    /** Copies len Latin-1 chars of src to the UTF16 value dst. */
+    static void inflate(byte[] src, int srcOff, byte[] dst, int dstOff,
+                        int len) {
+        for (int i = 0; i < len; i++) {
+            StringUTF16.putChar(dst, dstOff++, src[srcOff++] & 0xff);
+        }
+    }
+
+    /**
+     * Places characters representing the integer i into the
+     * byte array buf, ending just before index, as by
+     * {@code Integer.getChars}, and returns the index of the first
+     * char written.  The digits are generated two at a time from the
+     * digit-pair tables, working on the negated value so that
+     * {@code Integer.MIN_VALUE} needs no special case.
+     */
+    static int getChars(int i, int index, byte[] buf) {
+        int q, r;
+        int charPos = index;
+
+        boolean negative = i < 0;
+        if (!negative) {
+            i = -i;
+        }
+
+        // Generate two digits per iteration
+        while (i <= -100) {
+            q = i / 100;
+            r = (q * 100) - i;
+            i = q;
+            buf[--charPos] = (byte)Integer.DigitOnes[r];
+            buf[--charPos] = (byte)Integer.DigitTens[r];
+        }
+
+        // At most two digits are left
+        q = i / 10;
+        r = (q * 10) - i;
+        buf[--charPos] = (byte)('0' + r);
+        if (q < 0) {
+            buf[--charPos] = (byte)('0' - q);
+        }
+
+        if (negative) {
+            buf[--charPos] = (byte)'-';
+        }
+        return charPos;
+    }
+
+    /**
+     * Places characters representing the long l into the
+     * byte array buf, ending just before index, as by
+     * {@code Long.getChars}, and returns the index of the first char
+     * written.
+     */
+    static int getChars(long l, int index, byte[] buf) {
+        long q;
+        int r;
+        int charPos = index;
+
+        boolean negative = (l < 0);
+        if (!negative) {
+            l = -l;
+        }
+
+        // Get 2 digits/iteration using longs until quotient fits into an int
+        while (l < Integer.MIN_VALUE) {
+            q = l / 100;
+            r = (int)((q * 100) - l);
+            l = q;
+            buf[--charPos] = (byte)Integer.DigitOnes[r];
+            buf[--charPos] = (byte)Integer.DigitTens[r];
+        }
+
+        // Get 2 digits/iteration using ints
+        int q2;
+        int i2 = (int)l;
+        while (i2 <= -100) {
+            q2 = i2 / 100;
+            r  = (q2 * 100) - i2;
+            i2 = q2;
+            buf[--charPos] = (byte)Integer.DigitOnes[r];
+            buf[--charPos] = (byte)Integer.DigitTens[r];
+        }
+
+        // At most two digits are left
+        q2 = i2 / 10;
+        r  = (q2 * 10) - i2;
+        buf[--charPos] = (byte)('0' + r);
+        if (q2 < 0) {
+            buf[--charPos] = (byte)('0' - q2);
+        }
+
+        if (negative) {
+            buf[--charPos] = (byte)'-';
+        }
+        return charPos;
+    }
+
+    /**
+     * Places the len low-order digits of val, read as unsigned, in radix
+     * {@code 1 << shift} into the byte array buf, ending just before
+     * index.  Positions beyond the digits of val are filled with
+     * {@code '0'}.
+     */
+    static void formatUnsigned(long val, int shift, byte[] buf,
+                               int index, int len) {
+        int mask = (1 << shift) - 1;
+        for (int charPos = index; charPos > index - len; ) {
+            buf[--charPos] = (byte)Integer.digits[(int)val & mask];
+            val >>>= shift;
+        }
+    }
+}
@@ -0,0 +1,554 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.lang;
+
+import java.util.Arrays;
+
+/**
+ * Operations on the {@code byte[]} value of a {@code String} or
+ * {@code AbstractStringBuilder} whose coder is {@code UTF16}: two
+ * bytes per char, high byte first.  Indices are in chars.
+ *
+ * <p>Methods here do not check their arguments; callers in
+ * {@code String} and {@code AbstractStringBuilder} validate indices
+ * and dispatch on the coder first.
+ */
+final class StringUTF16 {
+
+    private StringUTF16() {}
+
+    static final int HI_BYTE_SHIFT = 8;
+    static final int LO_BYTE_SHIFT = 0;
+
+    /** The maximum number of chars a UTF16 value can hold. */
+    static final int MAX_LENGTH = Integer.MAX_VALUE >> 1;
+
+    static byte[] newBytesFor(int len) {
+        if (len < 0) {
+            throw new NegativeArraySizeException();
+        }
+        if (len > MAX_LENGTH) {
+            throw new OutOfMemoryError("UTF16 String size is " + len +
+                                       ", should be less than " + MAX_LENGTH);
+        }
+        return new byte[len << 1];
+    }
+
+    static void putChar(byte[] val, int index, int c) {
+        index <<= 1;
+        val[index++] = (byte)(c >> HI_BYTE_SHIFT);
+        val[index]   = (byte)(c >> LO_BYTE_SHIFT);
+    }
+
+    static char getChar(byte[] val, int index) {
+        index <<= 1;
+        return (char)(((val[index++] & 0xff) << HI_BYTE_SHIFT) |
+                      ((val[index]   & 0xff) << LO_BYTE_SHIFT));
+    }
+
+    static int length(byte[] value) {
+        return value.length >> 1;
+    }
+
+    static byte[] toBytes(char[] value, int off, int len) {
+        byte[] val = newBytesFor(len);
+        for (int i = 0; i < len; i++) {
+            putChar(val, i, value[off++]);
+        }
+        return val;
+    }
+
+    static char[] toChars(byte[] value) {
+        char[] dst = new char[value.length >> 1];
+        getChars(value, 0, dst.length, dst, 0);
+        return dst;
+    }
+
+    static void getChars(byte[] value, int srcBegin, int srcEnd,
+                         char[] dst, int dstBegin) {
+        for (int i = srcBegin; i < srcEnd; i++) {
+            dst[dstBegin++] = getChar(value, i);
+        }
+    }
+
+    static void putChars(byte[] val, int index, char[] str, int off, int end) {
+        while (off < end) {
+            putChar(val, index++, str[off++]);
+        }
+    }
+
+    /**
+     * Copies Latin-1 chars of src to dst until len chars are copied
+     * or a char above {@code '\u00FF'} is found.
+     *
+     * @return the number of chars copied
+     */
+    static int compress(char[] src, int srcOff, byte[] dst, int dstOff,
+                        int len) {
+        for (int i = 0; i < len; i++) {
+            char c = src[srcOff++];
+            if (c > 0xFF)
+                return i;
+            dst[dstOff++] = (byte)c;
+        }
+        return len;
+    }
+
+    /**
+     * Copies Latin-1 chars of the UTF16 value src to dst until len
+     * chars are copied or a char above {@code '\u00FF'} is found.
+     *
+     * @return the number of chars copied
+     */
+    static int compress(byte[] src, int srcOff, byte[] dst, int dstOff,
+                        int len) {
+        for (int i = 0; i < len; i++) {
+            char c = getChar(src, srcOff++);
+            if (c > 0xFF)
+                return i;
+            dst[dstOff++] = (byte)c;
+        }
+        return len;
+    }
+
+    /**
+     * Returns a Latin-1 value holding the chars, or null if any is
+     * above {@code '\u00FF'}.
+     */
+    static byte[] compress(char[] val, int off, int len) {
+        byte[] ret = new byte[len];
+        return (compress(val, off, ret, 0, len) == len) ? ret : null;
+    }
+
+    /**
+     * Returns a Latin-1 value holding the chars of the UTF16 value,
+     * or null if any is above {@code '\u00FF'}.
+     */
+    static byte[] compress(byte[] val, int off, int len) {
+        byte[] ret = new byte[len];
+        return (compress(val, off, ret, 0, len) == len) ? ret : null;
+    }
+
+    static int codePointAt(byte[] value, int index, int end) {
+        char c1 = getChar(value, index);
+        if (Character.isHighSurrogate(c1) && ++index < end) {
+            char c2 = getChar(value, index);
+            if (Character.isLowSurrogate(c2)) {
+               return Character.toCodePoint(c1, c2);
+            }
+        }
+        return c1;
+    }
+
+    static int codePointBefore(byte[] value, int index) {
+        char c2 = getChar(value, --index);
+        if (Character.isLowSurrogate(c2) && index > 0) {
+            char c1 = getChar(value, --index);
+            if (Character.isHighSurrogate(c1)) {
+               return Character.toCodePoint(c1, c2);
+            }
+        }
+        return c2;
+    }
+
+    static int codePointCount(byte[] value, int beginIndex, int endIndex) {
+        int count = endIndex - beginIndex;
+        for (int i = beginIndex; i < endIndex; ) {
+            if (Character.isHighSurrogate(getChar(value, i++)) &&
+                i < endIndex &&
+                Character.isLowSurrogate(getChar(value, i))) {
+                count--;
+                i++;
+            }
+        }
+        return count;
+    }
+
+    static int compareTo(byte[] value, byte[] other) {
+        int len1 = length(value);
+        int len2 = length(other);
+        int lim = Math.min(len1, len2);
+        for (int k = 0; k < lim; k++) {
+            char c1 = getChar(value, k);
+            char c2 = getChar(other, k);
+            if (c1 != c2)
+                return c1 - c2;
+        }
+        return len1 - len2;
+    }
+
+    static int compareToLatin1(byte[] value, byte[] other) {
+        return -StringLatin1.compareToUTF16(other, value);
+    }
+
+    static int hashCode(byte[] value) {
+        int h = 0;
+        int length = value.length >> 1;
+        for (int i = 0; i < length; i++)
+            h = 31 * h + getChar(value, i);
+        return h;
+    }
+
+    static int indexOf(byte[] value, int ch, int fromIndex) {
+        int max = value.length >> 1;
+        if (fromIndex < 0) {
+            fromIndex = 0;
+        } else if (fromIndex >= max) {
+            // Note: fromIndex might be near -1>>>1.
+            return -1;
+        }
+        if (ch < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            // handle most cases here (ch is a BMP code point or a
+            // negative value (invalid code point))
+            for (int i = fromIndex; i < max; i++) {
+                if (getChar(value, i) == ch)
+                    return i;
+            }
+            return -1;
+        } else {
+            return indexOfSupplementary(value, ch, fromIndex, max);
+        }
+    }
+
+    private static int indexOfSupplementary(byte[] value, int ch,
+                                            int fromIndex, int max) {
+        if (Character.isValidCodePoint(ch)) {
+            final char hi = Character.highSurrogate(ch);
+            final char lo = Character.lowSurrogate(ch);
+            for (int i = fromIndex; i < max - 1; i++) {
+                if (getChar(value, i) == hi && getChar(value, i + 1) == lo)
+                    return i;
+            }
+        }
+        return -1;
+    }
+
+    static int lastIndexOf(byte[] value, int ch, int fromIndex) {
+        if (ch < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            // handle most cases here (ch is a BMP code point or a
+            // negative value (invalid code point))
+            int i = Math.min(fromIndex, (value.length >> 1) - 1);
+            for (; i >= 0; i--) {
+                if (getChar(value, i) == ch)
+                    return i;
+            }
+            return -1;
+        } else {
+            return lastIndexOfSupplementary(value, ch, fromIndex);
+        }
+    }
+
+    private static int lastIndexOfSupplementary(byte[] value, int ch,
+                                                int fromIndex) {
+        if (Character.isValidCodePoint(ch)) {
+            char hi = Character.highSurrogate(ch);
+            char lo = Character.lowSurrogate(ch);
+            int i = Math.min(fromIndex, (value.length >> 1) - 2);
+            for (; i >= 0; i--) {
+                if (getChar(value, i) == hi && getChar(value, i + 1) == lo)
+                    return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first occurrence of the non-empty UTF16
+     * target at or after fromIndex, where
+     * {@code 0 <= fromIndex < valueCount}.
+     */
+    static int indexOf(byte[] value, int valueCount,
+                       byte[] str, int strCount, int fromIndex) {
+        char first = getChar(str, 0);
+        int max = valueCount - strCount;
+        for (int i = fromIndex; i <= max; i++) {
+            // Look for first character.
+            if (getChar(value, i) != first) {
+                while (++i <= max && getChar(value, i) != first);
+            }
+            // Found first character, now look at the rest of str
+            if (i <= max) {
+                int j = i + 1;
+                int end = j + strCount - 1;
+                for (int k = 1;
+                     j < end && getChar(value, j) == getChar(str, k);
+                     j++, k++);
+                if (j == end) {
+                    // Found whole string.
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * As {@link #indexOf(byte[], int, byte[], int, int)}, for a
+     * Latin-1 target.
+     */
+    static int indexOfLatin1(byte[] src, int srcCount,
+                             byte[] tgt, int tgtCount, int fromIndex) {
+        char first = (char)(tgt[0] & 0xff);
+        int max = srcCount - tgtCount;
+        for (int i = fromIndex; i <= max; i++) {
+            // Look for first character.
+            if (getChar(src, i) != first) {
+                while (++i <= max && getChar(src, i) != first);
+            }
+            // Found first character, now look at the rest of tgt
+            if (i <= max) {
+                int j = i + 1;
+                int end = j + tgtCount - 1;
+                for (int k = 1;
+                     j < end && getChar(src, j) == (tgt[k] & 0xff);
+                     j++, k++);
+                if (j == end) {
+                    // Found whole string.
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last occurrence of the non-empty UTF16
+     * target at or before fromIndex, where
+     * {@code 0 <= fromIndex <= srcCount - tgtCount}.
+     */
+    static int lastIndexOf(byte[] src, int srcCount,
+                           byte[] tgt, int tgtCount, int fromIndex) {
+        int min = tgtCount - 1;
+        int i = min + fromIndex;
+        int strLastIndex = tgtCount - 1;
+        char strLastChar = getChar(tgt, strLastIndex);
+
+    startSearchForLastChar:
+        while (true) {
+            while (i >= min && getChar(src, i) != strLastChar) {
+                i--;
+            }
+            if (i < min) {
+                return -1;
+            }
+            int j = i - 1;
+            int start = j - strLastIndex;
+            int k = strLastIndex - 1;
+            while (j > start) {
+                if (getChar(src, j--) != getChar(tgt, k--)) {
+                    i--;
+                    continue startSearchForLastChar;
+                }
+            }
+            return start + 1;
+        }
+    }
+
+    /**
+     * As {@link #lastIndexOf(byte[], int, byte[], int, int)}, for a
+     * Latin-1 target.
+     */
+    static int lastIndexOfLatin1(byte[] src, int srcCount,
+                                 byte[] tgt, int tgtCount, int fromIndex) {
+        int min = tgtCount - 1;
+        int i = min + fromIndex;
+        int strLastIndex = tgtCount - 1;
+        char strLastChar = (char)(tgt[strLastIndex] & 0xff);
+
+    startSearchForLastChar:
+        while (true) {
+            while (i >= min && getChar(src, i) != strLastChar) {
+                i--;
+            }
+            if (i < min) {
+                return -1;
+            }
+            int j = i - 1;
+            int start = j - strLastIndex;
+            int k = strLastIndex - 1;
+            while (j > start) {
+                if (getChar(src, j--) != (tgt[k--] & 0xff)) {
+                    i--;
+                    continue startSearchForLastChar;
+                }
+            }
+            return start + 1;
+        }
+    }
+
+    /**
+     * Returns a string of len chars of val from index, compressed to
+     * Latin-1 if possible.
+     */
+    static String newString(byte[] val, int index, int len) {
+        if (String.COMPACT_STRINGS) {
+            byte[] buf = compress(val, index, len);
+            if (buf != null) {
+                return new String(buf, String.LATIN1);
+            }
+        }
+        int last = index + len;
+        return new String(Arrays.copyOfRange(val, index << 1, last << 1),
+                          String.UTF16);
+    }
+
+    /**
+     * Reverses the first count chars of val, keeping valid surrogate
+     * pairs in order.
+     */
+    static void reverse(byte[] val, int count) {
+        int n = count - 1;
+        boolean hasSurrogates = false;
+        for (int j = (n-1) >> 1; j >= 0; j--) {
+            int k = n - j;
+            char cj = getChar(val, j);
+            char ck = getChar(val, k);
+            putChar(val, j, ck);
+            putChar(val, k, cj);
+            if (Character.isSurrogate(cj) ||
+                Character.isSurrogate(ck)) {
+                hasSurrogates = true;
+            }
+        }
+        if (hasSurrogates) {
+            // Reverse back all valid surrogate pairs
+            for (int i = 0; i < count - 1; i++) {
+                char c2 = getChar(val, i);
+                if (Character.isLowSurrogate(c2)) {
+                    char c1 = getChar(val, i + 1);
+                    if (Character.isHighSurrogate(c1)) {
+                        putChar(val, i++, c1);
+                        putChar(val, i, c2);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Places characters representing the integer i into the
+     * UTF16 value buf, ending just before char index, as by
+     * {@code Integer.getChars}, and returns the index of the first
+     * char written.  The digits are generated two at a time from the
+     * digit-pair tables, working on the negated value so that
+     * {@code Integer.MIN_VALUE} needs no special case.
+     */
+    static int getChars(int i, int index, byte[] buf) {
+        int q, r;
+        int charPos = index;
+
+        boolean negative = i < 0;
+        if (!negative) {
+            i = -i;
+        }
+
+        // Generate two digits per iteration
+        while (i <= -100) {
+            q = i / 100;
+            r = (q * 100) - i;
+            i = q;
+            putChar(buf, --charPos, Integer.DigitOnes[r]);
+            putChar(buf, --charPos, Integer.DigitTens[r]);
+        }
+
+        // At most two digits are left
+        q = i / 10;
+        r = (q * 10) - i;
+        putChar(buf, --charPos, '0' + r);
+        if (q < 0) {
+            putChar(buf, --charPos, '0' - q);
+        }
+
+        if (negative) {
+            putChar(buf, --charPos, '-');
+        }
+        return charPos;
+    }
+
+    /**
+     * Places characters representing the long l into the
+     * UTF16 value buf, ending just before char index, as by
+     * {@code Long.getChars}, and returns the index of the first char
+     * written.
+     */
+    static int getChars(long l, int index, byte[] buf) {
+        long q;
+        int r;
+        int charPos = index;
+
+        boolean negative = (l < 0);
+        if (!negative) {
+            l = -l;
+        }
+
+        // Get 2 digits/iteration using longs until quotient fits into an int
+        while (l < Integer.MIN_VALUE) {
+            q = l / 100;
+            r = (int)((q * 100) - l);
+            l = q;
+            putChar(buf, --charPos, Integer.DigitOnes[r]);
+            putChar(buf, --charPos, Integer.DigitTens[r]);
+        }
+
+        // Get 2 digits/iteration using ints
+        int q2;
+        int i2 = (int)l;
+        while (i2 <= -100) {
+            q2 = i2 / 100;
+            r  = (q2 * 100) - i2;
+            i2 = q2;
+            putChar(buf, --charPos, Integer.DigitOnes[r]);
+            putChar(buf, --charPos, Integer.DigitTens[r]);
+        }
+
+        // At most two digits are left
+        q2 = i2 / 10;
+        r  = (q2 * 10) - i2;
+        putChar(buf, --charPos, '0' + r);
+        if (q2 < 0) {
+            putChar(buf, --charPos, '0' - q2);
+        }
+
+        if (negative) {
+            putChar(buf, --charPos, '-');
+        }
+        return charPos;
+    }
+
+    /**
+     * Places the len low-order digits of val, read as unsigned, in radix
+     * {@code 1 << shift} into the UTF16 value buf, ending just before
+     * char index.  Positions beyond the digits of val are filled with
+     * {@code '0'}.
+     */
+    static void formatUnsigned(long val, int shift, byte[] buf,
+                               int index, int len) {
+        int mask = (1 << shift) - 1;
+        for (int charPos = index; charPos > index - len; ) {
+            putChar(buf, --charPos, Integer.digits[(int)val & mask]);
+            val >>>= shift;
+        }
+    }
+}
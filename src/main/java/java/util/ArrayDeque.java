@@ -863,4 +863,104 @@ public class ArrayDeque<E> extends java.util.AbstractCollection<E>
         for (int i = 0; i < size; i++)
             elements[i] = (E)s.readObject();
     }
+
+    /**
+     * Creates a <em><a href="Spliterator.html#binding">late-binding</a></em>
+     * and <em>fail-fast</em> {@link java.util.Spliterator} over the elements
+     * in this deque.  The spliterator partitions the circular element
+     * array by index range, so the deque can be traversed in parallel
+     * without copying.
+     *
+     * <p>The {@code Spliterator} reports {@link java.util.Spliterator#SIZED},
+     * {@link java.util.Spliterator#SUBSIZED}, {@link java.util.Spliterator#ORDERED},
+     * and {@link java.util.Spliterator#NONNULL}.
+     *
+     * @return a {@code Spliterator} over the elements in this deque
+     * @since 1.7
+     */
+    public java.util.Spliterator<E> spliterator() {
+        return new DeqSpliterator<E>(this, -1, -1);
+    }
+
+    static final class DeqSpliterator<E> implements java.util.Spliterator<E> {
+        private final ArrayDeque<E> deq;
+        private int fence;  // -1 until first use
+        private int index;  // current index, modified on traverse/split
+
+        /** Creates new spliterator covering the given array and range */
+        DeqSpliterator(ArrayDeque<E> deq, int origin, int fence) {
+            this.deq = deq;
+            this.index = origin;
+            this.fence = fence;
+        }
+
+        private int getFence() { // force initialization
+            int t;
+            if ((t = fence) < 0) {
+                t = fence = deq.tail;
+                index = deq.head;
+            }
+            return t;
+        }
+
+        public DeqSpliterator<E> trySplit() {
+            int t = getFence(), h = index, n = deq.elements.length;
+            if (h != t && ((h + 1) & (n - 1)) != t) {
+                if (h > t)
+                    t += n;
+                int m = ((h + t) >>> 1) & (n - 1);
+                return new DeqSpliterator<E>(deq, h, index = m);
+            }
+            return null;
+        }
+
+        public void forEachRemaining(
+            java.util.function.Consumer<? super E> consumer) {
+            if (consumer == null)
+                throw new NullPointerException();
+            Object[] a = deq.elements;
+            int m = a.length - 1, f = getFence(), i = index;
+            index = f;
+            while (i != f) {
+                @SuppressWarnings("unchecked") E e = (E)a[i];
+                i = (i + 1) & m;
+                if (e == null)
+                    throw new java.util.ConcurrentModificationException();
+                consumer.accept(e);
+            }
+        }
+
+        public boolean tryAdvance(
+            java.util.function.Consumer<? super E> consumer) {
+            if (consumer == null)
+                throw new NullPointerException();
+            Object[] a = deq.elements;
+            int m = a.length - 1, f = getFence(), i = index;
+            if (i != f) {
+                @SuppressWarnings("unchecked") E e = (E)a[i];
+                index = (i + 1) & m;
+                if (e == null)
+                    throw new java.util.ConcurrentModificationException();
+                consumer.accept(e);
+                return true;
+            }
+            return false;
+        }
+
+        public long estimateSize() {
+            int n = getFence() - index;
+            if (n < 0)
+                n += deq.elements.length;
+            return (long) n;
+        }
+
+        public int characteristics() {
+            return java.util.Spliterator.ORDERED | java.util.Spliterator.SIZED |
+                java.util.Spliterator.NONNULL | java.util.Spliterator.SUBSIZED;
+        }
+
+        public java.util.Comparator<? super E> getComparator() {
+            throw new IllegalStateException();
+        }
+    }
 }
@@ -1173,4 +1173,140 @@ public class ArrayList<E> extends java.util.AbstractList<E>
                 throw new java.util.ConcurrentModificationException();
         }
     }
+
+    /**
+     * Creates a <em><a href="Spliterator.html#binding">late-binding</a></em>
+     * and <em>fail-fast</em> {@link java.util.Spliterator} over the elements
+     * in this list.  The spliterator partitions the backing array by index
+     * range, so the list can be traversed in parallel without copying.
+     *
+     * <p>The {@code Spliterator} reports {@link java.util.Spliterator#SIZED},
+     * {@link java.util.Spliterator#SUBSIZED}, and
+     * {@link java.util.Spliterator#ORDERED}.
+     *
+     * @return a {@code Spliterator} over the elements in this list
+     * @since 1.7
+     */
+    public java.util.Spliterator<E> spliterator() {
+        return new ArrayListSpliterator<>(this, 0, -1, 0);
+    }
+
+    /** Index-based split-by-two, lazily initialized Spliterator */
+    static final class ArrayListSpliterator<E>
+        implements java.util.Spliterator<E> {
+
+        /*
+         * If ArrayLists were immutable, or structurally immutable (no
+         * adds, removes, etc), we could implement their spliterators
+         * with Spliterators.spliterator(Object[], ...). Instead we detect
+         * as much interference during traversal as practical without
+         * sacrificing much performance. We rely primarily on
+         * modCounts. These are not guaranteed to detect concurrency
+         * violations, and are sometimes overly conservative about
+         * within-thread interference, but detect enough problems to
+         * be worthwhile in practice. To carry this out, we (1) lazily
+         * initialize fence and expectedModCount until the latest
+         * point that we need to commit to the state we are checking
+         * against; thus improving precision.  (2) We perform only a
+         * single ConcurrentModificationException check at the end of
+         * forEachRemaining (the most performance-sensitive method).
+         * When using forEachRemaining (as opposed to iterators), we
+         * can normally only detect interference after actions, not
+         * before. Further CME-triggering checks apply to all other
+         * possible violations of assumptions for example null or
+         * too-small elementData array given its size(), that could
+         * only have occurred due to interference.  This allows the
+         * inner loop of forEachRemaining to run without any further
+         * checks.
+         */
+
+        private final ArrayList<E> list;
+        private int index; // current index, modified on advance/split
+        private int fence; // -1 until used; then one past last index
+        private int expectedModCount; // initialized when fence set
+
+        /** Create new spliterator covering the given  range */
+        ArrayListSpliterator(ArrayList<E> list, int origin, int fence,
+                             int expectedModCount) {
+            this.list = list; // OK if null unless traversed
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() { // initialize fence to size on first use
+            int hi; // (a specialized variant appears in method forEachRemaining)
+            ArrayList<E> lst;
+            if ((hi = fence) < 0) {
+                if ((lst = list) == null)
+                    hi = fence = 0;
+                else {
+                    expectedModCount = lst.modCount;
+                    hi = fence = lst.size;
+                }
+            }
+            return hi;
+        }
+
+        public ArrayListSpliterator<E> trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null : // divide range in half unless too small
+                new ArrayListSpliterator<E>(list, lo, index = mid,
+                                            expectedModCount);
+        }
+
+        public boolean tryAdvance(
+            java.util.function.Consumer<? super E> action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence(), i = index;
+            if (i < hi) {
+                index = i + 1;
+                @SuppressWarnings("unchecked") E e = (E)list.elementData[i];
+                action.accept(e);
+                if (list.modCount != expectedModCount)
+                    throw new java.util.ConcurrentModificationException();
+                return true;
+            }
+            return false;
+        }
+
+        public void forEachRemaining(
+            java.util.function.Consumer<? super E> action) {
+            int i, hi, mc; // hoist accesses and checks from loop
+            ArrayList<E> lst; Object[] a;
+            if (action == null)
+                throw new NullPointerException();
+            if ((lst = list) != null && (a = lst.elementData) != null) {
+                if ((hi = fence) < 0) {
+                    mc = lst.modCount;
+                    hi = lst.size;
+                }
+                else
+                    mc = expectedModCount;
+                if ((i = index) >= 0 && (index = hi) <= a.length) {
+                    for (; i < hi; ++i) {
+                        @SuppressWarnings("unchecked") E e = (E) a[i];
+                        action.accept(e);
+                    }
+                    if (lst.modCount == mc)
+                        return;
+                }
+            }
+            throw new java.util.ConcurrentModificationException();
+        }
+
+        public long estimateSize() {
+            return (long) (getFence() - index);
+        }
+
+        public int characteristics() {
+            return java.util.Spliterator.ORDERED | java.util.Spliterator.SIZED |
+                java.util.Spliterator.SUBSIZED;
+        }
+
+        public java.util.Comparator<? super E> getComparator() {
+            throw new IllegalStateException();
+        }
+    }
 }
@@ -47,8 +47,7 @@ import java.text.DateFormatSymbols;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
 
 import sun.misc.FpUtils;
 import sun.misc.DoubleConsts;
@@ -2246,6 +2245,38 @@ public final class Formatter implements Closeable, Flushable {
         this(l, new BufferedWriter(new OutputStreamWriter(os, csn)));
     }
 
+    // Exactly representable powers of ten used by the "%f" fast path
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8,
+        1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    // Number of decimal digits in x >= 0, or in Long.MIN_VALUE
+    private static int decimalSize(long x) {
+        if (x < 0)
+            return 19;
+        long p = 10;
+        for (int i = 1; i < 19; i++) {
+            if (x < p)
+                return i;
+            p = 10 * p;
+        }
+        return 19;
+    }
+
+    // Appends the decimal digits of x >= 0, or of -Long.MIN_VALUE
+    private static void appendMagnitude(StringBuilder sb, long x) {
+        if (x < 0)
+            sb.append("9223372036854775808");
+        else
+            sb.append(x);
+    }
+
+    private static void appendRepeated(StringBuilder sb, char c, int n) {
+        for (int i = 0; i < n; i++)
+            sb.append(c);
+    }
+
     private static char getZero(java.util.Locale l) {
         if ((l != null) && !l.equals(java.util.Locale.US)) {
             DecimalFormatSymbols dfs = DecimalFormatSymbols.getInstance(l);
@@ -2466,14 +2497,23 @@ public final class Formatter implements Closeable, Flushable {
         // last ordinary index
         int lasto = -1;
 
-        FormatString[] fsa = parse(format);
-        for (int i = 0; i < fsa.length; i++) {
-            FormatString fs = fsa[i];
-            int index = fs.index();
+        FormatToken[] fta = parse(format);
+        FormatSpecifier fs = null;
+        for (int i = 0; i < fta.length; i++) {
+            FormatToken ft = fta[i];
             try {
+                if (ft.text != null) {
+                    a.append(ft.text);
+                    continue;
+                }
+                // one specifier per call, reloaded for each token; a
+                // Formattable argument may re-enter format on this formatter
+                if (fs == null)
+                    fs = new FormatSpecifier();
+                int index = fs.reset(ft).index();
                 switch (index) {
-                case -2:  // fixed string, "%n", or "%%"
-                    fs.print(null, l);
+                case -2:  // "%n" or "%%"
+                    fs.print((Object) null, l);
                     break;
                 case -1:  // relative index
                     if (last < 0 || (args != null && last > args.length - 1))
@@ -2501,72 +2541,429 @@ public final class Formatter implements Closeable, Flushable {
         return this;
     }
 
-    // %[argument_index$][flags][width][.precision][t]conversion
-    private static final String formatSpecifier
-        = "%(\\d+\\$)?([-#+ 0,(\\<]*)?(\\d+)?(\\.\\d+)?([tT])?([a-zA-Z%])";
+    /**
+     * Writes a formatted string to the given {@code StringBuilder} using
+     * this formatter's locale, the specified format string, and arguments.
+     *
+     * <p> The output goes to {@code sb} rather than to this formatter's
+     * destination, which is left unchanged, so a single formatter may be
+     * kept and reused to format into any number of builders.  Decimal
+     * integers, and {@code 'f'} conversions whose value has no more
+     * fraction digits than the precision, are appended to {@code sb}
+     * directly without intermediate strings.  Like the rest of this class,
+     * this method is not safe for use by multiple concurrent threads.
+     *
+     * @param  sb
+     *         The builder to append to
+     *
+     * @param  format
+     *         A format string as described in <a href="#syntax">Format string
+     *         syntax</a>
+     *
+     * @param  args
+     *         Arguments referenced by the format specifiers in the format
+     *         string, as for {@link #format(String,Object...) format}
+     *
+     * @throws java.util.IllegalFormatException
+     *          If a format string contains an illegal syntax, a format
+     *          specifier that is incompatible with the given arguments,
+     *          insufficient arguments given the format string, or other
+     *          illegal conditions.  For specification of all possible
+     *          formatting errors, see the <a href="#detail">Details</a>
+     *          section of the formatter class specification.
+     *
+     * @throws java.util.FormatterClosedException
+     *          If this formatter has been closed by invoking its {@link
+     *          #close()} method
+     *
+     * @return  {@code sb}
+     *
+     * @since 1.7
+     */
+    public StringBuilder formatTo(StringBuilder sb, String format, Object ... args) {
+        return formatTo(sb, l, format, args);
+    }
+
+    /**
+     * Writes a formatted string to the given {@code StringBuilder} using
+     * the specified locale, format string, and arguments.  This is as
+     * {@link #formatTo(StringBuilder,String,Object...)}, with the locale
+     * applied as by {@link #format(java.util.Locale,String,Object...)}.
+     *
+     * @param  sb
+     *         The builder to append to
+     *
+     * @param  l
+     *         The {@linkplain java.util.Locale locale} to apply during
+     *         formatting.  If {@code l} is {@code null} then no localization
+     *         is applied.  This does not change this object's locale that was
+     *         set during construction.
+     *
+     * @param  format
+     *         A format string as described in <a href="#syntax">Format string
+     *         syntax</a>
+     *
+     * @param  args
+     *         Arguments referenced by the format specifiers in the format
+     *         string, as for {@link #format(String,Object...) format}
+     *
+     * @throws java.util.IllegalFormatException
+     *          If a format string contains an illegal syntax, a format
+     *          specifier that is incompatible with the given arguments,
+     *          insufficient arguments given the format string, or other
+     *          illegal conditions.  For specification of all possible
+     *          formatting errors, see the <a href="#detail">Details</a>
+     *          section of the formatter class specification.
+     *
+     * @throws java.util.FormatterClosedException
+     *          If this formatter has been closed by invoking its {@link
+     *          #close()} method
+     *
+     * @return  {@code sb}
+     *
+     * @since 1.7
+     */
+    public StringBuilder formatTo(StringBuilder sb, java.util.Locale l,
+                                  String format, Object ... args) {
+        Objects.requireNonNull(sb);
+        ensureOpen();
+        Appendable out = a;
+        a = sb;
+        try {
+            format(l, format, args);
+        } finally {
+            // stay closed if a Formattable closed this formatter
+            if (a != null)
+                a = out;
+        }
+        return sb;
+    }
+
+    /**
+     * Parsed format strings, keyed by the format string.  The cache holds at
+     * most about PARSE_CACHE_SIZE entries; when it is full an arbitrary
+     * entry is evicted to make room, so that a steady set of format strings
+     * stays cached while one-off strings do not accumulate.
+     */
+    private static final ConcurrentHashMap<String,FormatToken[]> parseCache
+        = new ConcurrentHashMap<>(64);
+
+    private static final int PARSE_CACHE_SIZE = 256;
 
-    private static Pattern fsPattern = Pattern.compile(formatSpecifier);
+    /**
+     * Format strings longer than this are parsed on every use rather than
+     * cached; they are rarely reused and would pin large keys.
+     */
+    private static final int MAX_CACHED_FORMAT_LENGTH = 1024;
 
     /**
-     * Finds format specifiers in the format string.
+     * Returns the parsed form of the format string, from the cache if
+     * possible.  Only format strings that parse successfully are cached.
      */
-    private FormatString[] parse(String s) {
-        java.util.ArrayList<FormatString> al = new java.util.ArrayList<>();
-        Matcher m = fsPattern.matcher(s);
-        for (int i = 0, len = s.length(); i < len; ) {
-            if (m.find(i)) {
-                // Anything between the start of the string and the beginning
-                // of the format specifier is either fixed text or contains
-                // an invalid format string.
-                if (m.start() != i) {
-                    // Make sure we didn't miss any invalid format specifiers
-                    checkText(s, i, m.start());
-                    // Assume previous characters were fixed text
-                    al.add(new FixedString(s.substring(i, m.start())));
+    private FormatToken[] parse(String s) {
+        FormatToken[] fta = parseCache.get(s);
+        if (fta == null) {
+            fta = parseFormat(s);
+            if (s.length() <= MAX_CACHED_FORMAT_LENGTH) {
+                if (parseCache.size() >= PARSE_CACHE_SIZE) {
+                    java.util.Iterator<String> it = parseCache.keySet().iterator();
+                    if (it.hasNext()) {
+                        it.next();
+                        it.remove();
+                    }
                 }
+                parseCache.put(s, fta);
+            }
+        }
+        return fta;
+    }
 
-                al.add(new FormatSpecifier(m));
-                i = m.end();
-            } else {
-                // No more valid format specifiers.  Check for possible invalid
-                // format specifiers.
-                checkText(s, i, len);
+    /**
+     * Finds format specifiers in the format string.  A format specifier has
+     * the syntax
+     *
+     *   %[argument_index$][flags][width][.precision][t]conversion
+     *
+     * and is scanned here without backtracking: the only places a regular
+     * expression for this syntax could backtrack are an argument index
+     * without its '$' (taken as width instead) and a 't' or 'T' not
+     * followed by a conversion character (taken as the conversion).
+     */
+    private FormatToken[] parseFormat(String s) {
+        java.util.ArrayList<FormatToken> al = new java.util.ArrayList<>();
+        int i = 0;
+        int len = s.length();
+        while (i < len) {
+            int pct = s.indexOf('%', i);
+            if (pct < 0) {
                 // The rest of the string is fixed text
-                al.add(new FixedString(s.substring(i)));
+                al.add(new FormatToken(s.substring(i)));
                 break;
             }
+            if (pct != i)
+                al.add(new FormatToken(s.substring(i, pct)));
+            i = parseSpecifier(s, pct, al);
         }
-        return al.toArray(new FormatString[al.size()]);
+        return al.toArray(new FormatToken[al.size()]);
     }
 
-    private static void checkText(String s, int start, int end) {
+    /**
+     * Parses the format specifier starting at the '%' at {@code start},
+     * adds it to {@code al} and returns the index following it.
+     */
+    private int parseSpecifier(String s, int start, java.util.List<FormatToken> al) {
+        int len = s.length();
+        int i = start + 1;
+
+        // argument index: digits followed by '$'
+        int index = 0;
+        int j = skipDigits(s, i);
+        if (j > i && j < len && s.charAt(j) == '$') {
+            index = parseInt(s, i, j);
+            i = j + 1;
+        }
+
+        // flags, parsed once the specifier is known to be well formed
+        int flagsStart = i;
+        while (i < len && isFlag(s.charAt(i)))
+            i++;
+        int flagsEnd = i;
+
+        // width
+        int width = -1;
+        j = skipDigits(s, i);
+        if (j > i) {
+            width = parseInt(s, i, j);
+            i = j;
+        }
+
+        // precision
+        int precision = -1;
+        if (i < len && s.charAt(i) == '.') {
+            j = skipDigits(s, i + 1);
+            if (j == i + 1)
+                throw unknownConversion(s, start);
+            precision = parseInt(s, i + 1, j);
+            i = j;
+        }
+
+        // date/time prefix
+        char tT = '\0';
+        char c;
+        if (i < len && ((c = s.charAt(i)) == 't' || c == 'T')
+            && i + 1 < len && isConversion(s.charAt(i + 1))) {
+            tT = c;
+            i++;
+        }
+
+        // conversion
+        if (i >= len || !isConversion(s.charAt(i)))
+            throw unknownConversion(s, start);
+
+        Flags f = Flags.parse(s, flagsStart, flagsEnd);
+        FormatSpecifier fs = new FormatSpecifier(index, f, width, precision,
+                                                 tT, s.charAt(i));
+        al.add(new FormatToken(fs));
+        return i + 1;
+    }
+
+    private static int skipDigits(String s, int i) {
+        int len = s.length();
+        while (i < len) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9')
+                break;
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the value of the decimal digits in s[start, end), or -1 if
+     * the value does not fit in an int.
+     */
+    private static int parseInt(String s, int start, int end) {
+        int n = 0;
         for (int i = start; i < end; i++) {
-            // Any '%' found in the region starts an invalid format specifier.
-            if (s.charAt(i) == '%') {
-                char c = (i == end - 1) ? '%' : s.charAt(i + 1);
-                throw new java.util.UnknownFormatConversionException(String.valueOf(c));
-            }
+            int d = s.charAt(i) - '0';
+            if (n > (Integer.MAX_VALUE - d) / 10)
+                return -1;
+            n = n * 10 + d;
         }
+        return n;
     }
 
-    private interface FormatString {
-        int index();
-        void print(Object arg, java.util.Locale l) throws IOException;
-        String toString();
+    private static boolean isFlag(char c) {
+        switch (c) {
+        case '-': case '#': case '+': case ' ':
+        case '0': case ',': case '(': case '<':
+            return true;
+        default:
+            return false;
+        }
     }
 
-    private class FixedString implements FormatString {
-        private String s;
-        FixedString(String s) { this.s = s; }
-        public int index() { return -2; }
-        public void print(Object arg, java.util.Locale l)
-            throws IOException { a.append(s); }
-        public String toString() { return s; }
+    private static boolean isConversion(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '%';
+    }
+
+    // A '%' that does not start a valid format specifier
+    private static java.util.UnknownFormatConversionException
+        unknownConversion(String s, int i)
+    {
+        char c = (i == s.length() - 1) ? '%' : s.charAt(i + 1);
+        return new java.util.UnknownFormatConversionException(String.valueOf(c));
+    }
+
+    /**
+     * A run of fixed text or a validated format specifier.  Tokens hold no
+     * reference to a formatter, so the parse of a format string may be
+     * cached and shared between formatters and threads.
+     */
+    private static final class FormatToken {
+        final String text;        // fixed text, or null for a specifier
+        final int index;
+        final Flags f;            // never modified once parsed
+        final int width;
+        final int precision;
+        final boolean dt;
+        final char c;
+
+        FormatToken(String text) {
+            this.text = text;
+            this.index = -2;
+            this.f = Flags.NONE;
+            this.width = -1;
+            this.precision = -1;
+            this.dt = false;
+            this.c = '\0';
+        }
+
+        FormatToken(FormatSpecifier fs) {
+            this.text = null;
+            this.index = fs.index;
+            this.f = fs.f;
+            this.width = fs.width;
+            this.precision = fs.precision;
+            this.dt = fs.dt;
+            this.c = fs.c;
+        }
+    }
+
+    /**
+     * The digits of a finite double v &gt;= 0 as 0.d1d2...dn 10^decExp,
+     * without leading or trailing zeros, taken from the shortest decimal
+     * that {@link Double#toString(double)} prints, and rounded half up as
+     * requested by the "%e" and "%f" conversions.  A zero value has no
+     * digits.
+     */
+    private static final class DecimalDigits {
+        final char[] digits;
+        int nDigits;
+        int decExp;
+
+        DecimalDigits(double v) {
+            String s = Double.toString(v);
+            int len = s.length();
+            digits = new char[len];
+            int point = 0;
+            boolean afterPoint = false;
+            int i = 0;
+            for (; i < len; i++) {
+                char c = s.charAt(i);
+                if (c == '.') {
+                    point += nDigits;
+                    afterPoint = true;
+                } else if (c == 'E') {
+                    break;
+                } else if (c != '0' || nDigits > 0) {
+                    digits[nDigits++] = c;
+                } else if (afterPoint) {
+                    point--;            // leading zero after the point
+                }
+            }
+            while (nDigits > 0 && digits[nDigits - 1] == '0')
+                nDigits--;
+            decExp = (nDigits == 0) ? 0
+                : point + (i < len ? Integer.parseInt(s.substring(i + 1)) : 0);
+        }
+
+        /*
+         * Rounds half up to the first n significant digits, leaving at
+         * most n digits; if n < 0 the value becomes zero.
+         */
+        void round(int n) {
+            if (n >= nDigits)
+                return;
+            if (n < 0) {
+                nDigits = 0;
+            } else if (digits[n] < '5') {
+                nDigits = n;
+            } else {
+                int i = n - 1;
+                while (i >= 0 && digits[i] == '9')
+                    i--;
+                if (i < 0) {
+                    // carry out: 0.999... becomes 1.0
+                    digits[0] = '1';
+                    nDigits = 1;
+                    decExp++;
+                } else {
+                    digits[i]++;
+                    nDigits = i + 1;
+                }
+            }
+            while (nDigits > 0 && digits[nDigits - 1] == '0')
+                nDigits--;
+        }
+
+        private char digit(int i) {
+            return (i >= 0 && i < nDigits) ? digits[i] : '0';
+        }
+
+        // d.ddd with prec digits after the point, no point if prec == 0
+        char[] scientific(int prec) {
+            round(prec + 1);
+            char[] mant = new char[prec == 0 ? 1 : prec + 2];
+            mant[0] = digit(0);
+            if (prec > 0) {
+                mant[1] = '.';
+                for (int i = 1; i <= prec; i++)
+                    mant[i + 1] = digit(i);
+            }
+            return mant;
+        }
+
+        // Sign and at least two digits of the exponent of scientific()
+        char[] exponent() {
+            int e = (nDigits == 0) ? 0 : decExp - 1;
+            char sign = (e < 0) ? '-' : '+';
+            String s = Integer.toString(Math.abs(e));
+            if (s.length() == 1)
+                s = "0" + s;
+            return (sign + s).toCharArray();
+        }
+
+        // ddd.ddd with prec digits after the point, no point if prec == 0
+        char[] decimal(int prec) {
+            round(decExp + prec);
+            int intLen = (nDigits == 0 || decExp <= 0) ? 1 : decExp;
+            int off = (nDigits == 0) ? 0 : decExp - intLen;
+            char[] mant = new char[prec == 0 ? intLen : intLen + 1 + prec];
+            for (int i = 0; i < intLen; i++)
+                mant[i] = digit(off + i);
+            if (prec > 0) {
+                mant[intLen] = '.';
+                for (int i = 0; i < prec; i++)
+                    mant[intLen + 1 + i] = digit(off + intLen + i);
+            }
+            return mant;
+        }
     }
 
     public enum BigDecimalLayoutForm { SCIENTIFIC, DECIMAL_FLOAT };
 
-    private class FormatSpecifier implements FormatString {
+    private class FormatSpecifier {
         private int index = -1;
         private Flags f = Flags.NONE;
         private int width;
@@ -2574,73 +2971,24 @@ public final class Formatter implements Closeable, Flushable {
         private boolean dt = false;
         private char c;
 
-        private int index(String s) {
-            if (s != null) {
-                try {
-                    index = Integer.parseInt(s.substring(0, s.length() - 1));
-                } catch (NumberFormatException x) {
-                    assert(false);
-                }
-            } else {
-                index = 0;
-            }
-            return index;
-        }
-
         public int index() {
             return index;
         }
 
-        private Flags flags(String s) {
-            f = Flags.parse(s);
-            if (f.contains(Flags.PREVIOUS))
-                index = -1;
-            return f;
-        }
-
         Flags flags() {
             return f;
         }
 
-        private int width(String s) {
-            width = -1;
-            if (s != null) {
-                try {
-                    width  = Integer.parseInt(s);
-                    if (width < 0)
-                        throw new java.util.IllegalFormatWidthException(width);
-                } catch (NumberFormatException x) {
-                    assert(false);
-                }
-            }
-            return width;
-        }
-
         int width() {
             return width;
         }
 
-        private int precision(String s) {
-            precision = -1;
-            if (s != null) {
-                try {
-                    // remove the '.'
-                    precision = Integer.parseInt(s.substring(1));
-                    if (precision < 0)
-                        throw new java.util.IllegalFormatPrecisionException(precision);
-                } catch (NumberFormatException x) {
-                    assert(false);
-                }
-            }
-            return precision;
-        }
-
         int precision() {
             return precision;
         }
 
-        private char conversion(String s) {
-            c = s.charAt(0);
+        private char conversion(char conv) {
+            c = conv;
             if (!dt) {
                 if (!Conversion.isValid(c))
                     throw new java.util.UnknownFormatConversionException(String.valueOf(c));
@@ -2657,22 +3005,27 @@ public final class Formatter implements Closeable, Flushable {
             return c;
         }
 
-        FormatSpecifier(Matcher m) {
-            int idx = 1;
+        // Reloaded from a FormatToken by reset() before each use
+        FormatSpecifier() { }
 
-            index(m.group(idx++));
-            flags(m.group(idx++));
-            width(m.group(idx++));
-            precision(m.group(idx++));
+        // index is 0 if absent and -1 if it overflowed; likewise width
+        // and precision are -1 if absent or overflowed
+        FormatSpecifier(int index, Flags f, int width, int precision,
+                        char tT, char conv) {
+            this.index = index;
+            this.f = f;
+            if (f.contains(Flags.PREVIOUS))
+                this.index = -1;
+            this.width = width;
+            this.precision = precision;
 
-            String tT = m.group(idx++);
-            if (tT != null) {
+            if (tT != '\0') {
                 dt = true;
-                if (tT.equals("T"))
+                if (tT == 'T')
                     f.add(Flags.UPPERCASE);
             }
 
-            conversion(m.group(idx));
+            conversion(conv);
 
             if (dt)
                 checkDateTime();
@@ -2690,6 +3043,16 @@ public final class Formatter implements Closeable, Flushable {
                 throw new java.util.UnknownFormatConversionException(String.valueOf(c));
         }
 
+        FormatSpecifier reset(FormatToken ft) {
+            index = ft.index;
+            f = ft.f;
+            width = ft.width;
+            precision = ft.precision;
+            dt = ft.dt;
+            c = ft.c;
+            return this;
+        }
+
         public void print(Object arg, java.util.Locale l) throws IOException {
             if (dt) {
                 printDateTime(arg, l);
@@ -3036,6 +3399,12 @@ public final class Formatter implements Closeable, Flushable {
         }
 
         private void print(long value, java.util.Locale l) throws IOException {
+            if (c == Conversion.DECIMAL_INTEGER && a instanceof StringBuilder
+                && !f.contains(Flags.GROUP) && getZero(l) == '0') {
+                boolean neg = value < 0;
+                appendDecimal((StringBuilder) a, neg, neg ? -value : value, 0, 0);
+                return;
+            }
 
             StringBuilder sb = new StringBuilder();
 
@@ -3091,6 +3460,84 @@ public final class Formatter implements Closeable, Flushable {
             a.append(justify(sb.toString()));
         }
 
+        /*
+         * Appends a decimal integer or fixed-point value directly to sb,
+         * producing exactly what localizedMagnitude() and justify() would
+         * for a locale whose zero digit is '0' and with no GROUP flag.  The
+         * magnitude is mag / 10^scale, printed with scale fraction digits;
+         * mag is Long.MIN_VALUE only for that value itself.
+         */
+        private void appendDecimal(StringBuilder sb, boolean neg, long mag,
+                                   int scale, long pow)
+        {
+            int digits = decimalSize(mag);
+            if (scale > 0)
+                digits = Math.max(digits, scale + 1) + 1;  // dot
+            else if (f.contains(Flags.ALTERNATE) && c == Conversion.DECIMAL_FLOAT)
+                digits++;                                  // "%#.0f"
+            char lead = '\0';
+            if (neg)
+                lead = f.contains(Flags.PARENTHESES) ? '(' : '-';
+            else if (f.contains(Flags.PLUS))
+                lead = '+';
+            else if (f.contains(Flags.LEADING_SPACE))
+                lead = ' ';
+            boolean trail = neg && f.contains(Flags.PARENTHESES);
+            int pad = width - digits - (lead != '\0' ? 1 : 0) - (trail ? 1 : 0);
+
+            boolean left = f.contains(Flags.LEFT_JUSTIFY);
+            boolean zeros = f.contains(Flags.ZERO_PAD);
+            if (!left && !zeros)
+                appendRepeated(sb, ' ', pad);
+            if (lead != '\0')
+                sb.append(lead);
+            if (zeros)
+                appendRepeated(sb, '0', pad);
+            if (scale == 0) {
+                appendMagnitude(sb, mag);
+                if (f.contains(Flags.ALTERNATE) && c == Conversion.DECIMAL_FLOAT)
+                    sb.append('.');
+            } else {
+                appendMagnitude(sb, mag / pow);
+                sb.append('.');
+                long frac = mag % pow;
+                appendRepeated(sb, '0', scale - decimalSize(frac));
+                sb.append(frac);
+            }
+            if (trail)
+                sb.append(')');
+            if (left)
+                appendRepeated(sb, ' ', pad);
+        }
+
+        /*
+         * Appends a "%f" conversion directly to sb when the result can be
+         * found without a decimal digit string: when some decimal with at
+         * most the requested number of fraction digits converts back to v
+         * and the ulp of v is under a quarter of the last printed place,
+         * every decimal string for v rounds to that same decimal.  Returns
+         * false, having appended nothing, if the value must take the
+         * general path.
+         */
+        private boolean printFixed(StringBuilder sb, double v, boolean neg,
+                                   java.util.Locale l)
+        {
+            int prec = (precision == -1 ? 6 : precision);
+            if (prec >= POWERS_OF_TEN.length || f.contains(Flags.GROUP)
+                || !(l == null || l.equals(java.util.Locale.US))
+                || getZero(l) != '0')
+                return false;
+            double pow = POWERS_OF_TEN[prec];
+            double scaled = v * pow;
+            if (!(scaled < (double) (1L << 50)))   // also rejects NaN
+                return false;
+            long mag = Math.round(scaled);
+            if (mag / pow != v)
+                return false;
+            appendDecimal(sb, neg, mag, prec, (long) pow);
+            return true;
+        }
+
         // neg := val < 0
         private StringBuilder leadingSign(StringBuilder sb, boolean neg) {
             if (!neg) {
@@ -3176,8 +3623,12 @@ public final class Formatter implements Closeable, Flushable {
         }
 
         private void print(double value, java.util.Locale l) throws IOException {
-            StringBuilder sb = new StringBuilder();
             boolean neg = Double.compare(value, 0.0) == -1;
+            if (c == Conversion.DECIMAL_FLOAT && a instanceof StringBuilder
+                && printFixed((StringBuilder) a, Math.abs(value), neg, l))
+                return;
+
+            StringBuilder sb = new StringBuilder();
 
             if (!Double.isNaN(value)) {
                 double v = Math.abs(value);
@@ -3208,26 +3659,19 @@ public final class Formatter implements Closeable, Flushable {
             throws IOException
         {
             if (c == Conversion.SCIENTIFIC) {
-                // Create a new FormattedFloatingDecimal with the desired
+                // Round the shortest decimal for value to the desired
                 // precision.
                 int prec = (precision == -1 ? 6 : precision);
 
-                FormattedFloatingDecimal fd
-                    = new FormattedFloatingDecimal(value, prec,
-                        FormattedFloatingDecimal.Form.SCIENTIFIC);
-
-                char[] v = new char[MAX_FD_CHARS];
-                int len = fd.getChars(v);
-
-                char[] mant = addZeros(mantissa(v, len), prec);
+                DecimalDigits dd = new DecimalDigits(value);
+                char[] mant = dd.scientific(prec);
 
                 // If the precision is zero and the '#' flag is set, add the
                 // requested decimal point.
                 if (f.contains(Flags.ALTERNATE) && (prec == 0))
                     mant = addDot(mant);
 
-                char[] exp = (value == 0.0)
-                    ? new char[] {'+','0','0'} : exponent(v, len);
+                char[] exp = dd.exponent();
 
                 int newW = width;
                 if (width != -1)
@@ -3245,20 +3689,11 @@ public final class Formatter implements Closeable, Flushable {
                 System.arraycopy(exp, 1, tmp, 0, exp.length - 1);
                 sb.append(localizedMagnitude(null, tmp, flags, -1, l));
             } else if (c == Conversion.DECIMAL_FLOAT) {
-                // Create a new FormattedFloatingDecimal with the desired
+                // Round the shortest decimal for value to the desired
                 // precision.
                 int prec = (precision == -1 ? 6 : precision);
 
-                FormattedFloatingDecimal fd
-                    = new FormattedFloatingDecimal(value, prec,
-                        FormattedFloatingDecimal.Form.DECIMAL_FLOAT);
-
-                // MAX_FD_CHARS + 1 (round?)
-                char[] v = new char[MAX_FD_CHARS + 1
-                                   + Math.abs(fd.getExponent())];
-                int len = fd.getChars(v);
-
-                char[] mant = addZeros(mantissa(v, len), prec);
+                char[] mant = new DecimalDigits(value).decimal(prec);
 
                 // If the precision is zero and the '#' flag is set, add the
                 // requested decimal point.
@@ -4178,10 +4613,14 @@ public final class Formatter implements Closeable, Flushable {
         }
 
         public static Flags parse(String s) {
-            char[] ca = s.toCharArray();
+            return parse(s, 0, s.length());
+        }
+
+        // parses the flags in s[start, end)
+        static Flags parse(String s, int start, int end) {
             Flags f = new Flags(0);
-            for (int i = 0; i < ca.length; i++) {
-                Flags v = parse(ca[i]);
+            for (int i = start; i < end; i++) {
+                Flags v = parse(s.charAt(i));
                 if (f.contains(v))
                     throw new java.util.DuplicateFormatFlagsException(v.toString());
                 f.add(v);
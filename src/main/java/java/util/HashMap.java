@@ -266,6 +266,57 @@ public class HashMap<K,V>
      */
     transient int hashSeed = 0;
 
+    /*
+     * Tree bins.
+     *
+     * A bin whose chain grows past TREEIFY_THRESHOLD entries (which
+     * happens only when many keys share hash codes or the low bits of
+     * them) is additionally indexed by a red-black tree, so that
+     * lookups in that bin take O(log n) rather than O(n) time.  The
+     * tree is ordered primarily by hash value, then by compareTo when
+     * the keys are of the same "class C implements Comparable<C>"
+     * type, and otherwise by a tie-breaking order that lookups treat
+     * as unresolved (searching both subtrees).  The tree is only an
+     * index: the entries themselves stay linked in their ordinary
+     * "next" chain, so iterators, LinkedHashMap, and the transfer
+     * methods never need to know about it.
+     *
+     * Tree bins are kept in the treeBins array, parallel to table,
+     * which stays null until some bin is first treeified.  Resizing
+     * rebuilds the index for whichever bins are still long enough,
+     * and removals drop a tree once its bin shrinks to
+     * UNTREEIFY_THRESHOLD.  When the table is smaller than
+     * MIN_TREEIFY_CAPACITY, a long chain causes a resize instead,
+     * since the collisions may just be due to a crowded table.
+     */
+
+    /**
+     * The bin count threshold for indexing a bin with a tree rather
+     * than searching its list.  Must be greater than 2, and should
+     * be at least 8 to mesh with assumptions about conversion back
+     * to plain bins upon shrinkage.
+     */
+    static final int TREEIFY_THRESHOLD = 8;
+
+    /**
+     * The bin count threshold at or below which a tree bin reverts
+     * to a plain list during removal.
+     */
+    static final int UNTREEIFY_THRESHOLD = 6;
+
+    /**
+     * The smallest table capacity for which bins may be treeified.
+     * (Otherwise the table is resized if a bin has too many entries.)
+     */
+    static final int MIN_TREEIFY_CAPACITY = 64;
+
+    /**
+     * Tree indexes of the bins of table that have been treeified,
+     * or null if there are none.  When non-null, has the same
+     * length as table.
+     */
+    transient TreeBin<K,V>[] treeBins;
+
     /**
      * Constructs an empty <tt>HashMap</tt> with the specified initial
      * capacity and load factor.
@@ -458,6 +509,11 @@ public class HashMap<K,V>
         if (size == 0) {
             return null;
         }
+        TreeBin<K,V>[] tbs = treeBins;
+        if (tbs != null && tbs[0] != null) {
+            Entry<K,V> e = tbs[0].getEntry(0, null);
+            return null == e ? null : e.value;
+        }
         for (Entry<K,V> e = table[0]; e != null; e = e.next) {
             if (e.key == null)
                 return e.value;
@@ -488,9 +544,18 @@ public class HashMap<K,V>
         }
 
         int hash = (key == null) ? 0 : hash(key);
-        for (Entry<K,V> e = table[indexFor(hash, table.length)];
-             e != null;
-             e = e.next) {
+        return findEntry(hash, key, indexFor(hash, table.length));
+    }
+
+    /**
+     * Returns the entry for the given key and hash in bin i, searching
+     * the bin's tree if it has one and its list otherwise.
+     */
+    final Entry<K,V> findEntry(int hash, Object key, int i) {
+        TreeBin<K,V>[] tbs = treeBins;
+        if (tbs != null && tbs[i] != null)
+            return tbs[i].getEntry(hash, key);
+        for (Entry<K,V> e = table[i]; e != null; e = e.next) {
             Object k;
             if (e.hash == hash &&
                 ((k = e.key) == key || (key != null && key.equals(k))))
@@ -519,14 +584,12 @@ public class HashMap<K,V>
             return putForNullKey(value);
         int hash = hash(key);
         int i = indexFor(hash, table.length);
-        for (Entry<K,V> e = table[i]; e != null; e = e.next) {
-            Object k;
-            if (e.hash == hash && ((k = e.key) == key || key.equals(k))) {
-                V oldValue = e.value;
-                e.value = value;
-                e.recordAccess(this);
-                return oldValue;
-            }
+        Entry<K,V> e = findEntry(hash, key, i);
+        if (e != null) {
+            V oldValue = e.value;
+            e.value = value;
+            e.recordAccess(this);
+            return oldValue;
         }
 
         modCount++;
@@ -538,13 +601,12 @@ public class HashMap<K,V>
      * Offloaded version of put for null keys
      */
     private V putForNullKey(V value) {
-        for (Entry<K,V> e = table[0]; e != null; e = e.next) {
-            if (e.key == null) {
-                V oldValue = e.value;
-                e.value = value;
-                e.recordAccess(this);
-                return oldValue;
-            }
+        Entry<K,V> e = findEntry(0, null, 0);
+        if (e != null) {
+            V oldValue = e.value;
+            e.value = value;
+            e.recordAccess(this);
+            return oldValue;
         }
         modCount++;
         addEntry(0, null, value, 0);
@@ -566,16 +628,14 @@ public class HashMap<K,V>
          * clone or deserialize.  It will only happen for construction if the
          * input Map is a sorted map whose ordering is inconsistent w/ equals.
          */
-        for (Entry<K,V> e = table[i]; e != null; e = e.next) {
-            Object k;
-            if (e.hash == hash &&
-                ((k = e.key) == key || (key != null && key.equals(k)))) {
-                e.value = value;
-                return;
-            }
+        Entry<K,V> e = findEntry(hash, key, i);
+        if (e != null) {
+            e.value = value;
+            return;
         }
 
         createEntry(hash, key, value, i);
+        binAdded(i, false);
     }
 
     private void putAllForCreate(Map<? extends K, ? extends V> m) {
@@ -609,6 +669,86 @@ public class HashMap<K,V>
         transfer(newTable, initHashSeedAsNeeded(newCapacity));
         table = newTable;
         threshold = (int)Math.min(newCapacity * loadFactor, MAXIMUM_CAPACITY + 1);
+        if (treeBins != null)
+            rebuildTreeBins();
+    }
+
+    /**
+     * Re-creates tree indexes for all bins of the current table that
+     * hold at least TREEIFY_THRESHOLD entries, discarding any old ones.
+     * Called after the chains have been redistributed by a resize.
+     */
+    private void rebuildTreeBins() {
+        Entry<K,V>[] tab = table;
+        TreeBin<K,V>[] tbs = null;
+        if (tab.length >= MIN_TREEIFY_CAPACITY) {
+            for (int i = 0; i < tab.length; i++) {
+                if (binCountReaches(tab[i], TREEIFY_THRESHOLD)) {
+                    if (tbs == null) {
+                        @SuppressWarnings({"rawtypes","unchecked"})
+                        TreeBin<K,V>[] newTbs =
+                            (TreeBin<K,V>[]) new TreeBin[tab.length];
+                        tbs = newTbs;
+                    }
+                    tbs[i] = new TreeBin<>(tab[i]);
+                }
+            }
+        }
+        treeBins = tbs;
+    }
+
+    /**
+     * Returns true if the chain starting at e has at least n entries.
+     * Stops counting at n, so is O(1) for the short chains that are
+     * the common case.
+     */
+    private static boolean binCountReaches(Entry<?,?> e, int n) {
+        int count = 0;
+        for (; e != null; e = e.next) {
+            if (++count >= n)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Updates the tree index of bin i (if any) to include the entry
+     * just placed at the head of the bin by createEntry, or treeifies
+     * the bin if its list has become too long.  When the table is too
+     * small to treeify, it is instead resized if allowResize is true
+     * (it is false when called during construction).
+     */
+    private void binAdded(int i, boolean allowResize) {
+        TreeBin<K,V>[] tbs = treeBins;
+        if (tbs != null && tbs[i] != null)
+            tbs[i].addFirst(table[i]);
+        else if (binCountReaches(table[i], TREEIFY_THRESHOLD)) {
+            int n = table.length;
+            if (n >= MIN_TREEIFY_CAPACITY) {
+                if (tbs == null) {
+                    @SuppressWarnings({"rawtypes","unchecked"})
+                    TreeBin<K,V>[] newTbs = (TreeBin<K,V>[]) new TreeBin[n];
+                    treeBins = tbs = newTbs;
+                }
+                tbs[i] = new TreeBin<>(table[i]);
+            } else if (allowResize) {
+                resize(2 * n);
+            }
+        }
+    }
+
+    /**
+     * Unlinks entry e, indexed by node p of tree bin tb, from bin i.
+     */
+    private void removeTreeEntry(int i, TreeBin<K,V> tb, TreeNode<K,V> p) {
+        Entry<K,V> e = p.entry;
+        Entry<K,V> pred = tb.removeNode(p);
+        if (pred == null)
+            table[i] = e.next;
+        else
+            pred.next = e.next;
+        if (tb.size <= UNTREEIFY_THRESHOLD)
+            treeBins[i] = null;
     }
 
     /**
@@ -696,6 +836,18 @@ public class HashMap<K,V>
         }
         int hash = (key == null) ? 0 : hash(key);
         int i = indexFor(hash, table.length);
+        TreeBin<K,V>[] tbs = treeBins;
+        if (tbs != null && tbs[i] != null) {
+            TreeNode<K,V> p = tbs[i].getNode(hash, key);
+            if (p == null)
+                return null;
+            Entry<K,V> e = p.entry;
+            modCount++;
+            size--;
+            removeTreeEntry(i, tbs[i], p);
+            e.recordRemoval(this);
+            return e;
+        }
         Entry<K,V> prev = table[i];
         Entry<K,V> e = prev;
 
@@ -732,6 +884,18 @@ public class HashMap<K,V>
         Object key = entry.getKey();
         int hash = (key == null) ? 0 : hash(key);
         int i = indexFor(hash, table.length);
+        TreeBin<K,V>[] tbs = treeBins;
+        if (tbs != null && tbs[i] != null) {
+            TreeNode<K,V> p = tbs[i].getNode(hash, key);
+            if (p == null || !p.entry.equals(entry))
+                return null;
+            Entry<K,V> e = p.entry;
+            modCount++;
+            size--;
+            removeTreeEntry(i, tbs[i], p);
+            e.recordRemoval(this);
+            return e;
+        }
         Entry<K,V> prev = table[i];
         Entry<K,V> e = prev;
 
@@ -761,6 +925,7 @@ public class HashMap<K,V>
     public void clear() {
         modCount++;
         java.util.Arrays.fill(table, null);
+        treeBins = null;
         size = 0;
     }
 
@@ -818,6 +983,7 @@ public class HashMap<K,V>
                table.length));
         }
         result.entrySet = null;
+        result.treeBins = null;
         result.modCount = 0;
         result.size = 0;
         result.init();
@@ -910,6 +1076,7 @@ public class HashMap<K,V>
         }
 
         createEntry(hash, key, value, bucketIndex);
+        binAdded(bucketIndex, true);
     }
 
     /**
@@ -926,6 +1093,430 @@ public class HashMap<K,V>
         size++;
     }
 
+    /* ------------------------------------------------------------ */
+    // Tree bins
+
+    /**
+     * Returns x's Class if it is of the form "class C implements
+     * Comparable<C>", else null.
+     */
+    static Class<?> comparableClassFor(Object x) {
+        if (x instanceof Comparable) {
+            Class<?> c; java.lang.reflect.Type[] ts, as;
+            java.lang.reflect.Type t; java.lang.reflect.ParameterizedType p;
+            if ((c = x.getClass()) == String.class) // bypass checks
+                return c;
+            if ((ts = c.getGenericInterfaces()) != null) {
+                for (int i = 0; i < ts.length; ++i) {
+                    if (((t = ts[i]) instanceof java.lang.reflect.ParameterizedType) &&
+                        ((p = (java.lang.reflect.ParameterizedType)t).getRawType() ==
+                         Comparable.class) &&
+                        (as = p.getActualTypeArguments()) != null &&
+                        as.length == 1 && as[0] == c) // type arg is c
+                        return c;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns k.compareTo(x) if x matches kc (k's screened comparable
+     * class), else 0.
+     */
+    @SuppressWarnings({"rawtypes","unchecked"}) // for cast to Comparable
+    static int compareComparables(Class<?> kc, Object k, Object x) {
+        return (x == null || x.getClass() != kc ? 0 :
+                ((Comparable)k).compareTo(x));
+    }
+
+    /**
+     * Tie-breaking utility for ordering insertions when equal
+     * hashCodes and non-comparable keys.  We don't require a total
+     * order, just a consistent insertion rule to maintain
+     * equivalence across rebalancings.
+     */
+    static int tieBreakOrder(Object a, Object b) {
+        int d;
+        if (a == null || b == null ||
+            (d = a.getClass().getName().
+             compareTo(b.getClass().getName())) == 0)
+            d = (System.identityHashCode(a) <= System.identityHashCode(b) ?
+                 -1 : 1);
+        return d;
+    }
+
+    /**
+     * Node of a tree bin.  Each node indexes one entry of the bin,
+     * and nodes are also doubly linked (prev/next) in the same order
+     * as their entries appear in the bin's chain, so that the chain
+     * predecessor of an entry can be found without a list scan.
+     */
+    static final class TreeNode<K,V> {
+        Entry<K,V> entry;
+        TreeNode<K,V> left;
+        TreeNode<K,V> right;
+        TreeNode<K,V> parent;
+        TreeNode<K,V> prev;
+        TreeNode<K,V> next;
+        boolean red;
+
+        TreeNode(Entry<K,V> entry) {
+            this.entry = entry;
+        }
+
+        /**
+         * Finds the node starting at this root with the given hash
+         * and key.  The kc argument caches comparableClassFor(key)
+         * upon first use comparing keys.
+         */
+        TreeNode<K,V> find(int h, Object k, Class<?> kc) {
+            TreeNode<K,V> p = this;
+            do {
+                int ph, dir; Object pk;
+                TreeNode<K,V> pl = p.left, pr = p.right, q;
+                if ((ph = p.entry.hash) > h)
+                    p = pl;
+                else if (ph < h)
+                    p = pr;
+                else if ((pk = p.entry.key) == k || (k != null && k.equals(pk)))
+                    return p;
+                else if (pl == null)
+                    p = pr;
+                else if (pr == null)
+                    p = pl;
+                else if ((kc != null ||
+                          (kc = comparableClassFor(k)) != null) &&
+                         (dir = compareComparables(kc, k, pk)) != 0)
+                    p = (dir < 0) ? pl : pr;
+                else if ((q = pr.find(h, k, kc)) != null)
+                    return q;
+                else
+                    p = pl;
+            } while (p != null);
+            return null;
+        }
+    }
+
+    /**
+     * Red-black tree index over the entries of one bin.  The
+     * balancing code follows TreeMap (itself adapted from CLR);
+     * the ordering and lookup rules are described above with
+     * TREEIFY_THRESHOLD.
+     */
+    static final class TreeBin<K,V> {
+        TreeNode<K,V> root;
+        TreeNode<K,V> first;   // node of the chain's head entry
+        int size;
+
+        /**
+         * Creates a tree indexing the chain starting at entry e.
+         */
+        TreeBin(Entry<K,V> e) {
+            TreeNode<K,V> last = null;
+            for (; e != null; e = e.next) {
+                TreeNode<K,V> x = new TreeNode<>(e);
+                if ((x.prev = last) == null)
+                    first = x;
+                else
+                    last.next = x;
+                last = x;
+                insert(x);
+            }
+        }
+
+        /**
+         * Returns the entry with the given hash and key, or null if none.
+         */
+        Entry<K,V> getEntry(int h, Object k) {
+            TreeNode<K,V> p = getNode(h, k);
+            return (p == null) ? null : p.entry;
+        }
+
+        /**
+         * Returns the node with the given hash and key, or null if none.
+         */
+        TreeNode<K,V> getNode(int h, Object k) {
+            TreeNode<K,V> r = root;
+            return (r == null) ? null : r.find(h, k, null);
+        }
+
+        /**
+         * Indexes entry e, which has just been linked in as the new
+         * head of the bin's chain.
+         */
+        void addFirst(Entry<K,V> e) {
+            TreeNode<K,V> x = new TreeNode<>(e), f = first;
+            if ((x.next = f) != null)
+                f.prev = x;
+            first = x;
+            insert(x);
+        }
+
+        /**
+         * Places new node x in the tree and rebalances.
+         */
+        private void insert(TreeNode<K,V> x) {
+            ++size;
+            TreeNode<K,V> p = root;
+            if (p == null) {
+                x.red = false;
+                root = x;
+                return;
+            }
+            int h = x.entry.hash;
+            Object k = x.entry.key;
+            Class<?> kc = null;
+            for (;;) {
+                int dir, ph;
+                Object pk = p.entry.key;
+                if ((ph = p.entry.hash) > h)
+                    dir = -1;
+                else if (ph < h)
+                    dir = 1;
+                else if ((kc == null &&
+                          (kc = comparableClassFor(k)) == null) ||
+                         (dir = compareComparables(kc, k, pk)) == 0)
+                    dir = tieBreakOrder(k, pk);
+                TreeNode<K,V> xp = p;
+                if ((p = (dir <= 0) ? p.left : p.right) == null) {
+                    x.parent = xp;
+                    if (dir <= 0)
+                        xp.left = x;
+                    else
+                        xp.right = x;
+                    fixAfterInsertion(x);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Removes node p from the tree and from the node list, and
+         * returns the entry that preceded p's entry in the chain (or
+         * null if it was the head), so the caller can unlink it.
+         */
+        Entry<K,V> removeNode(TreeNode<K,V> p) {
+            --size;
+            TreeNode<K,V> pred = p.prev, succ = p.next;
+            if (pred == null)
+                first = succ;
+            else
+                pred.next = succ;
+            if (succ != null)
+                succ.prev = pred;
+
+            // If strictly internal, move successor's entry to p, let p
+            // take over the successor's place in the node list, and
+            // then delete the successor's node instead.
+            if (p.left != null && p.right != null) {
+                TreeNode<K,V> s = successor(p);
+                p.entry = s.entry;
+                if ((p.prev = s.prev) == null)
+                    first = p;
+                else
+                    p.prev.next = p;
+                if ((p.next = s.next) != null)
+                    p.next.prev = p;
+                p = s;
+            }
+
+            TreeNode<K,V> replacement = (p.left != null ? p.left : p.right);
+            if (replacement != null) {
+                replacement.parent = p.parent;
+                if (p.parent == null)
+                    root = replacement;
+                else if (p == p.parent.left)
+                    p.parent.left  = replacement;
+                else
+                    p.parent.right = replacement;
+                p.left = p.right = p.parent = null;
+                if (!p.red)
+                    fixAfterDeletion(replacement);
+            } else if (p.parent == null) {
+                root = null;
+            } else {
+                if (!p.red)
+                    fixAfterDeletion(p);
+                if (p.parent != null) {
+                    if (p == p.parent.left)
+                        p.parent.left = null;
+                    else if (p == p.parent.right)
+                        p.parent.right = null;
+                    p.parent = null;
+                }
+            }
+            return (pred == null) ? null : pred.entry;
+        }
+
+        private static <K,V> TreeNode<K,V> successor(TreeNode<K,V> t) {
+            TreeNode<K,V> p = t.right;
+            while (p.left != null)
+                p = p.left;
+            return p;
+        }
+
+        private static <K,V> boolean isRed(TreeNode<K,V> p) {
+            return (p != null && p.red);
+        }
+
+        private static <K,V> TreeNode<K,V> parentOf(TreeNode<K,V> p) {
+            return (p == null ? null: p.parent);
+        }
+
+        private static <K,V> void setRed(TreeNode<K,V> p, boolean red) {
+            if (p != null)
+                p.red = red;
+        }
+
+        private static <K,V> TreeNode<K,V> leftOf(TreeNode<K,V> p) {
+            return (p == null) ? null: p.left;
+        }
+
+        private static <K,V> TreeNode<K,V> rightOf(TreeNode<K,V> p) {
+            return (p == null) ? null: p.right;
+        }
+
+        /** From CLR */
+        private void rotateLeft(TreeNode<K,V> p) {
+            if (p != null) {
+                TreeNode<K,V> r = p.right;
+                p.right = r.left;
+                if (r.left != null)
+                    r.left.parent = p;
+                r.parent = p.parent;
+                if (p.parent == null)
+                    root = r;
+                else if (p.parent.left == p)
+                    p.parent.left = r;
+                else
+                    p.parent.right = r;
+                r.left = p;
+                p.parent = r;
+            }
+        }
+
+        /** From CLR */
+        private void rotateRight(TreeNode<K,V> p) {
+            if (p != null) {
+                TreeNode<K,V> l = p.left;
+                p.left = l.right;
+                if (l.right != null) l.right.parent = p;
+                l.parent = p.parent;
+                if (p.parent == null)
+                    root = l;
+                else if (p.parent.right == p)
+                    p.parent.right = l;
+                else p.parent.left = l;
+                l.right = p;
+                p.parent = l;
+            }
+        }
+
+        /** From CLR */
+        private void fixAfterInsertion(TreeNode<K,V> x) {
+            x.red = true;
+
+            while (x != null && x != root && x.parent.red) {
+                if (parentOf(x) == leftOf(parentOf(parentOf(x)))) {
+                    TreeNode<K,V> y = rightOf(parentOf(parentOf(x)));
+                    if (isRed(y)) {
+                        setRed(parentOf(x), false);
+                        setRed(y, false);
+                        setRed(parentOf(parentOf(x)), true);
+                        x = parentOf(parentOf(x));
+                    } else {
+                        if (x == rightOf(parentOf(x))) {
+                            x = parentOf(x);
+                            rotateLeft(x);
+                        }
+                        setRed(parentOf(x), false);
+                        setRed(parentOf(parentOf(x)), true);
+                        rotateRight(parentOf(parentOf(x)));
+                    }
+                } else {
+                    TreeNode<K,V> y = leftOf(parentOf(parentOf(x)));
+                    if (isRed(y)) {
+                        setRed(parentOf(x), false);
+                        setRed(y, false);
+                        setRed(parentOf(parentOf(x)), true);
+                        x = parentOf(parentOf(x));
+                    } else {
+                        if (x == leftOf(parentOf(x))) {
+                            x = parentOf(x);
+                            rotateRight(x);
+                        }
+                        setRed(parentOf(x), false);
+                        setRed(parentOf(parentOf(x)), true);
+                        rotateLeft(parentOf(parentOf(x)));
+                    }
+                }
+            }
+            root.red = false;
+        }
+
+        /** From CLR */
+        private void fixAfterDeletion(TreeNode<K,V> x) {
+            while (x != root && !isRed(x)) {
+                if (x == leftOf(parentOf(x))) {
+                    TreeNode<K,V> sib = rightOf(parentOf(x));
+
+                    if (isRed(sib)) {
+                        setRed(sib, false);
+                        setRed(parentOf(x), true);
+                        rotateLeft(parentOf(x));
+                        sib = rightOf(parentOf(x));
+                    }
+
+                    if (!isRed(leftOf(sib)) && !isRed(rightOf(sib))) {
+                        setRed(sib, true);
+                        x = parentOf(x);
+                    } else {
+                        if (!isRed(rightOf(sib))) {
+                            setRed(leftOf(sib), false);
+                            setRed(sib, true);
+                            rotateRight(sib);
+                            sib = rightOf(parentOf(x));
+                        }
+                        setRed(sib, isRed(parentOf(x)));
+                        setRed(parentOf(x), false);
+                        setRed(rightOf(sib), false);
+                        rotateLeft(parentOf(x));
+                        x = root;
+                    }
+                } else { // symmetric
+                    TreeNode<K,V> sib = leftOf(parentOf(x));
+
+                    if (isRed(sib)) {
+                        setRed(sib, false);
+                        setRed(parentOf(x), true);
+                        rotateRight(parentOf(x));
+                        sib = leftOf(parentOf(x));
+                    }
+
+                    if (!isRed(rightOf(sib)) && !isRed(leftOf(sib))) {
+                        setRed(sib, true);
+                        x = parentOf(x);
+                    } else {
+                        if (!isRed(leftOf(sib))) {
+                            setRed(rightOf(sib), false);
+                            setRed(sib, true);
+                            rotateLeft(sib);
+                            sib = leftOf(parentOf(x));
+                        }
+                        setRed(sib, isRed(parentOf(x)));
+                        setRed(parentOf(x), false);
+                        setRed(leftOf(sib), false);
+                        rotateRight(parentOf(x));
+                        x = root;
+                    }
+                }
+            }
+
+            setRed(x, false);
+        }
+    }
+
     private abstract class HashIterator<E> implements java.util.Iterator<E> {
         Entry<K,V> next;        // next entry to return
         int expectedModCount;   // For fast-fail
@@ -1123,6 +1714,333 @@ public class HashMap<K,V>
         }
     }
 
+    // Spliterators
+
+    /**
+     * Creates a <em><a href="Spliterator.html#binding">late-binding</a></em>
+     * and <em>fail-fast</em> {@link java.util.Spliterator} over the keys
+     * in this map.  The spliterator splits the bucket table by index
+     * range, so the keys can be traversed in parallel without copying.
+     *
+     * <p>The {@code Spliterator} reports {@link java.util.Spliterator#DISTINCT}
+     * and, until split, {@link java.util.Spliterator#SIZED}.
+     *
+     * @return a {@code Spliterator} over the keys in this map
+     * @since 1.7
+     */
+    public java.util.Spliterator<K> keySpliterator() {
+        return new KeySpliterator<K,V>(this, 0, -1, 0, 0);
+    }
+
+    /**
+     * Creates a <em><a href="Spliterator.html#binding">late-binding</a></em>
+     * and <em>fail-fast</em> {@link java.util.Spliterator} over the values
+     * in this map.
+     *
+     * <p>The {@code Spliterator} reports {@link java.util.Spliterator#SIZED}
+     * until split.
+     *
+     * @return a {@code Spliterator} over the values in this map
+     * @since 1.7
+     */
+    public java.util.Spliterator<V> valueSpliterator() {
+        return new ValueSpliterator<K,V>(this, 0, -1, 0, 0);
+    }
+
+    /**
+     * Creates a <em><a href="Spliterator.html#binding">late-binding</a></em>
+     * and <em>fail-fast</em> {@link java.util.Spliterator} over the mappings
+     * in this map.
+     *
+     * <p>The {@code Spliterator} reports {@link java.util.Spliterator#DISTINCT}
+     * and, until split, {@link java.util.Spliterator#SIZED}.
+     *
+     * @return a {@code Spliterator} over the mappings in this map
+     * @since 1.7
+     */
+    public java.util.Spliterator<Map.Entry<K,V>> entrySpliterator() {
+        return new EntrySpliterator<K,V>(this, 0, -1, 0, 0);
+    }
+
+    /**
+     * Base class for spliterators.  A spliterator covers the chains
+     * of a range of table slots; splitting halves the slot range, and
+     * the size estimate with it.  Tree bins need no special handling
+     * since their entries remain linked in the slot's chain.  The
+     * fence, size and expected modCount are read at first use (fence
+     * < 0 until then).
+     */
+    static class HashMapSpliterator<K,V> {
+        final HashMap<K,V> map;
+        Entry<K,V> current;         // current entry
+        int index;                  // current index, modified on advance/split
+        int fence;                  // one past last index
+        int est;                    // size estimate
+        int expectedModCount;       // for comodification checks
+
+        HashMapSpliterator(HashMap<K,V> m, int origin,
+                           int fence, int est,
+                           int expectedModCount) {
+            this.map = m;
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+        }
+
+        final int getFence() { // initialize fence and size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                HashMap<K,V> m = map;
+                est = m.size;
+                expectedModCount = m.modCount;
+                hi = fence = m.table.length;
+            }
+            return hi;
+        }
+
+        public final long estimateSize() {
+            getFence(); // force init
+            return (long) est;
+        }
+    }
+
+    static final class KeySpliterator<K,V>
+        extends HashMapSpliterator<K,V>
+        implements java.util.Spliterator<K> {
+        KeySpliterator(HashMap<K,V> m, int origin, int fence, int est,
+                       int expectedModCount) {
+            super(m, origin, fence, est, expectedModCount);
+        }
+
+        public KeySpliterator<K,V> trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid || current != null) ? null :
+                new KeySpliterator<K,V>(map, lo, index = mid, est >>>= 1,
+                                        expectedModCount);
+        }
+
+        public void forEachRemaining(
+            java.util.function.Consumer<? super K> action) {
+            int i, hi, mc;
+            if (action == null)
+                throw new NullPointerException();
+            HashMap<K,V> m = map;
+            Entry<K,V>[] tab = m.table;
+            if ((hi = fence) < 0) {
+                mc = expectedModCount = m.modCount;
+                hi = fence = tab.length;
+            }
+            else
+                mc = expectedModCount;
+            if (tab.length >= hi &&
+                (i = index) >= 0 && (i < (index = hi) || current != null)) {
+                Entry<K,V> p = current;
+                current = null;
+                do {
+                    if (p == null)
+                        p = tab[i++];
+                    else {
+                        action.accept(p.key);
+                        p = p.next;
+                    }
+                } while (p != null || i < hi);
+                if (m.modCount != mc)
+                    throw new java.util.ConcurrentModificationException();
+            }
+        }
+
+        public boolean tryAdvance(
+            java.util.function.Consumer<? super K> action) {
+            int hi;
+            if (action == null)
+                throw new NullPointerException();
+            Entry<K,V>[] tab = map.table;
+            if (tab.length >= (hi = getFence()) && index >= 0) {
+                while (current != null || index < hi) {
+                    if (current == null)
+                        current = tab[index++];
+                    else {
+                        K k = current.key;
+                        current = current.next;
+                        action.accept(k);
+                        if (map.modCount != expectedModCount)
+                            throw new java.util.ConcurrentModificationException();
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        public int characteristics() {
+            return (fence < 0 || est == map.size ?
+                    java.util.Spliterator.SIZED : 0) |
+                java.util.Spliterator.DISTINCT;
+        }
+
+        public java.util.Comparator<? super K> getComparator() {
+            throw new IllegalStateException();
+        }
+    }
+
+    static final class ValueSpliterator<K,V>
+        extends HashMapSpliterator<K,V>
+        implements java.util.Spliterator<V> {
+        ValueSpliterator(HashMap<K,V> m, int origin, int fence, int est,
+                         int expectedModCount) {
+            super(m, origin, fence, est, expectedModCount);
+        }
+
+        public ValueSpliterator<K,V> trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid || current != null) ? null :
+                new ValueSpliterator<K,V>(map, lo, index = mid, est >>>= 1,
+                                          expectedModCount);
+        }
+
+        public void forEachRemaining(
+            java.util.function.Consumer<? super V> action) {
+            int i, hi, mc;
+            if (action == null)
+                throw new NullPointerException();
+            HashMap<K,V> m = map;
+            Entry<K,V>[] tab = m.table;
+            if ((hi = fence) < 0) {
+                mc = expectedModCount = m.modCount;
+                hi = fence = tab.length;
+            }
+            else
+                mc = expectedModCount;
+            if (tab.length >= hi &&
+                (i = index) >= 0 && (i < (index = hi) || current != null)) {
+                Entry<K,V> p = current;
+                current = null;
+                do {
+                    if (p == null)
+                        p = tab[i++];
+                    else {
+                        action.accept(p.value);
+                        p = p.next;
+                    }
+                } while (p != null || i < hi);
+                if (m.modCount != mc)
+                    throw new java.util.ConcurrentModificationException();
+            }
+        }
+
+        public boolean tryAdvance(
+            java.util.function.Consumer<? super V> action) {
+            int hi;
+            if (action == null)
+                throw new NullPointerException();
+            Entry<K,V>[] tab = map.table;
+            if (tab.length >= (hi = getFence()) && index >= 0) {
+                while (current != null || index < hi) {
+                    if (current == null)
+                        current = tab[index++];
+                    else {
+                        V v = current.value;
+                        current = current.next;
+                        action.accept(v);
+                        if (map.modCount != expectedModCount)
+                            throw new java.util.ConcurrentModificationException();
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        public int characteristics() {
+            return (fence < 0 || est == map.size ?
+                    java.util.Spliterator.SIZED : 0);
+        }
+
+        public java.util.Comparator<? super V> getComparator() {
+            throw new IllegalStateException();
+        }
+    }
+
+    static final class EntrySpliterator<K,V>
+        extends HashMapSpliterator<K,V>
+        implements java.util.Spliterator<Map.Entry<K,V>> {
+        EntrySpliterator(HashMap<K,V> m, int origin, int fence, int est,
+                         int expectedModCount) {
+            super(m, origin, fence, est, expectedModCount);
+        }
+
+        public EntrySpliterator<K,V> trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid || current != null) ? null :
+                new EntrySpliterator<K,V>(map, lo, index = mid, est >>>= 1,
+                                          expectedModCount);
+        }
+
+        public void forEachRemaining(
+            java.util.function.Consumer<? super Map.Entry<K,V>> action) {
+            int i, hi, mc;
+            if (action == null)
+                throw new NullPointerException();
+            HashMap<K,V> m = map;
+            Entry<K,V>[] tab = m.table;
+            if ((hi = fence) < 0) {
+                mc = expectedModCount = m.modCount;
+                hi = fence = tab.length;
+            }
+            else
+                mc = expectedModCount;
+            if (tab.length >= hi &&
+                (i = index) >= 0 && (i < (index = hi) || current != null)) {
+                Entry<K,V> p = current;
+                current = null;
+                do {
+                    if (p == null)
+                        p = tab[i++];
+                    else {
+                        action.accept(p);
+                        p = p.next;
+                    }
+                } while (p != null || i < hi);
+                if (m.modCount != mc)
+                    throw new java.util.ConcurrentModificationException();
+            }
+        }
+
+        public boolean tryAdvance(
+            java.util.function.Consumer<? super Map.Entry<K,V>> action) {
+            int hi;
+            if (action == null)
+                throw new NullPointerException();
+            Entry<K,V>[] tab = map.table;
+            if (tab.length >= (hi = getFence()) && index >= 0) {
+                while (current != null || index < hi) {
+                    if (current == null)
+                        current = tab[index++];
+                    else {
+                        Entry<K,V> e = current;
+                        current = current.next;
+                        action.accept(e);
+                        if (map.modCount != expectedModCount)
+                            throw new java.util.ConcurrentModificationException();
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        public int characteristics() {
+            return (fence < 0 || est == map.size ?
+                    java.util.Spliterator.SIZED : 0) |
+                java.util.Spliterator.DISTINCT;
+        }
+
+        public java.util.Comparator<? super Map.Entry<K,V>> getComparator() {
+            throw new IllegalStateException();
+        }
+    }
+
     /**
      * Save the state of the <tt>HashMap</tt> instance to a stream (i.e.,
      * serialize it).
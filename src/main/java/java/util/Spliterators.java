@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util;
+
+import java.util.function.Consumer;
+
+/**
+ * Static classes and methods for operating on or creating instances of
+ * {@link Spliterator}.
+ *
+ * @see Spliterator
+ * @since 1.7
+ */
+public final class Spliterators {
+
+    // Suppresses default constructor, ensuring non-instantiability.
+    private Spliterators() {}
+
+    /**
+     * Returns {@code true} if the given Spliterator's {@link
+     * Spliterator#characteristics} contain all of the given
+     * characteristics.
+     *
+     * @param spliterator the spliterator to query
+     * @param characteristics the characteristics to check for
+     * @return {@code true} if all the specified characteristics are present,
+     * else {@code false}
+     */
+    public static boolean hasCharacteristics(Spliterator<?> spliterator,
+                                             int characteristics) {
+        return (spliterator.characteristics() & characteristics) ==
+            characteristics;
+    }
+
+    /**
+     * Returns the {@link Spliterator#estimateSize} of the given
+     * Spliterator if it is {@link Spliterator#SIZED}, else {@code -1}.
+     *
+     * @param spliterator the spliterator to query
+     * @return the exact size, if known, else {@code -1}.
+     */
+    public static long getExactSizeIfKnown(Spliterator<?> spliterator) {
+        return ((spliterator.characteristics() & Spliterator.SIZED) == 0) ?
+            -1L : spliterator.estimateSize();
+    }
+
+    /**
+     * Creates a {@code Spliterator} covering the elements of a given array,
+     * using a customized set of spliterator characteristics.
+     *
+     * <p>The returned spliterator always reports the characteristics
+     * {@code SIZED} and {@code SUBSIZED}.  The caller may provide additional
+     * characteristics for the spliterator to report; it is common to
+     * additionally specify {@code IMMUTABLE} and {@code ORDERED}.
+     *
+     * @param <T> Type of elements
+     * @param array The array, assumed to be unmodified during use
+     * @param additionalCharacteristics Additional spliterator characteristics
+     *        of this spliterator's source or elements beyond {@code SIZED} and
+     *        {@code SUBSIZED} which are are always reported
+     * @return A spliterator for an array
+     * @throws NullPointerException if the given array is {@code null}
+     * @see Arrays#spliterator(Object[])
+     */
+    public static <T> Spliterator<T> spliterator(Object[] array,
+                                                 int additionalCharacteristics) {
+        return new ArraySpliterator<T>(array, 0, array.length,
+                                       additionalCharacteristics);
+    }
+
+    /**
+     * Creates a {@code Spliterator} covering a range of elements of a given
+     * array, using a customized set of spliterator characteristics.
+     *
+     * <p>The returned spliterator always reports the characteristics
+     * {@code SIZED} and {@code SUBSIZED}.  The caller may provide additional
+     * characteristics for the spliterator to report; it is common to
+     * additionally specify {@code IMMUTABLE} and {@code ORDERED}.
+     *
+     * @param <T> Type of elements
+     * @param array The array, assumed to be unmodified during use
+     * @param fromIndex The least index (inclusive) to cover
+     * @param toIndex One past the greatest index to cover
+     * @param additionalCharacteristics Additional spliterator characteristics
+     *        of this spliterator's source or elements beyond {@code SIZED} and
+     *        {@code SUBSIZED} which are are always reported
+     * @return A spliterator for an array
+     * @throws NullPointerException if the given array is {@code null}
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex} is negative,
+     *         {@code toIndex} is less than {@code fromIndex}, or
+     *         {@code toIndex} is greater than the array size
+     * @see Arrays#spliterator(Object[], int, int)
+     */
+    public static <T> Spliterator<T> spliterator(Object[] array,
+                                                 int fromIndex, int toIndex,
+                                                 int additionalCharacteristics) {
+        checkFromToBounds(array.length, fromIndex, toIndex);
+        return new ArraySpliterator<T>(array, fromIndex, toIndex,
+                                       additionalCharacteristics);
+    }
+
+    /**
+     * Creates a {@code Spliterator} covering the elements of the given
+     * collection.  For an {@link ArrayList}, an {@link ArrayDeque}, or a
+     * list returned by {@link Arrays#asList Arrays.asList}, the result
+     * splits the backing array in place, as does the collection's own
+     * {@code spliterator()} method.  For any other collection, the
+     * elements are first copied using {@link Collection#toArray()}; for
+     * the views of {@link HashMap} and {@link TreeMap}, use the maps'
+     * own key, value and entry spliterators instead.
+     *
+     * @param <T> Type of elements
+     * @param c The collection
+     * @return A spliterator for the collection
+     * @throws NullPointerException if the given collection is {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Spliterator<T> spliterator(Collection<? extends T> c) {
+        if (c instanceof ArrayList)
+            return ((ArrayList<T>)c).spliterator();
+        if (c instanceof ArrayDeque)
+            return ((ArrayDeque<T>)c).spliterator();
+        if (c instanceof Arrays.ArrayList)
+            return ((Arrays.ArrayList<T>)c).spliterator();
+        Object[] a = c.toArray();
+        return new ArraySpliterator<T>(a, 0, a.length,
+                                       (c instanceof List) ?
+                                       Spliterator.ORDERED : 0);
+    }
+
+    /**
+     * Validate inclusive start index and exclusive end index against the
+     * length of an array.
+     * @param arrayLength The length of the array
+     * @param origin The inclusive start index
+     * @param fence The exclusive end index
+     * @throws ArrayIndexOutOfBoundsException if the start index is greater than
+     * the end index, if the start index is negative, or the end index is
+     * greater than the array length
+     */
+    private static void checkFromToBounds(int arrayLength, int origin, int fence) {
+        if (origin > fence) {
+            throw new ArrayIndexOutOfBoundsException(
+                    "origin(" + origin + ") > fence(" + fence + ")");
+        }
+        if (origin < 0) {
+            throw new ArrayIndexOutOfBoundsException(origin);
+        }
+        if (fence > arrayLength) {
+            throw new ArrayIndexOutOfBoundsException(fence);
+        }
+    }
+
+    /**
+     * A Spliterator designed for use by sources that traverse and split
+     * elements maintained in an unmodifiable {@code Object[]} array.
+     */
+    static final class ArraySpliterator<T> implements Spliterator<T> {
+        /**
+         * The array, explicitly typed as Object[]. Unlike in some other
+         * classes (see for example CR 6260652), we do not need to
+         * screen arguments to ensure they are exactly of type Object[]
+         * so long as no methods write into the array or serialize it,
+         * which we ensure here by defining this class as final.
+         */
+        private final Object[] array;
+        private int index;        // current index, modified on advance/split
+        private final int fence;  // one past last index
+        private final int characteristics;
+
+        /**
+         * Creates a spliterator covering the given array and range
+         * @param array the array, assumed to be unmodified during use
+         * @param origin the least index (inclusive) to cover
+         * @param fence one past the greatest index to cover
+         * @param additionalCharacteristics Additional spliterator characteristics
+         * of this spliterator's source or elements beyond {@code SIZED} and
+         * {@code SUBSIZED} which are are always reported
+         */
+        ArraySpliterator(Object[] array, int origin, int fence,
+                         int additionalCharacteristics) {
+            this.array = array;
+            this.index = origin;
+            this.fence = fence;
+            this.characteristics = additionalCharacteristics |
+                Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        public Spliterator<T> trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            return (lo >= mid)
+                   ? null
+                   : new ArraySpliterator<T>(array, lo, index = mid,
+                                             characteristics);
+        }
+
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super T> action) {
+            Object[] a; int i, hi; // hoist accesses and checks from loop
+            if (action == null)
+                throw new NullPointerException();
+            if ((a = array).length >= (hi = fence) &&
+                (i = index) >= 0 && i < (index = hi)) {
+                do { action.accept((T)a[i]); } while (++i < hi);
+            }
+        }
+
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (action == null)
+                throw new NullPointerException();
+            if (index >= 0 && index < fence) {
+                @SuppressWarnings("unchecked") T e = (T) array[index++];
+                action.accept(e);
+                return true;
+            }
+            return false;
+        }
+
+        public long estimateSize() { return (long)(fence - index); }
+
+        public int characteristics() {
+            return characteristics;
+        }
+
+        public Comparator<? super T> getComparator() {
+            if ((characteristics & Spliterator.SORTED) != 0)
+                return null;
+            throw new IllegalStateException();
+        }
+    }
+}
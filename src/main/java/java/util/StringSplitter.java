@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+/**
+ * Splits strings around a fixed, literal delimiter, without regular
+ * expressions and, where possible, without allocation.  A splitter
+ * is created for a single {@code char} or a non-empty {@code String}
+ * delimiter with one of the {@code on} methods, and is immutable and
+ * safe for use by multiple threads.
+ *
+ * <p>Every occurrence of the delimiter in a string separates two
+ * tokens, so that a string containing <i>n</i> delimiters has
+ * <i>n</i>+1 tokens, any of which may be empty.  Unlike {@link
+ * String#split(String)}, trailing empty tokens are not removed.
+ * Occurrences of a delimiter are found from left to right and do not
+ * overlap.
+ *
+ * <p>Tokens can be obtained as
+ * <ul>
+ * <li>a new array, by {@link #split(String)},
+ * <li>strings stored into a caller's array, by {@link
+ * #split(String, String[])},
+ * <li>start and end indices stored into a caller's array, by {@link
+ * #tokenBounds(String, int[])}, or
+ * <li>calls to a {@link TokenHandler} with the start and end
+ * indices of each token, by {@link #split(String, TokenHandler)}.
+ * </ul>
+ * The last two create no strings, letting a parsing loop examine the
+ * tokens in place, for example with {@link String#regionMatches(int,
+ * String, int, int)}.  {@link #countTokens(String)} returns the number
+ * of tokens, for sizing arrays.
+ *
+ * <p>For example, for a splitter on {@code ','}, the string
+ * {@code "a,,b,"} has the four tokens {@code "a"}, {@code ""},
+ * {@code "b"} and {@code ""}.
+ *
+ * @see     java.lang.String#split(String)
+ * @see     java.util.StringTokenizer
+ * @since   1.7
+ */
+public final class StringSplitter {
+
+    /**
+     * Receives the tokens of a string from {@link
+     * StringSplitter#split(String, TokenHandler)}.
+     *
+     * @since 1.7
+     */
+    public interface TokenHandler {
+        /**
+         * Handles the token of {@code s} from index {@code start},
+         * inclusive, to {@code end}, exclusive.
+         *
+         * @param s the string being split
+         * @param start the index of the first char of the token
+         * @param end the index after the last char of the token
+         * @return {@code true} to continue with the next token, or
+         *         {@code false} to stop splitting
+         */
+        boolean token(String s, int start, int end);
+    }
+
+    /** The delimiter, of length at least one. */
+    private final String delimiter;
+
+    /** The delimiter char, if the delimiter has length one. */
+    private final char delimiterChar;
+
+    private StringSplitter(String delimiter) {
+        this.delimiter = delimiter;
+        this.delimiterChar = delimiter.charAt(0);
+    }
+
+    /**
+     * Returns a splitter on the given char.
+     *
+     * @param delimiter the delimiter
+     * @return a splitter on {@code delimiter}
+     */
+    public static StringSplitter on(char delimiter) {
+        return new StringSplitter(String.valueOf(delimiter));
+    }
+
+    /**
+     * Returns a splitter on the given string, which is matched
+     * literally.
+     *
+     * @param delimiter the delimiter
+     * @return a splitter on {@code delimiter}
+     * @throws NullPointerException if {@code delimiter} is null
+     * @throws IllegalArgumentException if {@code delimiter} is empty
+     */
+    public static StringSplitter on(String delimiter) {
+        if (delimiter.isEmpty())
+            throw new IllegalArgumentException("Empty delimiter");
+        return new StringSplitter(delimiter);
+    }
+
+    /**
+     * Returns the delimiter of this splitter.
+     *
+     * @return the delimiter
+     */
+    public String delimiter() {
+        return delimiter;
+    }
+
+    /**
+     * Returns the index of the next delimiter at or after from, or -1.
+     */
+    private int next(String s, int from) {
+        return (delimiter.length() == 1) ? s.indexOf(delimiterChar, from)
+                                         : s.indexOf(delimiter, from);
+    }
+
+    /**
+     * Returns the number of tokens of the given string: one more than
+     * the number of occurrences of the delimiter.
+     *
+     * @param s the string
+     * @return the number of tokens of {@code s}
+     * @throws NullPointerException if {@code s} is null
+     */
+    public int countTokens(String s) {
+        int dlen = delimiter.length();
+        int count = 1;
+        for (int i = next(s, 0); i >= 0; i = next(s, i + dlen))
+            count++;
+        return count;
+    }
+
+    /**
+     * Returns the tokens of the given string, in a new array of
+     * length {@link #countTokens(String) countTokens(s)}.
+     *
+     * @param s the string
+     * @return the tokens of {@code s}
+     * @throws NullPointerException if {@code s} is null
+     */
+    public String[] split(String s) {
+        String[] tokens = new String[countTokens(s)];
+        split(s, tokens);
+        return tokens;
+    }
+
+    /**
+     * Stores the tokens of the given string into the given array,
+     * starting at index 0.  If the string has more tokens than the
+     * array has elements, the last element receives the rest of the
+     * string, delimiters included, as by {@link String#split(String,
+     * int)} with a limit of {@code tokens.length}.  Elements beyond
+     * the last token are not changed.
+     *
+     * @param s the string
+     * @param tokens the array into which the tokens are stored
+     * @return the number of elements stored
+     * @throws NullPointerException if {@code s} or {@code tokens} is
+     *         null
+     */
+    public int split(String s, String[] tokens) {
+        int limit = tokens.length;
+        if (limit == 0)
+            return 0;
+        int dlen = delimiter.length();
+        int n = 0;
+        int off = 0;
+        for (int i; n < limit - 1 && (i = next(s, off)) >= 0; off = i + dlen)
+            tokens[n++] = s.substring(off, i);
+        tokens[n++] = s.substring(off);
+        return n;
+    }
+
+    /**
+     * Stores the start and end indices of the tokens of the given
+     * string into the given array, as the pairs of elements
+     * {@code bounds[2*k]}, the index of the first char of token
+     * {@code k}, and {@code bounds[2*k+1]}, the index after its last
+     * char.  If the string has more than {@code bounds.length / 2}
+     * tokens, the last pair stored bounds the rest of the string,
+     * delimiters included.  Elements beyond the last pair are not
+     * changed.
+     *
+     * @param s the string
+     * @param bounds the array into which the bounds are stored
+     * @return the number of pairs stored
+     * @throws NullPointerException if {@code s} or {@code bounds} is
+     *         null
+     */
+    public int tokenBounds(String s, int[] bounds) {
+        int limit = bounds.length >>> 1;
+        if (limit == 0)
+            return 0;
+        int dlen = delimiter.length();
+        int n = 0;
+        int off = 0;
+        for (int i; n < limit - 1 && (i = next(s, off)) >= 0; off = i + dlen) {
+            bounds[n << 1] = off;
+            bounds[(n++ << 1) + 1] = i;
+        }
+        bounds[n << 1] = off;
+        bounds[(n++ << 1) + 1] = s.length();
+        return n;
+    }
+
+    /**
+     * Passes the start and end indices of each token of the given
+     * string, in order, to the given handler, until the handler
+     * returns {@code false} or there are no more tokens.
+     *
+     * @param s the string
+     * @param handler the handler of the tokens
+     * @return the number of tokens passed to the handler
+     * @throws NullPointerException if {@code s} or {@code handler} is
+     *         null
+     */
+    public int split(String s, TokenHandler handler) {
+        int dlen = delimiter.length();
+        int n = 0;
+        int off = 0;
+        for (int i; (i = next(s, off)) >= 0; off = i + dlen) {
+            n++;
+            if (!handler.token(s, off, i))
+                return n;
+        }
+        handler.token(s, off, s.length());
+        return n + 1;
+    }
+
+    /**
+     * Returns a string identifying this splitter and its delimiter.
+     *
+     * @return a string identifying this splitter and its delimiter
+     */
+    public String toString() {
+        return "StringSplitter[\"" + delimiter + "\"]";
+    }
+}
@@ -136,10 +136,17 @@ class StringTokenizer implements Enumeration<Object> {
      */
     private int[] delimiterCodePoints;
 
+    /**
+     * A bit set of the delimiters below 256, so that most chars can be
+     * classified without searching the delimiter string.
+     */
+    private final long[] latin1Delimiters = new long[4];
+
     /**
      * Set maxDelimCodePoint to the highest char in the delimiter set.
      */
     private void setMaxDelimCodePoint() {
+        Arrays.fill(latin1Delimiters, 0L);
         if (delimiters == null) {
             maxDelimCodePoint = 0;
             return;
@@ -154,6 +161,8 @@ class StringTokenizer implements Enumeration<Object> {
                 c = delimiters.codePointAt(i);
                 hasSurrogates = true;
             }
+            if (c < 256)
+                latin1Delimiters[c >> 6] |= 1L << c;
             if (m < c)
                 m = c;
             count++;
@@ -249,7 +258,7 @@ class StringTokenizer implements Enumeration<Object> {
         while (!retDelims && position < maxPosition) {
             if (!hasSurrogates) {
                 char c = str.charAt(position);
-                if ((c > maxDelimCodePoint) || (delimiters.indexOf(c) < 0))
+                if (!isDelimiter(c))
                     break;
                 position++;
             } else {
@@ -272,7 +281,7 @@ class StringTokenizer implements Enumeration<Object> {
         while (position < maxPosition) {
             if (!hasSurrogates) {
                 char c = str.charAt(position);
-                if ((c <= maxDelimCodePoint) && (delimiters.indexOf(c) >= 0))
+                if (isDelimiter(c))
                     break;
                 position++;
             } else {
@@ -285,7 +294,7 @@ class StringTokenizer implements Enumeration<Object> {
         if (retDelims && (startPos == position)) {
             if (!hasSurrogates) {
                 char c = str.charAt(position);
-                if ((c <= maxDelimCodePoint) && (delimiters.indexOf(c) >= 0))
+                if (isDelimiter(c))
                     position++;
             } else {
                 int c = str.codePointAt(position);
@@ -296,6 +305,17 @@ class StringTokenizer implements Enumeration<Object> {
         return position;
     }
 
+    /**
+     * Returns true if c is a delimiter, when hasSurrogates is false.
+     */
+    private boolean isDelimiter(char c) {
+        if (c > maxDelimCodePoint)
+            return false;
+        if (c < 256)
+            return (latin1Delimiters[c >> 6] & (1L << c)) != 0;
+        return delimiters.indexOf(c) >= 0;
+    }
+
     private boolean isDelimiter(int codePoint) {
         for (int i = 0; i < delimiterCodePoints.length; i++) {
             if (delimiterCodePoints[i] == codePoint) {
@@ -24,8 +24,14 @@
  */
 
 package java.util;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * A facility for threads to schedule tasks for future execution in a
@@ -73,10 +79,22 @@ import java.util.concurrent.atomic.AtomicInteger;
  * ScheduledThreadPoolExecutor} with one thread makes it equivalent to
  * {@code Timer}.
  *
+ * <p>A timer may instead be created with a pool of worker threads, by
+ * {@link #Timer(String, boolean, int)}.  Its background thread then only
+ * waits for tasks to become due, and hands each one to a worker thread, so
+ * that a slow task delays only itself.  Tasks may then run concurrently
+ * with each other, but each execution of a repeating task starts only
+ * after the previous one has completed, and so may "bunch up" in the same
+ * way if an execution takes longer than the period.
+ *
  * <p>Implementation note: This class scales to large numbers of concurrently
  * scheduled tasks (thousands should present no problem).  Internally,
  * it uses a binary heap to represent its task queue, so the cost to schedule
  * a task is O(log n), where n is the number of concurrently scheduled tasks.
+ * A timer with a worker pool instead uses a concurrent skip list, so that
+ * scheduling, also in O(log n) time, neither locks the queue nor waits
+ * for the background thread, and cancelled tasks are removed from the
+ * queue lazily, a few at a time, by the background thread.
  *
  * <p>Implementation note: All constructors start a timer thread.
  *
@@ -93,12 +111,18 @@ public class Timer {
      * and the timer thread consumes, executing timer tasks as appropriate,
      * and removing them from the queue when they're obsolete.
      */
-    private final TaskQueue queue = new TaskQueue();
+    private final TaskQueue queue;
 
     /**
      * The timer thread.
      */
-    private final TimerThread thread = new TimerThread(queue);
+    private final TimerThread thread;
+
+    /**
+     * The timer thread of a timer with a worker pool, which then has
+     * no queue or thread, or null.
+     */
+    private final PooledTimerThread pooled;
 
     /**
      * This object causes the timer's task execution thread to exit
@@ -109,6 +133,10 @@ public class Timer {
      */
     private final Object threadReaper = new Object() {
         protected void finalize() throws Throwable {
+            if (pooled != null) {
+                pooled.reap();
+                return;
+            }
             synchronized(queue) {
                 thread.newTasksMayBeScheduled = false;
                 queue.notify(); // In case queue is empty.
@@ -156,6 +184,9 @@ public class Timer {
      * @since 1.5
      */
     public Timer(String name) {
+        queue = new TaskQueue();
+        thread = new TimerThread(queue);
+        pooled = null;
         thread.setName(name);
         thread.start();
     }
@@ -171,11 +202,44 @@ public class Timer {
      * @since 1.5
      */
     public Timer(String name, boolean isDaemon) {
+        queue = new TaskQueue();
+        thread = new TimerThread(queue);
+        pooled = null;
         thread.setName(name);
         thread.setDaemon(isDaemon);
         thread.start();
     }
 
+    /**
+     * Creates a new timer whose associated thread has the specified name,
+     * and may be specified to
+     * {@linkplain Thread#setDaemon run as a daemon}, and which executes
+     * its tasks in a pool of the given number of worker threads rather
+     * than in the associated thread.  The worker threads are named after
+     * the associated thread, and are daemon threads if it is.  They are
+     * started as tasks become due, and terminate after the associated
+     * thread.
+     *
+     * @param name the name of the associated thread
+     * @param isDaemon true if the associated thread should run as a daemon
+     * @param poolSize the number of worker threads
+     * @throws NullPointerException if {@code name} is null
+     * @throws IllegalArgumentException if {@code poolSize <= 0}
+     * @since 1.7
+     */
+    public Timer(String name, boolean isDaemon, int poolSize) {
+        if (name == null)
+            throw new NullPointerException();
+        if (poolSize <= 0)
+            throw new IllegalArgumentException("Non-positive pool size.");
+        queue = null;
+        thread = null;
+        pooled = new PooledTimerThread(name, isDaemon, poolSize);
+        pooled.setName(name);
+        pooled.setDaemon(isDaemon);
+        pooled.start();
+    }
+
     /**
      * Schedules the specified task for execution after the specified delay.
      *
@@ -392,6 +456,10 @@ public class Timer {
         if (Math.abs(period) > (Long.MAX_VALUE >> 1))
             period >>= 1;
 
+        if (pooled != null) {
+            pooled.sched(task, time, period);
+            return;
+        }
         synchronized(queue) {
             if (!thread.newTasksMayBeScheduled)
                 throw new IllegalStateException("Timer already cancelled.");
@@ -420,12 +488,18 @@ public class Timer {
      * <p>Note that calling this method from within the run method of a
      * timer task that was invoked by this timer absolutely guarantees that
      * the ongoing task execution is the last task execution that will ever
-     * be performed by this timer.
+     * be performed by this timer.  For a timer with a worker pool, it
+     * guarantees that no further task execution will start, while task
+     * executions already in progress in other worker threads complete.
      *
      * <p>This method may be called repeatedly; the second and subsequent
      * calls have no effect.
      */
     public void cancel() {
+        if (pooled != null) {
+            pooled.cancel();
+            return;
+        }
         synchronized(queue) {
             thread.newTasksMayBeScheduled = false;
             queue.clear();
@@ -450,10 +524,18 @@ public class Timer {
      * <p>Note that it is permissible to call this method from within a
      * a task scheduled on this timer.
      *
+     * <p>A timer with a worker pool removes cancelled tasks by itself, a
+     * few at a time, so calling this method merely hastens their removal,
+     * which then takes time proportional to n + c log n without delaying
+     * the scheduling or execution of other tasks.
+     *
      * @return the number of tasks removed from the queue.
      * @since 1.5
      */
      public int purge() {
+         if (pooled != null)
+             return pooled.purge();
+
          int result = 0;
 
          synchronized(queue) {
@@ -559,6 +641,322 @@ class TimerThread extends Thread {
     }
 }
 
+/**
+ * The background thread of a timer with a worker pool.  It waits for the
+ * first task in its queue to become due, and hands it to a worker thread.
+ * The queue is a concurrent skip list of entries that pair a task with its
+ * execution time, so that schedule calls add to it without locking it or
+ * waking this thread, unless the new task is due before the time this
+ * thread is waiting for.  Cancelled tasks are removed when they reach the
+ * head of the queue, and otherwise a batch at a time, continuing from
+ * where the last batch stopped, whenever this thread is about to wait.
+ *
+ * <p>As in TimerThread, a repeating task's next execution time is computed
+ * when it fires, but its entry is queued again only after the execution
+ * completes, so that executions of one task never overlap.  Until then
+ * the task counts as in flight, which keeps this thread alive after the
+ * timer is reaped, just as the task would stay in a TimerThread's queue.
+ */
+class PooledTimerThread extends Thread {
+    /**
+     * This flag is set to false by the reaper to inform us that there are
+     * no more live references to our Timer object, and by cancel.  Once
+     * this flag is false and there are no tasks in the queue or in
+     * flight, this thread exits.
+     */
+    volatile boolean newTasksMayBeScheduled = true;
+
+    /**
+     * Set by cancel, after which no task handed to the workers starts.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * The scheduled tasks, in order of execution time.
+     */
+    private final ConcurrentSkipListSet<Entry> queue =
+        new ConcurrentSkipListSet<Entry>();
+
+    /**
+     * The number of repeating tasks handed to the workers and not yet
+     * queued again.
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * The execution time of the first task while this thread waits for
+     * it, Long.MAX_VALUE while it waits for a task, and Long.MIN_VALUE
+     * while it is awake.  A thread queuing an earlier task unparks it.
+     */
+    private volatile long wakeTime = Long.MIN_VALUE;
+
+    /**
+     * The entry after which the next batch of cancelled tasks is
+     * removed, or null to start from the head.  Used only by this
+     * thread.
+     */
+    private Entry purgeCursor;
+
+    /** The number of entries examined for cancellation at a time */
+    private static final int PURGE_BATCH = 64;
+
+    /** The pool running the tasks */
+    private final ThreadPoolExecutor workers;
+
+    /** Breaks ties between entries with equal times, FIFO */
+    private final AtomicLong sequencer = new AtomicLong();
+
+    /** An entry ordered before all others */
+    private static final Entry FIRST =
+        new Entry(Long.MIN_VALUE, Long.MIN_VALUE, null);
+
+    /**
+     * A task queued for the execution time it had when queued.
+     */
+    static final class Entry implements Comparable<Entry> {
+        final long time;
+        final long seq;
+        final java.util.TimerTask task;
+
+        Entry(long time, long seq, java.util.TimerTask task) {
+            this.time = time;
+            this.seq = seq;
+            this.task = task;
+        }
+
+        public int compareTo(Entry other) {
+            if (time != other.time)
+                return time < other.time ? -1 : 1;
+            return seq < other.seq ? -1 : (seq == other.seq ? 0 : 1);
+        }
+    }
+
+    PooledTimerThread(final String name, final boolean isDaemon,
+                      int poolSize) {
+        ThreadFactory factory = new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger(0);
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, name + "-worker-" +
+                                      count.incrementAndGet());
+                t.setDaemon(isDaemon);
+                return t;
+            }
+        };
+        workers = new ThreadPoolExecutor(poolSize, poolSize,
+                                         0L, TimeUnit.MILLISECONDS,
+                                         factory,
+                                         new ThreadPoolExecutor.AbortPolicy(),
+                                         true);
+    }
+
+    /**
+     * Schedules the task for execution at the given time, as for
+     * Timer.sched.
+     */
+    void sched(java.util.TimerTask task, long time, long period) {
+        if (!newTasksMayBeScheduled)
+            throw new IllegalStateException("Timer already cancelled.");
+
+        synchronized(task.lock) {
+            if (task.state != java.util.TimerTask.VIRGIN)
+                throw new IllegalStateException(
+                    "Task already scheduled or cancelled");
+            task.nextExecutionTime = time;
+            task.period = period;
+            task.state = java.util.TimerTask.SCHEDULED;
+        }
+
+        Entry e = new Entry(time, sequencer.getAndIncrement(), task);
+        queue.add(e);
+        // recheck, as cancel clears the queue after clearing the flag
+        if (!newTasksMayBeScheduled && queue.remove(e)) {
+            // Leave the task as if never scheduled, so it can be reused
+            synchronized(task.lock) {
+                if (task.state == java.util.TimerTask.SCHEDULED)
+                    task.state = java.util.TimerTask.VIRGIN;
+            }
+            throw new IllegalStateException("Timer already cancelled.");
+        }
+        if (time < wakeTime)
+            LockSupport.unpark(this);
+    }
+
+    /**
+     * Queues a repeating task again after an execution, unless it or
+     * the timer has been cancelled meanwhile.
+     */
+    private void reschedule(java.util.TimerTask task) {
+        long time;
+        synchronized(task.lock) {
+            if (task.state != java.util.TimerTask.SCHEDULED)
+                return;
+            time = task.nextExecutionTime;
+        }
+        if (cancelled)
+            return;
+        Entry e = new Entry(time, sequencer.getAndIncrement(), task);
+        queue.add(e);
+        if (cancelled)
+            queue.remove(e);
+        else if (time < wakeTime)
+            LockSupport.unpark(this);
+    }
+
+    void cancel() {
+        cancelled = true;
+        newTasksMayBeScheduled = false;
+        queue.clear();
+        LockSupport.unpark(this);
+    }
+
+    void reap() {
+        newTasksMayBeScheduled = false;
+        LockSupport.unpark(this);
+    }
+
+    int purge() {
+        int result = 0;
+        for (Entry e : queue) {
+            if (e.task.state == java.util.TimerTask.CANCELLED &&
+                queue.remove(e))
+                result++;
+        }
+        return result;
+    }
+
+    public void run() {
+        boolean exited = false;
+        try {
+            mainLoop();
+            exited = true;
+        } finally {
+            // Someone killed this Thread, behave as if Timer cancelled
+            if (!exited)
+                cancel();
+            newTasksMayBeScheduled = false;
+            queue.clear();  // Eliminate obsolete references
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * The main timer loop.  (See class comment.)
+     */
+    private void mainLoop() {
+        while (!cancelled) {
+            Entry e = queue.ceiling(FIRST);
+            if (e == null) {
+                // read inFlight before the queue, as reschedule
+                // writes them in the other order
+                if (!newTasksMayBeScheduled && inFlight.get() == 0 &&
+                    queue.isEmpty())
+                    break; // Queue is empty and will forever remain; die
+                await(null, 0L);
+                continue;
+            }
+            java.util.TimerTask task = e.task;
+            long currentTime;
+            boolean taskFired, repeating;
+            synchronized(task.lock) {
+                if (task.state == java.util.TimerTask.CANCELLED) {
+                    queue.remove(e);
+                    continue;  // No action required, poll queue again
+                }
+                currentTime = System.currentTimeMillis();
+                if (taskFired = (e.time <= currentTime)) {
+                    if (!queue.remove(e))
+                        continue;  // Removed by cancel
+                    repeating = task.period != 0;
+                    if (!repeating) {
+                        task.state = java.util.TimerTask.EXECUTED;
+                    } else {
+                        task.nextExecutionTime =
+                            task.period<0 ? currentTime - task.period
+                                          : e.time      + task.period;
+                    }
+                } else {
+                    repeating = false;
+                }
+            }
+            if (taskFired) {
+                if (repeating)
+                    inFlight.incrementAndGet();
+                workers.execute(new Execution(task, repeating));
+            } else {
+                await(e, currentTime);
+            }
+        }
+    }
+
+    /**
+     * Waits until the given first entry is due, or if null until a
+     * task is queued, unless the first entry changes meanwhile.  Also
+     * removes a batch of cancelled tasks.
+     */
+    private void await(Entry first, long currentTime) {
+        purgeSome();
+        wakeTime = (first == null) ? Long.MAX_VALUE : first.time;
+        if (queue.ceiling(FIRST) == first && !cancelled) {
+            if (first == null)
+                LockSupport.park(this);
+            else
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(
+                                          first.time - currentTime));
+        }
+        wakeTime = Long.MIN_VALUE;
+        Thread.interrupted(); // As TimerThread ignores interrupts
+    }
+
+    /**
+     * Removes the cancelled tasks among the next PURGE_BATCH entries.
+     */
+    private void purgeSome() {
+        Entry cursor = purgeCursor;
+        Iterator<Entry> it = (cursor == null ? queue :
+                              queue.tailSet(cursor, false)).iterator();
+        Entry last = null;
+        for (int n = PURGE_BATCH; n > 0 && it.hasNext(); --n) {
+            last = it.next();
+            if (last.task.state == java.util.TimerTask.CANCELLED)
+                queue.remove(last);
+        }
+        // Keep only the position, not the task
+        purgeCursor = (last != null && it.hasNext()) ?
+            new Entry(last.time, last.seq, null) : null;
+    }
+
+    /**
+     * An execution of a task by a worker thread.
+     */
+    private final class Execution implements Runnable {
+        private final java.util.TimerTask task;
+        private final boolean repeating;
+
+        Execution(java.util.TimerTask task, boolean repeating) {
+            this.task = task;
+            this.repeating = repeating;
+        }
+
+        public void run() {
+            boolean completed = false;
+            try {
+                if (!cancelled)
+                    task.run();
+                completed = true;
+            } finally {
+                // A task that throws kills the timer, as in TimerThread
+                if (!completed)
+                    cancel();
+                else if (repeating)
+                    reschedule(task);
+                // The timer thread may be waiting for this to exit
+                if (repeating && inFlight.decrementAndGet() == 0)
+                    LockSupport.unpark(PooledTimerThread.this);
+            }
+        }
+    }
+}
+
 /**
  * This class represents a timer task queue: a priority queue of TimerTasks,
  * ordered on nextExecutionTime.  Each Timer object has one of these, which it
@@ -2439,4 +2439,360 @@ public class TreeMap<K,V>
             level++;
         return level;
     }
+
+    // Spliterators
+
+    /**
+     * Creates a <em><a href="Spliterator.html#binding">late-binding</a></em>
+     * and <em>fail-fast</em> {@link java.util.Spliterator} over the keys
+     * in this map, in ascending key order.  The spliterator splits the
+     * tree at its nodes, so the keys can be traversed in parallel
+     * without copying.
+     *
+     * <p>The {@code Spliterator} reports {@link java.util.Spliterator#SORTED},
+     * {@link java.util.Spliterator#ORDERED}, {@link java.util.Spliterator#DISTINCT}
+     * and, until split, {@link java.util.Spliterator#SIZED}.  Its comparator
+     * is the {@linkplain #comparator comparator} of this map.
+     *
+     * @return a {@code Spliterator} over the keys in this map
+     * @since 1.7
+     */
+    public java.util.Spliterator<K> keySpliterator() {
+        return new KeySpliterator<K,V>(this, null, null, 0, -1, 0);
+    }
+
+    /**
+     * Creates a <em><a href="Spliterator.html#binding">late-binding</a></em>
+     * and <em>fail-fast</em> {@link java.util.Spliterator} over the values
+     * in this map, in ascending order of the corresponding keys.
+     *
+     * <p>The {@code Spliterator} reports {@link java.util.Spliterator#ORDERED}
+     * and, until split, {@link java.util.Spliterator#SIZED}.
+     *
+     * @return a {@code Spliterator} over the values in this map
+     * @since 1.7
+     */
+    public java.util.Spliterator<V> valueSpliterator() {
+        return new ValueSpliterator<K,V>(this, null, null, 0, -1, 0);
+    }
+
+    /**
+     * Creates a <em><a href="Spliterator.html#binding">late-binding</a></em>
+     * and <em>fail-fast</em> {@link java.util.Spliterator} over the mappings
+     * in this map, in ascending key order.
+     *
+     * <p>The {@code Spliterator} reports {@link java.util.Spliterator#SORTED},
+     * {@link java.util.Spliterator#ORDERED}, {@link java.util.Spliterator#DISTINCT}
+     * and, until split, {@link java.util.Spliterator#SIZED}.  Its comparator
+     * orders entries by key as this map does.
+     *
+     * @return a {@code Spliterator} over the mappings in this map
+     * @since 1.7
+     */
+    public java.util.Spliterator<Map.Entry<K,V>> entrySpliterator() {
+        return new EntrySpliterator<K,V>(this, null, null, 0, -1, 0);
+    }
+
+    /**
+     * Base class for spliterators.  Iteration starts at a given
+     * origin and continues up to but not including a given fence (or
+     * null for end).  At top-level the first split uses the root as
+     * left-fence/right-origin. From there, right-hand splits replace
+     * the current fence with its left child, also serving as origin
+     * for the split-off spliterator.  Because the tree is balanced,
+     * each split roughly halves the remaining nodes, though only the
+     * top-level estimate is exact.  The split mechanics are located
+     * in subclasses; their trySplit methods are identical except for
+     * return types, but not nicely factorable.
+     *
+     * Subclass versions exist only for the full map.  Submaps would
+     * require O(n) computations to determine size, which
+     * substantially limits potential speed-ups of using custom
+     * Spliterators versus plain iteration.
+     *
+     * To bootstrap initialization, external constructors use a
+     * negative size estimate (-1), so that the first entry and the
+     * size are read at first use rather than at construction.
+     */
+    static class TreeMapSpliterator<K,V> {
+        final TreeMap<K,V> tree;
+        TreeMap.Entry<K,V> current; // traverser; initially first node in range
+        TreeMap.Entry<K,V> fence;   // one past last, or null
+        int side;                   // 0: top, -1: is a left split, +1: right
+        int est;                    // size estimate (exact only for top-level)
+        int expectedModCount;       // for CME checks
+
+        TreeMapSpliterator(TreeMap<K,V> tree,
+                           TreeMap.Entry<K,V> origin, TreeMap.Entry<K,V> fence,
+                           int side, int est, int expectedModCount) {
+            this.tree = tree;
+            this.current = origin;
+            this.fence = fence;
+            this.side = side;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+        }
+
+        final int getEstimate() { // force initialization
+            int s; TreeMap<K,V> t;
+            if ((s = est) < 0) {
+                if ((t = tree) != null) {
+                    current = t.getFirstEntry();
+                    s = est = t.size;
+                    expectedModCount = t.modCount;
+                }
+                else
+                    s = est = 0;
+            }
+            return s;
+        }
+
+        public final long estimateSize() {
+            return (long)getEstimate();
+        }
+    }
+
+    static final class KeySpliterator<K,V>
+        extends TreeMapSpliterator<K,V>
+        implements java.util.Spliterator<K> {
+        KeySpliterator(TreeMap<K,V> tree,
+                       TreeMap.Entry<K,V> origin, TreeMap.Entry<K,V> fence,
+                       int side, int est, int expectedModCount) {
+            super(tree, origin, fence, side, est, expectedModCount);
+        }
+
+        public KeySpliterator<K,V> trySplit() {
+            if (est < 0)
+                getEstimate(); // force initialization
+            int d = side;
+            TreeMap.Entry<K,V> e = current, f = fence,
+                s = ((e == null || e == f) ? null :      // empty
+                     (d == 0)              ? tree.root : // was top
+                     (d >  0)              ? e.right :   // was right
+                     (d <  0 && f != null) ? f.left :    // was left
+                     null);
+            if (s != null && s != e && s != f &&
+                tree.compare(e.key, s.key) < 0) {        // e not already past s
+                side = 1;
+                return new KeySpliterator<K,V>
+                    (tree, e, current = s, -1, est >>>= 1, expectedModCount);
+            }
+            return null;
+        }
+
+        public void forEachRemaining(
+            java.util.function.Consumer<? super K> action) {
+            if (action == null)
+                throw new NullPointerException();
+            if (est < 0)
+                getEstimate(); // force initialization
+            TreeMap.Entry<K,V> f = fence, e, p, pl;
+            if ((e = current) != null && e != f) {
+                current = f; // exhaust
+                do {
+                    action.accept(e.key);
+                    if ((p = e.right) != null) {
+                        while ((pl = p.left) != null)
+                            p = pl;
+                    }
+                    else {
+                        while ((p = e.parent) != null && e == p.right)
+                            e = p;
+                    }
+                } while ((e = p) != null && e != f);
+                if (tree.modCount != expectedModCount)
+                    throw new java.util.ConcurrentModificationException();
+            }
+        }
+
+        public boolean tryAdvance(
+            java.util.function.Consumer<? super K> action) {
+            TreeMap.Entry<K,V> e;
+            if (action == null)
+                throw new NullPointerException();
+            if (est < 0)
+                getEstimate(); // force initialization
+            if ((e = current) == null || e == fence)
+                return false;
+            current = successor(e);
+            action.accept(e.key);
+            if (tree.modCount != expectedModCount)
+                throw new java.util.ConcurrentModificationException();
+            return true;
+        }
+
+        public int characteristics() {
+            return (side == 0 ? java.util.Spliterator.SIZED : 0) |
+                java.util.Spliterator.DISTINCT | java.util.Spliterator.SORTED |
+                java.util.Spliterator.ORDERED;
+        }
+
+        public java.util.Comparator<? super K> getComparator() {
+            return tree.comparator;
+        }
+    }
+
+    static final class ValueSpliterator<K,V>
+        extends TreeMapSpliterator<K,V>
+        implements java.util.Spliterator<V> {
+        ValueSpliterator(TreeMap<K,V> tree,
+                         TreeMap.Entry<K,V> origin, TreeMap.Entry<K,V> fence,
+                         int side, int est, int expectedModCount) {
+            super(tree, origin, fence, side, est, expectedModCount);
+        }
+
+        public ValueSpliterator<K,V> trySplit() {
+            if (est < 0)
+                getEstimate(); // force initialization
+            int d = side;
+            TreeMap.Entry<K,V> e = current, f = fence,
+                s = ((e == null || e == f) ? null :      // empty
+                     (d == 0)              ? tree.root : // was top
+                     (d >  0)              ? e.right :   // was right
+                     (d <  0 && f != null) ? f.left :    // was left
+                     null);
+            if (s != null && s != e && s != f &&
+                tree.compare(e.key, s.key) < 0) {        // e not already past s
+                side = 1;
+                return new ValueSpliterator<K,V>
+                    (tree, e, current = s, -1, est >>>= 1, expectedModCount);
+            }
+            return null;
+        }
+
+        public void forEachRemaining(
+            java.util.function.Consumer<? super V> action) {
+            if (action == null)
+                throw new NullPointerException();
+            if (est < 0)
+                getEstimate(); // force initialization
+            TreeMap.Entry<K,V> f = fence, e, p, pl;
+            if ((e = current) != null && e != f) {
+                current = f; // exhaust
+                do {
+                    action.accept(e.value);
+                    if ((p = e.right) != null) {
+                        while ((pl = p.left) != null)
+                            p = pl;
+                    }
+                    else {
+                        while ((p = e.parent) != null && e == p.right)
+                            e = p;
+                    }
+                } while ((e = p) != null && e != f);
+                if (tree.modCount != expectedModCount)
+                    throw new java.util.ConcurrentModificationException();
+            }
+        }
+
+        public boolean tryAdvance(
+            java.util.function.Consumer<? super V> action) {
+            TreeMap.Entry<K,V> e;
+            if (action == null)
+                throw new NullPointerException();
+            if (est < 0)
+                getEstimate(); // force initialization
+            if ((e = current) == null || e == fence)
+                return false;
+            current = successor(e);
+            action.accept(e.value);
+            if (tree.modCount != expectedModCount)
+                throw new java.util.ConcurrentModificationException();
+            return true;
+        }
+
+        public int characteristics() {
+            return (side == 0 ? java.util.Spliterator.SIZED : 0) |
+                java.util.Spliterator.ORDERED;
+        }
+
+        public java.util.Comparator<? super V> getComparator() {
+            throw new IllegalStateException();
+        }
+    }
+
+    static final class EntrySpliterator<K,V>
+        extends TreeMapSpliterator<K,V>
+        implements java.util.Spliterator<Map.Entry<K,V>> {
+        EntrySpliterator(TreeMap<K,V> tree,
+                         TreeMap.Entry<K,V> origin, TreeMap.Entry<K,V> fence,
+                         int side, int est, int expectedModCount) {
+            super(tree, origin, fence, side, est, expectedModCount);
+        }
+
+        public EntrySpliterator<K,V> trySplit() {
+            if (est < 0)
+                getEstimate(); // force initialization
+            int d = side;
+            TreeMap.Entry<K,V> e = current, f = fence,
+                s = ((e == null || e == f) ? null :      // empty
+                     (d == 0)              ? tree.root : // was top
+                     (d >  0)              ? e.right :   // was right
+                     (d <  0 && f != null) ? f.left :    // was left
+                     null);
+            if (s != null && s != e && s != f &&
+                tree.compare(e.key, s.key) < 0) {        // e not already past s
+                side = 1;
+                return new EntrySpliterator<K,V>
+                    (tree, e, current = s, -1, est >>>= 1, expectedModCount);
+            }
+            return null;
+        }
+
+        public void forEachRemaining(
+            java.util.function.Consumer<? super Map.Entry<K,V>> action) {
+            if (action == null)
+                throw new NullPointerException();
+            if (est < 0)
+                getEstimate(); // force initialization
+            TreeMap.Entry<K,V> f = fence, e, p, pl;
+            if ((e = current) != null && e != f) {
+                current = f; // exhaust
+                do {
+                    action.accept(e);
+                    if ((p = e.right) != null) {
+                        while ((pl = p.left) != null)
+                            p = pl;
+                    }
+                    else {
+                        while ((p = e.parent) != null && e == p.right)
+                            e = p;
+                    }
+                } while ((e = p) != null && e != f);
+                if (tree.modCount != expectedModCount)
+                    throw new java.util.ConcurrentModificationException();
+            }
+        }
+
+        public boolean tryAdvance(
+            java.util.function.Consumer<? super Map.Entry<K,V>> action) {
+            TreeMap.Entry<K,V> e;
+            if (action == null)
+                throw new NullPointerException();
+            if (est < 0)
+                getEstimate(); // force initialization
+            if ((e = current) == null || e == fence)
+                return false;
+            current = successor(e);
+            action.accept(e);
+            if (tree.modCount != expectedModCount)
+                throw new java.util.ConcurrentModificationException();
+            return true;
+        }
+
+        public int characteristics() {
+            return (side == 0 ? java.util.Spliterator.SIZED : 0) |
+                java.util.Spliterator.DISTINCT | java.util.Spliterator.SORTED |
+                java.util.Spliterator.ORDERED;
+        }
+
+        public java.util.Comparator<Map.Entry<K,V>> getComparator() {
+            final TreeMap<K,V> t = tree;
+            return new java.util.Comparator<Map.Entry<K,V>>() {
+                public int compare(Map.Entry<K,V> e1, Map.Entry<K,V> e2) {
+                    return t.compare(e1.getKey(), e2.getKey());
+                }
+            };
+        }
+    }
 }
@@ -116,6 +116,52 @@ public class Executors {
                                       threadFactory);
     }
 
+    /**
+     * Creates a thread pool that reuses a fixed number of threads,
+     * each operating off its own unbounded queue.  Submitted tasks are
+     * distributed among the threads' queues in turn, and a thread
+     * whose queue is empty takes tasks from the others, so that tasks
+     * wait only while all threads are active.  Compared with {@link
+     * #newFixedThreadPool(int)}, this reduces contention between
+     * threads for the queue when there are many threads and many
+     * short tasks, but tasks are not executed in submission order
+     * across the pool.  If any thread terminates due to a failure
+     * during execution prior to shutdown, a new one will take its
+     * place if needed to execute subsequent tasks.  The threads in
+     * the pool will exist until it is explicitly {@link
+     * java.util.concurrent.ExecutorService#shutdown shutdown}.
+     *
+     * @param nThreads the number of threads in the pool
+     * @return the newly created thread pool
+     * @throws IllegalArgumentException if {@code nThreads <= 0}
+     * @see java.util.concurrent.ThreadPoolExecutor#execute(Runnable, Object)
+     * @since 1.7
+     */
+    public static java.util.concurrent.ExecutorService newLocalQueueThreadPool(int nThreads) {
+        return newLocalQueueThreadPool(nThreads, defaultThreadFactory());
+    }
+
+    /**
+     * Creates a thread pool that reuses a fixed number of threads,
+     * each operating off its own unbounded queue, using the provided
+     * ThreadFactory to create new threads when needed.  Otherwise
+     * equivalent to {@link #newLocalQueueThreadPool(int)}.
+     *
+     * @param nThreads the number of threads in the pool
+     * @param threadFactory the factory to use when creating new threads
+     * @return the newly created thread pool
+     * @throws NullPointerException if threadFactory is null
+     * @throws IllegalArgumentException if {@code nThreads <= 0}
+     * @since 1.7
+     */
+    public static java.util.concurrent.ExecutorService newLocalQueueThreadPool(int nThreads, java.util.concurrent.ThreadFactory threadFactory) {
+        return new java.util.concurrent.ThreadPoolExecutor(nThreads, nThreads,
+                                      0L, java.util.concurrent.TimeUnit.MILLISECONDS,
+                                      threadFactory,
+                                      new java.util.concurrent.ThreadPoolExecutor.AbortPolicy(),
+                                      true);
+    }
+
     /**
      * Creates an Executor that uses a single worker thread operating
      * off an unbounded queue. (Note however that if this single
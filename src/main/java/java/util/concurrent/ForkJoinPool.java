@@ -62,7 +62,16 @@ import java.util.concurrent.locks.Condition;
  * constructors, {@code ForkJoinPool}s may also be appropriate for use
  * with event-style tasks that are never joined.
  *
- * <p>A {@code ForkJoinPool} is constructed with a given target
+ * <p>A static {@link #commonPool()} is available and appropriate for
+ * most applications. The common pool is used by any ForkJoinTask that
+ * is not explicitly submitted to a specified pool. Using the common
+ * pool normally reduces resource usage (its threads are slowly
+ * reclaimed during periods of non-use, and reinstated upon subsequent
+ * use), and avoids each component of a program creating its own set
+ * of worker threads.
+ *
+ * <p>For applications that require separate or custom pools, a {@code
+ * ForkJoinPool} may be constructed with a given target
  * parallelism level; by default, equal to the number of available
  * processors. The pool attempts to maintain enough active (or
  * available) threads by dynamically adding, suspending, or resuming
@@ -117,20 +126,33 @@ import java.util.concurrent.locks.Condition;
  * used for all parallel task execution in a program or subsystem.
  * Otherwise, use would not usually outweigh the construction and
  * bookkeeping overhead of creating a large set of threads. For
- * example, a common pool could be used for the {@code SortTasks}
+ * example, the common pool could be used for the {@code SortTasks}
  * illustrated in {@link RecursiveAction}. Because {@code
  * ForkJoinPool} uses threads in {@linkplain java.lang.Thread#isDaemon
  * daemon} mode, there is typically no need to explicitly {@link
  * #shutdown} such a pool upon program exit.
  *
  * <pre>
- * static final ForkJoinPool mainPool = new ForkJoinPool();
- * ...
  * public void sort(long[] array) {
- *   mainPool.invoke(new SortTask(array, 0, array.length));
+ *   ForkJoinPool.commonPool().invoke(new SortTask(array, 0, array.length));
  * }
  * </pre>
  *
+ * <p>The parameters used to construct the common pool may be controlled
+ * by setting the following {@linkplain System#getProperty system properties}:
+ * <ul>
+ * <li>{@code java.util.concurrent.ForkJoinPool.common.parallelism}
+ * - the parallelism level, a non-negative integer
+ * <li>{@code java.util.concurrent.ForkJoinPool.common.threadFactory}
+ * - the class name of a {@link ForkJoinWorkerThreadFactory}
+ * <li>{@code java.util.concurrent.ForkJoinPool.common.exceptionHandler}
+ * - the class name of a {@link Thread.UncaughtExceptionHandler}
+ * </ul>
+ * The system class loader is used to load these classes.  Upon any
+ * error in establishing these settings, default parameters are used.
+ * By default the common pool's parallelism is equal to the number of
+ * available processors.
+ *
  * <p><b>Implementation notes</b>: This implementation restricts the
  * maximum number of running threads to 32767. Attempts to create
  * pools with greater than the maximum number result in
@@ -150,7 +172,7 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
      *
      * This class provides the central bookkeeping and control for a
      * set of worker threads: Submissions from non-FJ threads enter
-     * into a submission queue. Workers take these tasks and typically
+     * into submission queues. Workers take these tasks and typically
      * split them into subtasks that may be stolen by other workers.
      * Preference rules give first priority to processing tasks from
      * their own queues (LIFO or FIFO, depending on mode), then to
@@ -257,12 +279,30 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
      * SHRINK_RATE nanosecs. This will slowly propagate, eventually
      * terminating all workers after long periods of non-use.
      *
-     * Submissions. External submissions are maintained in an
-     * array-based queue that is structured identically to
-     * ForkJoinWorkerThread queues except for the use of
-     * submissionLock in method addSubmission. Unlike the case for
-     * worker queues, multiple external threads can add new
-     * submissions, so adding requires a lock.
+     * Submissions. External submissions are maintained in a small
+     * power-of-two sized array of SubmissionQueues, each structured
+     * identically to ForkJoinWorkerThread queues except that,
+     * because multiple external threads may add to the same queue,
+     * pushes are guarded by a per-queue spinlock (field qlock)
+     * rather than being owner-only. Each submitting thread holds a
+     * random seed (class Submitter, kept in ThreadLocal
+     * submitters) that selects its queue. If the queue's lock is
+     * contended, the submitter rehashes its seed with an xorshift
+     * step and tries another one, so threads that collide tend to
+     * spread themselves over different queues rather than
+     * serializing on a single lock. Takes do not require the lock:
+     * workers (and pollSubmission) CAS slots out exactly as they do
+     * when stealing. Workers check submission queues only after
+     * failing to find stealable tasks, starting at a random index.
+     *
+     * Common pool. A static pool (see method commonPool) is
+     * constructed lazily on first use, with parameters that may be
+     * set by system properties. It is intended for use by any
+     * component not needing a dedicated pool, so that a process
+     * does not accumulate a separate set of workers per library.
+     * Its workers are daemon threads that time out when idle, and
+     * it ignores shutdown requests. ForkJoinTask.fork from a thread
+     * that is not a worker submits to it.
      *
      * Compensation. Beyond work-stealing support and lifecycle
      * control, the main responsibility of this framework is to take
@@ -413,7 +453,8 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
 
     /**
      * Generator for initial random seeds for worker victim
-     * selection. This is used only to create initial seeds. Random
+     * selection and submission queue selection (see class
+     * Submitter). This is used only to create initial seeds. Random
      * steals use a cheaper xorshift generator per steal attempt. We
      * don't expect much contention on seedGenerator, so just use a
      * plain Random.
@@ -433,33 +474,43 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
     java.util.concurrent.ForkJoinWorkerThread[] workers;
 
     /**
-     * Initial size for submission queue array. Must be a power of
+     * Initial size for submission queue arrays. Must be a power of
      * two.  In many applications, these always stay small so we use a
      * small initial cap.
      */
     private static final int INITIAL_QUEUE_CAPACITY = 8;
 
     /**
-     * Maximum size for submission queue array. Must be a power of two
-     * less than or equal to 1 << (31 - width of array entry) to
+     * Maximum size for submission queue arrays. Must be a power of
+     * two less than or equal to 1 << (31 - width of array entry) to
      * ensure lack of index wraparound, but is capped at a lower
      * value to help users trap runaway computations.
      */
     private static final int MAXIMUM_QUEUE_CAPACITY = 1 << 24; // 16M
 
     /**
-     * Array serving as submission queue. Initialized upon construction.
+     * Maximum number of submission queues per pool. Must be a power
+     * of two. Beyond this, more queues would mainly add scanning
+     * overhead for workers rather than further reduce contention.
+     */
+    private static final int MAX_SUBMISSION_QUEUES = 1 << 6;
+
+    /**
+     * Queues holding tasks submitted by non-worker threads.
+     * Initialized upon construction, with length a power of two
+     * covering the parallelism level (up to MAX_SUBMISSION_QUEUES).
+     * Elements are never null, but their arrays are allocated
+     * lazily upon first push.
      */
-    private java.util.concurrent.ForkJoinTask<?>[] submissionQueue;
+    private final SubmissionQueue[] submissionQueues;
 
     /**
-     * Lock protecting submissions array for addSubmission
+     * Lock used only for awaitTermination.
      */
-    private final ReentrantLock submissionLock;
+    private final ReentrantLock terminationLock;
 
     /**
-     * Condition for awaitTermination, using submissionLock for
-     * convenience.
+     * Condition for awaitTermination.
      */
     private final Condition termination;
 
@@ -547,20 +598,9 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
     final int parallelism;
 
     /**
-     * Index (mod submission queue length) of next element to take
-     * from submission queue. Usage is identical to that for
-     * per-worker queues -- see ForkJoinWorkerThread internal
-     * documentation.
-     */
-    volatile int queueBase;
-
-    /**
-     * Index (mod submission queue length) of next element to add
-     * in submission queue. Usage is identical to that for
-     * per-worker queues -- see ForkJoinWorkerThread internal
-     * documentation.
+     * True if this is the common pool, which ignores shutdown.
      */
-    int queueTop;
+    private final boolean isCommon;
 
     /**
      * True when shutdown() has been called.
@@ -719,7 +759,8 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
      * random index of workers array, and randomly select the first
      * (2*#workers)-1 probes, and then, if all empty, resort to 2
      * circular sweeps, which is necessary to check quiescence. and
-     * taking a submission only if no stealable tasks were found.  The
+     * taking a submission only if no stealable tasks were found,
+     * sweeping submission queues from a random start index.  The
      * steal code inside the loop is a specialized form of
      * ForkJoinWorkerThread.deqTask, followed bookkeeping to support
      * helpJoinTask and signal propagation. The code for submission
@@ -765,17 +806,23 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
         if (scanGuard != g)                       // staleness check
             return false;
         else {                                    // try to take submission
-            java.util.concurrent.ForkJoinTask<?> t; java.util.concurrent.ForkJoinTask<?>[] q; int b, i;
-            if ((b = queueBase) != queueTop &&
-                (q = submissionQueue) != null &&
-                (i = (q.length - 1) & b) >= 0) {
-                long u = (i << ASHIFT) + ABASE;
-                if ((t = q[i]) != null && queueBase == b &&
-                    UNSAFE.compareAndSwapObject(q, u, t, null)) {
-                    queueBase = b + 1;
-                    w.execTask(t);
+            SubmissionQueue[] qs = submissionQueues;
+            int n = qs.length, sm = n - 1;
+            for (int k = w.seed >>> 16, j = 0; j < n; ++j, ++k) {
+                SubmissionQueue sq = qs[k & sm];
+                java.util.concurrent.ForkJoinTask<?> t; java.util.concurrent.ForkJoinTask<?>[] q; int b, i;
+                if ((b = sq.base) != sq.top) {
+                    if ((q = sq.array) != null &&
+                        (i = (q.length - 1) & b) >= 0) {
+                        long u = (i << ASHIFT) + ABASE;
+                        if ((t = q[i]) != null && sq.base == b &&
+                            UNSAFE.compareAndSwapObject(q, u, t, null)) {
+                            sq.base = b + 1;
+                            w.execTask(t);
+                        }
+                    }
+                    return false;
                 }
-                return false;
             }
             return true;                         // all queues empty
         }
@@ -840,7 +887,7 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
                     }
                 }
                 if (scanGuard != g ||              // stale
-                    (queueBase != queueTop && !tryReleaseWaiter()))
+                    (hasQueuedSubmissions() && !tryReleaseWaiter()))
                     rescanned = false;
                 if (!rescanned)
                     Thread.yield();                // reduce contention
@@ -903,57 +950,161 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
     // Submissions
 
     /**
-     * Enqueues the given task in the submissionQueue.  Same idea as
-     * ForkJoinWorkerThread.pushTask except for use of submissionLock.
-     *
-     * @param t the task
+     * A queue of external submissions. Structured identically to
+     * ForkJoinWorkerThread queues (base, top, and a circular array),
+     * except that pushes may come from any thread, so are performed
+     * only while holding qlock. Polls CAS slots out without locking,
+     * exactly as in worker steals.
      */
-    private void addSubmission(java.util.concurrent.ForkJoinTask<?> t) {
-        final ReentrantLock lock = this.submissionLock;
-        lock.lock();
-        try {
+    static final class SubmissionQueue {
+        /**
+         * Index (mod array length) of next element to take. Usage is
+         * identical to that for per-worker queues -- see
+         * ForkJoinWorkerThread internal documentation.
+         */
+        volatile int base;
+
+        /**
+         * Index (mod array length) of next element to add. Written
+         * only while holding qlock.
+         */
+        int top;
+
+        /**
+         * Spinlock for pushes: 1 if locked, else 0.
+         */
+        volatile int qlock;
+
+        /**
+         * The task array, allocated upon first push.
+         */
+        java.util.concurrent.ForkJoinTask<?>[] array;
+
+        /**
+         * Tries once to acquire qlock.
+         */
+        final boolean tryLock() {
+            return qlock == 0 &&
+                UNSAFE.compareAndSwapInt(this, qlockOffset, 0, 1);
+        }
+
+        /**
+         * Releases qlock. The volatile write also publishes top.
+         */
+        final void unlock() {
+            qlock = 0;
+        }
+
+        /**
+         * Pushes a task. Call only while holding qlock.
+         */
+        final void push(java.util.concurrent.ForkJoinTask<?> t) {
             java.util.concurrent.ForkJoinTask<?>[] q; int s, m;
-            if ((q = submissionQueue) != null) {    // ignore if queue removed
-                long u = (((s = queueTop) & (m = q.length-1)) << ASHIFT)+ABASE;
-                UNSAFE.putOrderedObject(q, u, t);
-                queueTop = s + 1;
-                if (s - queueBase == m)
-                    growSubmissionQueue();
+            if ((q = array) == null)
+                q = growArray();
+            long u = (((s = top) & (m = q.length - 1)) << ASHIFT) + ABASE;
+            UNSAFE.putOrderedObject(q, u, t);
+            top = s + 1;
+            if (s - base == m)
+                growArray();
+        }
+
+        /**
+         * Takes the next task, if one exists, in FIFO order.
+         */
+        final java.util.concurrent.ForkJoinTask<?> poll() {
+            java.util.concurrent.ForkJoinTask<?> t; java.util.concurrent.ForkJoinTask<?>[] q; int b, i;
+            while ((b = base) != top &&
+                   (q = array) != null &&
+                   (i = (q.length - 1) & b) >= 0) {
+                long u = (i << ASHIFT) + ABASE;
+                if ((t = q[i]) != null &&
+                    base == b &&
+                    UNSAFE.compareAndSwapObject(q, u, t, null)) {
+                    base = b + 1;
+                    return t;
+                }
             }
-        } finally {
-            lock.unlock();
+            return null;
+        }
+
+        /**
+         * Creates or doubles the array. Call only while holding
+         * qlock. Basically identical to ForkJoinWorkerThread version.
+         */
+        final java.util.concurrent.ForkJoinTask<?>[] growArray() {
+            java.util.concurrent.ForkJoinTask<?>[] oldQ = array;
+            int size = oldQ != null ? oldQ.length << 1 : INITIAL_QUEUE_CAPACITY;
+            if (size > MAXIMUM_QUEUE_CAPACITY)
+                throw new java.util.concurrent.RejectedExecutionException("Queue capacity exceeded");
+            java.util.concurrent.ForkJoinTask<?>[] q = array = new java.util.concurrent.ForkJoinTask<?>[size];
+            int mask = size - 1;
+            int top = this.top;
+            int oldMask;
+            if (oldQ != null && (oldMask = oldQ.length - 1) >= 0) {
+                for (int b = base; b != top; ++b) {
+                    long u = ((b & oldMask) << ASHIFT) + ABASE;
+                    Object x = UNSAFE.getObjectVolatile(oldQ, u);
+                    if (x != null && UNSAFE.compareAndSwapObject(oldQ, u, x, null))
+                        UNSAFE.putObjectVolatile
+                            (q, ((b & mask) << ASHIFT) + ABASE, x);
+                }
+            }
+            return q;
         }
-        signalWork();
     }
 
-    //  (pollSubmission is defined below with exported methods)
+    /**
+     * Per-thread record for submitters to ForkJoinPools, holding a
+     * random seed used to select a submission queue. The seed is
+     * shared across pools, but is changed only upon contention.
+     */
+    static final class Submitter {
+        int seed;
+        Submitter() {
+            int r = workerSeedGenerator.nextInt();
+            seed = (r == 0) ? 1 : r; //  must be nonzero
+        }
+    }
 
     /**
-     * Creates or doubles submissionQueue array.
-     * Basically identical to ForkJoinWorkerThread version.
-     */
-    private void growSubmissionQueue() {
-        java.util.concurrent.ForkJoinTask<?>[] oldQ = submissionQueue;
-        int size = oldQ != null ? oldQ.length << 1 : INITIAL_QUEUE_CAPACITY;
-        if (size > MAXIMUM_QUEUE_CAPACITY)
-            throw new java.util.concurrent.RejectedExecutionException("Queue capacity exceeded");
-        if (size < INITIAL_QUEUE_CAPACITY)
-            size = INITIAL_QUEUE_CAPACITY;
-        java.util.concurrent.ForkJoinTask<?>[] q = submissionQueue = new java.util.concurrent.ForkJoinTask<?>[size];
-        int mask = size - 1;
-        int top = queueTop;
-        int oldMask;
-        if (oldQ != null && (oldMask = oldQ.length - 1) >= 0) {
-            for (int b = queueBase; b != top; ++b) {
-                long u = ((b & oldMask) << ASHIFT) + ABASE;
-                Object x = UNSAFE.getObjectVolatile(oldQ, u);
-                if (x != null && UNSAFE.compareAndSwapObject(oldQ, u, x, null))
-                    UNSAFE.putObjectVolatile
-                        (q, ((b & mask) << ASHIFT) + ABASE, x);
+     * Per-thread submission bookkeeping.
+     */
+    static final ThreadLocal<Submitter> submitters =
+        new ThreadLocal<Submitter>() {
+            protected Submitter initialValue() { return new Submitter(); }
+        };
+
+    /**
+     * Enqueues the given task in one of the submission queues,
+     * selected by the caller's Submitter seed. If that queue is
+     * locked by another submitter, rehashes the seed (so later
+     * submissions by this thread also go elsewhere) and retries on
+     * another queue.
+     *
+     * @param t the task
+     */
+    private void addSubmission(java.util.concurrent.ForkJoinTask<?> t) {
+        SubmissionQueue[] qs = submissionQueues;
+        int m = qs.length - 1;
+        Submitter z = submitters.get();
+        for (int r = z.seed;;) {
+            SubmissionQueue q = qs[r & m];
+            if (q.tryLock()) {
+                try {
+                    q.push(t);
+                } finally {
+                    q.unlock();
+                }
+                break;
             }
+            r ^= r << 13; r ^= r >>> 17; z.seed = r ^= r << 5; // xorshift
         }
+        signalWork();
     }
 
+    //  (pollSubmission is defined below with exported methods)
+
     // Blocking support
 
     /**
@@ -1250,7 +1401,7 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
                 if ((int)(c >> AC_SHIFT) != -parallelism)
                     return false;
                 if (!shutdown || blockedCount != 0 || quiescerCount != 0 ||
-                    queueBase != queueTop) {
+                    hasQueuedSubmissions()) {
                     if (ctl == c) // staleness check
                         return false;
                     continue;
@@ -1260,7 +1411,7 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
                 startTerminating();
         }
         if ((short)(c >>> TC_SHIFT) == -parallelism) { // signal when 0 workers
-            final ReentrantLock lock = this.submissionLock;
+            final ReentrantLock lock = this.terminationLock;
             lock.lock();
             try {
                 termination.signalAll();
@@ -1307,7 +1458,7 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
      * Polls and cancels all submissions. Called only during termination.
      */
     private void cancelSubmissions() {
-        while (queueBase != queueTop) {
+        while (hasQueuedSubmissions()) {
             java.util.concurrent.ForkJoinTask<?> task = pollSubmission();
             if (task != null) {
                 try {
@@ -1453,18 +1604,45 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
                         ForkJoinWorkerThreadFactory factory,
                         Thread.UncaughtExceptionHandler handler,
                         boolean asyncMode) {
+        this(checkParallelism(parallelism), checkFactory(factory),
+             handler, asyncMode,
+             "ForkJoinPool-" + poolNumberGenerator.incrementAndGet() +
+             "-worker-", false);
         checkPermission();
-        if (factory == null)
-            throw new NullPointerException();
+    }
+
+    private static int checkParallelism(int parallelism) {
         if (parallelism <= 0 || parallelism > MAX_ID)
             throw new IllegalArgumentException();
+        return parallelism;
+    }
+
+    private static ForkJoinWorkerThreadFactory checkFactory
+        (ForkJoinWorkerThreadFactory factory) {
+        if (factory == null)
+            throw new NullPointerException();
+        return factory;
+    }
+
+    /**
+     * Creates a {@code ForkJoinPool} with the given parameters, without
+     * any security checks or parameter validation.  Invoked directly by
+     * makeCommonPool.
+     */
+    private ForkJoinPool(int parallelism,
+                         ForkJoinWorkerThreadFactory factory,
+                         Thread.UncaughtExceptionHandler handler,
+                         boolean asyncMode,
+                         String workerNamePrefix,
+                         boolean isCommon) {
         this.parallelism = parallelism;
         this.factory = factory;
         this.ueh = handler;
         this.locallyFifo = asyncMode;
+        this.workerNamePrefix = workerNamePrefix;
+        this.isCommon = isCommon;
         long np = (long)(-parallelism); // offset ctl counts
         this.ctl = ((np << AC_SHIFT) & AC_MASK) | ((np << TC_SHIFT) & TC_MASK);
-        this.submissionQueue = new java.util.concurrent.ForkJoinTask<?>[INITIAL_QUEUE_CAPACITY];
         // initialize workers array with room for 2*parallelism if possible
         int n = parallelism << 1;
         if (n >= MAX_ID)
@@ -1473,12 +1651,85 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
             n |= n >>> 1; n |= n >>> 2; n |= n >>> 4; n |= n >>> 8;
         }
         workers = new java.util.concurrent.ForkJoinWorkerThread[n + 1];
-        this.submissionLock = new ReentrantLock();
-        this.termination = submissionLock.newCondition();
-        StringBuilder sb = new StringBuilder("ForkJoinPool-");
-        sb.append(poolNumberGenerator.incrementAndGet());
-        sb.append("-worker-");
-        this.workerNamePrefix = sb.toString();
+        // one submission queue per worker, rounded up to a power of two
+        int sq = (parallelism >= MAX_SUBMISSION_QUEUES) ? MAX_SUBMISSION_QUEUES :
+            Integer.highestOneBit((parallelism << 1) - 1);
+        SubmissionQueue[] qs = new SubmissionQueue[sq];
+        for (int i = 0; i < sq; ++i)
+            qs[i] = new SubmissionQueue();
+        this.submissionQueues = qs;
+        this.terminationLock = new ReentrantLock();
+        this.termination = terminationLock.newCondition();
+    }
+
+    /**
+     * Creates and returns the common pool, respecting user settings
+     * specified via system properties.
+     */
+    private static ForkJoinPool makeCommonPool() {
+        int parallelism = -1;
+        ForkJoinWorkerThreadFactory factory = null;
+        Thread.UncaughtExceptionHandler handler = null;
+        try {  // ignore exceptions in accessing/parsing properties
+            String pp = System.getProperty
+                ("java.util.concurrent.ForkJoinPool.common.parallelism");
+            String fp = System.getProperty
+                ("java.util.concurrent.ForkJoinPool.common.threadFactory");
+            String hp = System.getProperty
+                ("java.util.concurrent.ForkJoinPool.common.exceptionHandler");
+            if (pp != null)
+                parallelism = Integer.parseInt(pp);
+            if (fp != null)
+                factory = ((ForkJoinWorkerThreadFactory)ClassLoader.
+                           getSystemClassLoader().loadClass(fp).newInstance());
+            if (hp != null)
+                handler = ((Thread.UncaughtExceptionHandler)ClassLoader.
+                           getSystemClassLoader().loadClass(hp).newInstance());
+        } catch (Exception ignore) {
+        }
+        if (factory == null)
+            factory = defaultForkJoinWorkerThreadFactory;
+        if (parallelism <= 0)
+            parallelism = Runtime.getRuntime().availableProcessors();
+        if (parallelism > MAX_ID)
+            parallelism = MAX_ID;
+        return new ForkJoinPool(parallelism, factory, handler, false,
+                                "ForkJoinPool.commonPool-worker-", true);
+    }
+
+    /**
+     * Holder for the common pool, constructed upon first use.
+     */
+    static final class CommonPoolHolder {
+        static final ForkJoinPool common = makeCommonPool();
+    }
+
+    /**
+     * Returns the common pool instance. This pool is statically
+     * constructed upon first use; its run state is unaffected by
+     * attempts to {@link #shutdown} or {@link #shutdownNow}. However
+     * this pool and any ongoing processing are automatically
+     * terminated upon program {@link System#exit}, and because its
+     * workers are daemon threads, upon normal program exit.  Any
+     * program that relies on asynchronous task processing to complete
+     * before program termination should join the relevant tasks
+     * before exit.
+     *
+     * @return the common pool instance
+     * @since 1.7
+     */
+    public static ForkJoinPool commonPool() {
+        return CommonPoolHolder.common;
+    }
+
+    /**
+     * Returns the targeted parallelism level of the common pool.
+     *
+     * @return the targeted parallelism level of the common pool
+     * @since 1.7
+     */
+    public static int getCommonPoolParallelism() {
+        return CommonPoolHolder.common.parallelism;
     }
 
     // Execution methods
@@ -1782,7 +2033,10 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
      * @return the number of queued submissions
      */
     public int getQueuedSubmissionCount() {
-        return -queueBase + queueTop;
+        int count = 0;
+        for (SubmissionQueue q : submissionQueues)
+            count -= q.base - q.top; // must read base first
+        return count;
     }
 
     /**
@@ -1792,7 +2046,11 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
      * @return {@code true} if there are any queued submissions
      */
     public boolean hasQueuedSubmissions() {
-        return queueBase != queueTop;
+        for (SubmissionQueue q : submissionQueues) {
+            if (q.base != q.top)
+                return true;
+        }
+        return false;
     }
 
     /**
@@ -1803,17 +2061,10 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
      * @return the next submission, or {@code null} if none
      */
     protected java.util.concurrent.ForkJoinTask<?> pollSubmission() {
-        java.util.concurrent.ForkJoinTask<?> t; java.util.concurrent.ForkJoinTask<?>[] q; int b, i;
-        while ((b = queueBase) != queueTop &&
-               (q = submissionQueue) != null &&
-               (i = (q.length - 1) & b) >= 0) {
-            long u = (i << ASHIFT) + ABASE;
-            if ((t = q[i]) != null &&
-                queueBase == b &&
-                UNSAFE.compareAndSwapObject(q, u, t, null)) {
-                queueBase = b + 1;
+        java.util.concurrent.ForkJoinTask<?> t;
+        for (SubmissionQueue q : submissionQueues) {
+            if ((t = q.poll()) != null)
                 return t;
-            }
         }
         return null;
     }
@@ -1837,7 +2088,7 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
      */
     protected int drainTasksTo(Collection<? super java.util.concurrent.ForkJoinTask<?>> c) {
         int count = 0;
-        while (queueBase != queueTop) {
+        while (hasQueuedSubmissions()) {
             java.util.concurrent.ForkJoinTask<?> t = pollSubmission();
             if (t != null) {
                 c.add(t);
@@ -1892,9 +2143,11 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
     /**
      * Initiates an orderly shutdown in which previously submitted
      * tasks are executed, but no new tasks will be accepted.
-     * Invocation has no additional effect if already shut down.
-     * Tasks that are in the process of being submitted concurrently
-     * during the course of this method may or may not be rejected.
+     * Invocation has no effect on execution state if this is the
+     * {@link #commonPool()}, and no additional effect if already shut
+     * down.  Tasks that are in the process of being submitted
+     * concurrently during the course of this method may or may not
+     * be rejected.
      *
      * @throws SecurityException if a security manager exists and
      *         the caller is not permitted to modify threads
@@ -1903,13 +2156,18 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
      */
     public void shutdown() {
         checkPermission();
-        shutdown = true;
-        tryTerminate(false);
+        if (!isCommon) {
+            shutdown = true;
+            tryTerminate(false);
+        }
     }
 
     /**
-     * Attempts to cancel and/or stop all tasks, and reject all
-     * subsequently submitted tasks.  Tasks that are in the process of
+     * Possibly attempts to cancel and/or stop all tasks, and reject
+     * all subsequently submitted tasks.  Invocation has no effect on
+     * execution state if this is the {@link #commonPool()}, and no
+     * additional effect if already shut down. Otherwise, tasks that
+     * are in the process of
      * being submitted or executed concurrently during the course of
      * this method may or may not be rejected. This method cancels
      * both existing and unexecuted tasks, in order to permit
@@ -1925,8 +2183,10 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
      */
     public List<Runnable> shutdownNow() {
         checkPermission();
-        shutdown = true;
-        tryTerminate(true);
+        if (!isCommon) {
+            shutdown = true;
+            tryTerminate(true);
+        }
         return Collections.emptyList();
     }
 
@@ -1979,7 +2239,10 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
     /**
      * Blocks until all tasks have completed execution after a shutdown
      * request, or the timeout occurs, or the current thread is
-     * interrupted, whichever happens first.
+     * interrupted, whichever happens first. Because the {@link
+     * #commonPool()} never terminates until program shutdown, when
+     * applied to the common pool, this method always waits for the
+     * full timeout, and then returns {@code false}.
      *
      * @param timeout the maximum time to wait
      * @param unit the time unit of the timeout argument
@@ -1990,7 +2253,7 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
     public boolean awaitTermination(long timeout, java.util.concurrent.TimeUnit unit)
         throws InterruptedException {
         long nanos = unit.toNanos(timeout);
-        final ReentrantLock lock = this.submissionLock;
+        final ReentrantLock lock = this.terminationLock;
         lock.lock();
         try {
             for (;;) {
@@ -2130,6 +2393,7 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
     private static final long quiescerCountOffset;
     private static final long scanGuardOffset;
     private static final long nextWorkerNumberOffset;
+    private static final long qlockOffset;
     private static final long ABASE;
     private static final int ASHIFT;
 
@@ -2155,6 +2419,8 @@ public class ForkJoinPool extends java.util.concurrent.AbstractExecutorService {
                 (k.getDeclaredField("scanGuard"));
             nextWorkerNumberOffset = UNSAFE.objectFieldOffset
                 (k.getDeclaredField("nextWorkerNumber"));
+            qlockOffset = UNSAFE.objectFieldOffset
+                (SubmissionQueue.class.getDeclaredField("qlock"));
             Class a = java.util.concurrent.ForkJoinTask[].class;
             ABASE = UNSAFE.arrayBaseOffset(a);
             s = UNSAFE.arrayIndexScale(a);
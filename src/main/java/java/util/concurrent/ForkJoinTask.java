@@ -121,8 +121,10 @@ import java.lang.reflect.Constructor;
  * <p>The ForkJoinTask class is not usually directly subclassed.
  * Instead, you subclass one of the abstract classes that support a
  * particular style of fork/join processing, typically {@link
- * RecursiveAction} for computations that do not return results, or
- * {@link java.util.concurrent.RecursiveTask} for those that do.  Normally, a concrete
+ * RecursiveAction} for most computations that do not return results,
+ * {@link java.util.concurrent.RecursiveTask} for those that do, and
+ * {@link CountedCompleter} for those in which completed actions
+ * trigger other actions, without blocking joins.  Normally, a concrete
  * ForkJoinTask subclass declares fields comprising its parameters,
  * established in a constructor, and then defines a {@code compute}
  * method that somehow uses the control methods supplied by this base
@@ -209,10 +211,10 @@ public abstract class ForkJoinTask<V> implements java.util.concurrent.Future<V>,
 
     /** The run status of this task */
     volatile int status; // accessed directly by pool and workers
-    private static final int NORMAL      = -1;
-    private static final int CANCELLED   = -2;
-    private static final int EXCEPTIONAL = -3;
-    private static final int SIGNAL      =  1;
+    static final int NORMAL      = -1;
+    static final int CANCELLED   = -2;
+    static final int EXCEPTIONAL = -3;
+    static final int SIGNAL      =  1;
 
     /**
      * Marks completion and wakes up threads waiting to join this task,
@@ -417,11 +419,15 @@ public abstract class ForkJoinTask<V> implements java.util.concurrent.Future<V>,
     }
 
     /**
-     * Records exception and sets exceptional completion.
+     * Records exception and sets exceptional completion, unless
+     * already completed.
      *
      * @return status on exit
      */
-    private int setExceptionalCompletion(Throwable ex) {
+    final int recordExceptionalCompletion(Throwable ex) {
+        int s;
+        if ((s = status) < 0)
+            return s;
         int h = System.identityHashCode(this);
         final ReentrantLock lock = exceptionTableLock;
         lock.lock();
@@ -443,6 +449,24 @@ public abstract class ForkJoinTask<V> implements java.util.concurrent.Future<V>,
         return setCompletion(EXCEPTIONAL);
     }
 
+    /**
+     * Records exception and possibly propagates.
+     *
+     * @return status on exit
+     */
+    private int setExceptionalCompletion(Throwable ex) {
+        int s = recordExceptionalCompletion(ex);
+        if (s == EXCEPTIONAL)
+            internalPropagateException(ex);
+        return s;
+    }
+
+    /**
+     * Hook for exception propagation support for tasks with completers.
+     */
+    void internalPropagateException(Throwable ex) {
+    }
+
     /**
      * Removes exception node and clears status
      */
@@ -598,17 +622,19 @@ public abstract class ForkJoinTask<V> implements java.util.concurrent.Future<V>,
      * call to {@link #join} or related methods, or a call to {@link
      * #isDone} returning {@code true}.
      *
-     * <p>This method may be invoked only from within {@code
-     * ForkJoinPool} computations (as may be determined using method
-     * {@link #inForkJoinPool}).  Attempts to invoke in other contexts
-     * result in exceptions or errors, possibly including {@code
-     * ClassCastException}.
+     * <p>This method arranges execution in the pool the current task
+     * is running in, if applicable, or using the {@link
+     * java.util.concurrent.ForkJoinPool#commonPool()} if not {@link
+     * #inForkJoinPool}.
      *
      * @return {@code this}, to simplify usage
      */
     public final ForkJoinTask<V> fork() {
-        ((java.util.concurrent.ForkJoinWorkerThread) Thread.currentThread())
-            .pushTask(this);
+        Thread t;
+        if ((t = Thread.currentThread()) instanceof java.util.concurrent.ForkJoinWorkerThread)
+            ((java.util.concurrent.ForkJoinWorkerThread) t).pushTask(this);
+        else
+            java.util.concurrent.ForkJoinPool.commonPool().execute(this);
         return this;
     }
 
@@ -909,6 +935,18 @@ public abstract class ForkJoinTask<V> implements java.util.concurrent.Future<V>,
         setCompletion(NORMAL);
     }
 
+    /**
+     * Completes this task normally without setting a value. The most
+     * recent value established by {@link #setRawResult} (or {@code
+     * null} by default) will be returned as the result of subsequent
+     * invocations of {@code join} and related operations.
+     *
+     * @since 1.7
+     */
+    public final void quietlyComplete() {
+        setCompletion(NORMAL);
+    }
+
     /**
      * Waits if necessary for the computation to complete, and then
      * retrieves its result.
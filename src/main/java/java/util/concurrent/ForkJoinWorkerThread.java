@@ -687,6 +687,47 @@ public class ForkJoinWorkerThread extends Thread {
         return null;
     }
 
+    /**
+     * Pops and runs the topmost local task if it is a
+     * CountedCompleter within the computation of the given root
+     * (that is, the root itself or one of its subtasks). Used by
+     * CountedCompleter.helpComplete. Called only by this thread.
+     *
+     * @param root the root of the computation
+     * @return true if a task was run
+     */
+    final boolean popAndExecCompleter(CountedCompleter<?> root) {
+        java.util.concurrent.ForkJoinTask<?>[] q; int s;
+        if ((q = queue) != null && (s = queueTop) != queueBase) {
+            int i = (q.length - 1) & --s;
+            java.util.concurrent.ForkJoinTask<?> t = q[i];
+            if (t != null && isWithin(t, root) &&
+                UNSAFE.compareAndSwapObject
+                (q, (i << ASHIFT) + ABASE, t, null)) {
+                queueTop = s; // or putOrderedInt
+                t.doExec();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if t is a CountedCompleter with the given root on
+     * its completion path.
+     */
+    private static boolean isWithin(java.util.concurrent.ForkJoinTask<?> t,
+                                    CountedCompleter<?> root) {
+        if (t instanceof CountedCompleter) {
+            for (CountedCompleter<?> c = (CountedCompleter<?>)t;
+                 c != null; c = c.completer) {
+                if (c == root)
+                    return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * The maximum stolen->joining link depth allowed in helpJoinTask,
      * as well as the maximum number of retries (allowing on average
@@ -733,8 +774,9 @@ public class ForkJoinWorkerThread extends Thread {
     }
 
     /**
-     * If present, pops and executes the given task, or any other
-     * cancelled task
+     * If present, pops and executes the given task, any other
+     * cancelled task, or, if the given task is a CountedCompleter,
+     * any task within its computation.
      *
      * @return false if any other non-cancelled task exists in local queue
      */
@@ -743,7 +785,9 @@ public class ForkJoinWorkerThread extends Thread {
         if ((s = queueTop) != queueBase && (q = queue) != null &&
             (i = (q.length - 1) & --s) >= 0 &&
             (t = q[i]) != null) {
-            if (t != joinMe && t.status >= 0)
+            if (t != joinMe && t.status >= 0 &&
+                !(joinMe instanceof CountedCompleter &&
+                  isWithin(t, (CountedCompleter<?>)joinMe)))
                 return false;
             if (UNSAFE.compareAndSwapObject
                 (q, (i << ASHIFT) + ABASE, t, null)) {
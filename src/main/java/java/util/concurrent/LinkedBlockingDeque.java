@@ -247,6 +247,30 @@ public class LinkedBlockingDeque<E>
         return true;
     }
 
+    /**
+     * Links the elements a[from, to) as last elements, without
+     * signalling; the caller signals once for the whole run.
+     *
+     * @param a the elements, none null
+     */
+    @SuppressWarnings("unchecked")
+    private void linkLastAll(Object[] a, int from, int to) {
+        // assert lock.isHeldByCurrentThread();
+        // assert count + (to - from) <= capacity;
+        Node<E> l = last;
+        for (int i = from; i < to; ++i) {
+            Node<E> node = new Node<E>((E) a[i]);
+            node.prev = l;
+            if (l == null)
+                first = node;
+            else
+                l.next = node;
+            l = node;
+        }
+        last = l;
+        count += to - from;
+    }
+
     /**
      * Removes and returns first element, or null if empty.
      */
@@ -657,6 +681,104 @@ public class LinkedBlockingDeque<E>
         return offerLast(e, timeout, unit);
     }
 
+    /**
+     * Inserts as many elements of the specified collection at the end
+     * of this deque as there is room for, without waiting, in the order
+     * that they are returned by the collection's iterator.  The
+     * elements are linked under a single acquisition of the lock, and
+     * waiting takes are signalled once.
+     *
+     * @param c the elements to insert
+     * @return the number of elements inserted, which are the first
+     *         that many elements of {@code c}
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null
+     * @throws IllegalArgumentException if the collection is this deque
+     * @since 1.7
+     */
+    public int offerAll(Collection<? extends E> c) {
+        Object[] a = toCheckedArray(c);
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            int n = Math.min(a.length, capacity - count);
+            if (n > 0) {
+                linkLastAll(a, 0, n);
+                signalNotEmpty(n);
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Inserts all elements of the specified collection at the end of
+     * this deque, in the order that they are returned by the
+     * collection's iterator, waiting if necessary for space to become
+     * available.  As many elements as fit are linked under each
+     * acquisition of the lock, normally all of them at once, and
+     * waiting takes are signalled once for each such run.  Elements
+     * inserted by other threads may be interleaved with these only
+     * where this method has to wait.
+     *
+     * <p>If interrupted while waiting, this method throws {@code
+     * InterruptedException} leaving the elements inserted so far in
+     * the deque.
+     *
+     * @param c the elements to insert
+     * @throws InterruptedException if interrupted while waiting
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null
+     * @throws IllegalArgumentException if the collection is this deque
+     * @since 1.7
+     */
+    public void putAll(Collection<? extends E> c) throws InterruptedException {
+        Object[] a = toCheckedArray(c);
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            int i = 0;
+            while (i < a.length) {
+                int n;
+                while ((n = Math.min(capacity - count, a.length - i)) == 0)
+                    notFull.await();
+                linkLastAll(a, i, i + n);
+                signalNotEmpty(n);
+                i += n;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wakes takes waiting for the n elements just linked.
+     */
+    private void signalNotEmpty(int n) {
+        // assert lock.isHeldByCurrentThread();
+        if (n == 1)
+            notEmpty.signal();
+        else
+            notEmpty.signalAll();
+    }
+
+    /**
+     * Returns the elements of c as an array, checking that c is not
+     * this deque and holds no null elements.
+     */
+    private Object[] toCheckedArray(Collection<? extends E> c) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        Object[] a = c.toArray();
+        for (Object e : a)
+            if (e == null)
+                throw new NullPointerException();
+        return a;
+    }
+
     /**
      * Retrieves and removes the head of the queue represented by this deque.
      * This method differs from {@link #poll poll} only in that it throws an
@@ -746,17 +868,100 @@ public class LinkedBlockingDeque<E>
         final ReentrantLock lock = this.lock;
         lock.lock();
         try {
-            int n = Math.min(maxElements, count);
-            for (int i = 0; i < n; i++) {
-                c.add(first.item);   // In this order, in case add() throws.
-                unlinkFirst();
+            return drainFirst(c, Math.min(maxElements, count));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes at most the given number of available elements from this
+     * deque and adds them to the given collection, as by {@link
+     * #drainTo(Collection, int)}, waiting if necessary up to the
+     * specified wait time for an element to become available.  The
+     * elements are removed under a single acquisition of the lock,
+     * and waiting puts are signalled once.
+     *
+     * @param c the collection to transfer elements into
+     * @param maxElements the maximum number of elements to transfer
+     * @param timeout how long to wait before giving up, in units of
+     *        {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return the number of elements transferred, zero if the specified
+     *         waiting time elapses before an element is available
+     * @throws InterruptedException if interrupted while waiting
+     * @throws UnsupportedOperationException if addition of elements
+     *         is not supported by the specified collection
+     * @throws ClassCastException if the class of an element of this deque
+     *         prevents it from being added to the specified collection
+     * @throws NullPointerException if the specified collection is null
+     * @throws IllegalArgumentException if the specified collection is this
+     *         deque, or some property of an element of this deque prevents
+     *         it from being added to the specified collection
+     * @since 1.7
+     */
+    public int drainTo(Collection<? super E> c, int maxElements,
+                       long timeout, java.util.concurrent.TimeUnit unit)
+        throws InterruptedException {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0)
+                    return 0;
+                nanos = notEmpty.awaitNanos(nanos);
             }
-            return n;
+            return drainFirst(c, Math.min(maxElements, count));
         } finally {
             lock.unlock();
         }
     }
 
+    /**
+     * Removes the first n elements and adds them to c, signalling
+     * waiting puts once rather than for each element.
+     *
+     * @return n
+     */
+    private int drainFirst(Collection<? super E> c, int n) {
+        // assert lock.isHeldByCurrentThread();
+        // assert n <= count;
+        Node<E> f = first;
+        int i = 0;
+        try {
+            for (; i < n; i++) {
+                c.add(f.item);   // In this order, in case add() throws.
+                Node<E> next = f.next;
+                f.item = null;
+                f.next = f; // help GC
+                f = next;
+            }
+            return n;
+        } finally {
+            // Restore invariants even if c.add() threw
+            if (i > 0) {
+                first = f;
+                if (f == null)
+                    last = null;
+                else
+                    f.prev = null;
+                count -= i;
+                if (i == 1)
+                    notFull.signal();
+                else
+                    notFull.signalAll();
+            }
+        }
+    }
+
     // Stack methods
 
     /**
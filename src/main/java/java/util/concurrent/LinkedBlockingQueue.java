@@ -200,6 +200,37 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E>
         last = last.next = node;
     }
 
+    /**
+     * Links nodes for the elements a[from, to) at end of queue.
+     *
+     * @param a the elements, none null
+     */
+    @SuppressWarnings("unchecked")
+    private void enqueueAll(Object[] a, int from, int to) {
+        // assert putLock.isHeldByCurrentThread();
+        // assert last.next == null;
+        Node<E> l = last;
+        for (int i = from; i < to; ++i)
+            l = l.next = new Node<E>((E) a[i]);
+        last = l;
+    }
+
+    /**
+     * Returns the elements of c as an array, checking that c is not
+     * this queue and holds no null elements.
+     */
+    private Object[] toCheckedArray(Collection<? extends E> c) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        Object[] a = c.toArray();
+        for (Object e : a)
+            if (e == null)
+                throw new NullPointerException();
+        return a;
+    }
+
     /**
      * Removes a node from head of queue.
      *
@@ -432,6 +463,100 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E>
     }
 
 
+    /**
+     * Inserts as many elements of the specified collection at the tail
+     * of this queue as there is room for, without waiting, in the order
+     * that they are returned by the collection's iterator.  The
+     * elements are linked under a single acquisition of the put lock,
+     * and a waiting take is signalled at most once.
+     *
+     * @param c the elements to insert
+     * @return the number of elements inserted, which are the first
+     *         that many elements of {@code c}
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null
+     * @throws IllegalArgumentException if the collection is this queue
+     * @since 1.7
+     */
+    public int offerAll(Collection<? extends E> c) {
+        Object[] a = toCheckedArray(c);
+        final AtomicInteger count = this.count;
+        if (a.length == 0 || count.get() == capacity)
+            return 0;
+        int n = 0;
+        int prev = -1;
+        final ReentrantLock putLock = this.putLock;
+        putLock.lock();
+        try {
+            n = Math.min(a.length, capacity - count.get());
+            if (n > 0) {
+                enqueueAll(a, 0, n);
+                prev = count.getAndAdd(n);
+                if (prev + n < capacity)
+                    notFull.signal();
+            }
+        } finally {
+            putLock.unlock();
+        }
+        if (prev == 0)
+            signalNotEmpty();
+        return n;
+    }
+
+    /**
+     * Inserts all elements of the specified collection at the tail of
+     * this queue, in the order that they are returned by the
+     * collection's iterator, waiting if necessary for space to become
+     * available.  As many elements as fit are linked under each
+     * acquisition of the put lock, normally all of them at once, and a
+     * waiting take is signalled at most once for each wait for space.
+     * Elements inserted by other threads may be interleaved with
+     * these only where this method has to wait.
+     *
+     * <p>If interrupted while waiting, this method throws {@code
+     * InterruptedException} leaving the elements inserted so far in
+     * the queue.
+     *
+     * @param c the elements to insert
+     * @throws InterruptedException if interrupted while waiting
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null
+     * @throws IllegalArgumentException if the collection is this queue
+     * @since 1.7
+     */
+    public void putAll(Collection<? extends E> c) throws InterruptedException {
+        Object[] a = toCheckedArray(c);
+        boolean signalNotEmpty = false;
+        final ReentrantLock putLock = this.putLock;
+        final AtomicInteger count = this.count;
+        putLock.lockInterruptibly();
+        try {
+            int i = 0;
+            while (i < a.length) {
+                int room;
+                while ((room = capacity - count.get()) == 0) {
+                    if (signalNotEmpty) {
+                        // Let takes make the room we wait for
+                        signalNotEmpty = false;
+                        signalNotEmpty();
+                    }
+                    notFull.await();
+                }
+                int n = Math.min(room, a.length - i);
+                enqueueAll(a, i, i + n);
+                i += n;
+                if (count.getAndAdd(n) == 0)
+                    signalNotEmpty = true;
+            }
+            if (count.get() < capacity)
+                notFull.signal();
+        } finally {
+            putLock.unlock();
+            if (signalNotEmpty)
+                signalNotEmpty();
+        }
+    }
+
     public E take() throws InterruptedException {
         E x;
         int c = -1;
@@ -762,6 +887,85 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E>
         }
     }
 
+    /**
+     * Removes at most the given number of available elements from this
+     * queue and adds them to the given collection, as by {@link
+     * #drainTo(Collection, int)}, waiting if necessary up to the
+     * specified wait time for an element to become available.  The
+     * elements are removed under a single acquisition of the take
+     * lock, and a waiting put is signalled at most once.
+     *
+     * @param c the collection to transfer elements into
+     * @param maxElements the maximum number of elements to transfer
+     * @param timeout how long to wait before giving up, in units of
+     *        {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return the number of elements transferred, zero if the specified
+     *         waiting time elapses before an element is available
+     * @throws InterruptedException if interrupted while waiting
+     * @throws UnsupportedOperationException if addition of elements
+     *         is not supported by the specified collection
+     * @throws ClassCastException if the class of an element of this queue
+     *         prevents it from being added to the specified collection
+     * @throws NullPointerException if the specified collection is null
+     * @throws IllegalArgumentException if the specified collection is this
+     *         queue, or some property of an element of this queue prevents
+     *         it from being added to the specified collection
+     * @since 1.7
+     */
+    public int drainTo(Collection<? super E> c, int maxElements,
+                       long timeout, java.util.concurrent.TimeUnit unit)
+        throws InterruptedException {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        long nanos = unit.toNanos(timeout);
+        boolean signalNotFull = false;
+        final AtomicInteger count = this.count;
+        final ReentrantLock takeLock = this.takeLock;
+        takeLock.lockInterruptibly();
+        try {
+            while (count.get() == 0) {
+                if (nanos <= 0)
+                    return 0;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            int n = Math.min(maxElements, count.get());
+            // count.get provides visibility to first n Nodes
+            Node<E> h = head;
+            int i = 0;
+            try {
+                while (i < n) {
+                    Node<E> p = h.next;
+                    c.add(p.item);
+                    p.item = null;
+                    h.next = h;
+                    h = p;
+                    ++i;
+                }
+                return n;
+            } finally {
+                // Restore invariants even if c.add() threw
+                if (i > 0) {
+                    // assert h.item == null;
+                    head = h;
+                    int prev = count.getAndAdd(-i);
+                    signalNotFull = (prev == capacity);
+                    if (prev > i)
+                        notEmpty.signal();
+                }
+            }
+        } finally {
+            takeLock.unlock();
+            if (signalNotFull)
+                signalNotFull();
+        }
+    }
+
     /**
      * Returns an iterator over the elements in this queue in proper sequence.
      * The elements will be returned in order from first (head) to last (tail).
@@ -0,0 +1,871 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+/*
+ *
+ *
+ *
+ *
+ *
+ * Written by Doug Lea with assistance from members of JCP JSR-166
+ * Expert Group and released to the public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+
+package java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded {@linkplain BlockingQueue blocking queue} backed by a
+ * circular array, in which insertions and removals do not lock.  This
+ * queue orders elements FIFO (first-in-first-out), and may be used in
+ * place of {@link ArrayBlockingQueue} where many threads insert and
+ * remove at high rates, which under a single lock leads to contention
+ * and convoys.
+ *
+ * <p>Each slot of the array carries a sequence number telling
+ * producers and consumers whether the slot is ready for them; a thread
+ * claims a slot by advancing the head or tail index with a single
+ * compare-and-set, and threads only block, on a lock and conditions
+ * used for nothing else, when the queue is full or empty.  Methods
+ * {@link #offerAll} and {@link #drainTo(Collection, int)} claim a run
+ * of slots with one compare-and-set, and wake waiting threads at most
+ * once per run.
+ *
+ * <p>A queue may be constructed for use by a single producer or a
+ * single consumer or both, which replaces the compare-and-set on that
+ * side by a plain write.  Such a queue must then be used accordingly:
+ * for a single-producer queue, the insertion methods must not be
+ * called by more than one thread at a time, and a change of producer
+ * thread must be ordered by some other synchronization, and likewise
+ * for a single-consumer queue and the removal methods.  Other methods
+ * may be called by any thread.
+ *
+ * <p>The capacity is fixed when the queue is created, and is rounded
+ * up to a power of two.  The {@link #size} of a queue being modified
+ * concurrently is only an estimate, which counts insertions in
+ * progress.  Iterators traverse a snapshot of the elements, taken
+ * when the iterator is created, and never throw {@link
+ * java.util.ConcurrentModificationException}.  Removal of elements
+ * other than the head, by {@link #remove(Object)} or through an
+ * iterator, is not supported.
+ *
+ * <p>This class and its iterator implement all of the
+ * <em>optional</em> methods of the {@link Collection} and {@link
+ * Iterator} interfaces, except those removing arbitrary elements.
+ *
+ * @since 1.7
+ * @param <E> the type of elements held in this collection
+ */
+public class RingBlockingQueue<E> extends AbstractQueue<E>
+        implements BlockingQueue<E> {
+
+    /*
+     * This is D. Vyukov's bounded MPMC queue.  The slot for index p
+     * (the indices run upwards forever) is p & mask, and its sequence
+     * number is p when the slot is free for the insertion at p, and
+     * p + 1 once that element is published, becoming p + capacity
+     * again when the element is removed.  A producer reads the tail
+     * and the sequence of its slot: if they are equal it CASes the
+     * tail forward and owns the slot; if the sequence is behind, the
+     * queue is full.  Consumers proceed symmetrically on the head.
+     * Elements are written before their sequence is set with an
+     * ordered store, and read after it is read with a volatile load,
+     * so that the items array itself needs no volatile accesses.
+     * The ring has at least two slots, since with one the published
+     * sequence p + 1 would equal the free sequence for p + 1.  A
+     * queue of capacity one therefore uses two slots, and producers
+     * also check the count against the head before claiming one.
+     *
+     * Blocking uses the lock and conditions of ArrayBlockingQueue,
+     * but only in the slow paths.  A thread that must wait takes the
+     * lock, increments its waiter count, and retries; a thread that
+     * completes an operation reads the opposite count afterwards and
+     * takes the lock to signal only if it is nonzero.  The claim of
+     * the operation (a CAS, or a volatile write for a single
+     * producer or consumer) and the waiter increment are both
+     * followed by volatile reads of the other, so either the waiter
+     * sees the claim or the claimer sees the waiter.  A waiter that
+     * sees a claim whose element or slot is not yet published retries
+     * with Thread.yield rather than waiting, since that operation's
+     * thread may have read the count before the increment.
+     *
+     * The indices are padded, as in Striped64.Cell, so that producers
+     * and consumers do not invalidate each other's cache lines.
+     */
+
+    /** The maximum capacity, a power of two. */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** The maximum number of slots claimed at once by drainTo. */
+    static final int MAX_BATCH = 256;
+
+    volatile long p0, p1, p2, p3, p4, p5, p6;
+    /** The index of the next insertion */
+    volatile long tail;
+    volatile long q0, q1, q2, q3, q4, q5, q6;
+    /** The index of the next removal */
+    volatile long head;
+    volatile long r0, r1, r2, r3, r4, r5, r6;
+
+    /** The queued items */
+    final Object[] items;
+
+    /** The sequence number of each slot */
+    final long[] sequences;
+
+    /** items.length - 1 */
+    final int mask;
+
+    /** The capacity, items.length except for a capacity of one */
+    final int capacity;
+
+    /** Whether insertions are made by one thread at a time */
+    final boolean singleProducer;
+
+    /** Whether removals are made by one thread at a time */
+    final boolean singleConsumer;
+
+    /** Lock held by waiting threads and to signal them */
+    final ReentrantLock lock = new ReentrantLock();
+    /** Condition for waiting takes */
+    private final Condition notEmpty = lock.newCondition();
+    /** Condition for waiting puts */
+    private final Condition notFull = lock.newCondition();
+
+    /** The number of threads waiting to take; written under lock */
+    volatile int waitingConsumers;
+    /** The number of threads waiting to put; written under lock */
+    volatile int waitingProducers;
+
+    /**
+     * Creates a {@code RingBlockingQueue} with at least the given
+     * capacity, for use by any number of producers and consumers.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity} is less
+     *         than 1 or greater than 2<sup>30</sup>
+     */
+    public RingBlockingQueue(int capacity) {
+        this(capacity, false, false);
+    }
+
+    /**
+     * Creates a {@code RingBlockingQueue} with at least the given
+     * capacity, optionally restricted to a single producer or a single
+     * consumer.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @param singleProducer if {@code true}, elements are inserted by
+     *        only one thread at a time
+     * @param singleConsumer if {@code true}, elements are removed by
+     *        only one thread at a time
+     * @throws IllegalArgumentException if {@code capacity} is less
+     *         than 1 or greater than 2<sup>30</sup>
+     */
+    public RingBlockingQueue(int capacity, boolean singleProducer,
+                             boolean singleConsumer) {
+        if (capacity <= 0 || capacity > MAXIMUM_CAPACITY)
+            throw new IllegalArgumentException();
+        int n = 2;
+        while (n < capacity)
+            n <<= 1;
+        items = new Object[n];
+        long[] seqs = new long[n];
+        for (int i = 0; i < n; ++i)
+            seqs[i] = i;
+        sequences = seqs;
+        mask = n - 1;
+        this.capacity = capacity == 1 ? 1 : n;
+        this.singleProducer = singleProducer;
+        this.singleConsumer = singleConsumer;
+    }
+
+    // Internal helper methods
+
+    /**
+     * Throws NullPointerException if argument is null.
+     *
+     * @param v the element
+     */
+    private static void checkNotNull(Object v) {
+        if (v == null)
+            throw new NullPointerException();
+    }
+
+    private long sequenceAt(int i) {
+        return UNSAFE.getLongVolatile(sequences, ((long)i << SSHIFT) + SBASE);
+    }
+
+    private void setSequence(int i, long s) {
+        UNSAFE.putOrderedLong(sequences, ((long)i << SSHIFT) + SBASE, s);
+    }
+
+    private Object itemAt(int i) {
+        return UNSAFE.getObjectVolatile(items, ((long)i << ASHIFT) + ABASE);
+    }
+
+    /**
+     * Returns true if an insertion at t would exceed a capacity
+     * smaller than the ring.
+     */
+    private boolean overCapacity(long t) {
+        return capacity != items.length && t - head >= capacity;
+    }
+
+    private boolean casTail(long cmp, long val) {
+        return UNSAFE.compareAndSwapLong(this, tailOffset, cmp, val);
+    }
+
+    private boolean casHead(long cmp, long val) {
+        return UNSAFE.compareAndSwapLong(this, headOffset, cmp, val);
+    }
+
+    /**
+     * Inserts e if a slot is free, without signalling.
+     *
+     * @return false if the queue is full
+     */
+    private boolean insert(Object e) {
+        long t;
+        int i;
+        if (singleProducer) {
+            t = tail;
+            i = (int)t & mask;
+            if (sequenceAt(i) != t || overCapacity(t))
+                return false;
+            tail = t + 1;
+        } else {
+            for (;;) {
+                t = tail;
+                i = (int)t & mask;
+                long d = sequenceAt(i) - t;
+                if (d == 0) {
+                    if (overCapacity(t))
+                        return false;
+                    if (casTail(t, t + 1))
+                        break;
+                } else if (d < 0)
+                    return false;
+            }
+        }
+        items[i] = e;
+        setSequence(i, t + 1);
+        return true;
+    }
+
+    /**
+     * Inserts the elements a[off, off + n) that fit in the run of free
+     * slots at the tail, without signalling.
+     *
+     * @return the number of elements inserted
+     */
+    private int insertAll(Object[] a, int off, int n) {
+        long t;
+        int k;
+        if (singleProducer) {
+            t = tail;
+            for (k = 0; k < n; ++k) {
+                if (sequenceAt((int)(t + k) & mask) != t + k ||
+                    overCapacity(t + k))
+                    break;
+            }
+            if (k == 0)
+                return 0;
+            tail = t + k;
+        } else {
+            for (;;) {
+                t = tail;
+                long d = sequenceAt((int)t & mask) - t;
+                if (d < 0)
+                    return 0;
+                if (d == 0) {
+                    if (overCapacity(t))
+                        return 0;
+                    for (k = 1; k < n; ++k) {
+                        if (sequenceAt((int)(t + k) & mask) != t + k ||
+                            overCapacity(t + k))
+                            break;
+                    }
+                    if (casTail(t, t + k))
+                        break;
+                }
+            }
+        }
+        for (int j = 0; j < k; ++j) {
+            int i = (int)(t + j) & mask;
+            items[i] = a[off + j];
+            setSequence(i, t + j + 1);
+        }
+        return k;
+    }
+
+    /**
+     * Removes the head element if one is published, without
+     * signalling.
+     *
+     * @return the element, or null if the queue is empty
+     */
+    private Object extract() {
+        long h;
+        int i;
+        if (singleConsumer) {
+            h = head;
+            i = (int)h & mask;
+            if (sequenceAt(i) != h + 1)
+                return null;
+            head = h + 1;
+        } else {
+            for (;;) {
+                h = head;
+                i = (int)h & mask;
+                long d = sequenceAt(i) - (h + 1);
+                if (d == 0) {
+                    if (casHead(h, h + 1))
+                        break;
+                } else if (d < 0)
+                    return null;
+            }
+        }
+        Object x = items[i];
+        items[i] = null;
+        setSequence(i, h + items.length);
+        return x;
+    }
+
+    /**
+     * Removes into buf up to n elements from the run of published
+     * slots at the head, without signalling.
+     *
+     * @return the number of elements removed
+     */
+    private int extractAll(Object[] buf, int n) {
+        long h;
+        int k;
+        if (singleConsumer) {
+            h = head;
+            for (k = 0; k < n; ++k) {
+                if (sequenceAt((int)(h + k) & mask) != h + k + 1)
+                    break;
+            }
+            if (k == 0)
+                return 0;
+            head = h + k;
+        } else {
+            for (;;) {
+                h = head;
+                long d = sequenceAt((int)h & mask) - (h + 1);
+                if (d < 0)
+                    return 0;
+                if (d == 0) {
+                    for (k = 1; k < n; ++k) {
+                        if (sequenceAt((int)(h + k) & mask) != h + k + 1)
+                            break;
+                    }
+                    if (casHead(h, h + k))
+                        break;
+                }
+            }
+        }
+        final Object[] items = this.items;
+        for (int j = 0; j < k; ++j) {
+            int i = (int)(h + j) & mask;
+            buf[j] = items[i];
+            items[i] = null;
+            setSequence(i, h + j + items.length);
+        }
+        return k;
+    }
+
+    /**
+     * Wakes waiting consumers after n insertions.
+     */
+    private void signalNotEmpty(int n) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (n == 1)
+                notEmpty.signal();
+            else
+                notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wakes waiting producers after n removals.
+     */
+    private void signalNotFull(int n) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (n == 1)
+                notFull.signal();
+            else
+                notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Slow path of put and timed offer: inserts e, waiting while the
+     * queue is full.
+     *
+     * @return false if the wait timed out
+     */
+    private boolean awaitInsert(Object e, boolean timed, long nanos)
+        throws InterruptedException {
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            ++waitingProducers;
+            try {
+                while (!insert(e)) {
+                    if (tail - head < capacity)
+                        Thread.yield();     // a removal is completing
+                    else if (!timed)
+                        notFull.await();
+                    else if (nanos <= 0)
+                        return false;
+                    else
+                        nanos = notFull.awaitNanos(nanos);
+                }
+            } finally {
+                --waitingProducers;
+            }
+            if (waitingConsumers != 0)
+                notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Slow path of take and timed poll: removes the head element,
+     * waiting while the queue is empty.
+     *
+     * @return the element, or null if the wait timed out
+     */
+    private Object awaitExtract(boolean timed, long nanos)
+        throws InterruptedException {
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            Object x;
+            ++waitingConsumers;
+            try {
+                while ((x = extract()) == null) {
+                    if (tail != head)
+                        Thread.yield();     // an insertion is completing
+                    else if (!timed)
+                        notEmpty.await();
+                    else if (nanos <= 0)
+                        return null;
+                    else
+                        nanos = notEmpty.awaitNanos(nanos);
+                }
+            } finally {
+                --waitingConsumers;
+            }
+            if (waitingProducers != 0)
+                notFull.signal();
+            return x;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <E> E cast(Object item) {
+        return (E) item;
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's capacity,
+     * returning {@code true} upon success and throwing an
+     * {@code IllegalStateException} if this queue is full.
+     *
+     * @param e the element to add
+     * @return {@code true} (as specified by {@link Collection#add})
+     * @throws IllegalStateException if this queue is full
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean add(E e) {
+        return super.add(e);
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's capacity,
+     * returning {@code true} upon success and {@code false} if this queue
+     * is full.  This method is generally preferable to method {@link #add},
+     * which can fail to insert an element only by throwing an exception.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        checkNotNull(e);
+        if (!insert(e))
+            return false;
+        if (waitingConsumers != 0)
+            signalNotEmpty(1);
+        return true;
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * for space to become available if the queue is full.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void put(E e) throws InterruptedException {
+        checkNotNull(e);
+        if (insert(e)) {
+            if (waitingConsumers != 0)
+                signalNotEmpty(1);
+        } else {
+            awaitInsert(e, false, 0L);
+        }
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * up to the specified wait time for space to become available if
+     * the queue is full.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public boolean offer(E e, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        checkNotNull(e);
+        if (insert(e)) {
+            if (waitingConsumers != 0)
+                signalNotEmpty(1);
+            return true;
+        }
+        return awaitInsert(e, true, unit.toNanos(timeout));
+    }
+
+    /**
+     * Inserts as many elements of the specified collection as there
+     * is room for, without waiting, in the order that they are
+     * returned by the collection's iterator.  Runs of free slots are
+     * claimed at once, which is cheaper than inserting the elements
+     * one at a time.
+     *
+     * @param c the elements to insert
+     * @return the number of elements inserted, which are the first
+     *         that many elements of {@code c}
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null
+     * @throws IllegalArgumentException if the collection is this queue
+     */
+    public int offerAll(Collection<? extends E> c) {
+        checkNotNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+        Object[] a = c.toArray();
+        for (Object e : a)
+            checkNotNull(e);
+        int n = 0;
+        int k;
+        while (n < a.length && (k = insertAll(a, n, a.length - n)) > 0)
+            n += k;
+        if (n > 0 && waitingConsumers != 0)
+            signalNotEmpty(n);
+        return n;
+    }
+
+    public E poll() {
+        Object x = extract();
+        if (x != null && waitingProducers != 0)
+            signalNotFull(1);
+        return cast(x);
+    }
+
+    public E take() throws InterruptedException {
+        Object x = extract();
+        if (x == null)
+            return cast(awaitExtract(false, 0L));
+        if (waitingProducers != 0)
+            signalNotFull(1);
+        return cast(x);
+    }
+
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        Object x = extract();
+        if (x == null)
+            return cast(awaitExtract(true, unit.toNanos(timeout)));
+        if (waitingProducers != 0)
+            signalNotFull(1);
+        return cast(x);
+    }
+
+    public E peek() {
+        for (;;) {
+            long h = head;
+            int i = (int)h & mask;
+            long d = sequenceAt(i) - (h + 1);
+            if (d < 0)
+                return null;
+            if (d == 0) {
+                Object x = itemAt(i);
+                // valid if the slot was not taken meanwhile
+                if (x != null && head == h)
+                    return cast(x);
+            }
+        }
+    }
+
+    // this doc comment is overridden to remove the reference to collections
+    // greater in size than Integer.MAX_VALUE
+    /**
+     * Returns the number of elements in this queue.
+     *
+     * @return the number of elements in this queue
+     */
+    public int size() {
+        for (;;) {
+            long h = head;
+            long t = tail;
+            if (head == h) {
+                long n = t - h;
+                return (n <= 0L) ? 0
+                    : (n >= capacity) ? capacity : (int)n;
+            }
+        }
+    }
+
+    // this doc comment is a modified copy of the inherited doc comment,
+    // without the reference to unlimited queues.
+    /**
+     * Returns the number of additional elements that this queue can ideally
+     * (in the absence of memory or resource constraints) accept without
+     * blocking. This is always equal to the capacity of this queue
+     * less the current {@code size} of this queue.
+     *
+     * <p>Note that you <em>cannot</em> always tell if an attempt to insert
+     * an element will succeed by inspecting {@code remainingCapacity}
+     * because it may be the case that another thread is about to
+     * insert or remove an element.
+     */
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    /**
+     * Always throws {@code UnsupportedOperationException} if this
+     * queue contains the specified element, and otherwise returns
+     * {@code false}, since elements other than the head cannot be
+     * removed.
+     *
+     * @param o element to be removed from this queue, if present
+     * @return {@code false} if this queue does not contain the element
+     * @throws UnsupportedOperationException if this queue contains the
+     *         element
+     */
+    public boolean remove(Object o) {
+        return super.remove(o);
+    }
+
+    /**
+     * Returns an array containing all of the elements in this queue, in
+     * proper sequence, as of some moment during the call.
+     *
+     * <p>The returned array will be "safe" in that no references to it are
+     * maintained by this queue.  (In other words, this method must allocate
+     * a new array).  The caller is thus free to modify the returned array.
+     *
+     * <p>This method acts as bridge between array-based and collection-based
+     * APIs.
+     *
+     * @return an array containing all of the elements in this queue
+     */
+    public Object[] toArray() {
+        return snapshot().toArray();
+    }
+
+    /**
+     * Returns an array containing all of the elements in this queue, in
+     * proper sequence, as by {@link #toArray()}; the runtime type of the
+     * returned array is that of the specified array.  If the queue fits
+     * in the specified array, it is returned therein.  Otherwise, a new
+     * array is allocated with the runtime type of the specified array and
+     * the size of this queue.
+     *
+     * @param a the array into which the elements of the queue are to
+     *          be stored, if it is big enough; otherwise, a new array of the
+     *          same runtime type is allocated for this purpose
+     * @return an array containing all of the elements in this queue
+     * @throws ArrayStoreException if the runtime type of the specified array
+     *         is not a supertype of the runtime type of every element in
+     *         this queue
+     * @throws NullPointerException if the specified array is null
+     */
+    public <T> T[] toArray(T[] a) {
+        return snapshot().toArray(a);
+    }
+
+    /**
+     * Returns the published elements from head to tail, each of which
+     * was in the queue at some moment during the call.
+     */
+    private ArrayList<Object> snapshot() {
+        long h = head;
+        long t = tail;
+        ArrayList<Object> list = new ArrayList<Object>();
+        for (long p = Math.max(h, t - items.length); p < t; ++p) {
+            int i = (int)p & mask;
+            if (sequenceAt(i) == p + 1) {
+                Object x = itemAt(i);
+                if (x != null && sequenceAt(i) == p + 1)
+                    list.add(x);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, size());
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        checkNotNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        Object[] buf = new Object[Math.min(maxElements,
+                                           Math.min(items.length, MAX_BATCH))];
+        int n = 0;
+        int k;
+        while (n < maxElements &&
+               (k = extractAll(buf, Math.min(buf.length, maxElements - n))) > 0) {
+            n += k;
+            if (waitingProducers != 0)
+                signalNotFull(k);
+            for (int j = 0; j < k; ++j) {
+                c.add(RingBlockingQueue.<E>cast(buf[j]));
+                buf[j] = null;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns an iterator over the elements in this queue in proper sequence.
+     * The elements will be returned in order from first (head) to last (tail).
+     *
+     * <p>The returned iterator traverses a snapshot of the elements
+     * taken when it is created, and so never throws {@link
+     * java.util.ConcurrentModificationException}.  Its {@code remove}
+     * method is not supported.
+     *
+     * @return an iterator over the elements in this queue in proper sequence
+     */
+    public Iterator<E> iterator() {
+        return new Itr(snapshot().toArray());
+    }
+
+    private class Itr implements Iterator<E> {
+        private final Object[] elements;
+        private int cursor;
+
+        Itr(Object[] elements) {
+            this.elements = elements;
+        }
+
+        public boolean hasNext() {
+            return cursor < elements.length;
+        }
+
+        public E next() {
+            if (cursor >= elements.length)
+                throw new NoSuchElementException();
+            return RingBlockingQueue.<E>cast(elements[cursor++]);
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe UNSAFE;
+    private static final long headOffset;
+    private static final long tailOffset;
+    private static final long ABASE;
+    private static final int ASHIFT;
+    private static final long SBASE;
+    private static final int SSHIFT;
+    static {
+        try {
+            UNSAFE = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = RingBlockingQueue.class;
+            headOffset = UNSAFE.objectFieldOffset
+                (k.getDeclaredField("head"));
+            tailOffset = UNSAFE.objectFieldOffset
+                (k.getDeclaredField("tail"));
+            Class<?> ak = Object[].class;
+            ABASE = UNSAFE.arrayBaseOffset(ak);
+            int scale = UNSAFE.arrayIndexScale(ak);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+            Class<?> sk = long[].class;
+            SBASE = UNSAFE.arrayBaseOffset(sk);
+            scale = UNSAFE.arrayIndexScale(sk);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            SSHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
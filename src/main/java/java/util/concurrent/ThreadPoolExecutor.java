@@ -36,8 +36,10 @@
 package java.util.concurrent;
 import java.util.concurrent.locks.AbstractQueuedSynchronizer;
 import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * An {@link ExecutorService} that executes each submitted task using
@@ -441,25 +443,33 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
     private final java.util.concurrent.BlockingQueue<Runnable> workQueue;
 
     /**
-     * Lock held on access to workers set and related bookkeeping.
-     * While we could use a concurrent set of some sort, it turns out
-     * to be generally preferable to use a lock. Among the reasons is
-     * that this serializes interruptIdleWorkers, which avoids
-     * unnecessary interrupt storms, especially during shutdown.
-     * Otherwise exiting threads would concurrently interrupt those
-     * that have not yet interrupted. It also simplifies some of the
-     * associated statistics bookkeeping of largestPoolSize etc. We
-     * also hold mainLock on shutdown and shutdownNow, for the sake of
-     * ensuring workers set is stable while separately checking
-     * permission to interrupt and actually interrupting.
+     * Lock held on interrupting workers, on shutdown and on
+     * termination.  Holding it serializes interruptIdleWorkers,
+     * which avoids unnecessary interrupt storms, especially during
+     * shutdown.  Otherwise exiting threads would concurrently
+     * interrupt those that have not yet interrupted.  We also hold
+     * mainLock on shutdown and shutdownNow, for the sake of checking
+     * permission to interrupt and actually interrupting as one
+     * action.  The workers set itself is not guarded by mainLock;
+     * see registry.
      */
     private final ReentrantLock mainLock = new ReentrantLock();
 
     /**
-     * Set containing all worker threads in pool. Accessed only when
-     * holding mainLock.
+     * The workers set and its statistics, as an immutable snapshot
+     * replaced by CAS whenever a worker is added or removed.  This
+     * lets execute, addWorker and processWorkerExit proceed without
+     * contending for mainLock, and lets the statistics methods read
+     * a consistent view without locking.  Copying the array on each
+     * change is cheap relative to starting or stopping a thread.
+     *
+     * Because the tasks completed by an exiting worker move to
+     * completedTaskCount in the same snapshot that removes the
+     * worker, the sum of completedTaskCount and the live workers'
+     * counters never decreases across successive reads.
      */
-    private final java.util.HashSet<Worker> workers = new java.util.HashSet<Worker>();
+    private final AtomicReference<Registry> registry =
+        new AtomicReference<Registry>(Registry.EMPTY);
 
     /**
      * Wait condition to support awaitTermination
@@ -467,16 +477,100 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
     private final Condition termination = mainLock.newCondition();
 
     /**
-     * Tracks largest attained pool size. Accessed only under
-     * mainLock.
+     * An immutable snapshot of the workers set.
+     */
+    private static final class Registry {
+        static final Registry EMPTY = new Registry(new Worker[0], 0, 0L);
+
+        /** Workers in the pool, in order of addition */
+        final Worker[] workers;
+        /** Largest attained pool size */
+        final int largestPoolSize;
+        /** Tasks completed by workers no longer in the pool */
+        final long completedTaskCount;
+
+        Registry(Worker[] workers, int largestPoolSize,
+                 long completedTaskCount) {
+            this.workers = workers;
+            this.largestPoolSize = largestPoolSize;
+            this.completedTaskCount = completedTaskCount;
+        }
+
+        Registry add(Worker w) {
+            int n = workers.length;
+            Worker[] ws = java.util.Arrays.copyOf(workers, n + 1);
+            ws[n] = w;
+            return new Registry(ws, Math.max(largestPoolSize, n + 1),
+                                completedTaskCount);
+        }
+
+        /** Returns this registry without w, or this if w is absent. */
+        Registry remove(Worker w, long completedTasks) {
+            Worker[] ws = workers;
+            int n = ws.length;
+            for (int i = 0; i < n; ++i) {
+                if (ws[i] == w) {
+                    Worker[] a = new Worker[n - 1];
+                    System.arraycopy(ws, 0, a, 0, i);
+                    System.arraycopy(ws, i + 1, a, i, n - 1 - i);
+                    return new Registry(a, largestPoolSize,
+                                        completedTaskCount + completedTasks);
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Adds w to the workers set.
      */
-    private int largestPoolSize;
+    private void registerWorker(Worker w) {
+        Registry r;
+        do {} while (!registry.compareAndSet(r = registry.get(), r.add(w)));
+    }
 
     /**
-     * Counter for completed tasks. Updated only on termination of
-     * worker threads. Accessed only under mainLock.
+     * Removes w from the workers set, if present, retiring its
+     * completed task count.
      */
-    private long completedTaskCount;
+    private void deregisterWorker(Worker w) {
+        Registry r, next;
+        do {
+            r = registry.get();
+        } while ((next = r.remove(w, w.completedTasks)) != r &&
+                 !registry.compareAndSet(r, next));
+    }
+
+    /**
+     * True if each worker has its own task queue; see the
+     * constructor taking {@code localQueues}.  In this mode execute
+     * places tasks in the workers' localQueues, round-robin or by
+     * key, and workQueue only holds tasks that could not be placed
+     * there, such as those left by exiting workers.  A worker takes
+     * tasks from its own queue first, then from workQueue, and then
+     * steals from the tail of other workers' queues.  Idle workers
+     * park rather than block on a queue: a worker announces that it
+     * is about to park by setting its parked field and incrementing
+     * idleCount, and then rechecks all queues before parking, while
+     * a submitter first enqueues and then checks parked and
+     * idleCount, so that either the worker sees the task or the
+     * submitter sees the worker and unparks it.  When the chosen
+     * worker is busy, the submitter unparks some other idle worker
+     * to steal the task.
+     */
+    private final boolean localQueues;
+
+    /**
+     * The number of workers that are parked or about to park waiting
+     * for tasks, when localQueues.
+     */
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    /**
+     * Round-robin index for placing tasks in workers' local queues.
+     * Updated racily; occasional repeated indices are harmless.
+     */
+    private int nextIndex;
 
     /*
      * All user control parameters are declared as volatiles so that
@@ -598,6 +692,12 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
         Runnable firstTask;
         /** Per-thread task counter */
         volatile long completedTasks;
+        /** This worker's own tasks if localQueues, else null */
+        final java.util.concurrent.ConcurrentLinkedDeque<Runnable> localQueue;
+        /** True if parked or about to park; see localQueues */
+        volatile boolean parked;
+        /** Set on exit, after which localQueue is no longer used */
+        volatile boolean retired;
 
         /**
          * Creates with given first task and thread from ThreadFactory.
@@ -606,6 +706,8 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
         Worker(Runnable firstTask) {
             setState(-1); // inhibit interrupts until runWorker
             this.firstTask = firstTask;
+            this.localQueue = localQueues ?
+                new java.util.concurrent.ConcurrentLinkedDeque<Runnable>() : null;
             this.thread = getThreadFactory().newThread(this);
         }
 
@@ -688,7 +790,7 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
             int c = ctl.get();
             if (isRunning(c) ||
                 runStateAtLeast(c, TIDYING) ||
-                (runStateOf(c) == SHUTDOWN && ! workQueue.isEmpty()))
+                (runStateOf(c) == SHUTDOWN && ! queuesEmpty()))
                 return;
             if (workerCountOf(c) != 0) { // Eligible to terminate
                 interruptIdleWorkers(ONLY_ONE);
@@ -733,7 +835,7 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
             final ReentrantLock mainLock = this.mainLock;
             mainLock.lock();
             try {
-                for (Worker w : workers)
+                for (Worker w : registry.get().workers)
                     security.checkAccess(w.thread);
             } finally {
                 mainLock.unlock();
@@ -749,7 +851,7 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
         final ReentrantLock mainLock = this.mainLock;
         mainLock.lock();
         try {
-            for (Worker w : workers)
+            for (Worker w : registry.get().workers)
                 w.interruptIfStarted();
         } finally {
             mainLock.unlock();
@@ -779,7 +881,7 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
         final ReentrantLock mainLock = this.mainLock;
         mainLock.lock();
         try {
-            for (Worker w : workers) {
+            for (Worker w : registry.get().workers) {
                 Thread t = w.thread;
                 if (!t.isInterrupted() && w.tryLock()) {
                     try {
@@ -855,9 +957,182 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
                     taskList.add(r);
             }
         }
+        if (localQueues) {
+            for (Worker w : registry.get().workers) {
+                Runnable r;
+                while ((r = w.localQueue.pollFirst()) != null)
+                    taskList.add(r);
+            }
+        }
         return taskList;
     }
 
+    /**
+     * Returns true if there are no queued tasks, in workQueue or, if
+     * localQueues, in any worker's queue.
+     */
+    private boolean queuesEmpty() {
+        if (!workQueue.isEmpty())
+            return false;
+        if (localQueues) {
+            for (Worker w : registry.get().workers)
+                if (!w.localQueue.isEmpty())
+                    return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of queued tasks, in workQueue and, if
+     * localQueues, in the workers' queues.
+     */
+    private int queuedTaskCount() {
+        int n = workQueue.size();
+        if (localQueues) {
+            for (Worker w : registry.get().workers)
+                n += w.localQueue.size();
+        }
+        return n;
+    }
+
+    /*
+     * Methods for worker-local queues, used only if localQueues
+     */
+
+    /**
+     * Queues a task for execution, in the queue of the worker at the
+     * given index, modulo the pool size, if localQueues, else in
+     * workQueue.
+     *
+     * @return false if the task could not be queued
+     */
+    private boolean enqueue(Runnable command, int index) {
+        if (!localQueues)
+            return workQueue.offer(command);
+        Worker[] ws = registry.get().workers;
+        int n = ws.length;
+        if (n > 0) {
+            Worker w = ws[(index & Integer.MAX_VALUE) % n];
+            java.util.concurrent.ConcurrentLinkedDeque<Runnable> q = w.localQueue;
+            q.offerLast(command);
+            // If w is exiting, its queue may already have been moved
+            // to workQueue; take the task back unless that moved it
+            if (!w.retired || !q.removeLastOccurrence(command)) {
+                if (w.parked) {
+                    w.parked = false;
+                    LockSupport.unpark(w.thread);
+                }
+                else
+                    signalIdleWorker();
+                return true;
+            }
+        }
+        if (!workQueue.offer(command))
+            return false;
+        signalIdleWorker();
+        return true;
+    }
+
+    /**
+     * Unparks some idle worker, if there is one, to take a task that
+     * its chosen worker is too busy for.
+     */
+    private void signalIdleWorker() {
+        if (idleCount.get() > 0) {
+            for (Worker w : registry.get().workers) {
+                if (w.parked) {
+                    w.parked = false;
+                    LockSupport.unpark(w.thread);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes a task for worker w, from its own queue, workQueue or
+     * another worker's queue, parking while there is none.  Mirrors
+     * the workQueue.poll and take calls of getTask.
+     *
+     * @param timed whether to give up after keepAliveTime
+     * @return the task, or null if timed out
+     * @throws InterruptedException if interrupted while parked
+     */
+    private Runnable takeLocalTask(Worker w, boolean timed)
+        throws InterruptedException {
+        Runnable r;
+        if ((r = w.localQueue.pollFirst()) != null ||
+            (r = workQueue.poll()) != null ||
+            (r = steal(w)) != null)
+            return r;
+        long nanos = keepAliveTime;
+        final long deadline = timed ? System.nanoTime() + nanos : 0L;
+        idleCount.incrementAndGet();
+        try {
+            for (;;) {
+                w.parked = true;
+                // recheck after announcing, as submitters check the other way
+                if ((r = w.localQueue.pollFirst()) != null ||
+                    (r = workQueue.poll()) != null ||
+                    (r = steal(w)) != null)
+                    return r;
+                if (timed && (nanos = deadline - System.nanoTime()) <= 0L)
+                    return null;
+                if (timed)
+                    LockSupport.parkNanos(this, nanos);
+                else
+                    LockSupport.park(this);
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+            }
+        } finally {
+            w.parked = false;
+            idleCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Takes a task from the tail of some other worker's queue,
+     * starting after w, or returns null if there is none.
+     */
+    private Runnable steal(Worker w) {
+        Worker[] ws = registry.get().workers;
+        int n = ws.length;
+        int i = 0;
+        while (i < n && ws[i] != w)
+            ++i;
+        for (int k = 1; k < n; ++k) {
+            Runnable r = ws[(i + k) % n].localQueue.pollLast();
+            if (r != null)
+                return r;
+        }
+        return null;
+    }
+
+    /**
+     * Moves any tasks left in the queue of exiting worker w to
+     * workQueue, for other workers to take.  Once w is marked
+     * retired, submitters no longer leave tasks in its queue, so
+     * an empty queue needs no further action.  Otherwise the tasks
+     * are moved while holding mainLock, so that they cannot be in
+     * transit while shutdownNow drains the queues.
+     */
+    private void retireLocalQueue(Worker w) {
+        w.retired = true;
+        if (w.localQueue.isEmpty())
+            return;
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            Runnable r;
+            while ((r = w.localQueue.pollFirst()) != null)
+                workQueue.offer(r);   // unbounded
+        } finally {
+            mainLock.unlock();
+        }
+        signalIdleWorker();
+    }
+
     /*
      * Methods for creating, running and cleaning up after workers
      */
@@ -898,7 +1173,7 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
             if (rs >= SHUTDOWN &&
                 ! (rs == SHUTDOWN &&
                    firstTask == null &&
-                   ! workQueue.isEmpty()))
+                   ! queuesEmpty()))
                 return false;
 
             for (;;) {
@@ -916,35 +1191,23 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
         }
 
         boolean workerStarted = false;
-        boolean workerAdded = false;
         Worker w = null;
         try {
-            final ReentrantLock mainLock = this.mainLock;
             w = new Worker(firstTask);
             final Thread t = w.thread;
             if (t != null) {
-                mainLock.lock();
-                try {
-                    // Recheck while holding lock.
-                    // Back out on ThreadFactory failure or if
-                    // shut down before lock acquired.
-                    int c = ctl.get();
-                    int rs = runStateOf(c);
-
-                    if (rs < SHUTDOWN ||
-                        (rs == SHUTDOWN && firstTask == null)) {
-                        if (t.isAlive()) // precheck that t is startable
-                            throw new IllegalThreadStateException();
-                        workers.add(w);
-                        int s = workers.size();
-                        if (s > largestPoolSize)
-                            largestPoolSize = s;
-                        workerAdded = true;
-                    }
-                } finally {
-                    mainLock.unlock();
-                }
-                if (workerAdded) {
+                if (t.isAlive()) // precheck that t is startable
+                    throw new IllegalThreadStateException();
+                registerWorker(w);
+                // Recheck after registering. Back out if shut down
+                // since the first check: shutdown and shutdownNow
+                // advance the run state before reading the workers
+                // set, so either we see the new state here or they
+                // see w.
+                int c = ctl.get();
+                int rs = runStateOf(c);
+                if (rs < SHUTDOWN ||
+                    (rs == SHUTDOWN && firstTask == null)) {
                     t.start();
                     workerStarted = true;
                 }
@@ -959,21 +1222,19 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
     /**
      * Rolls back the worker thread creation.
      * - removes worker from workers, if present
+     * - moves any tasks already placed in its local queue
      * - decrements worker count
      * - rechecks for termination, in case the existence of this
      *   worker was holding up termination
      */
     private void addWorkerFailed(Worker w) {
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            if (w != null)
-                workers.remove(w);
-            decrementWorkerCount();
-            tryTerminate();
-        } finally {
-            mainLock.unlock();
+        if (w != null) {
+            deregisterWorker(w);
+            if (localQueues)
+                retireLocalQueue(w);
         }
+        decrementWorkerCount();
+        tryTerminate();
     }
 
     /**
@@ -993,14 +1254,9 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
         if (completedAbruptly) // If abrupt, then workerCount wasn't adjusted
             decrementWorkerCount();
 
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            completedTaskCount += w.completedTasks;
-            workers.remove(w);
-        } finally {
-            mainLock.unlock();
-        }
+        if (localQueues)
+            retireLocalQueue(w);
+        deregisterWorker(w);
 
         tryTerminate();
 
@@ -1008,7 +1264,7 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
         if (runStateLessThan(c, STOP)) {
             if (!completedAbruptly) {
                 int min = allowCoreThreadTimeOut ? 0 : corePoolSize;
-                if (min == 0 && ! workQueue.isEmpty())
+                if (min == 0 && ! queuesEmpty())
                     min = 1;
                 if (workerCountOf(c) >= min)
                     return; // replacement not needed
@@ -1030,10 +1286,11 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
      *    {@code allowCoreThreadTimeOut || workerCount > corePoolSize})
      *    both before and after the timed wait.
      *
+     * @param w the worker
      * @return task, or null if the worker must exit, in which case
      *         workerCount is decremented
      */
-    private Runnable getTask() {
+    private Runnable getTask(Worker w) {
         boolean timedOut = false; // Did the last poll() time out?
 
         retry:
@@ -1042,7 +1299,7 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
             int rs = runStateOf(c);
 
             // Check if queue empty only if necessary.
-            if (rs >= SHUTDOWN && (rs >= STOP || workQueue.isEmpty())) {
+            if (rs >= SHUTDOWN && (rs >= STOP || queuesEmpty())) {
                 decrementWorkerCount();
                 return null;
             }
@@ -1064,7 +1321,8 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
             }
 
             try {
-                Runnable r = timed ?
+                Runnable r = localQueues ? takeLocalTask(w, timed) :
+                    timed ?
                     workQueue.poll(keepAliveTime, java.util.concurrent.TimeUnit.NANOSECONDS) :
                     workQueue.take();
                 if (r != null)
@@ -1126,7 +1384,7 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
         w.unlock(); // allow interrupts
         boolean completedAbruptly = true;
         try {
-            while (task != null || (task = getTask()) != null) {
+            while (task != null || (task = getTask(w)) != null) {
                 w.lock();
                 // If pool is stopping, ensure thread is interrupted;
                 // if not, ensure thread is not interrupted.  This
@@ -1315,6 +1573,78 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
         this.keepAliveTime = unit.toNanos(keepAliveTime);
         this.threadFactory = threadFactory;
         this.handler = handler;
+        this.localQueues = false;
+    }
+
+    /**
+     * Creates a new {@code ThreadPoolExecutor} with the given initial
+     * parameters, optionally giving each worker thread its own task
+     * queue.
+     *
+     * <p>With {@code localQueues} false, the executor holds waiting
+     * tasks in a single unbounded {@link LinkedBlockingQueue} shared
+     * by all workers, as {@link Executors#newFixedThreadPool} does.
+     * With {@code localQueues} true, each worker has its own
+     * unbounded queue, and once {@code corePoolSize} threads are
+     * running, {@link #execute(Runnable)} places tasks in the
+     * workers' queues in turn, while {@link #execute(Runnable,
+     * Object)} places tasks with equal keys in the same worker's
+     * queue.  A worker runs the tasks in its own queue in the order
+     * they were placed there, and when it has none takes tasks from
+     * the tail of other workers' queues, so that one busy worker
+     * does not hold up tasks that idle workers could run.  Because
+     * submitters and workers rarely contend for the same queue, this
+     * mode scales better with many threads and many short tasks,
+     * at the cost of no longer executing tasks in submission order
+     * across the pool.
+     *
+     * <p>As with any unbounded queue, no more than {@code
+     * corePoolSize} threads are created, so the value of {@code
+     * maximumPoolSize} has no effect.
+     *
+     * @param corePoolSize the number of threads to keep in the pool, even
+     *        if they are idle, unless {@code allowCoreThreadTimeOut} is set
+     * @param maximumPoolSize the maximum number of threads to allow in the
+     *        pool
+     * @param keepAliveTime when the number of threads is greater than
+     *        the core, this is the maximum time that excess idle threads
+     *        will wait for new tasks before terminating.
+     * @param unit the time unit for the {@code keepAliveTime} argument
+     * @param threadFactory the factory to use when the executor
+     *        creates a new thread
+     * @param handler the handler to use when execution is blocked
+     *        because the executor has been shut down
+     * @param localQueues if true, give each worker its own task queue
+     * @throws IllegalArgumentException if one of the following holds:<br>
+     *         {@code corePoolSize < 0}<br>
+     *         {@code keepAliveTime < 0}<br>
+     *         {@code maximumPoolSize <= 0}<br>
+     *         {@code maximumPoolSize < corePoolSize}
+     * @throws NullPointerException if {@code threadFactory}
+     *         or {@code handler} is null
+     * @since 1.7
+     */
+    public ThreadPoolExecutor(int corePoolSize,
+                              int maximumPoolSize,
+                              long keepAliveTime,
+                              java.util.concurrent.TimeUnit unit,
+                              java.util.concurrent.ThreadFactory threadFactory,
+                              java.util.concurrent.RejectedExecutionHandler handler,
+                              boolean localQueues) {
+        if (corePoolSize < 0 ||
+            maximumPoolSize <= 0 ||
+            maximumPoolSize < corePoolSize ||
+            keepAliveTime < 0)
+            throw new IllegalArgumentException();
+        if (threadFactory == null || handler == null)
+            throw new NullPointerException();
+        this.corePoolSize = corePoolSize;
+        this.maximumPoolSize = maximumPoolSize;
+        this.workQueue = new java.util.concurrent.LinkedBlockingQueue<Runnable>();
+        this.keepAliveTime = unit.toNanos(keepAliveTime);
+        this.threadFactory = threadFactory;
+        this.handler = handler;
+        this.localQueues = localQueues;
     }
 
     /**
@@ -1334,6 +1664,46 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
     public void execute(Runnable command) {
         if (command == null)
             throw new NullPointerException();
+        dispatch(command, localQueues ? nextIndex++ : 0);
+    }
+
+    /**
+     * Executes the given task sometime in the future, preferring the
+     * worker thread that runs other tasks executed with an equal key.
+     * If this executor was constructed with worker-local queues, and
+     * the number of threads in the pool does not change in between,
+     * tasks with equal keys are placed in the same worker's queue,
+     * where they are run in the order they were executed unless idle
+     * workers take some of them first; this can improve locality for
+     * tasks operating on the same data.  Otherwise this method is
+     * equivalent to {@link #execute(Runnable) execute(command)}.
+     *
+     * @param command the task to execute
+     * @param key the key identifying the preferred worker
+     * @throws java.util.concurrent.RejectedExecutionException at discretion of
+     *         {@code RejectedExecutionHandler}, if the task
+     *         cannot be accepted for execution
+     * @throws NullPointerException if {@code command} or {@code key}
+     *         is null
+     * @since 1.7
+     */
+    public void execute(Runnable command, Object key) {
+        if (command == null || key == null)
+            throw new NullPointerException();
+        if (!localQueues) {
+            execute(command);
+            return;
+        }
+        int h = key.hashCode();
+        dispatch(command, h ^ (h >>> 16));
+    }
+
+    /**
+     * Common body of the execute methods: starts a core thread for
+     * command, or queues it (see enqueue for the use of index), or
+     * failing both starts a non-core thread or rejects it.
+     */
+    private void dispatch(Runnable command, int index) {
         /*
          * Proceed in 3 steps:
          *
@@ -1360,7 +1730,7 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
                 return;
             c = ctl.get();
         }
-        if (isRunning(c) && workQueue.offer(command)) {
+        if (isRunning(c) && enqueue(command, index)) {
             int recheck = ctl.get();
             if (! isRunning(recheck) && remove(command))
                 reject(command);
@@ -1548,9 +1918,9 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
             // As a heuristic, prestart enough new workers (up to new
             // core size) to handle the current number of tasks in
             // queue, but stop if queue becomes empty while doing so.
-            int k = Math.min(delta, workQueue.size());
+            int k = Math.min(delta, queuedTaskCount());
             while (k-- > 0 && addWorker(null, true)) {
-                if (workQueue.isEmpty())
+                if (queuesEmpty())
                     break;
             }
         }
@@ -1726,6 +2096,10 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
      * This queue may be in active use.  Retrieving the task queue
      * does not prevent queued tasks from executing.
      *
+     * <p>If this executor was constructed with worker-local queues,
+     * the returned queue holds only those tasks that could not be
+     * placed in a worker's own queue, and is usually empty.
+     *
      * @return the task queue
      */
     public java.util.concurrent.BlockingQueue<Runnable> getQueue() {
@@ -1750,6 +2124,11 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
      */
     public boolean remove(Runnable task) {
         boolean removed = workQueue.remove(task);
+        if (!removed && localQueues) {
+            for (Worker w : registry.get().workers)
+                if (removed = w.localQueue.remove(task))
+                    break;
+        }
         tryTerminate(); // In case SHUTDOWN and now empty
         return removed;
     }
@@ -1781,6 +2160,17 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
                 if (r instanceof java.util.concurrent.Future<?> && ((java.util.concurrent.Future<?>)r).isCancelled())
                     q.remove(r);
         }
+        if (localQueues) {
+            // weakly consistent iterators; no interference to handle
+            for (Worker w : registry.get().workers) {
+                java.util.Iterator<Runnable> it = w.localQueue.iterator();
+                while (it.hasNext()) {
+                    Runnable r = it.next();
+                    if (r instanceof java.util.concurrent.Future<?> && ((java.util.concurrent.Future<?>)r).isCancelled())
+                        it.remove();
+                }
+            }
+        }
 
         tryTerminate(); // In case SHUTDOWN and now empty
     }
@@ -1793,16 +2183,10 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
      * @return the number of threads
      */
     public int getPoolSize() {
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            // Remove rare and surprising possibility of
-            // isTerminated() && getPoolSize() > 0
-            return runStateAtLeast(ctl.get(), TIDYING) ? 0
-                : workers.size();
-        } finally {
-            mainLock.unlock();
-        }
+        // Remove rare and surprising possibility of
+        // isTerminated() && getPoolSize() > 0
+        return runStateAtLeast(ctl.get(), TIDYING) ? 0
+            : registry.get().workers.length;
     }
 
     /**
@@ -1812,17 +2196,11 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
      * @return the number of threads
      */
     public int getActiveCount() {
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            int n = 0;
-            for (Worker w : workers)
-                if (w.isLocked())
-                    ++n;
-            return n;
-        } finally {
-            mainLock.unlock();
-        }
+        int n = 0;
+        for (Worker w : registry.get().workers)
+            if (w.isLocked())
+                ++n;
+        return n;
     }
 
     /**
@@ -1832,13 +2210,7 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
      * @return the number of threads
      */
     public int getLargestPoolSize() {
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            return largestPoolSize;
-        } finally {
-            mainLock.unlock();
-        }
+        return registry.get().largestPoolSize;
     }
 
     /**
@@ -1850,19 +2222,14 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
      * @return the number of tasks
      */
     public long getTaskCount() {
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            long n = completedTaskCount;
-            for (Worker w : workers) {
-                n += w.completedTasks;
-                if (w.isLocked())
-                    ++n;
-            }
-            return n + workQueue.size();
-        } finally {
-            mainLock.unlock();
+        Registry r = registry.get();
+        long n = r.completedTaskCount;
+        for (Worker w : r.workers) {
+            n += w.completedTasks;
+            if (w.isLocked())
+                ++n;
         }
+        return n + queuedTaskCount();
     }
 
     /**
@@ -1875,16 +2242,11 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
      * @return the number of tasks
      */
     public long getCompletedTaskCount() {
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            long n = completedTaskCount;
-            for (Worker w : workers)
-                n += w.completedTasks;
-            return n;
-        } finally {
-            mainLock.unlock();
-        }
+        Registry r = registry.get();
+        long n = r.completedTaskCount;
+        for (Worker w : r.workers)
+            n += w.completedTasks;
+        return n;
     }
 
     /**
@@ -1895,21 +2257,14 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
      * @return a string identifying this pool, as well as its state
      */
     public String toString() {
-        long ncompleted;
-        int nworkers, nactive;
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            ncompleted = completedTaskCount;
-            nactive = 0;
-            nworkers = workers.size();
-            for (Worker w : workers) {
-                ncompleted += w.completedTasks;
-                if (w.isLocked())
-                    ++nactive;
-            }
-        } finally {
-            mainLock.unlock();
+        Registry r = registry.get();
+        long ncompleted = r.completedTaskCount;
+        int nworkers = r.workers.length;
+        int nactive = 0;
+        for (Worker w : r.workers) {
+            ncompleted += w.completedTasks;
+            if (w.isLocked())
+                ++nactive;
         }
         int c = ctl.get();
         String rs = (runStateLessThan(c, SHUTDOWN) ? "Running" :
@@ -1919,7 +2274,7 @@ public class ThreadPoolExecutor extends java.util.concurrent.AbstractExecutorSer
             "[" + rs +
             ", pool size = " + nworkers +
             ", active threads = " + nactive +
-            ", queued tasks = " + workQueue.size() +
+            ", queued tasks = " + queuedTaskCount() +
             ", completed tasks = " + ncompleted +
             "]";
     }
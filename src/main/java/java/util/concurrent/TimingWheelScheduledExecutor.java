@@ -0,0 +1,925 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+/*
+ *
+ *
+ *
+ *
+ *
+ * Written by Doug Lea with assistance from members of JCP JSR-166
+ * Expert Group and released to the public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+
+package java.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link ScheduledExecutorService} that keeps delayed tasks in a
+ * hierarchical hashed timing wheel rather than a priority queue, so
+ * that scheduling and cancelling a task take constant time however
+ * many tasks are pending.  It suits programs that schedule and cancel
+ * large numbers of timeouts, most of which never fire, and that can
+ * accept the coarser timing described below.
+ *
+ * <p>Time is divided into ticks of a fixed duration, set when the
+ * executor is constructed.  A task is run no earlier than its delay
+ * requires, at the first tick boundary after it becomes due, and so
+ * typically up to one tick late, or later if the executor is
+ * overloaded.  A single timer thread advances the wheel once per
+ * tick, and hands all the tasks that fall due at a tick to a fixed
+ * pool of worker threads in a few batches, rather than one by one.
+ * Threads that schedule or cancel tasks never lock the wheel: they
+ * leave the request for the timer thread, which applies it at the
+ * next tick, so that cancelled tasks are also removed from the
+ * wheel within one tick.  Tasks passed to {@link #execute} and the
+ * {@code submit} methods, which have no delay, go to the worker
+ * threads directly.
+ *
+ * <p>Tasks due at the same tick may run in any order, and
+ * concurrently.  Successive executions of a periodic task do not
+ * overlap; if an execution takes longer than its period, the next
+ * one starts late.  On {@link #shutdown}, periodic tasks are
+ * cancelled, while delayed one-shot tasks still run when due, as
+ * with the default policies of {@link ScheduledThreadPoolExecutor};
+ * {@link #shutdownNow} returns the tasks that have not started.
+ *
+ * @since 1.7
+ */
+public class TimingWheelScheduledExecutor extends AbstractExecutorService
+        implements ScheduledExecutorService {
+
+    /*
+     * The wheel has levels of ticksPerWheel = 2^bits buckets each,
+     * as in the Linux kernel timers (Varghese and Lauck, "Hashed and
+     * Hierarchical Timing Wheels").  A task due at tick d is placed,
+     * relative to the next tick to process, t, at the lowest level
+     * i such that d - t < 2^(bits*(i+1)), in bucket
+     * (d >>> bits*i) & mask.  Level 0 thus holds the tasks due in
+     * the next ticksPerWheel ticks, one bucket per tick.  When t
+     * crosses a multiple of 2^(bits*i), the level i bucket for the
+     * block starting at t holds exactly the tasks due within that
+     * block, which are then re-placed at lower levels ("cascaded")
+     * before the level 0 bucket for t is expired.  There are enough
+     * levels to place any tick number, but those above level 0 are
+     * created only when first used.
+     *
+     * Buckets are doubly linked lists threaded through the tasks
+     * themselves, so that a task is added and unlinked in constant
+     * time, and the wheel, its counts and its links are used only
+     * by the timer thread.  Other threads pass new tasks and
+     * cancelled ones through the lock-free queues additions and
+     * cancellations, which the timer thread drains before each tick.
+     * While the wheel is empty the timer thread parks until a task
+     * is added, announcing this in timerParked, which schedulers
+     * check after queuing a task.  Otherwise it parks until the
+     * next tick is due, since no newly added task can be due before
+     * it.
+     *
+     * A task is placed by its due tick, computed from its nanoTime
+     * trigger time relative to startTime, rounding up so that it is
+     * never run early.  The due tick is computed when the task is
+     * placed, since a periodic task's trigger time changes between
+     * executions.
+     *
+     * Shutdown follows ThreadPoolExecutor and STPE: schedulers
+     * queue a task and then recheck the run state, taking the task
+     * back from the additions queue and rejecting it if the
+     * executor has shut down, unless the timer thread has already
+     * taken it.  The timer thread exits once the executor is shut
+     * down and the wheel and additions queue are empty, or at once
+     * on shutdownNow, and then shuts down the worker pool.
+     */
+
+    /** The default number of buckets at each level of the wheel. */
+    private static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    /** The largest number of tasks in one batch for the workers. */
+    private static final int MAX_BATCH = 64;
+
+    // runState values
+    private static final int RUNNING  = 0;
+    private static final int SHUTDOWN = 1;
+    private static final int STOP     = 2;
+
+    /** Sequence number to break scheduling ties, as in STPE */
+    private static final AtomicLong sequencer = new AtomicLong();
+
+    /** The tick duration in nanoseconds. */
+    private final long tickNanos;
+
+    /** log2 of the number of buckets per level. */
+    private final int bits;
+
+    /** The number of buckets per level, minus one. */
+    private final int mask;
+
+    /** The nanoTime of tick 0. */
+    private final long startTime;
+
+    /** The levels of the wheel, each created when first used. */
+    private final Bucket[][] wheel;
+
+    /** The next tick to process.  Accessed only by the timer thread. */
+    private long tick;
+
+    /** The number of tasks in the wheel.  Timer thread only. */
+    private int size;
+
+    /** Tasks to place in the wheel. */
+    private final ConcurrentLinkedQueue<WheelTask<?>> additions =
+        new ConcurrentLinkedQueue<WheelTask<?>>();
+
+    /** Cancelled tasks to unlink from the wheel. */
+    private final ConcurrentLinkedQueue<WheelTask<?>> cancellations =
+        new ConcurrentLinkedQueue<WheelTask<?>>();
+
+    /** The thread advancing the wheel. */
+    private final Thread timer;
+
+    /** True while the timer thread waits for the wheel to fill. */
+    private volatile boolean timerParked;
+
+    /** Counted down when the timer thread exits. */
+    private final CountDownLatch timerExited = new CountDownLatch(1);
+
+    /**
+     * Tasks still in the wheel when the timer thread exited on
+     * shutdownNow.  Written before timerExited is counted down.
+     */
+    private List<Runnable> remaining;
+
+    /** The pool running the tasks. */
+    private final ThreadPoolExecutor workers;
+
+    /** The number of worker threads. */
+    private final int poolSize;
+
+    /** RUNNING, SHUTDOWN or STOP. */
+    private volatile int runState;
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the
+     * given number of worker threads, a tick duration of one
+     * millisecond, and the default thread factory.
+     *
+     * @param poolSize the number of threads running tasks
+     * @throws IllegalArgumentException if {@code poolSize <= 0}
+     */
+    public TimingWheelScheduledExecutor(int poolSize) {
+        this(poolSize, 1L, TimeUnit.MILLISECONDS, DEFAULT_TICKS_PER_WHEEL,
+             Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the
+     * given number of worker threads and tick duration, and the
+     * default thread factory.
+     *
+     * @param poolSize the number of threads running tasks
+     * @param tickDuration the duration of a tick
+     * @param unit the time unit of the {@code tickDuration} argument
+     * @throws IllegalArgumentException if {@code poolSize <= 0} or
+     *         {@code tickDuration <= 0}
+     * @throws NullPointerException if {@code unit} is null
+     */
+    public TimingWheelScheduledExecutor(int poolSize, long tickDuration,
+                                        TimeUnit unit) {
+        this(poolSize, tickDuration, unit, DEFAULT_TICKS_PER_WHEEL,
+             Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the
+     * given parameters.  The timer thread, like the worker threads,
+     * is created using the given thread factory, and is started by
+     * this constructor.
+     *
+     * <p>The tick duration bounds how late tasks may run, and how
+     * often the timer thread wakes while any task is pending; a
+     * duration below the resolution of the operating system's timers
+     * only costs processor time.  The number of ticks per wheel
+     * (rounded up to a power of two) sets the span of delays, in
+     * ticks, that are placed directly in the lowest level of the
+     * wheel; longer delays are moved down through the higher levels
+     * as they approach.
+     *
+     * @param poolSize the number of threads running tasks
+     * @param tickDuration the duration of a tick
+     * @param unit the time unit of the {@code tickDuration} argument
+     * @param ticksPerWheel the number of buckets at each level of the
+     *        wheel
+     * @param threadFactory the factory to use when the executor
+     *        creates a new thread
+     * @throws IllegalArgumentException if {@code poolSize <= 0},
+     *         {@code tickDuration <= 0}, {@code ticksPerWheel < 2} or
+     *         {@code ticksPerWheel > 65536}
+     * @throws NullPointerException if {@code unit} or
+     *         {@code threadFactory} is null, or the thread factory
+     *         fails to create the timer thread
+     */
+    public TimingWheelScheduledExecutor(int poolSize, long tickDuration,
+                                        TimeUnit unit, int ticksPerWheel,
+                                        ThreadFactory threadFactory) {
+        if (poolSize <= 0 || tickDuration <= 0 ||
+            ticksPerWheel < 2 || ticksPerWheel > 1 << 16)
+            throw new IllegalArgumentException();
+        if (threadFactory == null)
+            throw new NullPointerException();
+        this.poolSize = poolSize;
+        this.tickNanos = Math.max(1L, unit.toNanos(tickDuration));
+        this.bits = 32 - Integer.numberOfLeadingZeros(ticksPerWheel - 1);
+        this.mask = (1 << bits) - 1;
+        this.wheel = new Bucket[(Long.SIZE + bits - 1) / bits][];
+        this.wheel[0] = newLevel();
+        this.workers = new ThreadPoolExecutor(poolSize, poolSize,
+                                              0L, TimeUnit.NANOSECONDS,
+                                              threadFactory,
+                                              new ThreadPoolExecutor.AbortPolicy(),
+                                              true);
+        Thread t = threadFactory.newThread(new Runnable() {
+                public void run() { runTimer(); }
+            });
+        if (t == null)
+            throw new NullPointerException();
+        this.timer = t;
+        this.startTime = System.nanoTime();
+        t.start();
+    }
+
+    private Bucket[] newLevel() {
+        Bucket[] level = new Bucket[mask + 1];
+        for (int i = 0; i <= mask; ++i)
+            level[i] = new Bucket();
+        return level;
+    }
+
+    /**
+     * A list of the tasks in one bucket of the wheel.
+     */
+    static final class Bucket {
+        WheelTask<?> head, tail;
+
+        void add(WheelTask<?> t) {
+            t.bucket = this;
+            WheelTask<?> p = tail;
+            t.prev = p;
+            t.next = null;
+            if (p == null)
+                head = t;
+            else
+                p.next = t;
+            tail = t;
+        }
+
+        void unlink(WheelTask<?> t) {
+            WheelTask<?> p = t.prev, n = t.next;
+            if (p == null)
+                head = n;
+            else
+                p.next = n;
+            if (n == null)
+                tail = p;
+            else
+                n.prev = p;
+            t.bucket = null;
+            t.prev = t.next = null;
+        }
+
+        /** Removes and returns all tasks, still linked by next. */
+        WheelTask<?> clear() {
+            WheelTask<?> h = head;
+            head = tail = null;
+            return h;
+        }
+    }
+
+    /**
+     * A scheduled task, which is also a node of a bucket list.
+     */
+    private class WheelTask<V>
+            extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+        /** Sequence number to break ties FIFO */
+        private final long sequenceNumber;
+
+        /** The time the task is enabled to execute in nanoTime units */
+        private long time;
+
+        /**
+         * Period in nanoseconds for repeating tasks.  A positive
+         * value indicates fixed-rate execution.  A negative value
+         * indicates fixed-delay execution.  A value of 0 indicates a
+         * non-repeating task.
+         */
+        private final long period;
+
+        // Wheel links, used only by the timer thread
+        Bucket bucket;
+        WheelTask<?> prev, next;
+
+        WheelTask(Runnable r, V result, long ns, long period) {
+            super(r, result);
+            this.time = ns;
+            this.period = period;
+            this.sequenceNumber = sequencer.getAndIncrement();
+        }
+
+        WheelTask(Callable<V> callable, long ns) {
+            super(callable);
+            this.time = ns;
+            this.period = 0;
+            this.sequenceNumber = sequencer.getAndIncrement();
+        }
+
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(time - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        public int compareTo(Delayed other) {
+            if (other == this) // compare zero ONLY if same object
+                return 0;
+            if (other instanceof WheelTask) {
+                WheelTask<?> x = (WheelTask<?>)other;
+                long diff = time - x.time;
+                if (diff < 0)
+                    return -1;
+                else if (diff > 0)
+                    return 1;
+                else if (sequenceNumber < x.sequenceNumber)
+                    return -1;
+                else
+                    return 1;
+            }
+            long d = (getDelay(TimeUnit.NANOSECONDS) -
+                      other.getDelay(TimeUnit.NANOSECONDS));
+            return (d == 0) ? 0 : ((d < 0) ? -1 : 1);
+        }
+
+        public boolean isPeriodic() {
+            return period != 0;
+        }
+
+        /** Returns the tick at which this task is due. */
+        long dueTick() {
+            long d = time - startTime;
+            return d <= 0L ? 0L : (d - 1) / tickNanos + 1;
+        }
+
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled)
+                cancellations.offer(this);
+            return cancelled;
+        }
+
+        /**
+         * Overrides FutureTask version so as to reschedule if periodic.
+         */
+        public void run() {
+            boolean periodic = isPeriodic();
+            if (!canRunInCurrentRunState(periodic))
+                cancel(false);
+            else if (!periodic)
+                WheelTask.super.run();
+            else if (WheelTask.super.runAndReset()) {
+                long p = period;
+                if (p > 0)
+                    time += p;
+                else
+                    time = triggerTime(-p);
+                reschedule(this);
+            }
+        }
+    }
+
+    /**
+     * A run of tasks due at the same tick, executed in sequence by
+     * one worker thread.
+     */
+    static final class Batch implements Runnable {
+        final Object[] tasks;
+        final int from, to;
+
+        Batch(Object[] tasks, int from, int to) {
+            this.tasks = tasks;
+            this.from = from;
+            this.to = to;
+        }
+
+        public void run() {
+            for (int i = from; i < to; ++i)
+                ((Runnable) tasks[i]).run();
+        }
+    }
+
+    /**
+     * Returns true if a task may run in the current run state:
+     * periodic tasks only while running, one-shot delayed tasks
+     * until shutdownNow.
+     */
+    boolean canRunInCurrentRunState(boolean periodic) {
+        int rs = runState;
+        return rs == RUNNING || (rs == SHUTDOWN && !periodic);
+    }
+
+    /**
+     * Returns the trigger time of a delayed action.
+     */
+    private long triggerTime(long delay, TimeUnit unit) {
+        return triggerTime(unit.toNanos((delay < 0) ? 0 : delay));
+    }
+
+    /**
+     * Returns the trigger time of a delayed action, capping the
+     * delay so that trigger times stay well within range of each
+     * other and of startTime.
+     */
+    long triggerTime(long delay) {
+        return System.nanoTime() + Math.min(delay, Long.MAX_VALUE >> 1);
+    }
+
+    /**
+     * Queues a new task for the timer thread, or rejects it if shut
+     * down.
+     */
+    private void delayedExecute(WheelTask<?> task) {
+        if (runState != RUNNING)
+            throw rejected(task);
+        enqueue(task);
+        if (runState != RUNNING && additions.remove(task))
+            throw rejected(task);
+    }
+
+    /**
+     * Requeues a periodic task after an execution, unless it may no
+     * longer run.
+     */
+    void reschedule(WheelTask<?> task) {
+        if (canRunInCurrentRunState(true)) {
+            enqueue(task);
+            if (!canRunInCurrentRunState(true) && additions.remove(task))
+                task.cancel(false);
+        }
+        else
+            task.cancel(false);
+    }
+
+    private void enqueue(WheelTask<?> task) {
+        additions.offer(task);
+        if (timerParked)
+            LockSupport.unpark(timer);
+    }
+
+    private RejectedExecutionException rejected(Runnable task) {
+        return new RejectedExecutionException("Task " + task.toString() +
+                                              " rejected from " +
+                                              toString());
+    }
+
+    // The timer thread
+
+    /**
+     * Main loop of the timer thread.
+     */
+    final void runTimer() {
+        ArrayList<Runnable> expired = new ArrayList<Runnable>();
+        boolean swept = false;
+        try {
+            for (;;) {
+                int rs = runState;
+                if (rs == STOP)
+                    break;
+                if (rs == SHUTDOWN && !swept) {
+                    swept = true;
+                    cancelPeriodicTasks();
+                }
+                processCancellations();
+                processAdditions(rs);
+                if (size == 0) {
+                    if (rs != RUNNING)
+                        break;
+                    timerParked = true;
+                    if (additions.isEmpty() && runState == RUNNING)
+                        LockSupport.park(this);
+                    timerParked = false;
+                    // the empty wheel can skip the ticks passed meanwhile
+                    long now = (System.nanoTime() - startTime) / tickNanos;
+                    if (now > tick)
+                        tick = now;
+                    continue;
+                }
+                long wait = startTime + tick * tickNanos - System.nanoTime();
+                if (wait > 0L) {
+                    LockSupport.parkNanos(this, wait);
+                    continue;
+                }
+                expire(tick, expired);
+                ++tick;
+                if (!expired.isEmpty()) {
+                    dispatch(expired);
+                    expired.clear();
+                }
+            }
+        } finally {
+            if (runState == STOP)
+                remaining = removeAll();
+            timerExited.countDown();
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Places task t in the wheel, relative to the next tick.
+     */
+    private void place(WheelTask<?> t) {
+        long due = Math.max(t.dueTick(), tick);
+        long idx = due - tick;
+        int level = 0;
+        while (level + 1 < wheel.length && (idx >>> bits * (level + 1)) != 0L)
+            ++level;
+        Bucket[] buckets = wheel[level];
+        if (buckets == null)
+            wheel[level] = buckets = newLevel();
+        buckets[(int) (due >>> bits * level) & mask].add(t);
+    }
+
+    private void processAdditions(int rs) {
+        WheelTask<?> t;
+        while ((t = additions.poll()) != null) {
+            if (t.isCancelled())
+                continue;
+            if (rs != RUNNING && t.isPeriodic())
+                t.cancel(false);
+            else {
+                place(t);
+                ++size;
+            }
+        }
+    }
+
+    private void processCancellations() {
+        WheelTask<?> t;
+        while ((t = cancellations.poll()) != null) {
+            Bucket b = t.bucket;
+            if (b != null) {
+                b.unlink(t);
+                --size;
+            }
+        }
+    }
+
+    /**
+     * Processes tick t: cascades the higher levels whose blocks
+     * start at t, and then moves the tasks due at t, other than
+     * cancelled ones, from the wheel to expired.
+     */
+    private void expire(long t, List<Runnable> expired) {
+        for (int level = 1; level < wheel.length; ++level) {
+            if ((t & ((1L << bits * level) - 1)) != 0L)
+                break;
+            Bucket[] buckets = wheel[level];
+            if (buckets != null) {
+                WheelTask<?> p = buckets[(int) (t >>> bits * level) & mask].clear();
+                while (p != null) {
+                    WheelTask<?> n = p.next;
+                    place(p);
+                    p = n;
+                }
+            }
+        }
+        WheelTask<?> p = wheel[0][(int) t & mask].clear();
+        while (p != null) {
+            WheelTask<?> n = p.next;
+            p.bucket = null;
+            p.prev = p.next = null;
+            --size;
+            if (!p.isCancelled())
+                expired.add(p);
+            p = n;
+        }
+    }
+
+    /**
+     * Hands the expired tasks to the workers, in batches of at most
+     * MAX_BATCH tasks, and in at least as many batches as there are
+     * workers if there are enough tasks.
+     */
+    private void dispatch(List<Runnable> expired) {
+        int n = expired.size();
+        if (n == 1) {
+            workers.execute(expired.get(0));
+            return;
+        }
+        Object[] a = expired.toArray();
+        int chunk = Math.min(MAX_BATCH, (n + poolSize - 1) / poolSize);
+        for (int i = 0; i < n; i += chunk)
+            workers.execute(new Batch(a, i, Math.min(n, i + chunk)));
+    }
+
+    /**
+     * Cancels the periodic tasks in the wheel, on shutdown.
+     */
+    private void cancelPeriodicTasks() {
+        for (Bucket[] buckets : wheel) {
+            if (buckets == null)
+                continue;
+            for (Bucket b : buckets) {
+                WheelTask<?> p = b.head;
+                while (p != null) {
+                    WheelTask<?> n = p.next;
+                    if (p.isPeriodic()) {
+                        b.unlink(p);
+                        --size;
+                        p.cancel(false);
+                    }
+                    p = n;
+                }
+            }
+        }
+    }
+
+    /**
+     * Empties the wheel and the additions queue, on shutdownNow,
+     * returning the tasks not cancelled.
+     */
+    private List<Runnable> removeAll() {
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        for (Bucket[] buckets : wheel) {
+            if (buckets == null)
+                continue;
+            for (Bucket b : buckets) {
+                WheelTask<?> p = b.clear();
+                while (p != null) {
+                    WheelTask<?> n = p.next;
+                    p.bucket = null;
+                    p.prev = p.next = null;
+                    if (!p.isCancelled())
+                        tasks.add(p);
+                    p = n;
+                }
+            }
+        }
+        size = 0;
+        WheelTask<?> t;
+        while ((t = additions.poll()) != null)
+            if (!t.isCancelled())
+                tasks.add(t);
+        cancellations.clear();
+        return tasks;
+    }
+
+    // Public methods
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public ScheduledFuture<?> schedule(Runnable command,
+                                       long delay,
+                                       TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        WheelTask<Void> t = new WheelTask<Void>(command, null,
+                                                triggerTime(delay, unit), 0L);
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable,
+                                           long delay,
+                                           TimeUnit unit) {
+        if (callable == null || unit == null)
+            throw new NullPointerException();
+        WheelTask<V> t = new WheelTask<V>(callable, triggerTime(delay, unit));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command,
+                                                  long initialDelay,
+                                                  long period,
+                                                  TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        if (period <= 0)
+            throw new IllegalArgumentException();
+        WheelTask<Void> t =
+            new WheelTask<Void>(command, null,
+                                triggerTime(initialDelay, unit),
+                                unit.toNanos(period));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command,
+                                                     long initialDelay,
+                                                     long delay,
+                                                     TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        if (delay <= 0)
+            throw new IllegalArgumentException();
+        WheelTask<Void> t =
+            new WheelTask<Void>(command, null,
+                                triggerTime(initialDelay, unit),
+                                unit.toNanos(-delay));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * Executes {@code command} with zero required delay, passing it
+     * directly to the worker threads.
+     *
+     * @param command the task to execute
+     * @throws RejectedExecutionException if this executor has been
+     *         shut down
+     * @throws NullPointerException if {@code command} is null
+     */
+    public void execute(Runnable command) {
+        if (command == null)
+            throw new NullPointerException();
+        if (runState != RUNNING)
+            throw rejected(command);
+        try {
+            workers.execute(command);
+        } catch (RejectedExecutionException ex) {
+            throw rejected(command);
+        }
+    }
+
+    /**
+     * Initiates an orderly shutdown in which previously submitted
+     * tasks are executed, but no new tasks will be accepted.
+     * Periodic tasks are cancelled, and delayed one-shot tasks run
+     * when due.  Invocation has no additional effect if already shut
+     * down.
+     *
+     * <p>This method does not wait for previously submitted tasks to
+     * complete execution.  Use {@link #awaitTermination awaitTermination}
+     * to do that.
+     */
+    public void shutdown() {
+        if (runState == RUNNING) {
+            synchronized (this) {
+                if (runState == RUNNING)
+                    runState = SHUTDOWN;
+            }
+        }
+        LockSupport.unpark(timer);
+    }
+
+    /**
+     * Attempts to stop all actively executing tasks, halts the
+     * processing of waiting tasks, and returns a list of the tasks
+     * that were awaiting execution, both those whose delay had not
+     * elapsed and those waiting for a worker thread.
+     *
+     * <p>This method does not wait for actively executing tasks to
+     * terminate.  Use {@link #awaitTermination awaitTermination} to
+     * do that.
+     *
+     * <p>There are no guarantees beyond best-effort attempts to stop
+     * processing actively executing tasks.  This implementation
+     * cancels tasks via {@link Thread#interrupt}, so any task that
+     * fails to respond to interrupts may never terminate.
+     *
+     * @return list of tasks that never commenced execution
+     */
+    public List<Runnable> shutdownNow() {
+        synchronized (this) {
+            runState = STOP;
+        }
+        LockSupport.unpark(timer);
+        boolean interrupted = false;
+        for (;;) {
+            try {
+                timerExited.await();
+                break;
+            } catch (InterruptedException ie) {
+                interrupted = true;
+            }
+        }
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        List<Runnable> rest = remaining;
+        if (rest != null)
+            tasks.addAll(rest);
+        for (Runnable r : workers.shutdownNow()) {
+            if (r instanceof Batch) {
+                Batch b = (Batch) r;
+                for (int i = b.from; i < b.to; ++i)
+                    tasks.add((Runnable) b.tasks[i]);
+            }
+            else
+                tasks.add(r);
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        return tasks;
+    }
+
+    public boolean isShutdown() {
+        return runState != RUNNING;
+    }
+
+    public boolean isTerminated() {
+        return timerExited.getCount() == 0L && workers.isTerminated();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+        throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        long deadline = System.nanoTime() + nanos;
+        if (!timerExited.await(nanos, TimeUnit.NANOSECONDS))
+            return false;
+        return workers.awaitTermination(deadline - System.nanoTime(),
+                                        TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the duration of a tick of the wheel.
+     *
+     * @param unit the desired time unit of the result
+     * @return the tick duration
+     */
+    public long getTickDuration(TimeUnit unit) {
+        return unit.convert(tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the number of buckets at each level of the wheel.
+     *
+     * @return the number of ticks per wheel
+     */
+    public int getTicksPerWheel() {
+        return mask + 1;
+    }
+
+    /**
+     * Returns the number of threads running tasks.
+     *
+     * @return the pool size
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Returns a string identifying this executor, as well as its
+     * state, including indications of run state and the state of its
+     * worker pool.
+     *
+     * @return a string identifying this executor, as well as its state
+     */
+    public String toString() {
+        int rs = runState;
+        String s = (rs == RUNNING ? "Running" :
+                    (isTerminated() ? "Terminated" : "Shutting down"));
+        return super.toString() +
+            "[" + s +
+            ", tick = " + tickNanos + "ns" +
+            ", workers = " + workers +
+            "]";
+    }
+}
@@ -137,6 +137,16 @@
  * semantics for their array elements, which is not supported for
  * ordinary arrays.
  *
+ * <p>Classes {@link java.util.concurrent.atomic.LongAdder},
+ * {@link java.util.concurrent.atomic.DoubleAdder},
+ * {@link java.util.concurrent.atomic.LongAccumulator}, and
+ * {@link java.util.concurrent.atomic.DoubleAccumulator} maintain a
+ * value across a dynamically grown set of padded cells, so that
+ * heavily contended updates (for example to shared statistics
+ * counters) do not all retry on a single variable. They trade a
+ * larger footprint and non-atomic reads of the total for much
+ * higher update throughput than {@code AtomicLong} under contention.
+ *
  * <a name="Spurious">
  * <p>The atomic classes also support method {@code weakCompareAndSet},
  * which has limited applicability.  On some platforms, the weak version
@@ -52,6 +52,13 @@
  * it covers most standard usage contexts.  But programmers may create
  * their own implementations to cover nonstandard requirements.
  *
+ * <p>The {@link java.util.concurrent.locks.StampedLock} class
+ * provides a non-reentrant capability-based lock with write, read,
+ * and optimistic read modes.  Optimistic reads perform no writes to
+ * shared state, so read-mostly data can be accessed without the
+ * contention that every reader of a {@code ReentrantReadWriteLock}
+ * incurs on its synchronization state.
+ *
  * <p>The {@link java.util.concurrent.locks.Condition} interface
  * describes condition variables that may be associated with Locks.
  * These are similar in usage to the implicit monitors accessed using
@@ -92,12 +92,23 @@
  * assists in coordinating the processing of groups of
  * asynchronous tasks.
  *
+ * <p>Class {@link java.util.concurrent.CompletableFuture} is a
+ * Future that may be completed explicitly and that triggers
+ * dependent functions and actions upon completion, so that chains
+ * of asynchronous results can be composed without blocking a thread
+ * in {@code get()} for each pending step.
+ *
  * <p>Class {@link java.util.concurrent.ForkJoinPool} provides an
  * Executor primarily designed for processing instances of {@link
  * java.util.concurrent.ForkJoinTask} and its subclasses.  These
  * classes employ a work-stealing scheduler that attains high
  * throughput for tasks conforming to restrictions that often hold in
- * computation-intensive parallel processing.
+ * computation-intensive parallel processing.  A static {@linkplain
+ * java.util.concurrent.ForkJoinPool#commonPool() common pool} is
+ * shared by components that do not need a dedicated pool.  Subclass
+ * {@link java.util.concurrent.CountedCompleter} supports task trees
+ * in which completions trigger continuations rather than blocking
+ * joins.
  *
  * <h2>Queues</h2>
  *
@@ -177,6 +188,7 @@
  * Besides Queues, this package supplies Collection implementations
  * designed for use in multithreaded contexts:
  * {@link java.util.concurrent.ConcurrentHashMap},
+ * {@link java.util.concurrent.ConcurrentHashMapV8},
  * {@link java.util.concurrent.ConcurrentSkipListMap},
  * {@link java.util.concurrent.ConcurrentSkipListSet},
  * {@link java.util.concurrent.CopyOnWriteArrayList}, and
@@ -185,6 +197,10 @@
  * {@code ConcurrentHashMap} is normally preferable to a synchronized
  * {@code HashMap}, and a {@code ConcurrentSkipListMap} is normally
  * preferable to a synchronized {@code TreeMap}.
+ * A {@code ConcurrentHashMapV8} is preferable to a {@code
+ * ConcurrentHashMap} when the number of updating threads is large or
+ * not known in advance, since it does not partition the table into a
+ * fixed number of lock segments.
  * A {@code CopyOnWriteArrayList} is preferable to a synchronized
  * {@code ArrayList} when the expected number of reads and traversals
  * greatly outnumber the number of updates to a list.
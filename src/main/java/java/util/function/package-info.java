@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+/**
+ * <em>Functional interfaces</em> provide target types for the function
+ * objects passed to the bulk and parallel operations of the collection
+ * classes, such as the parallel traversal and reduction methods of
+ * {@link java.util.concurrent.ConcurrentHashMapV8}, to the
+ * dependent actions of {@link java.util.concurrent.CompletableFuture},
+ * and to the prefix and initialization methods of {@link java.util.Arrays}.
+ * Each functional interface has a single abstract method, called the
+ * <em>functional method</em> for that interface, to which the argument
+ * and return types are matched or adapted.
+ *
+ * <p>The interfaces in this package follow an extensible naming
+ * convention:
+ *
+ * <ul>
+ *     <li>There are several basic function shapes, including
+ *     {@link java.util.function.Function} (unary function from {@code T}
+ *     to {@code R}), {@link java.util.function.Consumer} (unary
+ *     function from {@code T} to {@code void}), and
+ *     {@link java.util.function.Supplier} (nilary function to {@code R}).
+ *
+ *     <li>Function shapes have a natural arity based on how they are most
+ *     commonly used.  The basic shapes can be modified by an arity prefix
+ *     to indicate a different arity, such as
+ *     {@link java.util.function.BiFunction} (binary function from {@code T}
+ *     and {@code U} to {@code R}).
+ *
+ *     <li>There are additional derived function shapes which extend the
+ *     basic function shapes, including
+ *     {@link java.util.function.BinaryOperator} (a {@code BiFunction} whose
+ *     arguments and result are all of the same type).
+ *
+ *     <li>Type parameters of functional interfaces can be specialized to
+ *     primitives with additional type prefixes.  To specialize the return
+ *     type for a type that has both generic return type and generic
+ *     arguments, we prefix {@code ToXxx}, as in
+ *     {@link java.util.function.ToIntFunction}.  Otherwise, type prefixes
+ *     are left-to-right, as in
+ *     {@link java.util.function.LongBinaryOperator}.
+ * </ul>
+ *
+ * @since 1.7
+ */
+package java.util.function;
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Abstract base for the stages of a stream pipeline, holding the
+ * linkage between stages and the evaluation machinery shared by the
+ * reference and primitive pipelines.
+ *
+ * <p>A pipeline is a linked list of stages, starting from a head stage
+ * that holds the {@link Source}.  Creating a stage links it to the
+ * stage before, which may then not be linked again or evaluated;
+ * evaluating a terminal operation consumes the pipeline.  Nothing is
+ * computed until then.
+ *
+ * <p>Sequential evaluation chains the {@link Sink} of every stage
+ * into one sink, so that each element passes through all operations
+ * before the next is read.  Short-circuiting operations cause the
+ * source to be pulled one element at a time, checking
+ * {@link Sink#cancellationRequested} in between.
+ *
+ * <p>Parallel evaluation splits the source into parts evaluated by
+ * {@link EvalTask}s in the {@link ForkJoinPool#commonPool common
+ * pool}, each through its own chain of sinks, and combines their
+ * results in encounter order.  Stateful operations act as barriers:
+ * the part of the pipeline before one is evaluated in parallel into
+ * a buffer, which the operation transforms as a whole and which then
+ * serves as the source of the rest of the pipeline.
+ *
+ * @since 1.7
+ */
+abstract class AbstractPipeline {
+
+    static final String MSG_STREAM_LINKED =
+        "stream has already been operated upon";
+
+    /** The head stage of the pipeline (this, for the head stage). */
+    final AbstractPipeline sourceStage;
+
+    /** The stage before this one, or null for the head stage. */
+    final AbstractPipeline previousStage;
+
+    /** The operation of a stateful stage, else null. */
+    final StatefulOp statefulOp;
+
+    /** The source, in the head stage only; null once consumed. */
+    private Source source;
+
+    /** Whether the pipeline is parallel, in the head stage only. */
+    private boolean parallel;
+
+    /** True once a stage is linked to this one, or it is evaluated. */
+    private boolean linkedOrConsumed;
+
+    /**
+     * Constructor for the head of a stream pipeline.
+     *
+     * @param source the source of elements
+     * @param parallel true if the pipeline is initially parallel
+     */
+    AbstractPipeline(Source source, boolean parallel) {
+        if (source == null)
+            throw new NullPointerException();
+        this.sourceStage = this;
+        this.previousStage = null;
+        this.statefulOp = null;
+        this.source = source;
+        this.parallel = parallel;
+    }
+
+    /**
+     * Constructor for an intermediate stage.
+     *
+     * @param upstream the stage before this one
+     * @param statefulOp the stateful operation, or null if stateless
+     */
+    AbstractPipeline(AbstractPipeline upstream, StatefulOp statefulOp) {
+        if (upstream.linkedOrConsumed)
+            throw new IllegalStateException(MSG_STREAM_LINKED);
+        upstream.linkedOrConsumed = true;
+        this.sourceStage = upstream.sourceStage;
+        this.previousStage = upstream;
+        this.statefulOp = statefulOp;
+    }
+
+    /**
+     * Returns a sink that performs this stage's operation on the
+     * elements it receives, passing the results to the given sink.
+     * Stateless stages override this method.
+     */
+    Sink<?> opWrapSink(Sink<?> sink) {
+        return statefulOp.wrapSink(this, sink);
+    }
+
+    /** Returns true if this stage is stateful. */
+    final boolean opIsStateful() {
+        return statefulOp != null;
+    }
+
+    /** Returns true if this stage may request cancellation. */
+    boolean opIsShortCircuit() {
+        return statefulOp != null && statefulOp.isShortCircuit();
+    }
+
+    /** Returns a new, empty buffer for elements of this stage's shape. */
+    abstract Nodes.Buffer newBuffer();
+
+    /** Returns true if the pipeline is to be evaluated in parallel. */
+    public final boolean isParallel() {
+        return sourceStage.parallel;
+    }
+
+    /** Sets whether the pipeline is to be evaluated in parallel. */
+    final void setParallel(boolean parallel) {
+        if (linkedOrConsumed)
+            throw new IllegalStateException(MSG_STREAM_LINKED);
+        sourceStage.parallel = parallel;
+    }
+
+    /**
+     * Evaluates the pipeline with the terminal operation, consuming
+     * the pipeline.
+     *
+     * @param op the terminal operation
+     * @return the result of the operation
+     * @throws IllegalStateException if the pipeline was already
+     *         consumed, or this stage already linked
+     */
+    final <R> R evaluate(TerminalOp<R> op) {
+        if (linkedOrConsumed)
+            throw new IllegalStateException(MSG_STREAM_LINKED);
+        linkedOrConsumed = true;
+        Source src = sourceStage.source;
+        if (src == null)
+            throw new IllegalStateException(MSG_STREAM_LINKED);
+        sourceStage.source = null;
+        return isParallel() ? evaluateParallel(op, src) :
+            evaluateLeaf(op, sourceStage, src);
+    }
+
+    /**
+     * Pushes the elements of src through the stages after stop, up to
+     * and including this one, into a sink of the terminal operation.
+     */
+    final <R> R evaluateLeaf(TerminalOp<R> op, AbstractPipeline stop,
+                             Source src) {
+        TerminalOp.TerminalSink<R> result = op.makeSink();
+        Sink<?> sink = result;
+        boolean shortCircuit = op.isShortCircuit();
+        for (AbstractPipeline p = this; p != stop; p = p.previousStage) {
+            sink = p.opWrapSink(sink);
+            shortCircuit |= p.opIsShortCircuit();
+        }
+        sink.begin(src.isSized() ? src.estimateSize() : -1L);
+        if (shortCircuit) {
+            while (!sink.cancellationRequested() && src.tryAdvance(sink))
+                ;
+        }
+        else
+            src.forEach(sink);
+        sink.end();
+        return result.get();
+    }
+
+    /**
+     * Evaluates the pipeline up to this stage in parallel, first
+     * evaluating the input of the last stateful stage, if any, into a
+     * buffer that becomes the source for the stages after it.
+     */
+    private <R> R evaluateParallel(TerminalOp<R> op, Source src) {
+        AbstractPipeline stop = sourceStage;
+        for (AbstractPipeline p = this; p != sourceStage; p = p.previousStage) {
+            if (p.opIsStateful()) {
+                stop = p;
+                break;
+            }
+        }
+        if (stop != sourceStage) {
+            AbstractPipeline prev = stop.previousStage;
+            Nodes.Buffer input =
+                prev.evaluateParallel(new Nodes.ToBufferOp(prev), src);
+            src = stop.statefulOp.evaluateBuffered(input);
+        }
+        long size = src.estimateSize();
+        long threshold = (size == Long.MAX_VALUE) ? UNSIZED_THRESHOLD :
+            Math.max(size / (ForkJoinPool.getCommonPoolParallelism() << 2), 1L);
+        return new EvalTask<R>(null, this, op, stop, src, threshold).invoke();
+    }
+
+    /** The leaf size used when the source size is unknown. */
+    static final long UNSIZED_THRESHOLD = 1L << 10;
+
+    /**
+     * Task evaluating a terminal operation over a part of a source.
+     * A task splits its source until it is small enough, forking the
+     * right-hand parts and continuing with the left.  On completion of
+     * both children, their results are combined in order.
+     */
+    @SuppressWarnings("serial")
+    static final class EvalTask<R> extends CountedCompleter<R> {
+        final AbstractPipeline pipeline;
+        final TerminalOp<R> op;
+        final AbstractPipeline stop;
+        final long threshold;
+        Source source;
+        EvalTask<R> left, right;
+        R result;
+
+        EvalTask(EvalTask<R> parent, AbstractPipeline pipeline,
+                 TerminalOp<R> op, AbstractPipeline stop, Source source,
+                 long threshold) {
+            super(parent);
+            this.pipeline = pipeline;
+            this.op = op;
+            this.stop = stop;
+            this.source = source;
+            this.threshold = threshold;
+        }
+
+        public final void compute() {
+            EvalTask<R> task = this;
+            Source s = source, ls;
+            source = null;
+            while (s.estimateSize() > threshold && !op.isDone() &&
+                   (ls = s.trySplit()) != null) {
+                EvalTask<R> l, r;
+                task.left = l = new EvalTask<R>(task, pipeline, op, stop,
+                                                ls, threshold);
+                task.right = r = new EvalTask<R>(task, pipeline, op, stop,
+                                                 s, threshold);
+                task.setPendingCount(1);
+                r.fork();
+                task = l;
+                s = ls;
+            }
+            if (!op.isDone())
+                task.result = pipeline.evaluateLeaf(op, stop, s);
+            task.tryComplete();
+        }
+
+        public final void onCompletion(CountedCompleter<?> caller) {
+            EvalTask<R> l = left, r = right;
+            if (l != null) {
+                result = op.combine(l.result, r.result);
+                left = right = null;
+            }
+        }
+
+        public final R getRawResult() {
+            return result;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+/**
+ * Base interface for streams, which are sequences of elements
+ * supporting sequential and parallel aggregate operations.
+ *
+ * @param <T> the type of the stream elements
+ * @param <S> the type of the stream implementing {@code BaseStream}
+ * @since 1.7
+ */
+public interface BaseStream<T, S extends BaseStream<T, S>> {
+
+    /**
+     * Returns true if this stream, when a terminal operation is
+     * executed, would execute in parallel.
+     *
+     * @return true if this stream would execute in parallel
+     */
+    boolean isParallel();
+
+    /**
+     * Returns an equivalent stream that is sequential.  This is an
+     * intermediate operation; it applies to the whole pipeline.
+     *
+     * @return a sequential stream
+     */
+    S sequential();
+
+    /**
+     * Returns an equivalent stream that is parallel.  This is an
+     * intermediate operation; it applies to the whole pipeline.
+     *
+     * @return a parallel stream
+     */
+    S parallel();
+}
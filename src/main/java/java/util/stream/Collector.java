@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A mutable reduction operation, which accumulates input elements
+ * into a mutable result container and then optionally transforms the
+ * accumulated result into a final representation.  A collector is
+ * specified by four functions: one creating a new result container,
+ * one incorporating an element into a container, one merging two
+ * containers, and one performing the final transform.
+ *
+ * <p>In a parallel evaluation each part of the input is accumulated
+ * into its own container, and containers are merged in encounter
+ * order, so the functions need not be thread-safe.  The
+ * {@link Collectors} class provides implementations of common
+ * collectors, and {@link Collectors#of} creates others.
+ *
+ * @param <T> the type of input elements
+ * @param <A> the mutable accumulation type
+ * @param <R> the result type
+ * @since 1.7
+ */
+public interface Collector<T, A, R> {
+
+    /**
+     * Returns a function creating a new, empty result container.
+     *
+     * @return a function returning a new result container
+     */
+    Supplier<A> supplier();
+
+    /**
+     * Returns a function folding an element into a result container.
+     *
+     * @return a function folding an element into a result container
+     */
+    BiConsumer<A, T> accumulator();
+
+    /**
+     * Returns a function merging two result containers.  It may fold
+     * one argument into the other and return that, or return a new
+     * container.
+     *
+     * @return a function combining two partial results
+     */
+    BinaryOperator<A> combiner();
+
+    /**
+     * Returns a function transforming the final result container into
+     * the result.
+     *
+     * @return a function transforming the intermediate result
+     */
+    Function<A, R> finisher();
+}
@@ -0,0 +1,491 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Implementations of {@link Collector} that implement various useful
+ * reduction operations, such as accumulating elements into
+ * collections, summarizing elements, and grouping them by key.  For
+ * example, to group employees by department and count each group:
+ *
+ * <pre> {@code
+ * Map<Department, Long> sizes = Streams.stream(employees)
+ *     .collect(Collectors.groupingBy(
+ *         new Function<Employee, Department>() {
+ *             public Department apply(Employee e) {
+ *                 return e.getDepartment(); }},
+ *         Collectors.<Employee>counting()));}</pre>
+ *
+ * <p>The collections and maps produced are {@link ArrayList},
+ * {@link HashSet} and {@link HashMap} instances; there are no
+ * guarantees on their further mutability or thread-safety.
+ *
+ * @since 1.7
+ */
+public final class Collectors {
+    private Collectors() {}
+
+    /**
+     * Simple implementation class for {@code Collector}.
+     */
+    static final class CollectorImpl<T, A, R> implements Collector<T, A, R> {
+        private final Supplier<A> supplier;
+        private final BiConsumer<A, T> accumulator;
+        private final BinaryOperator<A> combiner;
+        private final Function<A, R> finisher;
+
+        CollectorImpl(Supplier<A> supplier,
+                      BiConsumer<A, T> accumulator,
+                      BinaryOperator<A> combiner,
+                      Function<A, R> finisher) {
+            if (supplier == null || accumulator == null ||
+                combiner == null || finisher == null)
+                throw new NullPointerException();
+            this.supplier = supplier;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+            this.finisher = finisher;
+        }
+
+        public Supplier<A> supplier() { return supplier; }
+        public BiConsumer<A, T> accumulator() { return accumulator; }
+        public BinaryOperator<A> combiner() { return combiner; }
+        public Function<A, R> finisher() { return finisher; }
+    }
+
+    /** The identity finisher, cast to the result type. */
+    private static final Function<Object, Object> IDENTITY_FINISH =
+        new Function<Object, Object>() {
+            public Object apply(Object x) { return x; }
+        };
+
+    @SuppressWarnings("unchecked")
+    private static <A, R> Function<A, R> castingIdentity() {
+        return (Function<A, R>) IDENTITY_FINISH;
+    }
+
+    /**
+     * Returns a new {@code Collector} described by the given
+     * functions.
+     *
+     * @param <T> the type of input elements
+     * @param <A> the intermediate accumulation type
+     * @param <R> the final result type
+     * @param supplier the supplier of new result containers
+     * @param accumulator the function folding an element into a container
+     * @param combiner the function merging two containers
+     * @param finisher the function transforming the final container
+     * @return the new collector
+     */
+    public static <T, A, R> Collector<T, A, R> of(Supplier<A> supplier,
+                                                  BiConsumer<A, T> accumulator,
+                                                  BinaryOperator<A> combiner,
+                                                  Function<A, R> finisher) {
+        return new CollectorImpl<>(supplier, accumulator, combiner, finisher);
+    }
+
+    /**
+     * Returns a {@code Collector} that accumulates the input elements
+     * into a new {@code List}, in encounter order.
+     *
+     * @param <T> the type of the input elements
+     * @return a collector into a {@code List}
+     */
+    public static <T> Collector<T, ?, List<T>> toList() {
+        return new CollectorImpl<T, List<T>, List<T>>(
+            new Supplier<List<T>>() {
+                public List<T> get() { return new ArrayList<T>(); }
+            },
+            new BiConsumer<List<T>, T>() {
+                public void accept(List<T> list, T t) { list.add(t); }
+            },
+            new BinaryOperator<List<T>>() {
+                public List<T> apply(List<T> left, List<T> right) {
+                    left.addAll(right);
+                    return left;
+                }
+            },
+            Collectors.<List<T>, List<T>>castingIdentity());
+    }
+
+    /**
+     * Returns a {@code Collector} that accumulates the input elements
+     * into a new {@code Set}.
+     *
+     * @param <T> the type of the input elements
+     * @return a collector into a {@code Set}
+     */
+    public static <T> Collector<T, ?, Set<T>> toSet() {
+        return new CollectorImpl<T, Set<T>, Set<T>>(
+            new Supplier<Set<T>>() {
+                public Set<T> get() { return new HashSet<T>(); }
+            },
+            new BiConsumer<Set<T>, T>() {
+                public void accept(Set<T> set, T t) { set.add(t); }
+            },
+            new BinaryOperator<Set<T>>() {
+                public Set<T> apply(Set<T> left, Set<T> right) {
+                    left.addAll(right);
+                    return left;
+                }
+            },
+            Collectors.<Set<T>, Set<T>>castingIdentity());
+    }
+
+    /**
+     * Returns a merge function that throws {@code IllegalStateException}
+     * on any key collision.
+     */
+    private static <V> BinaryOperator<V> throwingMerger() {
+        return new BinaryOperator<V>() {
+            public V apply(V u, V v) {
+                throw new IllegalStateException("Duplicate key " + u);
+            }
+        };
+    }
+
+    /**
+     * Associates the value with the key in the map, or, if the key is
+     * already present, the result of merging the old and new values.
+     */
+    static <K, V> void merge(Map<K, V> map, K key, V value,
+                             BinaryOperator<V> mergeFunction) {
+        if (value == null)
+            throw new NullPointerException();
+        V old = map.get(key);
+        map.put(key, (old == null) ? value : mergeFunction.apply(old, value));
+    }
+
+    /**
+     * Returns a {@code Collector} that accumulates elements into a
+     * {@code Map} whose keys and values are the results of applying the
+     * mapping functions to the input elements.
+     *
+     * @param <T> the type of the input elements
+     * @param <K> the output type of the key mapping function
+     * @param <U> the output type of the value mapping function
+     * @param keyMapper a mapping function to produce keys
+     * @param valueMapper a mapping function to produce values
+     * @return a collector into a {@code Map}
+     * @throws IllegalStateException (when the collector is applied) if
+     *         two elements map to equal keys
+     */
+    public static <T, K, U> Collector<T, ?, Map<K, U>>
+        toMap(Function<? super T, ? extends K> keyMapper,
+              Function<? super T, ? extends U> valueMapper) {
+        return toMap(keyMapper, valueMapper, Collectors.<U>throwingMerger());
+    }
+
+    /**
+     * Returns a {@code Collector} that accumulates elements into a
+     * {@code Map} whose keys and values are the results of applying the
+     * mapping functions to the input elements.  The values of equal
+     * keys are merged with the merge function.
+     *
+     * @param <T> the type of the input elements
+     * @param <K> the output type of the key mapping function
+     * @param <U> the output type of the value mapping function
+     * @param keyMapper a mapping function to produce keys
+     * @param valueMapper a mapping function to produce non-null values
+     * @param mergeFunction a function resolving collisions between
+     *        values associated with the same key
+     * @return a collector into a {@code Map}
+     */
+    public static <T, K, U> Collector<T, ?, Map<K, U>>
+        toMap(final Function<? super T, ? extends K> keyMapper,
+              final Function<? super T, ? extends U> valueMapper,
+              final BinaryOperator<U> mergeFunction) {
+        if (keyMapper == null || valueMapper == null || mergeFunction == null)
+            throw new NullPointerException();
+        return new CollectorImpl<T, Map<K, U>, Map<K, U>>(
+            new Supplier<Map<K, U>>() {
+                public Map<K, U> get() { return new HashMap<K, U>(); }
+            },
+            new BiConsumer<Map<K, U>, T>() {
+                public void accept(Map<K, U> map, T t) {
+                    merge(map, keyMapper.apply(t), valueMapper.apply(t),
+                          mergeFunction);
+                }
+            },
+            new BinaryOperator<Map<K, U>>() {
+                public Map<K, U> apply(Map<K, U> left, Map<K, U> right) {
+                    for (Map.Entry<K, U> e : right.entrySet())
+                        merge(left, e.getKey(), e.getValue(), mergeFunction);
+                    return left;
+                }
+            },
+            Collectors.<Map<K, U>, Map<K, U>>castingIdentity());
+    }
+
+    /**
+     * Returns a {@code Collector} grouping input elements by the
+     * classifier function into a {@code Map} from each key to a
+     * {@code List} of the elements, in encounter order, that map to it.
+     *
+     * @param <T> the type of the input elements
+     * @param <K> the type of the keys
+     * @param classifier the classifier function mapping input elements
+     *        to non-null keys
+     * @return a collector implementing the group-by operation
+     */
+    public static <T, K> Collector<T, ?, Map<K, List<T>>>
+        groupingBy(Function<? super T, ? extends K> classifier) {
+        return groupingBy(classifier, Collectors.<T>toList());
+    }
+
+    /**
+     * Returns a {@code Collector} grouping input elements by the
+     * classifier function, and reducing the elements of each group
+     * with the downstream collector, into a {@code Map} from each key
+     * to the result of its group.
+     *
+     * @param <T> the type of the input elements
+     * @param <K> the type of the keys
+     * @param <A> the intermediate accumulation type of the downstream
+     *        collector
+     * @param <D> the result type of the downstream reduction
+     * @param classifier the classifier function mapping input elements
+     *        to non-null keys
+     * @param downstream the collector reducing each group
+     * @return a collector implementing the group-by operation
+     */
+    public static <T, K, A, D> Collector<T, ?, Map<K, D>>
+        groupingBy(final Function<? super T, ? extends K> classifier,
+                   Collector<? super T, A, D> downstream) {
+        if (classifier == null)
+            throw new NullPointerException();
+        final Supplier<A> downstreamSupplier = downstream.supplier();
+        @SuppressWarnings("unchecked")
+        final BiConsumer<A, T> downstreamAccumulator =
+            (BiConsumer<A, T>) downstream.accumulator();
+        final BinaryOperator<A> downstreamCombiner = downstream.combiner();
+        final Function<A, D> downstreamFinisher = downstream.finisher();
+        return new CollectorImpl<T, Map<K, A>, Map<K, D>>(
+            new Supplier<Map<K, A>>() {
+                public Map<K, A> get() { return new HashMap<K, A>(); }
+            },
+            new BiConsumer<Map<K, A>, T>() {
+                public void accept(Map<K, A> map, T t) {
+                    K key = classifier.apply(t);
+                    if (key == null)
+                        throw new NullPointerException(
+                            "element cannot be mapped to a null key");
+                    A container = map.get(key);
+                    if (container == null)
+                        map.put(key, container = downstreamSupplier.get());
+                    downstreamAccumulator.accept(container, t);
+                }
+            },
+            new BinaryOperator<Map<K, A>>() {
+                public Map<K, A> apply(Map<K, A> left, Map<K, A> right) {
+                    for (Map.Entry<K, A> e : right.entrySet())
+                        merge(left, e.getKey(), e.getValue(),
+                              downstreamCombiner);
+                    return left;
+                }
+            },
+            new Function<Map<K, A>, Map<K, D>>() {
+                @SuppressWarnings("unchecked")
+                public Map<K, D> apply(Map<K, A> map) {
+                    Map<K, Object> m = (Map<K, Object>) (Map<K, ?>) map;
+                    for (Map.Entry<K, Object> e : m.entrySet())
+                        e.setValue(downstreamFinisher.apply((A) e.getValue()));
+                    return (Map<K, D>) (Map<K, ?>) m;
+                }
+            });
+    }
+
+    /**
+     * Adapts a {@code Collector} accepting elements of type {@code U}
+     * to one accepting elements of type {@code T} by applying a
+     * mapping function to each input element before accumulation.
+     * This is most useful as the downstream collector of
+     * {@link #groupingBy(Function, Collector)}.
+     *
+     * @param <T> the type of the input elements
+     * @param <U> type of elements accepted by downstream collector
+     * @param <A> intermediate accumulation type of the downstream collector
+     * @param <R> result type of collector
+     * @param mapper a function to be applied to the input elements
+     * @param downstream a collector which will accept mapped values
+     * @return a collector which applies the mapping function to the input
+     *         elements and provides the mapped results to the downstream
+     *         collector
+     */
+    public static <T, U, A, R> Collector<T, ?, R>
+        mapping(final Function<? super T, ? extends U> mapper,
+                Collector<? super U, A, R> downstream) {
+        if (mapper == null)
+            throw new NullPointerException();
+        @SuppressWarnings("unchecked")
+        final BiConsumer<A, U> downstreamAccumulator =
+            (BiConsumer<A, U>) downstream.accumulator();
+        return new CollectorImpl<T, A, R>(
+            downstream.supplier(),
+            new BiConsumer<A, T>() {
+                public void accept(A container, T t) {
+                    downstreamAccumulator.accept(container, mapper.apply(t));
+                }
+            },
+            downstream.combiner(),
+            downstream.finisher());
+    }
+
+    /**
+     * Returns a {@code Collector} counting the input elements.
+     *
+     * @param <T> the type of the input elements
+     * @return a collector that counts the input elements
+     */
+    public static <T> Collector<T, ?, Long> counting() {
+        return new CollectorImpl<T, long[], Long>(
+            new Supplier<long[]>() {
+                public long[] get() { return new long[1]; }
+            },
+            new BiConsumer<long[], T>() {
+                public void accept(long[] a, T t) { a[0]++; }
+            },
+            new BinaryOperator<long[]>() {
+                public long[] apply(long[] a, long[] b) {
+                    a[0] += b[0];
+                    return a;
+                }
+            },
+            new Function<long[], Long>() {
+                public Long apply(long[] a) { return a[0]; }
+            });
+    }
+
+    /**
+     * Returns a {@code Collector} producing the sum of a
+     * {@code int}-valued function applied to the input elements.
+     *
+     * @param <T> the type of the input elements
+     * @param mapper a function extracting the property to be summed
+     * @return a collector that produces the sum of a derived property
+     */
+    public static <T> Collector<T, ?, Integer>
+        summingInt(final ToIntFunction<? super T> mapper) {
+        if (mapper == null)
+            throw new NullPointerException();
+        return new CollectorImpl<T, int[], Integer>(
+            new Supplier<int[]>() {
+                public int[] get() { return new int[1]; }
+            },
+            new BiConsumer<int[], T>() {
+                public void accept(int[] a, T t) {
+                    a[0] += mapper.applyAsInt(t);
+                }
+            },
+            new BinaryOperator<int[]>() {
+                public int[] apply(int[] a, int[] b) {
+                    a[0] += b[0];
+                    return a;
+                }
+            },
+            new Function<int[], Integer>() {
+                public Integer apply(int[] a) { return a[0]; }
+            });
+    }
+
+    /**
+     * Returns a {@code Collector} producing the sum of a
+     * {@code long}-valued function applied to the input elements.
+     *
+     * @param <T> the type of the input elements
+     * @param mapper a function extracting the property to be summed
+     * @return a collector that produces the sum of a derived property
+     */
+    public static <T> Collector<T, ?, Long>
+        summingLong(final ToLongFunction<? super T> mapper) {
+        if (mapper == null)
+            throw new NullPointerException();
+        return new CollectorImpl<T, long[], Long>(
+            new Supplier<long[]>() {
+                public long[] get() { return new long[1]; }
+            },
+            new BiConsumer<long[], T>() {
+                public void accept(long[] a, T t) {
+                    a[0] += mapper.applyAsLong(t);
+                }
+            },
+            new BinaryOperator<long[]>() {
+                public long[] apply(long[] a, long[] b) {
+                    a[0] += b[0];
+                    return a;
+                }
+            },
+            new Function<long[], Long>() {
+                public Long apply(long[] a) { return a[0]; }
+            });
+    }
+
+    /**
+     * Returns a {@code Collector} producing the sum of a
+     * {@code double}-valued function applied to the input elements.
+     *
+     * @param <T> the type of the input elements
+     * @param mapper a function extracting the property to be summed
+     * @return a collector that produces the sum of a derived property
+     */
+    public static <T> Collector<T, ?, Double>
+        summingDouble(final ToDoubleFunction<? super T> mapper) {
+        if (mapper == null)
+            throw new NullPointerException();
+        return new CollectorImpl<T, double[], Double>(
+            new Supplier<double[]>() {
+                public double[] get() { return new double[1]; }
+            },
+            new BiConsumer<double[], T>() {
+                public void accept(double[] a, T t) {
+                    a[0] += mapper.applyAsDouble(t);
+                }
+            },
+            new BinaryOperator<double[]>() {
+                public double[] apply(double[] a, double[] b) {
+                    a[0] += b[0];
+                    return a;
+                }
+            },
+            new Function<double[], Double>() {
+                public Double apply(double[] a) { return a[0]; }
+            });
+    }
+}
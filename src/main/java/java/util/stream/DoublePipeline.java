@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * A stage of a pipeline of {@code double} values, serving as the head
+ * stage and as the base for anonymous subclasses implementing the
+ * stateless intermediate operations.
+ *
+ * @since 1.7
+ */
+class DoublePipeline extends AbstractPipeline implements DoubleStream {
+
+    /**
+     * Constructor for the head of a pipeline.
+     *
+     * @param source the source of elements
+     * @param parallel true if the pipeline is initially parallel
+     */
+    DoublePipeline(Source source, boolean parallel) {
+        super(source, parallel);
+    }
+
+    /**
+     * Constructor for a stateless intermediate stage, whose class
+     * overrides {@link #opWrapSink}.
+     *
+     * @param upstream the stage before this one
+     */
+    DoublePipeline(AbstractPipeline upstream) {
+        super(upstream, null);
+    }
+
+    /**
+     * Constructor for a stateful intermediate stage.
+     *
+     * @param upstream the stage before this one
+     * @param op the stateful operation
+     */
+    DoublePipeline(AbstractPipeline upstream, StatefulOp op) {
+        super(upstream, op);
+    }
+
+    final Nodes.Buffer newBuffer() {
+        return new Nodes.OfDouble();
+    }
+
+    public final DoubleStream sequential() {
+        setParallel(false);
+        return this;
+    }
+
+    public final DoubleStream parallel() {
+        setParallel(true);
+        return this;
+    }
+
+    // Stateless intermediate operations
+
+    public final DoubleStream filter(final DoublePredicate predicate) {
+        if (predicate == null)
+            throw new NullPointerException();
+        return new DoublePipeline(this) {
+            Sink<?> opWrapSink(Sink<?> sink) {
+                return new Sink.Chained<Double>(sink) {
+                    void begin(long size) {
+                        downstream.begin(-1L);
+                    }
+                    public void accept(double value) {
+                        if (predicate.test(value))
+                            downstream.accept(value);
+                    }
+                };
+            }
+        };
+    }
+
+    public final DoubleStream map(final DoubleUnaryOperator mapper) {
+        if (mapper == null)
+            throw new NullPointerException();
+        return new DoublePipeline(this) {
+            Sink<?> opWrapSink(Sink<?> sink) {
+                return new Sink.Chained<Double>(sink) {
+                    public void accept(double value) {
+                        downstream.accept(mapper.applyAsDouble(value));
+                    }
+                };
+            }
+        };
+    }
+
+    public final <U> Stream<U> mapToObj(final DoubleFunction<? extends U> mapper) {
+        if (mapper == null)
+            throw new NullPointerException();
+        return new ReferencePipeline<U>(this) {
+            Sink<?> opWrapSink(Sink<?> sink) {
+                return new Sink.Chained<Double>(sink) {
+                    public void accept(double value) {
+                        downstream.accept(mapper.apply(value));
+                    }
+                };
+            }
+        };
+    }
+
+    public final Stream<Double> boxed() {
+        return new ReferencePipeline<Double>(this) {
+            Sink<?> opWrapSink(Sink<?> sink) {
+                return new Sink.Chained<Double>(sink) {
+                    public void accept(double value) {
+                        downstream.accept(Double.valueOf(value));
+                    }
+                };
+            }
+        };
+    }
+
+    // Stateful intermediate operations
+
+    public final DoubleStream distinct() {
+        return new DoublePipeline(this, StatefulOp.distinct());
+    }
+
+    public final DoubleStream sorted() {
+        return new DoublePipeline(this, StatefulOp.sorted(null));
+    }
+
+    public final DoubleStream limit(long maxSize) {
+        return new DoublePipeline(this, StatefulOp.limit(maxSize));
+    }
+
+    // Terminal operations
+
+    public final void forEach(DoubleConsumer action) {
+        evaluate(TerminalOp.forEach(action));
+    }
+
+    public final double[] toArray() {
+        return ((Nodes.OfDouble) evaluate(new Nodes.ToBufferOp(this))).toArray();
+    }
+
+    public final double reduce(double identity, DoubleBinaryOperator op) {
+        return evaluate(TerminalOp.reduce(identity, op));
+    }
+
+    public final double sum() {
+        return reduce(0, new DoubleBinaryOperator() {
+            public double applyAsDouble(double left, double right) {
+                return left + right;
+            }
+        });
+    }
+
+    public final long count() {
+        return evaluate(TerminalOp.count());
+    }
+
+    public final boolean anyMatch(DoublePredicate predicate) {
+        return TerminalOp.match(this, TerminalOp.MATCH_ANY, predicate);
+    }
+
+    public final boolean allMatch(DoublePredicate predicate) {
+        return TerminalOp.match(this, TerminalOp.MATCH_ALL, predicate);
+    }
+
+    public final boolean noneMatch(DoublePredicate predicate) {
+        return TerminalOp.match(this, TerminalOp.MATCH_NONE, predicate);
+    }
+}
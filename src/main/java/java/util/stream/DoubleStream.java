@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * A sequence of primitive {@code double} elements supporting
+ * sequential and parallel aggregate operations.  This is the
+ * {@code double} primitive specialization of {@link Stream}; elements
+ * pass through its operations without boxing.
+ *
+ * @since 1.7
+ * @see Stream
+ */
+public interface DoubleStream extends BaseStream<Double, DoubleStream> {
+
+    /**
+     * Returns a stream of the elements of this stream that match the
+     * predicate.  This is an intermediate operation.
+     *
+     * @param predicate the predicate to apply to each element
+     * @return the new stream
+     */
+    DoubleStream filter(DoublePredicate predicate);
+
+    /**
+     * Returns a stream of the results of applying the function to the
+     * elements of this stream.  This is an intermediate operation.
+     *
+     * @param mapper the function to apply to each element
+     * @return the new stream
+     */
+    DoubleStream map(DoubleUnaryOperator mapper);
+
+    /**
+     * Returns an object-valued stream of the results of applying the
+     * function to the elements of this stream.  This is an
+     * intermediate operation.
+     *
+     * @param <U> the element type of the new stream
+     * @param mapper the function to apply to each element
+     * @return the new stream
+     */
+    <U> Stream<U> mapToObj(DoubleFunction<? extends U> mapper);
+
+    /**
+     * Returns a {@code Stream} of the elements of this stream, each
+     * boxed to an {@code Double}.  This is an intermediate operation.
+     *
+     * @return the new stream
+     */
+    Stream<Double> boxed();
+
+    /**
+     * Returns a stream of the distinct elements of this stream,
+     * keeping the first occurrence of each.  This is a stateful
+     * intermediate operation.
+     *
+     * @return the new stream
+     */
+    DoubleStream distinct();
+
+    /**
+     * Returns a stream of the elements of this stream in ascending
+     * order.  This is a stateful intermediate operation.
+     *
+     * @return the new stream
+     */
+    DoubleStream sorted();
+
+    /**
+     * Returns a stream of at most the first {@code maxSize} elements
+     * of this stream.  This is a short-circuiting stateful
+     * intermediate operation.
+     *
+     * @param maxSize the number of elements to limit the stream to
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code maxSize} is negative
+     */
+    DoubleStream limit(long maxSize);
+
+    /**
+     * Performs the action for each element of this stream.  For
+     * parallel streams the action may be performed in any order, and
+     * from any thread.  This is a terminal operation.
+     *
+     * @param action the action to perform on each element
+     */
+    void forEach(DoubleConsumer action);
+
+    /**
+     * Returns an array containing the elements of this stream.  This
+     * is a terminal operation.
+     *
+     * @return an array containing the elements of this stream
+     */
+    double[] toArray();
+
+    /**
+     * Reduces the elements of this stream, starting from the identity
+     * and folding in each element with the associative operator.  This
+     * is a terminal operation.
+     *
+     * @param identity the identity value of the operator
+     * @param op the operator combining two values
+     * @return the result of the reduction
+     */
+    double reduce(double identity, DoubleBinaryOperator op);
+
+    /**
+     * Returns the sum of the elements of this stream.  This is a
+     * terminal operation.
+     *
+     * @return the sum of the elements of this stream
+     */
+    double sum();
+
+    /**
+     * Returns the number of elements in this stream.  This is a
+     * terminal operation.
+     *
+     * @return the number of elements in this stream
+     */
+    long count();
+
+    /**
+     * Returns whether any element of this stream matches the
+     * predicate.  This is a short-circuiting terminal operation.
+     *
+     * @param predicate the predicate to apply to elements
+     * @return true if any element matches
+     */
+    boolean anyMatch(DoublePredicate predicate);
+
+    /**
+     * Returns whether all elements of this stream match the
+     * predicate.  This is a short-circuiting terminal operation.
+     *
+     * @param predicate the predicate to apply to elements
+     * @return true if all elements match
+     */
+    boolean allMatch(DoublePredicate predicate);
+
+    /**
+     * Returns whether no element of this stream matches the
+     * predicate.  This is a short-circuiting terminal operation.
+     *
+     * @param predicate the predicate to apply to elements
+     * @return true if no element matches
+     */
+    boolean noneMatch(DoublePredicate predicate);
+}
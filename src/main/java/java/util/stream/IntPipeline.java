@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A stage of a pipeline of {@code int} values, serving as the head
+ * stage and as the base for anonymous subclasses implementing the
+ * stateless intermediate operations.
+ *
+ * @since 1.7
+ */
+class IntPipeline extends AbstractPipeline implements IntStream {
+
+    /**
+     * Constructor for the head of a pipeline.
+     *
+     * @param source the source of elements
+     * @param parallel true if the pipeline is initially parallel
+     */
+    IntPipeline(Source source, boolean parallel) {
+        super(source, parallel);
+    }
+
+    /**
+     * Constructor for a stateless intermediate stage, whose class
+     * overrides {@link #opWrapSink}.
+     *
+     * @param upstream the stage before this one
+     */
+    IntPipeline(AbstractPipeline upstream) {
+        super(upstream, null);
+    }
+
+    /**
+     * Constructor for a stateful intermediate stage.
+     *
+     * @param upstream the stage before this one
+     * @param op the stateful operation
+     */
+    IntPipeline(AbstractPipeline upstream, StatefulOp op) {
+        super(upstream, op);
+    }
+
+    final Nodes.Buffer newBuffer() {
+        return new Nodes.OfInt();
+    }
+
+    public final IntStream sequential() {
+        setParallel(false);
+        return this;
+    }
+
+    public final IntStream parallel() {
+        setParallel(true);
+        return this;
+    }
+
+    // Stateless intermediate operations
+
+    public final IntStream filter(final IntPredicate predicate) {
+        if (predicate == null)
+            throw new NullPointerException();
+        return new IntPipeline(this) {
+            Sink<?> opWrapSink(Sink<?> sink) {
+                return new Sink.Chained<Integer>(sink) {
+                    void begin(long size) {
+                        downstream.begin(-1L);
+                    }
+                    public void accept(int value) {
+                        if (predicate.test(value))
+                            downstream.accept(value);
+                    }
+                };
+            }
+        };
+    }
+
+    public final IntStream map(final IntUnaryOperator mapper) {
+        if (mapper == null)
+            throw new NullPointerException();
+        return new IntPipeline(this) {
+            Sink<?> opWrapSink(Sink<?> sink) {
+                return new Sink.Chained<Integer>(sink) {
+                    public void accept(int value) {
+                        downstream.accept(mapper.applyAsInt(value));
+                    }
+                };
+            }
+        };
+    }
+
+    public final <U> Stream<U> mapToObj(final IntFunction<? extends U> mapper) {
+        if (mapper == null)
+            throw new NullPointerException();
+        return new ReferencePipeline<U>(this) {
+            Sink<?> opWrapSink(Sink<?> sink) {
+                return new Sink.Chained<Integer>(sink) {
+                    public void accept(int value) {
+                        downstream.accept(mapper.apply(value));
+                    }
+                };
+            }
+        };
+    }
+
+    public final LongStream asLongStream() {
+        return new LongPipeline(this) {
+            Sink<?> opWrapSink(Sink<?> sink) {
+                return new Sink.Chained<Integer>(sink) {
+                    public void accept(int value) {
+                        downstream.accept((long) value);
+                    }
+                };
+            }
+        };
+    }
+
+    public final DoubleStream asDoubleStream() {
+        return new DoublePipeline(this) {
+            Sink<?> opWrapSink(Sink<?> sink) {
+                return new Sink.Chained<Integer>(sink) {
+                    public void accept(int value) {
+                        downstream.accept((double) value);
+                    }
+                };
+            }
+        };
+    }
+
+    public final Stream<Integer> boxed() {
+        return new ReferencePipeline<Integer>(this) {
+            Sink<?> opWrapSink(Sink<?> sink) {
+                return new Sink.Chained<Integer>(sink) {
+                    public void accept(int value) {
+                        downstream.accept(Integer.valueOf(value));
+                    }
+                };
+            }
+        };
+    }
+
+    // Stateful intermediate operations
+
+    public final IntStream distinct() {
+        return new IntPipeline(this, StatefulOp.distinct());
+    }
+
+    public final IntStream sorted() {
+        return new IntPipeline(this, StatefulOp.sorted(null));
+    }
+
+    public final IntStream limit(long maxSize) {
+        return new IntPipeline(this, StatefulOp.limit(maxSize));
+    }
+
+    // Terminal operations
+
+    public final void forEach(IntConsumer action) {
+        evaluate(TerminalOp.forEach(action));
+    }
+
+    public final int[] toArray() {
+        return ((Nodes.OfInt) evaluate(new Nodes.ToBufferOp(this))).toArray();
+    }
+
+    public final int reduce(int identity, IntBinaryOperator op) {
+        return evaluate(TerminalOp.reduce(identity, op));
+    }
+
+    public final int sum() {
+        return reduce(0, new IntBinaryOperator() {
+            public int applyAsInt(int left, int right) {
+                return left + right;
+            }
+        });
+    }
+
+    public final long count() {
+        return evaluate(TerminalOp.count());
+    }
+
+    public final boolean anyMatch(IntPredicate predicate) {
+        return TerminalOp.match(this, TerminalOp.MATCH_ANY, predicate);
+    }
+
+    public final boolean allMatch(IntPredicate predicate) {
+        return TerminalOp.match(this, TerminalOp.MATCH_ALL, predicate);
+    }
+
+    public final boolean noneMatch(IntPredicate predicate) {
+        return TerminalOp.match(this, TerminalOp.MATCH_NONE, predicate);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A sequence of primitive {@code int} elements supporting
+ * sequential and parallel aggregate operations.  This is the
+ * {@code int} primitive specialization of {@link Stream}; elements
+ * pass through its operations without boxing.
+ *
+ * @since 1.7
+ * @see Stream
+ */
+public interface IntStream extends BaseStream<Integer, IntStream> {
+
+    /**
+     * Returns a stream of the elements of this stream that match the
+     * predicate.  This is an intermediate operation.
+     *
+     * @param predicate the predicate to apply to each element
+     * @return the new stream
+     */
+    IntStream filter(IntPredicate predicate);
+
+    /**
+     * Returns a stream of the results of applying the function to the
+     * elements of this stream.  This is an intermediate operation.
+     *
+     * @param mapper the function to apply to each element
+     * @return the new stream
+     */
+    IntStream map(IntUnaryOperator mapper);
+
+    /**
+     * Returns an object-valued stream of the results of applying the
+     * function to the elements of this stream.  This is an
+     * intermediate operation.
+     *
+     * @param <U> the element type of the new stream
+     * @param mapper the function to apply to each element
+     * @return the new stream
+     */
+    <U> Stream<U> mapToObj(IntFunction<? extends U> mapper);
+
+    /**
+     * Returns a {@code LongStream} of the elements of this stream,
+     * converted to {@code long}.  This is an intermediate operation.
+     *
+     * @return the new stream
+     */
+    LongStream asLongStream();
+
+    /**
+     * Returns a {@code DoubleStream} of the elements of this stream,
+     * converted to {@code double}.  This is an intermediate operation.
+     *
+     * @return the new stream
+     */
+    DoubleStream asDoubleStream();
+
+    /**
+     * Returns a {@code Stream} of the elements of this stream, each
+     * boxed to an {@code Integer}.  This is an intermediate operation.
+     *
+     * @return the new stream
+     */
+    Stream<Integer> boxed();
+
+    /**
+     * Returns a stream of the distinct elements of this stream,
+     * keeping the first occurrence of each.  This is a stateful
+     * intermediate operation.
+     *
+     * @return the new stream
+     */
+    IntStream distinct();
+
+    /**
+     * Returns a stream of the elements of this stream in ascending
+     * order.  This is a stateful intermediate operation.
+     *
+     * @return the new stream
+     */
+    IntStream sorted();
+
+    /**
+     * Returns a stream of at most the first {@code maxSize} elements
+     * of this stream.  This is a short-circuiting stateful
+     * intermediate operation.
+     *
+     * @param maxSize the number of elements to limit the stream to
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code maxSize} is negative
+     */
+    IntStream limit(long maxSize);
+
+    /**
+     * Performs the action for each element of this stream.  For
+     * parallel streams the action may be performed in any order, and
+     * from any thread.  This is a terminal operation.
+     *
+     * @param action the action to perform on each element
+     */
+    void forEach(IntConsumer action);
+
+    /**
+     * Returns an array containing the elements of this stream.  This
+     * is a terminal operation.
+     *
+     * @return an array containing the elements of this stream
+     */
+    int[] toArray();
+
+    /**
+     * Reduces the elements of this stream, starting from the identity
+     * and folding in each element with the associative operator.  This
+     * is a terminal operation.
+     *
+     * @param identity the identity value of the operator
+     * @param op the operator combining two values
+     * @return the result of the reduction
+     */
+    int reduce(int identity, IntBinaryOperator op);
+
+    /**
+     * Returns the sum of the elements of this stream.  This is a
+     * terminal operation.
+     *
+     * @return the sum of the elements of this stream
+     */
+    int sum();
+
+    /**
+     * Returns the number of elements in this stream.  This is a
+     * terminal operation.
+     *
+     * @return the number of elements in this stream
+     */
+    long count();
+
+    /**
+     * Returns whether any element of this stream matches the
+     * predicate.  This is a short-circuiting terminal operation.
+     *
+     * @param predicate the predicate to apply to elements
+     * @return true if any element matches
+     */
+    boolean anyMatch(IntPredicate predicate);
+
+    /**
+     * Returns whether all elements of this stream match the
+     * predicate.  This is a short-circuiting terminal operation.
+     *
+     * @param predicate the predicate to apply to elements
+     * @return true if all elements match
+     */
+    boolean allMatch(IntPredicate predicate);
+
+    /**
+     * Returns whether no element of this stream matches the
+     * predicate.  This is a short-circuiting terminal operation.
+     *
+     * @param predicate the predicate to apply to elements
+     * @return true if no element matches
+     */
+    boolean noneMatch(IntPredicate predicate);
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * A stage of a pipeline of {@code long} values, serving as the head
+ * stage and as the base for anonymous subclasses implementing the
+ * stateless intermediate operations.
+ *
+ * @since 1.7
+ */
+class LongPipeline extends AbstractPipeline implements LongStream {
+
+    /**
+     * Constructor for the head of a pipeline.
+     *
+     * @param source the source of elements
+     * @param parallel true if the pipeline is initially parallel
+     */
+    LongPipeline(Source source, boolean parallel) {
+        super(source, parallel);
+    }
+
+    /**
+     * Constructor for a stateless intermediate stage, whose class
+     * overrides {@link #opWrapSink}.
+     *
+     * @param upstream the stage before this one
+     */
+    LongPipeline(AbstractPipeline upstream) {
+        super(upstream, null);
+    }
+
+    /**
+     * Constructor for a stateful intermediate stage.
+     *
+     * @param upstream the stage before this one
+     * @param op the stateful operation
+     */
+    LongPipeline(AbstractPipeline upstream, StatefulOp op) {
+        super(upstream, op);
+    }
+
+    final Nodes.Buffer newBuffer() {
+        return new Nodes.OfLong();
+    }
+
+    public final LongStream sequential() {
+        setParallel(false);
+        return this;
+    }
+
+    public final LongStream parallel() {
+        setParallel(true);
+        return this;
+    }
+
+    // Stateless intermediate operations
+
+    public final LongStream filter(final LongPredicate predicate) {
+        if (predicate == null)
+            throw new NullPointerException();
+        return new LongPipeline(this) {
+            Sink<?> opWrapSink(Sink<?> sink) {
+                return new Sink.Chained<Long>(sink) {
+                    void begin(long size) {
+                        downstream.begin(-1L);
+                    }
+                    public void accept(long value) {
+                        if (predicate.test(value))
+                            downstream.accept(value);
+                    }
+                };
+            }
+        };
+    }
+
+    public final LongStream map(final LongUnaryOperator mapper) {
+        if (mapper == null)
+            throw new NullPointerException();
+        return new LongPipeline(this) {
+            Sink<?> opWrapSink(Sink<?> sink) {
+                return new Sink.Chained<Long>(sink) {
+                    public void accept(long value) {
+                        downstream.accept(mapper.applyAsLong(value));
+                    }
+                };
+            }
+        };
+    }
+
+    public final <U> Stream<U> mapToObj(final LongFunction<? extends U> mapper) {
+        if (mapper == null)
+            throw new NullPointerException();
+        return new ReferencePipeline<U>(this) {
+            Sink<?> opWrapSink(Sink<?> sink) {
+                return new Sink.Chained<Long>(sink) {
+                    public void accept(long value) {
+                        downstream.accept(mapper.apply(value));
+                    }
+                };
+            }
+        };
+    }
+
+    public final DoubleStream asDoubleStream() {
+        return new DoublePipeline(this) {
+            Sink<?> opWrapSink(Sink<?> sink) {
+                return new Sink.Chained<Long>(sink) {
+                    public void accept(long value) {
+                        downstream.accept((double) value);
+                    }
+                };
+            }
+        };
+    }
+
+    public final Stream<Long> boxed() {
+        return new ReferencePipeline<Long>(this) {
+            Sink<?> opWrapSink(Sink<?> sink) {
+                return new Sink.Chained<Long>(sink) {
+                    public void accept(long value) {
+                        downstream.accept(Long.valueOf(value));
+                    }
+                };
+            }
+        };
+    }
+
+    // Stateful intermediate operations
+
+    public final LongStream distinct() {
+        return new LongPipeline(this, StatefulOp.distinct());
+    }
+
+    public final LongStream sorted() {
+        return new LongPipeline(this, StatefulOp.sorted(null));
+    }
+
+    public final LongStream limit(long maxSize) {
+        return new LongPipeline(this, StatefulOp.limit(maxSize));
+    }
+
+    // Terminal operations
+
+    public final void forEach(LongConsumer action) {
+        evaluate(TerminalOp.forEach(action));
+    }
+
+    public final long[] toArray() {
+        return ((Nodes.OfLong) evaluate(new Nodes.ToBufferOp(this))).toArray();
+    }
+
+    public final long reduce(long identity, LongBinaryOperator op) {
+        return evaluate(TerminalOp.reduce(identity, op));
+    }
+
+    public final long sum() {
+        return reduce(0, new LongBinaryOperator() {
+            public long applyAsLong(long left, long right) {
+                return left + right;
+            }
+        });
+    }
+
+    public final long count() {
+        return evaluate(TerminalOp.count());
+    }
+
+    public final boolean anyMatch(LongPredicate predicate) {
+        return TerminalOp.match(this, TerminalOp.MATCH_ANY, predicate);
+    }
+
+    public final boolean allMatch(LongPredicate predicate) {
+        return TerminalOp.match(this, TerminalOp.MATCH_ALL, predicate);
+    }
+
+    public final boolean noneMatch(LongPredicate predicate) {
+        return TerminalOp.match(this, TerminalOp.MATCH_NONE, predicate);
+    }
+}
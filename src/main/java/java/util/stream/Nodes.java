@@ -0,0 +1,365 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+
+/**
+ * Growable buffers holding the elements of a stream, one class per
+ * element shape.  A buffer is the terminal sink of the {@link ToBufferOp}
+ * used by {@code toArray} and, in parallel pipelines, to materialize the
+ * input of a stateful operation; the sequential {@code sorted} sink
+ * also buffers into one.  The buffers of adjacent parts of a parallel
+ * evaluation are concatenated in encounter order.
+ *
+ * @since 1.7
+ */
+final class Nodes {
+    private Nodes() {}
+
+    /**
+     * The maximum size of array to allocate.
+     * Some VMs reserve some header words in an array.
+     * Attempts to allocate larger arrays may result in
+     * OutOfMemoryError: Requested array size exceeds VM limit
+     */
+    static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /** The initial capacity of a buffer whose final size is unknown. */
+    static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Returns the capacity to grow an array of length n to, in order
+     * to hold at least minCapacity elements.
+     */
+    static int newCapacity(int n, long minCapacity) {
+        if (minCapacity > MAX_ARRAY_SIZE)
+            throw new IllegalArgumentException(
+                "Stream size exceeds max array size");
+        long c = Math.max((long) n + (n >> 1) + 1, minCapacity);
+        return (int) Math.min(Math.max(c, INITIAL_CAPACITY), MAX_ARRAY_SIZE);
+    }
+
+    /**
+     * Abstract base for buffers.  The {@code accept} method for the
+     * buffer's shape appends an element, and {@code begin} presizes the
+     * buffer when the number of elements to come is known.
+     */
+    abstract static class Buffer extends TerminalOp.TerminalSink<Buffer> {
+        int count;
+
+        final Buffer get() {
+            return this;
+        }
+
+        void begin(long size) {
+            if (size > 0L)
+                ensureCapacity(count + size);
+        }
+
+        /** Ensures room for at least n elements in total. */
+        abstract void ensureCapacity(long n);
+
+        /** Appends the elements of other, of the same shape, to this buffer. */
+        abstract Buffer append(Buffer other);
+
+        /** Returns a source of the buffered elements. */
+        abstract Source asSource();
+
+        /** Pushes the buffered elements to sink, stopping on cancellation. */
+        abstract void pushTo(Sink<?> sink);
+
+        /**
+         * Sorts the buffered elements, in natural order or, for
+         * references, by cmp if non-null.
+         */
+        abstract void sort(Comparator<?> cmp, boolean parallel);
+
+        /** Removes later duplicates of each element, keeping order. */
+        abstract void distinct();
+
+        /** Retains at most the first n elements. */
+        final void truncate(long n) {
+            if (n < count)
+                count = (int) n;
+        }
+    }
+
+    /** A buffer of references. */
+    static final class OfRef extends Buffer {
+        Object[] array = new Object[0];
+
+        void ensureCapacity(long n) {
+            if (n > array.length)
+                array = Arrays.copyOf(array, newCapacity(array.length, n));
+        }
+
+        public void accept(Object t) {
+            if (count == array.length)
+                ensureCapacity(count + 1L);
+            array[count++] = t;
+        }
+
+        Buffer append(Buffer other) {
+            OfRef b = (OfRef) other;
+            ensureCapacity((long) count + b.count);
+            System.arraycopy(b.array, 0, array, count, b.count);
+            count += b.count;
+            return this;
+        }
+
+        Source asSource() {
+            return new Source.OfArray(array, 0, count);
+        }
+
+        void pushTo(Sink<?> sink) {
+            @SuppressWarnings("unchecked") Sink<Object> s = (Sink<Object>) sink;
+            Object[] a = array;
+            for (int i = 0, n = count; i < n && !s.cancellationRequested(); ++i)
+                s.accept(a[i]);
+        }
+
+        @SuppressWarnings("unchecked")
+        void sort(Comparator<?> cmp, boolean parallel) {
+            Comparator<Object> c = (Comparator<Object>) cmp;
+            if (parallel)
+                Arrays.parallelSort(array, 0, count, c);
+            else if (c == null)
+                Arrays.sort(array, 0, count);
+            else
+                Arrays.sort(array, 0, count, c);
+        }
+
+        void distinct() {
+            HashSet<Object> seen = new HashSet<>();
+            Object[] a = array;
+            int k = 0;
+            for (int i = 0, n = count; i < n; ++i) {
+                Object t = a[i];
+                if (seen.add(t))
+                    a[k++] = t;
+            }
+            Arrays.fill(a, k, count, null);
+            count = k;
+        }
+
+        Object[] toArray() {
+            return Arrays.copyOf(array, count);
+        }
+    }
+
+    /** A buffer of {@code int} values. */
+    static final class OfInt extends Buffer {
+        int[] array = new int[0];
+
+        void ensureCapacity(long n) {
+            if (n > array.length)
+                array = Arrays.copyOf(array, newCapacity(array.length, n));
+        }
+
+        public void accept(int value) {
+            if (count == array.length)
+                ensureCapacity(count + 1L);
+            array[count++] = value;
+        }
+
+        Buffer append(Buffer other) {
+            OfInt b = (OfInt) other;
+            ensureCapacity((long) count + b.count);
+            System.arraycopy(b.array, 0, array, count, b.count);
+            count += b.count;
+            return this;
+        }
+
+        Source asSource() {
+            return new Source.OfIntArray(array, 0, count);
+        }
+
+        void pushTo(Sink<?> sink) {
+            int[] a = array;
+            for (int i = 0, n = count; i < n && !sink.cancellationRequested(); ++i)
+                sink.accept(a[i]);
+        }
+
+        void sort(Comparator<?> cmp, boolean parallel) {
+            if (parallel)
+                Arrays.parallelSort(array, 0, count);
+            else
+                Arrays.sort(array, 0, count);
+        }
+
+        void distinct() {
+            HashSet<Integer> seen = new HashSet<>();
+            int[] a = array;
+            int k = 0;
+            for (int i = 0, n = count; i < n; ++i) {
+                int v = a[i];
+                if (seen.add(v))
+                    a[k++] = v;
+            }
+            count = k;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(array, count);
+        }
+    }
+
+    /** A buffer of {@code long} values. */
+    static final class OfLong extends Buffer {
+        long[] array = new long[0];
+
+        void ensureCapacity(long n) {
+            if (n > array.length)
+                array = Arrays.copyOf(array, newCapacity(array.length, n));
+        }
+
+        public void accept(long value) {
+            if (count == array.length)
+                ensureCapacity(count + 1L);
+            array[count++] = value;
+        }
+
+        Buffer append(Buffer other) {
+            OfLong b = (OfLong) other;
+            ensureCapacity((long) count + b.count);
+            System.arraycopy(b.array, 0, array, count, b.count);
+            count += b.count;
+            return this;
+        }
+
+        Source asSource() {
+            return new Source.OfLongArray(array, 0, count);
+        }
+
+        void pushTo(Sink<?> sink) {
+            long[] a = array;
+            for (int i = 0, n = count; i < n && !sink.cancellationRequested(); ++i)
+                sink.accept(a[i]);
+        }
+
+        void sort(Comparator<?> cmp, boolean parallel) {
+            if (parallel)
+                Arrays.parallelSort(array, 0, count);
+            else
+                Arrays.sort(array, 0, count);
+        }
+
+        void distinct() {
+            HashSet<Long> seen = new HashSet<>();
+            long[] a = array;
+            int k = 0;
+            for (int i = 0, n = count; i < n; ++i) {
+                long v = a[i];
+                if (seen.add(v))
+                    a[k++] = v;
+            }
+            count = k;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(array, count);
+        }
+    }
+
+    /** A buffer of {@code double} values. */
+    static final class OfDouble extends Buffer {
+        double[] array = new double[0];
+
+        void ensureCapacity(long n) {
+            if (n > array.length)
+                array = Arrays.copyOf(array, newCapacity(array.length, n));
+        }
+
+        public void accept(double value) {
+            if (count == array.length)
+                ensureCapacity(count + 1L);
+            array[count++] = value;
+        }
+
+        Buffer append(Buffer other) {
+            OfDouble b = (OfDouble) other;
+            ensureCapacity((long) count + b.count);
+            System.arraycopy(b.array, 0, array, count, b.count);
+            count += b.count;
+            return this;
+        }
+
+        Source asSource() {
+            return new Source.OfDoubleArray(array, 0, count);
+        }
+
+        void pushTo(Sink<?> sink) {
+            double[] a = array;
+            for (int i = 0, n = count; i < n && !sink.cancellationRequested(); ++i)
+                sink.accept(a[i]);
+        }
+
+        void sort(Comparator<?> cmp, boolean parallel) {
+            if (parallel)
+                Arrays.parallelSort(array, 0, count);
+            else
+                Arrays.sort(array, 0, count);
+        }
+
+        void distinct() {
+            HashSet<Double> seen = new HashSet<>();
+            double[] a = array;
+            int k = 0;
+            for (int i = 0, n = count; i < n; ++i) {
+                double v = a[i];
+                if (seen.add(v))
+                    a[k++] = v;
+            }
+            count = k;
+        }
+
+        double[] toArray() {
+            return Arrays.copyOf(array, count);
+        }
+    }
+
+    /**
+     * The terminal operation that collects the output of a pipeline
+     * into a buffer of the pipeline's shape.
+     */
+    static final class ToBufferOp extends TerminalOp<Buffer> {
+        private final AbstractPipeline pipeline;
+
+        ToBufferOp(AbstractPipeline pipeline) {
+            this.pipeline = pipeline;
+        }
+
+        TerminalOp.TerminalSink<Buffer> makeSink() {
+            return pipeline.newBuffer();
+        }
+
+        Buffer combine(Buffer left, Buffer right) {
+            return left.append(right);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.Comparator;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * A stage of a pipeline of references, serving as the head stage and
+ * as the base for anonymous subclasses implementing the stateless
+ * intermediate operations.
+ *
+ * @param <T> the type of elements output by this stage
+ * @since 1.7
+ */
+class ReferencePipeline<T> extends AbstractPipeline implements Stream<T> {
+
+    /**
+     * Constructor for the head of a pipeline.
+     *
+     * @param source the source of elements
+     * @param parallel true if the pipeline is initially parallel
+     */
+    ReferencePipeline(Source source, boolean parallel) {
+        super(source, parallel);
+    }
+
+    /**
+     * Constructor for a stateless intermediate stage, whose class
+     * overrides {@link #opWrapSink}.
+     *
+     * @param upstream the stage before this one
+     */
+    ReferencePipeline(AbstractPipeline upstream) {
+        super(upstream, null);
+    }
+
+    /**
+     * Constructor for a stateful intermediate stage.
+     *
+     * @param upstream the stage before this one
+     * @param op the stateful operation
+     */
+    ReferencePipeline(AbstractPipeline upstream, StatefulOp op) {
+        super(upstream, op);
+    }
+
+    final Nodes.Buffer newBuffer() {
+        return new Nodes.OfRef();
+    }
+
+    public final Stream<T> sequential() {
+        setParallel(false);
+        return this;
+    }
+
+    public final Stream<T> parallel() {
+        setParallel(true);
+        return this;
+    }
+
+    // Stateless intermediate operations
+
+    public final Stream<T> filter(final Predicate<? super T> predicate) {
+        if (predicate == null)
+            throw new NullPointerException();
+        return new ReferencePipeline<T>(this) {
+            Sink<?> opWrapSink(Sink<?> sink) {
+                return new Sink.Chained<T>(sink) {
+                    void begin(long size) {
+                        downstream.begin(-1L);
+                    }
+                    public void accept(T t) {
+                        if (predicate.test(t))
+                            downstream.accept(t);
+                    }
+                };
+            }
+        };
+    }
+
+    public final <R> Stream<R> map(final Function<? super T, ? extends R> mapper) {
+        if (mapper == null)
+            throw new NullPointerException();
+        return new ReferencePipeline<R>(this) {
+            Sink<?> opWrapSink(Sink<?> sink) {
+                return new Sink.Chained<T>(sink) {
+                    public void accept(T t) {
+                        downstream.accept(mapper.apply(t));
+                    }
+                };
+            }
+        };
+    }
+
+    public final IntStream mapToInt(final ToIntFunction<? super T> mapper) {
+        if (mapper == null)
+            throw new NullPointerException();
+        return new IntPipeline(this) {
+            Sink<?> opWrapSink(Sink<?> sink) {
+                return new Sink.Chained<T>(sink) {
+                    public void accept(T t) {
+                        downstream.accept(mapper.applyAsInt(t));
+                    }
+                };
+            }
+        };
+    }
+
+    public final LongStream mapToLong(final ToLongFunction<? super T> mapper) {
+        if (mapper == null)
+            throw new NullPointerException();
+        return new LongPipeline(this) {
+            Sink<?> opWrapSink(Sink<?> sink) {
+                return new Sink.Chained<T>(sink) {
+                    public void accept(T t) {
+                        downstream.accept(mapper.applyAsLong(t));
+                    }
+                };
+            }
+        };
+    }
+
+    public final DoubleStream mapToDouble(final ToDoubleFunction<? super T> mapper) {
+        if (mapper == null)
+            throw new NullPointerException();
+        return new DoublePipeline(this) {
+            Sink<?> opWrapSink(Sink<?> sink) {
+                return new Sink.Chained<T>(sink) {
+                    public void accept(T t) {
+                        downstream.accept(mapper.applyAsDouble(t));
+                    }
+                };
+            }
+        };
+    }
+
+    public final <R> Stream<R> flatMap(final Function<? super T, ? extends Stream<? extends R>> mapper) {
+        if (mapper == null)
+            throw new NullPointerException();
+        return new ReferencePipeline<R>(this) {
+            Sink<?> opWrapSink(Sink<?> sink) {
+                return new Sink.Chained<T>(sink) {
+                    void begin(long size) {
+                        downstream.begin(-1L);
+                    }
+                    public void accept(T t) {
+                        Stream<? extends R> result = mapper.apply(t);
+                        if (result != null)
+                            result.sequential().forEach(downstream);
+                    }
+                };
+            }
+        };
+    }
+
+    // Stateful intermediate operations
+
+    public final Stream<T> distinct() {
+        return new ReferencePipeline<T>(this, StatefulOp.distinct());
+    }
+
+    public final Stream<T> sorted() {
+        return new ReferencePipeline<T>(this, StatefulOp.sorted(null));
+    }
+
+    public final Stream<T> sorted(Comparator<? super T> comparator) {
+        if (comparator == null)
+            throw new NullPointerException();
+        return new ReferencePipeline<T>(this, StatefulOp.sorted(comparator));
+    }
+
+    public final Stream<T> limit(long maxSize) {
+        return new ReferencePipeline<T>(this, StatefulOp.limit(maxSize));
+    }
+
+    // Terminal operations
+
+    public final void forEach(Consumer<? super T> action) {
+        evaluate(TerminalOp.forEach(action));
+    }
+
+    public final Object[] toArray() {
+        return ((Nodes.OfRef) evaluate(new Nodes.ToBufferOp(this))).toArray();
+    }
+
+    public final T reduce(T identity, BinaryOperator<T> accumulator) {
+        return evaluate(TerminalOp.<T, T>reduce(identity, accumulator,
+                                                accumulator));
+    }
+
+    public final <U> U reduce(U identity,
+                              BiFunction<U, ? super T, U> accumulator,
+                              BinaryOperator<U> combiner) {
+        return evaluate(TerminalOp.<T, U>reduce(identity, accumulator,
+                                                combiner));
+    }
+
+    public final <R, A> R collect(Collector<? super T, A, R> collector) {
+        A container = evaluate(TerminalOp.<T, A>collect(collector));
+        return collector.finisher().apply(container);
+    }
+
+    public final long count() {
+        return evaluate(TerminalOp.count());
+    }
+
+    public final boolean anyMatch(Predicate<? super T> predicate) {
+        return TerminalOp.match(this, TerminalOp.MATCH_ANY, predicate);
+    }
+
+    public final boolean allMatch(Predicate<? super T> predicate) {
+        return TerminalOp.match(this, TerminalOp.MATCH_ALL, predicate);
+    }
+
+    public final boolean noneMatch(Predicate<? super T> predicate) {
+        return TerminalOp.match(this, TerminalOp.MATCH_NONE, predicate);
+    }
+}
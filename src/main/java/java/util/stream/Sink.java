@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * A receiver of the elements flowing through a stream pipeline, with
+ * additional methods to manage size information and control flow.
+ * Before the first call to an {@code accept} method the source calls
+ * {@link #begin(long)}, and after all elements are sent it calls
+ * {@link #end()}; elements must not be sent after {@code end()}.
+ *
+ * <p>A pipeline's intermediate operations are each represented by a
+ * sink that transforms or screens elements and passes them to the
+ * sink of the following operation, so that evaluating a pipeline
+ * pushes each source element through all of its stages in a single
+ * pass, with no intermediate collections.  Stateful operations (such
+ * as sorting) buffer elements and push them downstream from
+ * {@code end()}.
+ *
+ * <p>The {@code accept} methods for the primitive shapes avoid boxing
+ * in {@code int}, {@code long} and {@code double} pipelines.  A sink
+ * implements only the method for the shape of the elements it
+ * receives; the others throw {@code IllegalStateException}.
+ *
+ * <p>{@link #cancellationRequested()} lets short-circuiting
+ * operations such as {@code limit} and {@code anyMatch} stop the
+ * source from sending further elements.
+ *
+ * @param <T> type of elements for value streams
+ * @since 1.7
+ */
+abstract class Sink<T>
+    implements Consumer<T>, IntConsumer, LongConsumer, DoubleConsumer {
+
+    /**
+     * Resets the sink state to receive a fresh data set.  This must be called
+     * before sending any data to the sink.
+     *
+     * @param size The exact size of the data to be pushed downstream, if
+     * known or {@code -1} if unknown or infinite.
+     */
+    void begin(long size) {}
+
+    /**
+     * Indicates that all elements have been pushed.  If the sink is
+     * stateful, it should send any stored state downstream at this time,
+     * and should clear any accumulated state (and associated resources).
+     */
+    void end() {}
+
+    /**
+     * Indicates that this sink does not wish to receive any more data.
+     *
+     * @return true if cancellation is requested
+     */
+    boolean cancellationRequested() {
+        return false;
+    }
+
+    public void accept(T t) {
+        throw new IllegalStateException("called wrong accept method");
+    }
+
+    public void accept(int value) {
+        throw new IllegalStateException("called wrong accept method");
+    }
+
+    public void accept(long value) {
+        throw new IllegalStateException("called wrong accept method");
+    }
+
+    public void accept(double value) {
+        throw new IllegalStateException("called wrong accept method");
+    }
+
+    /**
+     * Abstract base for a sink of an intermediate operation, which
+     * passes {@code begin}, {@code end} and {@code cancellationRequested}
+     * through to the sink of the following operation.  Subclasses
+     * override the {@code accept} method for the shape they receive,
+     * and {@code begin} when the operation changes the element count.
+     */
+    abstract static class Chained<T> extends Sink<T> {
+        final Sink<Object> downstream;
+
+        @SuppressWarnings("unchecked")
+        Chained(Sink<?> downstream) {
+            if (downstream == null)
+                throw new NullPointerException();
+            this.downstream = (Sink<Object>) downstream;
+        }
+
+        void begin(long size) {
+            downstream.begin(size);
+        }
+
+        void end() {
+            downstream.end();
+        }
+
+        boolean cancellationRequested() {
+            return downstream.cancellationRequested();
+        }
+    }
+}
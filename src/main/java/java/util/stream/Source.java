@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.Spliterator;
+
+/**
+ * A splittable supply of the elements at the head of a stream
+ * pipeline.  A source pushes its elements into a {@link Sink}, either
+ * all at once ({@link #forEach}) or one at a time ({@link #tryAdvance})
+ * when the pipeline may short-circuit, and can partition off a prefix
+ * of its elements ({@link #trySplit}) for parallel evaluation.
+ *
+ * <p>Reference sources wrap a {@link Spliterator}.  The primitive
+ * array and range sources push unboxed values, which a public
+ * {@code Spliterator} could not do.  Sources are also used for the
+ * buffered output of stateful operations evaluated in parallel.
+ *
+ * @since 1.7
+ */
+abstract class Source {
+
+    /**
+     * If this source can be partitioned, returns a source covering a
+     * prefix of its remaining elements, which this source no longer
+     * covers; else returns {@code null}.
+     */
+    abstract Source trySplit();
+
+    /**
+     * Returns the number of remaining elements, or an overestimate
+     * (possibly {@code Long.MAX_VALUE}) if the exact size is not known.
+     */
+    abstract long estimateSize();
+
+    /** Returns true if {@link #estimateSize} is exact. */
+    abstract boolean isSized();
+
+    /** Pushes all remaining elements to the sink. */
+    abstract void forEach(Sink<?> sink);
+
+    /**
+     * Pushes the next element, if one exists, to the sink.
+     *
+     * @return false if no elements remained
+     */
+    abstract boolean tryAdvance(Sink<?> sink);
+
+    /** A source of the elements of a Spliterator. */
+    static final class OfSpliterator<T> extends Source {
+        private final Spliterator<T> spliterator;
+
+        OfSpliterator(Spliterator<T> spliterator) {
+            if (spliterator == null)
+                throw new NullPointerException();
+            this.spliterator = spliterator;
+        }
+
+        Source trySplit() {
+            Spliterator<T> s = spliterator.trySplit();
+            return (s == null) ? null : new OfSpliterator<T>(s);
+        }
+
+        long estimateSize() {
+            return spliterator.estimateSize();
+        }
+
+        boolean isSized() {
+            return (spliterator.characteristics() & Spliterator.SIZED) != 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        void forEach(Sink<?> sink) {
+            spliterator.forEachRemaining((Sink<T>) sink);
+        }
+
+        @SuppressWarnings("unchecked")
+        boolean tryAdvance(Sink<?> sink) {
+            return spliterator.tryAdvance((Sink<T>) sink);
+        }
+    }
+
+    /**
+     * Abstract base for sources covering an index range of an array
+     * (or of the integers), which split the range in half.
+     */
+    abstract static class IndexRange extends Source {
+        int index;        // current index, modified on advance/split
+        final int fence;  // one past last index
+
+        IndexRange(int origin, int fence) {
+            this.index = origin;
+            this.fence = fence;
+        }
+
+        final long estimateSize() {
+            return (long) fence - index;
+        }
+
+        final boolean isSized() {
+            return true;
+        }
+    }
+
+    /** A source of a range of an Object[] array. */
+    static final class OfArray extends IndexRange {
+        private final Object[] array;
+
+        OfArray(Object[] array, int origin, int fence) {
+            super(origin, fence);
+            this.array = array;
+        }
+
+        Source trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            return (lo >= mid) ? null : new OfArray(array, lo, index = mid);
+        }
+
+        @SuppressWarnings("unchecked")
+        void forEach(Sink<?> sink) {
+            Sink<Object> s = (Sink<Object>) sink;
+            Object[] a = array;
+            int i = index, hi = fence;
+            index = hi;
+            for (; i < hi; ++i)
+                s.accept(a[i]);
+        }
+
+        @SuppressWarnings("unchecked")
+        boolean tryAdvance(Sink<?> sink) {
+            if (index < fence) {
+                ((Sink<Object>) sink).accept(array[index++]);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /** A source of a range of an {@code int[]} array. */
+    static final class OfIntArray extends IndexRange {
+        private final int[] array;
+
+        OfIntArray(int[] array, int origin, int fence) {
+            super(origin, fence);
+            this.array = array;
+        }
+
+        Source trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            return (lo >= mid) ? null : new OfIntArray(array, lo, index = mid);
+        }
+
+        void forEach(Sink<?> sink) {
+            int[] a = array;
+            int i = index, hi = fence;
+            index = hi;
+            for (; i < hi; ++i)
+                sink.accept(a[i]);
+        }
+
+        boolean tryAdvance(Sink<?> sink) {
+            if (index < fence) {
+                sink.accept(array[index++]);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /** A source of a range of an {@code long[]} array. */
+    static final class OfLongArray extends IndexRange {
+        private final long[] array;
+
+        OfLongArray(long[] array, int origin, int fence) {
+            super(origin, fence);
+            this.array = array;
+        }
+
+        Source trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            return (lo >= mid) ? null : new OfLongArray(array, lo, index = mid);
+        }
+
+        void forEach(Sink<?> sink) {
+            long[] a = array;
+            int i = index, hi = fence;
+            index = hi;
+            for (; i < hi; ++i)
+                sink.accept(a[i]);
+        }
+
+        boolean tryAdvance(Sink<?> sink) {
+            if (index < fence) {
+                sink.accept(array[index++]);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /** A source of a range of an {@code double[]} array. */
+    static final class OfDoubleArray extends IndexRange {
+        private final double[] array;
+
+        OfDoubleArray(double[] array, int origin, int fence) {
+            super(origin, fence);
+            this.array = array;
+        }
+
+        Source trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            return (lo >= mid) ? null : new OfDoubleArray(array, lo, index = mid);
+        }
+
+        void forEach(Sink<?> sink) {
+            double[] a = array;
+            int i = index, hi = fence;
+            index = hi;
+            for (; i < hi; ++i)
+                sink.accept(a[i]);
+        }
+
+        boolean tryAdvance(Sink<?> sink) {
+            if (index < fence) {
+                sink.accept(array[index++]);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /** A source of the ints from an origin (inclusive) to a fence. */
+    static final class IntRange extends IndexRange {
+        IntRange(int origin, int fence) {
+            super(origin, fence);
+        }
+
+        Source trySplit() {
+            int lo = index, mid = lo + ((fence - lo) >>> 1);
+            return (lo >= mid) ? null : new IntRange(lo, index = mid);
+        }
+
+        void forEach(Sink<?> sink) {
+            int i = index, hi = fence;
+            index = hi;
+            for (; i < hi; ++i)
+                sink.accept(i);
+        }
+
+        boolean tryAdvance(Sink<?> sink) {
+            if (index < fence) {
+                sink.accept(index++);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /** A source of the longs from an origin (inclusive) to a fence. */
+    static final class LongRange extends Source {
+        private long index;       // current index, modified on advance/split
+        private final long fence; // one past last index
+
+        LongRange(long origin, long fence) {
+            this.index = origin;
+            this.fence = fence;
+        }
+
+        Source trySplit() {
+            long lo = index, mid = lo + ((fence - lo) >>> 1);
+            return (lo >= mid) ? null : new LongRange(lo, index = mid);
+        }
+
+        long estimateSize() {
+            long n = fence - index;
+            return (n < 0L) ? Long.MAX_VALUE : n; // wrapped ranges
+        }
+
+        boolean isSized() {
+            return fence - index >= 0L;
+        }
+
+        void forEach(Sink<?> sink) {
+            long i = index, hi = fence;
+            index = hi;
+            for (; i < hi; ++i)
+                sink.accept(i);
+        }
+
+        boolean tryAdvance(Sink<?> sink) {
+            if (index < fence) {
+                sink.accept(index++);
+                return true;
+            }
+            return false;
+        }
+    }
+}
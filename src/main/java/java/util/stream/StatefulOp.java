@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.Comparator;
+import java.util.HashSet;
+
+/**
+ * A stateful intermediate operation: one that must see more than the
+ * current element to produce its output.  In a sequential pipeline
+ * the operation is performed by the sink returned by
+ * {@link #wrapSink}.  In a parallel pipeline its input is first
+ * collected into a buffer, which {@link #evaluateBuffered}
+ * transforms as a whole.
+ *
+ * <p>The operations here are shape-agnostic: their sinks implement
+ * the {@code accept} method of every shape and forward elements
+ * unchanged, and the buffers do the shape-specific work.
+ *
+ * @since 1.7
+ */
+abstract class StatefulOp {
+
+    /**
+     * Returns a sink performing this operation as the given stage,
+     * sending its output to downstream.
+     */
+    abstract Sink<?> wrapSink(AbstractPipeline stage, Sink<?> downstream);
+
+    /**
+     * Performs this operation on the buffered input of a parallel
+     * evaluation, returning a source of the output.
+     */
+    abstract Source evaluateBuffered(Nodes.Buffer input);
+
+    /** Returns true if this operation may request cancellation. */
+    boolean isShortCircuit() {
+        return false;
+    }
+
+    /**
+     * Returns an operation sorting elements, in natural order or, for
+     * references, by cmp if non-null.  Sorting of references is stable.
+     */
+    static StatefulOp sorted(final Comparator<?> cmp) {
+        return new StatefulOp() {
+            Sink<?> wrapSink(AbstractPipeline stage, Sink<?> downstream) {
+                return new SortedSink(stage, cmp, downstream);
+            }
+            Source evaluateBuffered(Nodes.Buffer input) {
+                input.sort(cmp, true);
+                return input.asSource();
+            }
+        };
+    }
+
+    /**
+     * Returns an operation removing elements equal to an earlier one,
+     * as determined by {@code equals} of the (boxed) elements.
+     */
+    static StatefulOp distinct() {
+        return new StatefulOp() {
+            Sink<?> wrapSink(AbstractPipeline stage, Sink<?> downstream) {
+                return new DistinctSink(downstream);
+            }
+            Source evaluateBuffered(Nodes.Buffer input) {
+                input.distinct();
+                return input.asSource();
+            }
+        };
+    }
+
+    /** Returns an operation passing on at most the first n elements. */
+    static StatefulOp limit(final long n) {
+        if (n < 0L)
+            throw new IllegalArgumentException(Long.toString(n));
+        return new StatefulOp() {
+            Sink<?> wrapSink(AbstractPipeline stage, Sink<?> downstream) {
+                return new LimitSink(n, downstream);
+            }
+            Source evaluateBuffered(Nodes.Buffer input) {
+                input.truncate(n);
+                return input.asSource();
+            }
+            boolean isShortCircuit() {
+                return true;
+            }
+        };
+    }
+
+    /** Buffers all elements, then sorts and pushes them from end(). */
+    static final class SortedSink extends Sink.Chained<Object> {
+        private final AbstractPipeline stage;
+        private final Comparator<?> cmp;
+        private Nodes.Buffer buffer;
+
+        SortedSink(AbstractPipeline stage, Comparator<?> cmp,
+                   Sink<?> downstream) {
+            super(downstream);
+            this.stage = stage;
+            this.cmp = cmp;
+        }
+
+        void begin(long size) {
+            buffer = stage.newBuffer();
+            buffer.begin(size);
+        }
+
+        void end() {
+            Nodes.Buffer b = buffer;
+            buffer = null;
+            b.sort(cmp, false);
+            downstream.begin(b.count);
+            b.pushTo(downstream);
+            downstream.end();
+        }
+
+        boolean cancellationRequested() {
+            return false; // needs all elements
+        }
+
+        public void accept(Object t) { buffer.accept(t); }
+        public void accept(int value) { buffer.accept(value); }
+        public void accept(long value) { buffer.accept(value); }
+        public void accept(double value) { buffer.accept(value); }
+    }
+
+    /** Passes on elements not already seen. */
+    static final class DistinctSink extends Sink.Chained<Object> {
+        private HashSet<Object> seen;
+
+        DistinctSink(Sink<?> downstream) {
+            super(downstream);
+        }
+
+        void begin(long size) {
+            seen = new HashSet<>();
+            downstream.begin(-1L);
+        }
+
+        void end() {
+            seen = null;
+            downstream.end();
+        }
+
+        public void accept(Object t) {
+            if (seen.add(t))
+                downstream.accept(t);
+        }
+        public void accept(int value) {
+            if (seen.add(value))
+                downstream.accept(value);
+        }
+        public void accept(long value) {
+            if (seen.add(value))
+                downstream.accept(value);
+        }
+        public void accept(double value) {
+            if (seen.add(value))
+                downstream.accept(value);
+        }
+    }
+
+    /** Passes on the first n elements, then requests cancellation. */
+    static final class LimitSink extends Sink.Chained<Object> {
+        private final long limit;
+        private long count;
+
+        LimitSink(long limit, Sink<?> downstream) {
+            super(downstream);
+            this.limit = limit;
+        }
+
+        void begin(long size) {
+            count = 0L;
+            downstream.begin(size < 0L ? -1L : Math.min(size, limit));
+        }
+
+        boolean cancellationRequested() {
+            return count >= limit || downstream.cancellationRequested();
+        }
+
+        public void accept(Object t) {
+            if (count < limit) {
+                ++count;
+                downstream.accept(t);
+            }
+        }
+        public void accept(int value) {
+            if (count < limit) {
+                ++count;
+                downstream.accept(value);
+            }
+        }
+        public void accept(long value) {
+            if (count < limit) {
+                ++count;
+                downstream.accept(value);
+            }
+        }
+        public void accept(double value) {
+            if (count < limit) {
+                ++count;
+                downstream.accept(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.Comparator;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * A sequence of elements supporting sequential and parallel aggregate
+ * operations.  Streams are obtained from collections and arrays via
+ * the factories in {@link Streams} and {@link java.util.Arrays#stream}.
+ * For example:
+ *
+ * <pre> {@code
+ * int sum = Streams.stream(widgets)
+ *                  .filter(new Predicate<Widget>() {
+ *                      public boolean test(Widget w) {
+ *                          return w.getColor() == RED; }})
+ *                  .mapToInt(new ToIntFunction<Widget>() {
+ *                      public int applyAsInt(Widget w) {
+ *                          return w.getWeight(); }})
+ *                  .sum();}</pre>
+ *
+ * <p>Stream operations are divided into <em>intermediate</em>
+ * operations, which return a new stream, and <em>terminal</em>
+ * operations, which produce a result or side-effect.  Intermediate
+ * operations are lazy: nothing is computed until a terminal operation
+ * is invoked, at which point all operations are fused into a single
+ * pass over the source, without intermediate collections, and
+ * short-circuiting operations such as {@link #limit} and
+ * {@link #anyMatch} stop reading the source once the result is known.
+ * A stream may be operated upon (by an intermediate or terminal
+ * operation) only once; a second use throws
+ * {@code IllegalStateException}.
+ *
+ * <p>A parallel stream ({@link #parallel}) is evaluated by tasks in
+ * the {@link java.util.concurrent.ForkJoinPool#commonPool common pool}.
+ * Results respect the encounter order of the source, except that of
+ * {@link #forEach}.  Functions passed to stream operations should be
+ * non-interfering and, for parallel streams, stateless; those passed
+ * to {@code reduce} must be associative.
+ *
+ * <p>Unless otherwise noted, passing a {@code null} argument to any
+ * method causes a {@link NullPointerException} to be thrown.
+ *
+ * @param <T> the type of the stream elements
+ * @since 1.7
+ * @see IntStream
+ * @see LongStream
+ * @see DoubleStream
+ */
+public interface Stream<T> extends BaseStream<T, Stream<T>> {
+
+    /**
+     * Returns a stream of the elements of this stream that match the
+     * predicate.  This is an intermediate operation.
+     *
+     * @param predicate the predicate to apply to each element
+     * @return the new stream
+     */
+    Stream<T> filter(Predicate<? super T> predicate);
+
+    /**
+     * Returns a stream of the results of applying the function to the
+     * elements of this stream.  This is an intermediate operation.
+     *
+     * @param <R> the element type of the new stream
+     * @param mapper the function to apply to each element
+     * @return the new stream
+     */
+    <R> Stream<R> map(Function<? super T, ? extends R> mapper);
+
+    /**
+     * Returns an {@code IntStream} of the results of applying the
+     * function to the elements of this stream.  This is an
+     * intermediate operation.
+     *
+     * @param mapper the function to apply to each element
+     * @return the new stream
+     */
+    IntStream mapToInt(ToIntFunction<? super T> mapper);
+
+    /**
+     * Returns a {@code LongStream} of the results of applying the
+     * function to the elements of this stream.  This is an
+     * intermediate operation.
+     *
+     * @param mapper the function to apply to each element
+     * @return the new stream
+     */
+    LongStream mapToLong(ToLongFunction<? super T> mapper);
+
+    /**
+     * Returns a {@code DoubleStream} of the results of applying the
+     * function to the elements of this stream.  This is an
+     * intermediate operation.
+     *
+     * @param mapper the function to apply to each element
+     * @return the new stream
+     */
+    DoubleStream mapToDouble(ToDoubleFunction<? super T> mapper);
+
+    /**
+     * Returns a stream of the contents of the streams produced by
+     * applying the function to each element of this stream.  Each
+     * mapped stream is consumed sequentially; a {@code null} result
+     * is treated as an empty stream.  This is an intermediate
+     * operation.
+     *
+     * @param <R> the element type of the new stream
+     * @param mapper the function producing a stream for each element
+     * @return the new stream
+     */
+    <R> Stream<R> flatMap(Function<? super T, ? extends Stream<? extends R>> mapper);
+
+    /**
+     * Returns a stream of the distinct elements of this stream,
+     * according to {@link Object#equals}, keeping the first
+     * occurrence of each.  This is a stateful intermediate operation.
+     *
+     * @return the new stream
+     */
+    Stream<T> distinct();
+
+    /**
+     * Returns a stream of the elements of this stream, sorted
+     * according to natural order.  The sort is stable.  This is a
+     * stateful intermediate operation.
+     *
+     * @return the new stream
+     * @throws ClassCastException (when the pipeline is evaluated) if
+     *         the elements are not mutually {@code Comparable}
+     */
+    Stream<T> sorted();
+
+    /**
+     * Returns a stream of the elements of this stream, sorted by the
+     * comparator.  The sort is stable.  This is a stateful
+     * intermediate operation.
+     *
+     * @param comparator the comparator to order elements by
+     * @return the new stream
+     */
+    Stream<T> sorted(Comparator<? super T> comparator);
+
+    /**
+     * Returns a stream of at most the first {@code maxSize} elements
+     * of this stream.  This is a short-circuiting stateful
+     * intermediate operation.
+     *
+     * @param maxSize the number of elements to limit the stream to
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code maxSize} is negative
+     */
+    Stream<T> limit(long maxSize);
+
+    /**
+     * Performs the action for each element of this stream.  For
+     * parallel streams the action may be performed in any order, and
+     * from any thread.  This is a terminal operation.
+     *
+     * @param action the action to perform on each element
+     */
+    void forEach(Consumer<? super T> action);
+
+    /**
+     * Returns an array containing the elements of this stream.  This
+     * is a terminal operation.
+     *
+     * @return an array containing the elements of this stream
+     */
+    Object[] toArray();
+
+    /**
+     * Reduces the elements of this stream, starting from the identity
+     * and folding in each element with the associative operator.  This
+     * is a terminal operation.
+     *
+     * @param identity the identity value of the operator
+     * @param accumulator the operator combining two values
+     * @return the result of the reduction
+     */
+    T reduce(T identity, BinaryOperator<T> accumulator);
+
+    /**
+     * Reduces the elements of this stream to a value of another type,
+     * starting from the identity, folding in elements with the
+     * accumulator, and combining partial results with the combiner.
+     * This is a terminal operation.
+     *
+     * @param <U> the type of the result
+     * @param identity the identity value of the combiner
+     * @param accumulator the function folding an element into a result
+     * @param combiner the associative function combining two results
+     * @return the result of the reduction
+     */
+    <U> U reduce(U identity, BiFunction<U, ? super T, U> accumulator,
+                 BinaryOperator<U> combiner);
+
+    /**
+     * Performs a mutable reduction of the elements of this stream
+     * using the collector.  This is a terminal operation.
+     *
+     * @param <R> the type of the result
+     * @param <A> the intermediate accumulation type of the collector
+     * @param collector the collector describing the reduction
+     * @return the result of the reduction
+     */
+    <R, A> R collect(Collector<? super T, A, R> collector);
+
+    /**
+     * Returns the number of elements in this stream.  This is a
+     * terminal operation.
+     *
+     * @return the number of elements in this stream
+     */
+    long count();
+
+    /**
+     * Returns whether any element of this stream matches the
+     * predicate, without evaluating further elements once one does.
+     * Returns false for an empty stream.  This is a short-circuiting
+     * terminal operation.
+     *
+     * @param predicate the predicate to apply to elements
+     * @return true if any element matches
+     */
+    boolean anyMatch(Predicate<? super T> predicate);
+
+    /**
+     * Returns whether all elements of this stream match the
+     * predicate, without evaluating further elements once one does
+     * not.  Returns true for an empty stream.  This is a
+     * short-circuiting terminal operation.
+     *
+     * @param predicate the predicate to apply to elements
+     * @return true if all elements match
+     */
+    boolean allMatch(Predicate<? super T> predicate);
+
+    /**
+     * Returns whether no element of this stream matches the
+     * predicate, without evaluating further elements once one does.
+     * Returns true for an empty stream.  This is a short-circuiting
+     * terminal operation.
+     *
+     * @param predicate the predicate to apply to elements
+     * @return true if no element matches
+     */
+    boolean noneMatch(Predicate<? super T> predicate);
+}
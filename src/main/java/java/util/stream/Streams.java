@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.Collection;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * Static factories for creating {@link Stream}s and primitive
+ * streams from collections, arrays, spliterators and ranges.
+ *
+ * @since 1.7
+ */
+public final class Streams {
+    private Streams() {}
+
+    /**
+     * Returns a sequential stream of the elements of the collection,
+     * ordered if the collection is a {@link java.util.List}.
+     *
+     * @param <T> the type of the elements
+     * @param c the collection
+     * @return a stream of the collection's elements
+     */
+    public static <T> Stream<T> stream(Collection<? extends T> c) {
+        return stream(Spliterators.<T>spliterator(c), false);
+    }
+
+    /**
+     * Returns a parallel stream of the elements of the collection,
+     * ordered if the collection is a {@link java.util.List}.
+     *
+     * @param <T> the type of the elements
+     * @param c the collection
+     * @return a parallel stream of the collection's elements
+     */
+    public static <T> Stream<T> parallelStream(Collection<? extends T> c) {
+        return stream(Spliterators.<T>spliterator(c), true);
+    }
+
+    /**
+     * Returns a stream of the elements of the spliterator.  The
+     * spliterator is traversed, split, and queried for its size only
+     * once the terminal operation of the stream commences.
+     *
+     * @param <T> the type of the elements
+     * @param spliterator the spliterator describing the elements
+     * @param parallel if true the stream is parallel, else sequential
+     * @return a stream of the spliterator's elements
+     */
+    public static <T> Stream<T> stream(Spliterator<T> spliterator,
+                                       boolean parallel) {
+        return new ReferencePipeline<T>(new Source.OfSpliterator<T>(spliterator),
+                                        parallel);
+    }
+
+    /**
+     * Returns a sequential stream of the specified values.
+     *
+     * @param <T> the type of the elements
+     * @param values the elements of the new stream
+     * @return the new stream
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs") // Creating a stream from an array is safe
+    public static <T> Stream<T> of(T... values) {
+        return stream(values, 0, values.length);
+    }
+
+    /**
+     * Returns a sequential stream of the elements of the specified
+     * range of the array.
+     *
+     * @param <T> the type of the elements
+     * @param array the array, assumed to be unmodified during use
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @return a stream of the array range
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *         if {@code fromIndex < 0} or {@code toIndex > array.length}
+     */
+    public static <T> Stream<T> stream(T[] array, int fromIndex, int toIndex) {
+        rangeCheck(array.length, fromIndex, toIndex);
+        return new ReferencePipeline<T>(new Source.OfArray(array, fromIndex, toIndex), false);
+    }
+
+    /**
+     * Returns a sequential stream of the elements of the specified
+     * range of the array.
+     *
+     * @param array the array, assumed to be unmodified during use
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @return a stream of the array range
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *         if {@code fromIndex < 0} or {@code toIndex > array.length}
+     */
+    public static IntStream stream(int[] array, int fromIndex, int toIndex) {
+        rangeCheck(array.length, fromIndex, toIndex);
+        return new IntPipeline(new Source.OfIntArray(array, fromIndex, toIndex), false);
+    }
+
+    /**
+     * Returns a sequential stream of the elements of the specified
+     * range of the array.
+     *
+     * @param array the array, assumed to be unmodified during use
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @return a stream of the array range
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *         if {@code fromIndex < 0} or {@code toIndex > array.length}
+     */
+    public static LongStream stream(long[] array, int fromIndex, int toIndex) {
+        rangeCheck(array.length, fromIndex, toIndex);
+        return new LongPipeline(new Source.OfLongArray(array, fromIndex, toIndex), false);
+    }
+
+    /**
+     * Returns a sequential stream of the elements of the specified
+     * range of the array.
+     *
+     * @param array the array, assumed to be unmodified during use
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex the index of the last element, exclusive
+     * @return a stream of the array range
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *         if {@code fromIndex < 0} or {@code toIndex > array.length}
+     */
+    public static DoubleStream stream(double[] array, int fromIndex, int toIndex) {
+        rangeCheck(array.length, fromIndex, toIndex);
+        return new DoublePipeline(new Source.OfDoubleArray(array, fromIndex, toIndex), false);
+    }
+
+    /**
+     * Returns a sequential stream of the {@code int} values from
+     * {@code fromInclusive} up to but not including {@code toExclusive};
+     * the stream is empty if {@code fromInclusive >= toExclusive}.
+     *
+     * @param fromInclusive the first value
+     * @param toExclusive the bound on the values
+     * @return a stream of the range of values
+     */
+    public static IntStream intRange(int fromInclusive, int toExclusive) {
+        return new IntPipeline(new Source.IntRange(
+            fromInclusive, Math.max(fromInclusive, toExclusive)), false);
+    }
+
+    /**
+     * Returns a sequential stream of the {@code long} values from
+     * {@code fromInclusive} up to but not including {@code toExclusive};
+     * the stream is empty if {@code fromInclusive >= toExclusive}.
+     *
+     * @param fromInclusive the first value
+     * @param toExclusive the bound on the values
+     * @return a stream of the range of values
+     */
+    public static LongStream longRange(long fromInclusive, long toExclusive) {
+        return new LongPipeline(new Source.LongRange(
+            fromInclusive, Math.max(fromInclusive, toExclusive)), false);
+    }
+
+    /**
+     * Checks that {@code fromIndex} and {@code toIndex} are in
+     * the range and throws an appropriate exception, if they aren't.
+     */
+    private static void rangeCheck(int length, int fromIndex, int toIndex) {
+        if (fromIndex > toIndex) {
+            throw new IllegalArgumentException(
+                "fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+        }
+        if (fromIndex < 0) {
+            throw new ArrayIndexOutOfBoundsException(fromIndex);
+        }
+        if (toIndex > length) {
+            throw new ArrayIndexOutOfBoundsException(toIndex);
+        }
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoublePredicate;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * An operation in a stream pipeline that produces a result from the
+ * elements of the stream.  Each sequential evaluation, or each leaf
+ * of a parallel evaluation, pushes its elements into a fresh
+ * {@link TerminalSink} from {@link #makeSink}; the results of adjacent
+ * parts are then merged by {@link #combine} in encounter order.
+ *
+ * <p>The operations that are not tied to an element shape take their
+ * function argument as an {@code Object} and let the sink's
+ * {@code accept} method for the pipeline's shape cast it to the
+ * matching functional interface.
+ *
+ * @param <R> the type of the result
+ * @since 1.7
+ */
+abstract class TerminalOp<R> {
+
+    /** Returns a new sink to accumulate the result of one part. */
+    abstract TerminalSink<R> makeSink();
+
+    /**
+     * Combines the results of two adjacent parts of a parallel
+     * evaluation, the left preceding the right in encounter order.
+     */
+    abstract R combine(R left, R right);
+
+    /**
+     * Returns true if this operation may produce its result without
+     * seeing all elements, so that the source must consult
+     * {@link Sink#cancellationRequested} between elements.
+     */
+    boolean isShortCircuit() {
+        return false;
+    }
+
+    /**
+     * For short-circuiting operations, returns true once the overall
+     * result is known, so that parts not yet started may be skipped.
+     * The skipped parts report a {@code null} result.
+     */
+    boolean isDone() {
+        return false;
+    }
+
+    /** A sink accumulating the result of a terminal operation. */
+    abstract static class TerminalSink<R> extends Sink<Object> {
+        /** Returns the result accumulated so far. */
+        abstract R get();
+    }
+
+    // Factories
+
+    /** Returns an operation performing the action on each element. */
+    static TerminalOp<Void> forEach(final Object action) {
+        if (action == null)
+            throw new NullPointerException();
+        return new TerminalOp<Void>() {
+            TerminalSink<Void> makeSink() {
+                return new ForEachSink(action);
+            }
+            Void combine(Void left, Void right) {
+                return null;
+            }
+        };
+    }
+
+    static final class ForEachSink extends TerminalSink<Void> {
+        private final Object action;
+        ForEachSink(Object action) { this.action = action; }
+        Void get() { return null; }
+        @SuppressWarnings("unchecked")
+        public void accept(Object t) { ((Consumer<Object>) action).accept(t); }
+        public void accept(int value) { ((IntConsumer) action).accept(value); }
+        public void accept(long value) { ((LongConsumer) action).accept(value); }
+        public void accept(double value) { ((DoubleConsumer) action).accept(value); }
+    }
+
+    /** Returns an operation counting the elements. */
+    static TerminalOp<Long> count() {
+        return new TerminalOp<Long>() {
+            TerminalSink<Long> makeSink() {
+                return new CountSink();
+            }
+            Long combine(Long left, Long right) {
+                return left + right;
+            }
+        };
+    }
+
+    static final class CountSink extends TerminalSink<Long> {
+        private long count;
+        Long get() { return count; }
+        public void accept(Object t) { ++count; }
+        public void accept(int value) { ++count; }
+        public void accept(long value) { ++count; }
+        public void accept(double value) { ++count; }
+    }
+
+    // Kinds of match operations
+    static final int MATCH_ANY  = 0;
+    static final int MATCH_ALL  = 1;
+    static final int MATCH_NONE = 2;
+
+    /**
+     * Returns an operation testing whether any, all, or no elements
+     * match the predicate.  Each part searches for a decisive element
+     * (one that matches for {@code MATCH_ANY} and {@code MATCH_NONE},
+     * or fails to match for {@code MATCH_ALL}); finding one ends the
+     * whole evaluation.
+     */
+    static boolean match(AbstractPipeline pipeline, int kind,
+                         Object predicate) {
+        if (predicate == null)
+            throw new NullPointerException();
+        Boolean found = pipeline.evaluate(new MatchOp(kind, predicate));
+        boolean seen = (found != null && found.booleanValue());
+        return (kind == MATCH_ANY) ? seen : !seen;
+    }
+
+    static final class MatchOp extends TerminalOp<Boolean> {
+        final boolean stopOnMatch;
+        final Object predicate;
+        volatile boolean done;
+
+        MatchOp(int kind, Object predicate) {
+            this.stopOnMatch = (kind != MATCH_ALL);
+            this.predicate = predicate;
+        }
+
+        TerminalSink<Boolean> makeSink() {
+            return new MatchSink(this);
+        }
+
+        Boolean combine(Boolean left, Boolean right) {
+            return Boolean.valueOf((left != null && left.booleanValue()) ||
+                                   (right != null && right.booleanValue()));
+        }
+
+        boolean isShortCircuit() {
+            return true;
+        }
+
+        boolean isDone() {
+            return done;
+        }
+    }
+
+    static final class MatchSink extends TerminalSink<Boolean> {
+        private final MatchOp op;
+        private boolean seen;
+
+        MatchSink(MatchOp op) { this.op = op; }
+
+        Boolean get() { return Boolean.valueOf(seen); }
+
+        boolean cancellationRequested() { return seen || op.done; }
+
+        private void test(boolean matched) {
+            if (matched == op.stopOnMatch)
+                seen = op.done = true;
+        }
+
+        @SuppressWarnings("unchecked")
+        public void accept(Object t) {
+            test(((Predicate<Object>) op.predicate).test(t));
+        }
+        public void accept(int value) {
+            test(((IntPredicate) op.predicate).test(value));
+        }
+        public void accept(long value) {
+            test(((LongPredicate) op.predicate).test(value));
+        }
+        public void accept(double value) {
+            test(((DoublePredicate) op.predicate).test(value));
+        }
+    }
+
+    /**
+     * Returns an operation folding the elements into a result, starting
+     * each part from the identity and merging parts with the combiner.
+     */
+    static <T, U> TerminalOp<U> reduce(final U identity,
+                                       final BiFunction<U, ? super T, U> accumulator,
+                                       final BinaryOperator<U> combiner) {
+        if (accumulator == null || combiner == null)
+            throw new NullPointerException();
+        return new TerminalOp<U>() {
+            TerminalSink<U> makeSink() {
+                return new TerminalSink<U>() {
+                    U state = identity;
+                    U get() { return state; }
+                    @SuppressWarnings("unchecked")
+                    public void accept(Object t) {
+                        state = accumulator.apply(state, (T) t);
+                    }
+                };
+            }
+            U combine(U left, U right) {
+                return combiner.apply(left, right);
+            }
+        };
+    }
+
+    /**
+     * Returns an operation accumulating the elements into mutable
+     * containers, merged with the combiner.  The caller applies any
+     * finishing function.
+     */
+    static <T, A> TerminalOp<A> collect(final Collector<? super T, A, ?> collector) {
+        final BiConsumer<A, ? super T> accumulator = collector.accumulator();
+        final BinaryOperator<A> combiner = collector.combiner();
+        final java.util.function.Supplier<A> supplier = collector.supplier();
+        return new TerminalOp<A>() {
+            TerminalSink<A> makeSink() {
+                return new TerminalSink<A>() {
+                    final A container = supplier.get();
+                    A get() { return container; }
+                    @SuppressWarnings("unchecked")
+                    public void accept(Object t) {
+                        ((BiConsumer<A, Object>) accumulator).accept(container, t);
+                    }
+                };
+            }
+            A combine(A left, A right) {
+                return combiner.apply(left, right);
+            }
+        };
+    }
+
+    /** Returns an operation folding {@code int} elements with op. */
+    static TerminalOp<Integer> reduce(final int identity,
+                                  final IntBinaryOperator op) {
+        if (op == null)
+            throw new NullPointerException();
+        return new TerminalOp<Integer>() {
+            TerminalSink<Integer> makeSink() {
+                return new TerminalSink<Integer>() {
+                    int state = identity;
+                    Integer get() { return state; }
+                    public void accept(int value) {
+                        state = op.applyAsInt(state, value);
+                    }
+                };
+            }
+            Integer combine(Integer left, Integer right) {
+                return op.applyAsInt(left, right);
+            }
+        };
+    }
+
+    /** Returns an operation folding {@code long} elements with op. */
+    static TerminalOp<Long> reduce(final long identity,
+                                  final LongBinaryOperator op) {
+        if (op == null)
+            throw new NullPointerException();
+        return new TerminalOp<Long>() {
+            TerminalSink<Long> makeSink() {
+                return new TerminalSink<Long>() {
+                    long state = identity;
+                    Long get() { return state; }
+                    public void accept(long value) {
+                        state = op.applyAsLong(state, value);
+                    }
+                };
+            }
+            Long combine(Long left, Long right) {
+                return op.applyAsLong(left, right);
+            }
+        };
+    }
+
+    /** Returns an operation folding {@code double} elements with op. */
+    static TerminalOp<Double> reduce(final double identity,
+                                  final DoubleBinaryOperator op) {
+        if (op == null)
+            throw new NullPointerException();
+        return new TerminalOp<Double>() {
+            TerminalSink<Double> makeSink() {
+                return new TerminalSink<Double>() {
+                    double state = identity;
+                    Double get() { return state; }
+                    public void accept(double value) {
+                        state = op.applyAsDouble(state, value);
+                    }
+                };
+            }
+            Double combine(Double left, Double right) {
+                return op.applyAsDouble(left, right);
+            }
+        };
+    }
+}
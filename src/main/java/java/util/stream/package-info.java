@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+/**
+ * Classes to support functional-style operations on streams of
+ * elements, such as filter/map/reduce transformations on collections
+ * and arrays.  For example:
+ *
+ * <pre> {@code
+ * int sumOfWeights = Streams.stream(blocks)
+ *                           .filter(isRed)
+ *                           .mapToInt(weightOf)
+ *                           .sum();}</pre>
+ *
+ * <p>A stream is obtained from a {@link java.util.Collection} or an
+ * array through the factories of {@link java.util.stream.Streams}
+ * and {@link java.util.Arrays#stream}.  Its <em>intermediate</em>
+ * operations ({@code filter}, {@code map}, {@code flatMap},
+ * {@code sorted}, {@code distinct}, {@code limit}) are lazy and return
+ * a new stream; its <em>terminal</em> operations ({@code forEach},
+ * {@code reduce}, {@code collect}, {@code anyMatch}, and others)
+ * traverse the source once, passing each element through all
+ * intermediate operations, and stop early when the result is already
+ * known.  {@link java.util.stream.IntStream},
+ * {@link java.util.stream.LongStream} and
+ * {@link java.util.stream.DoubleStream} carry primitive values
+ * without boxing.
+ *
+ * <p>Any stream may be made parallel, in which case its source is
+ * split and evaluated by tasks in the
+ * {@link java.util.concurrent.ForkJoinPool#commonPool common pool}.
+ * Stateful operations such as {@code sorted} then become barriers
+ * that first collect their input, and use the parallel sorting of
+ * {@link java.util.Arrays#parallelSort(Object[]) Arrays.parallelSort}.
+ * {@link java.util.stream.Collectors} provides common mutable
+ * reductions, such as grouping elements into maps.
+ *
+ * @since 1.7
+ */
+package java.util.stream;